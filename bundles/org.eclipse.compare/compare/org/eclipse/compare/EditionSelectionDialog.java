@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,12 +22,16 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 import org.eclipse.compare.internal.CompareContainer;
 import org.eclipse.compare.internal.CompareUIPlugin;
+import org.eclipse.compare.internal.DiffSummary;
+import org.eclipse.compare.internal.DiffSummaryCache;
 import org.eclipse.compare.internal.ResizableDialog;
 import org.eclipse.compare.internal.StructureCreatorDescriptor;
 import org.eclipse.compare.internal.Utilities;
@@ -99,6 +103,8 @@ import org.eclipse.swt.widgets.Widget;
 @Deprecated
 public class EditionSelectionDialog extends ResizableDialog {
 
+	private static final int MAX_SUMMARIES= 500;
+
 	/**
 	 * An item in an underlying edition.
 	 */
@@ -106,7 +112,7 @@ public class EditionSelectionDialog extends ResizableDialog {
 
 		private ITypedElement fEdition;
 		private ITypedElement fItem;
-		private String fContent;
+		private volatile String fContent;
 		private IStructureCreator fStructureCreator;
 		private boolean fHasError= false;
 
@@ -129,27 +135,32 @@ public class EditionSelectionDialog extends ResizableDialog {
 		}
 
 		/*
-		 * The content is lazily loaded
+		 * The content is lazily loaded, either by the UI thread or by the
+		 * threads computing the diff summaries. No lock is held while loading
+		 * so that the UI thread never waits for a summary thread; if both
+		 * load the content at the same time it is simply read twice.
 		 */
 		private String getContent() {
-			if (fContent == null) {
+			String content= fContent;
+			if (content == null) {
 				if (fStructureCreator != null)
-					fContent= fStructureCreator.getContents(fItem, false);
+					content= fStructureCreator.getContents(fItem, false);
 				else {
 					if (fItem instanceof IStreamContentAccessor) {
 						IStreamContentAccessor sca= (IStreamContentAccessor) fItem;
 						try {
-							fContent= Utilities.readString(sca);
+							content= Utilities.readString(sca);
 						} catch (CoreException ex) {
 							// NeedWork
 							CompareUIPlugin.log(ex);
 						}
 					}
 				}
-				if (fContent == null)
-					fContent= ""; //$NON-NLS-1$
+				if (content == null)
+					content= ""; //$NON-NLS-1$
+				fContent= content;
 			}
-			return fContent;
+			return content;
 		}
 
 		@Override
@@ -202,6 +213,10 @@ public class EditionSelectionDialog extends ResizableDialog {
 	private ITypedElement fSelectedItem;
 	private String fTitleArg;
 	private Image fTitleImage;
+	/** The diff summaries of the editions against the target in replace mode */
+	private DiffSummaryCache<ITypedElement> fSummaries;
+	/** Maps from editions to their pairs for the diff summaries */
+	private final Map<ITypedElement, Pair> fSummaryPairs= Collections.synchronizedMap(new IdentityHashMap<>());
 
 	// SWT controls
 	private CompareViewerSwitchingPane fContentPane;
@@ -762,6 +777,10 @@ public class EditionSelectionDialog extends ResizableDialog {
 					fTimeImage.dispose();
 					fTimeImage= null;
 				}
+				if (fSummaries != null) {
+					fSummaries.dispose();
+					fSummaries= null;
+				}
 			}
 		);
 
@@ -847,6 +866,15 @@ public class EditionSelectionDialog extends ResizableDialog {
 		);
 		fEditionPane.setContent(fEditionTree);
 
+		if (!fAddMode) {
+			// compute the diff summaries of the editions in the background
+			final Display display= fEditionTree.getDisplay();
+			fSummaries= new DiffSummaryCache<>(
+				edition -> edition == null ? fTargetPair.getContent() : fSummaryPairs.get(edition).getContent(),
+				edition -> display.asyncExec(() -> updateEditionLabel(edition)),
+				MAX_SUMMARIES);
+		}
+
 		// now start the thread (and forget about it)
 		if (fThread != null) {
 			fThread.start();
@@ -1056,10 +1084,15 @@ public class EditionSelectionDialog extends ResizableDialog {
 		TreeItem ti= new TreeItem(lastDay, SWT.NONE);
 		ti.setImage(getEditionImage(edition, item));
 
-		String s= getShortEditionLabel(edition, item, date);
-		if (pair.fHasError) {
-			String pattern= Utilities.getString(fBundle, "parseErrorFormat"); //$NON-NLS-1$
-			s= MessageFormat.format(pattern, s);
+		String s= getEditionItemLabel(pair, date);
+		if (fSummaries != null && !pair.fHasError) {
+			DiffSummary summary= fSummaries.getSummary(edition);
+			if (summary != null) {
+				s= summary.format(s);
+			} else {
+				fSummaryPairs.put(edition, pair);
+				fSummaries.summarize(Collections.singletonList(edition));
+			}
 		}
 		ti.setText(s);
 
@@ -1087,6 +1120,36 @@ public class EditionSelectionDialog extends ResizableDialog {
 			lastDay.setExpanded(true);
 	}
 
+	private String getEditionItemLabel(Pair pair, Date date) {
+		String s= getShortEditionLabel(pair.getEdition(), pair.getItem(), date);
+		if (pair.fHasError) {
+			String pattern= Utilities.getString(fBundle, "parseErrorFormat"); //$NON-NLS-1$
+			s= MessageFormat.format(pattern, s);
+		}
+		return s;
+	}
+
+	/*
+	 * Appends the diff summary to the label of the tree item showing the given edition.
+	 */
+	private void updateEditionLabel(ITypedElement edition) {
+		if (fEditionTree == null || fEditionTree.isDisposed() || fSummaries == null)
+			return;
+		DiffSummary summary= fSummaries.getSummary(edition);
+		if (summary == null)
+			return;
+		for (TreeItem day : fEditionTree.getItems()) {
+			for (TreeItem ti : day.getItems()) {
+				Object data= ti.getData();
+				if (data instanceof Pair && ((Pair) data).getEdition() == edition) {
+					Date date= new Date(((IModificationDate) edition).getModificationDate());
+					ti.setText(summary.format(getEditionItemLabel((Pair) data, date)));
+					return;
+				}
+			}
+		}
+	}
+
 	/*
 	 * Feeds selection from member viewer to edition viewer.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.compare.CompareConfiguration;
 import org.eclipse.compare.CompareNavigator;
@@ -486,6 +487,8 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 	// whether enhanced viewer configuration has been done
 	private boolean isConfigured = false;
 	private boolean fRedoDiff = false;
+	/** Set while a refresh for token diffs computed in the background is scheduled */
+	private final AtomicBoolean fTokenDiffRefreshPending = new AtomicBoolean();
 
 	private final class InternalOutlineViewerCreator extends OutlineViewerCreator implements ISelectionChangedListener {
 		@Override
@@ -1590,6 +1593,8 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 				return TextMergeViewer.this.isPatchHunkOk();
 			}
 		});
+		Display display= parent.getDisplay();
+		fMerger.setTokenDiffListener(() -> scheduleTokenDiffRefresh(display));
 
 		int inheritedStyle= parent.getStyle();
 		if ((inheritedStyle & SWT.LEFT_TO_RIGHT) != 0)
@@ -3118,6 +3123,7 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 	 */
 	private void documentChanged(DocumentEvent e, boolean dirty) {
 		final IDocument doc= e.getDocument();
+		fMerger.documentChanged(e);
 
 		if (doc == fLeft.getSourceViewer().getDocument()) {
 			setLeftDirty(dirty);
@@ -4202,6 +4208,21 @@ public class TextMergeViewer extends ContentMergeViewer implements IAdaptable {
 		}
 	}
 
+	/*
+	 * Called in a background thread when token diffs have been computed.
+	 * The refreshes of all the token diffs computed before the UI thread
+	 * gets to it are done at once.
+	 */
+	private void scheduleTokenDiffRefresh(Display display) {
+		if (!fTokenDiffRefreshPending.compareAndSet(false, true) || display.isDisposed())
+			return;
+		display.asyncExec(() -> {
+			fTokenDiffRefreshPending.set(false);
+			if (fHighlightTokenChanges && Utilities.okToUse(getControl()))
+				invalidateTextPresentation();
+		});
+	}
+
 	private void invalidateLines() {
 		if (isThreeWay() && isAncestorVisible()) {
 			if (Utilities.okToUse(fAncestorCanvas))
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,28 +25,73 @@ import org.eclipse.compare.IStreamContentAccessor;
 import org.eclipse.compare.ITypedElement;
 import org.eclipse.compare.structuremergeviewer.ICompareInput;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.RowLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.ui.PlatformUI;
 
 /**
  * A simple compare viewer for binary files.
- * Shows the position of the first non-matching byte.
+ * Shows the position of the first non-matching byte, the number of differing
+ * regions and the sizes of the files if they differ. The files are compared
+ * in the background.
  */
 public class BinaryCompareViewer extends AbstractViewer {
 
 	private static final String BUNDLE_NAME = "org.eclipse.compare.internal.BinaryCompareViewerResources"; //$NON-NLS-1$
 
-	private static final int EOF = -1;
 	private ICompareInput fInput;
 	private ResourceBundle fBundle;
 
 	private Composite fComposite;
 	private Label fMessage;
 	private CompareConfiguration compareConfiguration;
+	private Display fDisplay;
+	private Job fComparisonJob;
+
+	/*
+	 * Compares the contents of an input and shows the result if the input
+	 * is still shown when the comparison is done.
+	 */
+	private class ComparisonJob extends Job {
+		private final ICompareInput fJobInput;
+
+		ComparisonJob(ICompareInput input) {
+			super(Utilities.getString(fBundle, "comparingMessage")); //$NON-NLS-1$
+			fJobInput= input;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				showMessage(compare(fJobInput, monitor));
+			} catch (OperationCanceledException e) {
+				// Replace the progress message unless another input is already shown
+				showMessage(Utilities.getString(fBundle, "cancelledMessage")); //$NON-NLS-1$
+				return Status.CANCEL_STATUS;
+			}
+			return Status.OK_STATUS;
+		}
+
+		private void showMessage(String message) {
+			if (fDisplay.isDisposed())
+				return;
+			fDisplay.asyncExec(() -> {
+				if (!fComposite.isDisposed() && fInput == fJobInput) {
+					fMessage.setText(message);
+					fComposite.layout();
+				}
+			});
+		}
+	}
 
 	public BinaryCompareViewer(Composite parent, final CompareConfiguration cc) {
 
@@ -57,6 +102,8 @@ public class BinaryCompareViewer extends AbstractViewer {
 		fBundle= ResourceBundle.getBundle(BUNDLE_NAME);
 
 		fComposite= new Composite(parent, SWT.NONE);
+		fComposite.addDisposeListener(e -> cancelComparison());
+		fDisplay= fComposite.getDisplay();
 		RowLayout rowLayout = new RowLayout();
 		rowLayout.type = SWT.VERTICAL;
 		fComposite.setLayout(rowLayout);
@@ -81,49 +128,76 @@ public class BinaryCompareViewer extends AbstractViewer {
 	public void setInput(Object input) {
 		if (fComposite != null && input instanceof ICompareInput) {
 			fInput= (ICompareInput) input;
+			cancelComparison();
+			fMessage.setText(Utilities.getString(fBundle, "comparingMessage")); //$NON-NLS-1$
+			fComposite.layout();
+			fComparisonJob= new ComparisonJob(fInput);
+			fComparisonJob.schedule();
+		}
+	}
 
-			InputStream left= null;
-			InputStream right= null;
+	private void cancelComparison() {
+		if (fComparisonJob != null) {
+			fComparisonJob.cancel();
+			fComparisonJob= null;
+		}
+	}
 
-			String message= null;
-			try {
-				left= getStream(fInput.getLeft());
-				right= getStream(fInput.getRight());
-
-				if (left != null && right != null) {
-					int pos= 0;
-					while (true) {
-						int l= left.read();
-						int r= right.read();
-						if (l != r) {
-							String format= Utilities.getString(fBundle, "diffMessageFormat"); //$NON-NLS-1$
-							message= MessageFormat.format(format, Integer.toString(pos) );
-							break;
-						}
-						if (l == EOF)
-							break;
-						pos++;
-					}
-				} else if (left == null && right == null) {
-					message= Utilities.getString(fBundle, "deleteConflictMessage"); //$NON-NLS-1$
-				} else if (left == null) {
-					message= Utilities.getString(fBundle, compareConfiguration.isMirrored() ?
-							"addedMessage" : "deletedMessage"); //$NON-NLS-1$ //$NON-NLS-2$
-				} else if (right == null) {
-					message= Utilities.getString(fBundle, compareConfiguration.isMirrored() ?
-							"deletedMessage" : "addedMessage"); //$NON-NLS-1$ //$NON-NLS-2$
-				}
-			} catch (CoreException | IOException ex) {
-				message = Utilities.getString(fBundle, "errorMessage"); //$NON-NLS-1$
-				CompareUIPlugin.log(ex);
-			} finally {
-				Utilities.close(left);
-				Utilities.close(right);
+	/*
+	 * Compares the contents of the given input and returns the message describing the result.
+	 */
+	private String compare(ICompareInput input, IProgressMonitor monitor) {
+		InputStream left= null;
+		InputStream right= null;
+
+		String message= null;
+		try {
+			left= getStream(input.getLeft());
+			right= getStream(input.getRight());
+
+			if (left != null && right != null) {
+				BinaryComparison comparison= BinaryComparison.compare(left, right, monitor);
+				message= getMessage(comparison);
+			} else if (left == null && right == null) {
+				message= Utilities.getString(fBundle, "deleteConflictMessage"); //$NON-NLS-1$
+			} else if (left == null) {
+				message= Utilities.getString(fBundle, compareConfiguration.isMirrored() ?
+						"addedMessage" : "deletedMessage"); //$NON-NLS-1$ //$NON-NLS-2$
+			} else if (right == null) {
+				message= Utilities.getString(fBundle, compareConfiguration.isMirrored() ?
+						"deletedMessage" : "addedMessage"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			if (message != null)
-				fMessage.setText(message);
-			fComposite.layout();
+		} catch (CoreException | IOException ex) {
+			message = Utilities.getString(fBundle, "errorMessage"); //$NON-NLS-1$
+			CompareUIPlugin.log(ex);
+		} finally {
+			Utilities.close(left);
+			Utilities.close(right);
+		}
+		return message;
+	}
+
+	private String getMessage(BinaryComparison comparison) {
+		if (comparison.isEqual())
+			return Utilities.getString(fBundle, "noDiffMessage"); //$NON-NLS-1$
+		StringBuilder message= new StringBuilder();
+		String format= Utilities.getString(fBundle, "diffMessageFormat"); //$NON-NLS-1$
+		message.append(MessageFormat.format(format, Long.toString(comparison.getFirstDifference())));
+		if (comparison.getDifferenceCount() > 0) {
+			format= Utilities.getString(fBundle, "diffCountMessageFormat"); //$NON-NLS-1$
+			message.append('\n').append(MessageFormat.format(format, Long.toString(comparison.getDifferenceCount())));
+		}
+		if (comparison.getLeftLength() != comparison.getRightLength()) {
+			long leftLength= comparison.getLeftLength();
+			long rightLength= comparison.getRightLength();
+			if (compareConfiguration.isMirrored()) {
+				leftLength= comparison.getRightLength();
+				rightLength= comparison.getLeftLength();
+			}
+			format= Utilities.getString(fBundle, "sizeMessageFormat"); //$NON-NLS-1$
+			message.append('\n').append(MessageFormat.format(format, Long.toString(leftLength), Long.toString(rightLength)));
 		}
+		return message.toString();
 	}
 
 	@Override
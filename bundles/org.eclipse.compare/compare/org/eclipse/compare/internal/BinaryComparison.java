@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Compares the bytes of two streams block by block.
+ * <p>
+ * A comparison records the offset of the first differing byte, the number of
+ * differing regions (runs of differing bytes within the length common to both
+ * streams) and the length of both streams.
+ * </p>
+ */
+public class BinaryComparison {
+
+	private static final int BLOCK_SIZE= 64 * 1024;
+
+	private long fFirstDifference= -1;
+	private long fDifferenceCount;
+	private long fLeftLength;
+	private long fRightLength;
+
+	private BinaryComparison() {
+		// use the static factory methods
+	}
+
+	/**
+	 * Compares the contents of the given streams completely. The streams are
+	 * not closed.
+	 *
+	 * @param left the left stream
+	 * @param right the right stream
+	 * @param monitor a progress monitor or <code>null</code>
+	 * @return the result of the comparison
+	 * @throws IOException if one of the streams cannot be read
+	 * @throws OperationCanceledException if the monitor is canceled
+	 */
+	public static BinaryComparison compare(InputStream left, InputStream right, IProgressMonitor monitor) throws IOException {
+		BinaryComparison comparison= new BinaryComparison();
+		comparison.run(left, right, false, monitor != null ? monitor : new NullProgressMonitor());
+		return comparison;
+	}
+
+	/**
+	 * Returns whether the given streams have the same contents. Reading stops
+	 * at the first difference. The streams are not closed.
+	 *
+	 * @param left the left stream
+	 * @param right the right stream
+	 * @return <code>true</code> if the contents are identical
+	 * @throws IOException if one of the streams cannot be read
+	 */
+	public static boolean contentsEqual(InputStream left, InputStream right) throws IOException {
+		BinaryComparison comparison= new BinaryComparison();
+		comparison.run(left, right, true, new NullProgressMonitor());
+		return comparison.isEqual();
+	}
+
+	private void run(InputStream left, InputStream right, boolean stopAtFirst, IProgressMonitor monitor) throws IOException {
+		byte[] leftBlock= new byte[BLOCK_SIZE];
+		byte[] rightBlock= new byte[BLOCK_SIZE];
+		boolean inDifference= false;
+		long offset= 0;
+		monitor.beginTask(null, IProgressMonitor.UNKNOWN);
+		try {
+			while (true) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				int leftCount= readBlock(left, leftBlock);
+				int rightCount= readBlock(right, rightBlock);
+				int common= Math.min(leftCount, rightCount);
+				int i= 0;
+				while (i < common) {
+					int mismatch= Arrays.mismatch(leftBlock, i, common, rightBlock, i, common);
+					if (mismatch == -1) {
+						inDifference= false;
+						break;
+					}
+					if (mismatch > 0)
+						inDifference= false;
+					i+= mismatch;
+					if (!inDifference) {
+						fDifferenceCount++;
+						if (fFirstDifference == -1)
+							fFirstDifference= offset + i;
+						if (stopAtFirst)
+							return;
+						inDifference= true;
+					}
+					while (i < common && leftBlock[i] != rightBlock[i])
+						i++;
+				}
+				offset+= common;
+				monitor.worked(1);
+				if (leftCount < BLOCK_SIZE || rightCount < BLOCK_SIZE) {
+					// At least one of the streams has ended
+					fLeftLength= offset + leftCount - common;
+					fRightLength= offset + rightCount - common;
+					if (leftCount != rightCount) {
+						if (fFirstDifference == -1)
+							fFirstDifference= offset;
+						if (stopAtFirst)
+							return;
+						if (leftCount == BLOCK_SIZE)
+							fLeftLength+= skipRemaining(left, leftBlock, monitor);
+						else if (rightCount == BLOCK_SIZE)
+							fRightLength+= skipRemaining(right, rightBlock, monitor);
+					}
+					return;
+				}
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/*
+	 * Fills the given block from the stream and returns the number of bytes read.
+	 * The block is only partially filled at the end of the stream.
+	 */
+	private static int readBlock(InputStream in, byte[] block) throws IOException {
+		int count= 0;
+		while (count < block.length) {
+			int n= in.read(block, count, block.length - count);
+			if (n == -1)
+				break;
+			count+= n;
+		}
+		return count;
+	}
+
+	private static long skipRemaining(InputStream in, byte[] buffer, IProgressMonitor monitor) throws IOException {
+		long count= 0;
+		int n;
+		while ((n= in.read(buffer)) != -1) {
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			count+= n;
+			monitor.worked(1);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns whether the compared contents are identical.
+	 *
+	 * @return <code>true</code> if the contents are identical
+	 */
+	public boolean isEqual() {
+		return fFirstDifference == -1;
+	}
+
+	/**
+	 * Returns the offset of the first byte that differs or that is only
+	 * contained in the longer stream, or -1 if the contents are identical.
+	 *
+	 * @return the offset of the first difference or -1
+	 */
+	public long getFirstDifference() {
+		return fFirstDifference;
+	}
+
+	/**
+	 * Returns the number of runs of differing bytes within the length common
+	 * to both streams. Bytes beyond the end of the shorter stream are not counted.
+	 *
+	 * @return the number of differing regions
+	 */
+	public long getDifferenceCount() {
+		return fDifferenceCount;
+	}
+
+	public long getLeftLength() {
+		return fLeftLength;
+	}
+
+	public long getRightLength() {
+		return fRightLength;
+	}
+}
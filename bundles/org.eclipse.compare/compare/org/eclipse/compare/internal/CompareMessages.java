@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -132,6 +132,8 @@ public final class CompareMessages extends NLS {
 
 	public static String ReaderCreator_fileIsNotAccessible;
 
+	public static String DiffSummary_format;
+
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, CompareMessages.class);
 	}
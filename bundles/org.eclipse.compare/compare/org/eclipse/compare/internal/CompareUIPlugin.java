@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,12 +22,14 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +37,7 @@ import java.util.Map.Entry;
 import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Supplier;
 
 import org.eclipse.compare.CompareConfiguration;
 import org.eclipse.compare.CompareEditorInput;
@@ -193,6 +196,28 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 		}
 	}
 
+	/*
+	 * The key of the viewer descriptors resolved for a kind of viewer and the
+	 * content types and types of the compared elements.
+	 */
+	private static final class DescriptorKey {
+		private final Object[] fParts;
+
+		DescriptorKey(Object... parts) {
+			fParts= parts;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof DescriptorKey && Arrays.equals(fParts, ((DescriptorKey) obj).fParts);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(fParts);
+		}
+	}
+
 	/** Status code describing an internal error */
 	public static final int INTERNAL_ERROR= 1;
 
@@ -222,6 +247,14 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 
 	private static final String CONTENT_TYPE_BINDING= "contentTypeBinding"; //$NON-NLS-1$
 
+	// The kinds of resolved viewer descriptors
+	private static final String CONTENT_VIEWERS= "contentViewers"; //$NON-NLS-1$
+	private static final String CONTENT_MERGE_VIEWERS= "contentMergeViewers"; //$NON-NLS-1$
+	private static final String STRUCTURE_MERGE_VIEWERS= "structureMergeViewers"; //$NON-NLS-1$
+
+	// The maximum number of resolved viewer descriptors that are remembered
+	private static final int MAX_RESOLVED_DESCRIPTORS= 256;
+
 
 	private static final String COMPARE_EDITOR= PLUGIN_ID + ".CompareEditor"; //$NON-NLS-1$
 
@@ -257,6 +290,14 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 	private CompareRegistry<CompareFilterDescriptor> fCompareFilters = new CompareRegistry<>();
 
 	private Map<String, String> fStructureViewerAliases;
+	private final Map<DescriptorKey, ViewerDescriptor[]> fResolvedDescriptors= new LinkedHashMap<DescriptorKey, ViewerDescriptor[]>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<DescriptorKey, ViewerDescriptor[]> eldest) {
+			return size() > MAX_RESOLVED_DESCRIPTORS;
+		}
+	};
+	private int fResolvedDescriptorsGeneration;
 	private CompareResourceFilter fFilter;
 	private IPropertyChangeListener fPropertyChangeListener;
 
@@ -810,10 +851,16 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 		if (input == null || input.getLeft() == null || input.getRight() == null)
 			return null;
 
+		IContentType ctype= getCommonType(input);
+		String[] types= getTypes(input);
+		return getResolvedDescriptors(new DescriptorKey(STRUCTURE_MERGE_VIEWERS, ctype, Arrays.asList(types)),
+				() -> resolveStructureViewerDescriptors(ctype, types));
+	}
+
+	private ViewerDescriptor[] resolveStructureViewerDescriptors(IContentType ctype, String[] types) {
 		Set<ViewerDescriptor> result = new LinkedHashSet<>();
 
 		// content type search
-		IContentType ctype= getCommonType(input);
 		if (ctype != null) {
 			initializeRegistries();
 			List<ViewerDescriptor> list = fStructureMergeViewers.searchAll(ctype);
@@ -822,7 +869,6 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 		}
 
 		// old style search
-		String[] types= getTypes(input);
 		String type= null;
 		if (isHomogenous(types)) {
 			type= normalizeCase(types[0]);
@@ -985,33 +1031,22 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 	}
 
 	public ViewerDescriptor[] findContentViewerDescriptor(Viewer oldViewer, Object in, CompareConfiguration cc) {
-		Set<ViewerDescriptor> result = new LinkedHashSet<>();
 		if (in instanceof IStreamContentAccessor) {
 			String type= ITypedElement.TEXT_TYPE;
+			IContentType ct= null;
 
 			if (in instanceof ITypedElement) {
 				ITypedElement tin= (ITypedElement) in;
-
-				IContentType ct= getContentType(tin);
-				if (ct != null) {
-					initializeRegistries();
-					List<ViewerDescriptor> list = fContentViewers.searchAll(ct);
-					if (list != null)
-						result.addAll(list);
-				}
-
+				ct= getContentType(tin);
 				String ty= tin.getType();
 				if (ty != null)
 					type= ty;
 			}
 
-			initializeRegistries();
-			List<ViewerDescriptor> list = fContentViewers.searchAll(type);
-			if (list != null)
-				result.addAll(list);
-			// fallback
-			result.add(fContentViewers.search(Platform.getContentTypeManager().getContentType(IContentTypeManager.CT_TEXT)));
-			return result.toArray(new ViewerDescriptor[0]);
+			IContentType contentType= ct;
+			String elementType= type;
+			return getResolvedDescriptors(new DescriptorKey(CONTENT_VIEWERS, contentType, elementType),
+					() -> resolveContentViewerDescriptors(contentType, elementType));
 		}
 
 		if (!(in instanceof ICompareInput))
@@ -1020,6 +1055,36 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 		ICompareInput input= (ICompareInput) in;
 
 		IContentType ctype = getCommonType(input);
+		String[] types= getTypes(input);
+		if (isHomogenous(types) && ITypedElement.FOLDER_TYPE.equals(types[0]))
+			return null;
+
+		String leftType= guessType(input.getLeft());
+		String rightType= guessType(input.getRight());
+		return getResolvedDescriptors(new DescriptorKey(CONTENT_MERGE_VIEWERS, ctype, Arrays.asList(types), leftType, rightType),
+				() -> resolveContentMergeViewerDescriptors(ctype, types, leftType, rightType));
+	}
+
+	private ViewerDescriptor[] resolveContentViewerDescriptors(IContentType ct, String type) {
+		Set<ViewerDescriptor> result = new LinkedHashSet<>();
+		initializeRegistries();
+		if (ct != null) {
+			List<ViewerDescriptor> list = fContentViewers.searchAll(ct);
+			if (list != null)
+				result.addAll(list);
+		}
+
+		List<ViewerDescriptor> list = fContentViewers.searchAll(type);
+		if (list != null)
+			result.addAll(list);
+		// fallback
+		result.add(fContentViewers.search(Platform.getContentTypeManager().getContentType(IContentTypeManager.CT_TEXT)));
+		return result.toArray(new ViewerDescriptor[0]);
+	}
+
+	private ViewerDescriptor[] resolveContentMergeViewerDescriptors(IContentType ctype, String[] types,
+			String leftType, String rightType) {
+		Set<ViewerDescriptor> result = new LinkedHashSet<>();
 		if (ctype != null) {
 			initializeRegistries();
 			List<ViewerDescriptor> list = fContentMergeViewers.searchAll(ctype);
@@ -1027,14 +1092,10 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 				result.addAll(list);
 		}
 
-		String[] types= getTypes(input);
 		String type= null;
 		if (isHomogenous(types))
 			type= types[0];
 
-		if (ITypedElement.FOLDER_TYPE.equals(type))
-			return null;
-
 		if (type == null) {
 			int n= 0;
 			for (String t : types) {
@@ -1057,9 +1118,6 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 		}
 
 		// fallback
-		String leftType= guessType(input.getLeft());
-		String rightType= guessType(input.getRight());
-
 		if (leftType != null || rightType != null) {
 			boolean right_text = ITypedElement.TEXT_TYPE.equals(rightType);
 			boolean left_text = ITypedElement.TEXT_TYPE.equals(leftType);
@@ -1079,6 +1137,40 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 		return result.isEmpty() ? null : result.toArray(new ViewerDescriptor[0]);
 	}
 
+	/*
+	 * Returns the viewer descriptors remembered for the given key or resolves
+	 * them from the registries. The resolution only depends on the key so
+	 * comparing many elements of the same types resolves the descriptors once.
+	 */
+	private ViewerDescriptor[] getResolvedDescriptors(DescriptorKey key, Supplier<ViewerDescriptor[]> resolver) {
+		int generation;
+		synchronized (fResolvedDescriptors) {
+			if (fResolvedDescriptors.containsKey(key)) {
+				ViewerDescriptor[] descriptors= fResolvedDescriptors.get(key);
+				return descriptors != null ? descriptors.clone() : null;
+			}
+			generation= fResolvedDescriptorsGeneration;
+		}
+		ViewerDescriptor[] descriptors= resolver.get();
+		synchronized (fResolvedDescriptors) {
+			// The descriptors are stale if the registries changed in the meantime
+			if (generation == fResolvedDescriptorsGeneration)
+				fResolvedDescriptors.put(key, descriptors);
+		}
+		return descriptors != null ? descriptors.clone() : null;
+	}
+
+	/*
+	 * Forgets the resolved viewer descriptors, e.g. because the structure viewer
+	 * aliases changed.
+	 */
+	private void resetResolvedDescriptors() {
+		synchronized (fResolvedDescriptors) {
+			fResolvedDescriptors.clear();
+			fResolvedDescriptorsGeneration++;
+		}
+	}
+
 	/**
 	 * Returns a content compare viewer based on an old viewer and an input object.
 	 * If the old viewer is suitable for showing the input the old viewer
@@ -1310,6 +1402,7 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 
 	public void addStructureViewerAlias(String type, String alias) {
 		getStructureViewerAliases().put(normalizeCase(alias), normalizeCase(type));
+		resetResolvedDescriptors();
 	}
 
 	private Map<String, String> getStructureViewerAliases() {
@@ -1342,6 +1435,7 @@ public final class CompareUIPlugin extends AbstractUIPlugin {
 			if (entry.getValue().equals(t))
 				iter.remove();
 		}
+		resetResolvedDescriptors();
 	}
 
 	/*
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal;
+
+import org.eclipse.compare.rangedifferencer.RangeDifference;
+import org.eclipse.compare.rangedifferencer.RangeDifferencer;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.text.Document;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * The number of lines added, removed and changed in an edition with respect
+ * to a base edition.
+ */
+public final class DiffSummary {
+
+	private final int fAdded;
+	private final int fRemoved;
+	private final int fChanged;
+
+	public DiffSummary(int added, int removed, int changed) {
+		fAdded= added;
+		fRemoved= removed;
+		fChanged= changed;
+	}
+
+	/**
+	 * Compares the lines of the given edition with the lines of the base.
+	 * Changed ranges count their common number of lines as changed and the
+	 * remaining lines as added or removed.
+	 *
+	 * @param base the contents of the base edition
+	 * @param edition the contents of the edition
+	 * @param monitor a progress monitor or <code>null</code>
+	 * @return the summary of the differences
+	 */
+	public static DiffSummary compute(String base, String edition, IProgressMonitor monitor) {
+		DocLineComparator left= new DocLineComparator(new Document(edition), null, false);
+		DocLineComparator right= new DocLineComparator(new Document(base), null, false);
+		RangeDifference[] differences= RangeDifferencer.findDifferences(monitor, left, right);
+		int added= 0, removed= 0, changed= 0;
+		for (RangeDifference difference : differences) {
+			int editionLines= difference.leftLength();
+			int baseLines= difference.rightLength();
+			changed+= Math.min(editionLines, baseLines);
+			if (editionLines > baseLines)
+				added+= editionLines - baseLines;
+			else
+				removed+= baseLines - editionLines;
+		}
+		return new DiffSummary(added, removed, changed);
+	}
+
+	public int getAdded() {
+		return fAdded;
+	}
+
+	public int getRemoved() {
+		return fRemoved;
+	}
+
+	public int getChanged() {
+		return fChanged;
+	}
+
+	public boolean isEmpty() {
+		return fAdded == 0 && fRemoved == 0 && fChanged == 0;
+	}
+
+	/**
+	 * Returns the given label of the edition followed by this summary.
+	 *
+	 * @param label the label of the edition
+	 * @return the label with this summary
+	 */
+	public String format(String label) {
+		return NLS.bind(CompareMessages.DiffSummary_format, new Object[] { label,
+				Integer.toString(fAdded), Integer.toString(fRemoved), Integer.toString(fChanged) });
+	}
+}
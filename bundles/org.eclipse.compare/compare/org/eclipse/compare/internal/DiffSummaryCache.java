@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.internal;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Computes the {@link DiffSummary diff summaries} of editions against a base
+ * edition in the background and remembers the most recently used ones.
+ * The editions are loaded and compared in parallel on a small pool of threads
+ * shared by all caches. The listener is notified from these threads when the
+ * summary of an edition is available. Editions that cannot be summarized (e.g.
+ * because they cannot be read) are remembered as well, so they are not tried again.
+ *
+ * @param <T> the type of the editions
+ */
+public class DiffSummaryCache<T> {
+
+	/**
+	 * Loads the contents of the editions.
+	 *
+	 * @param <T> the type of the editions
+	 */
+	public interface ContentLoader<T> {
+		/**
+		 * Returns the contents of the given edition.
+		 *
+		 * @param edition an edition or <code>null</code> for the base edition
+		 * @return the contents or <code>null</code> if the edition has no contents
+		 * @throws CoreException if the contents cannot be read
+		 */
+		String getContents(T edition) throws CoreException;
+	}
+
+	private static final int MAX_THREADS= 4;
+
+	private static ExecutorService fgExecutor;
+
+	private final ContentLoader<T> fLoader;
+	private final Consumer<T> fListener;
+	// Editions without a summary are mapped to null
+	private final Map<T, DiffSummary> fSummaries;
+	private final Map<T, Future<?>> fPending= new HashMap<>();
+	private final NullProgressMonitor fMonitor= new NullProgressMonitor();
+	// Guards the loading of the base contents
+	private final Object fBaseLock= new Object();
+	private String fBaseContents;
+	private boolean fBaseLoaded;
+
+	/**
+	 * Creates a cache for the summaries of editions against a base edition.
+	 *
+	 * @param loader loads the contents of the editions and of the base edition
+	 * @param listener notified when the summary of an edition is available
+	 * @param maxEntries the maximum number of summaries to remember
+	 */
+	public DiffSummaryCache(ContentLoader<T> loader, Consumer<T> listener, int maxEntries) {
+		fLoader= loader;
+		fListener= listener;
+		fSummaries= new LinkedHashMap<T, DiffSummary>(16, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<T, DiffSummary> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (fgExecutor == null) {
+			int threads= Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+			ThreadPoolExecutor executor= new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread= new Thread(runnable, "Compare Diff Summaries"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+			fgExecutor= executor;
+		}
+		return fgExecutor;
+	}
+
+	/**
+	 * Returns the summary of the given edition or <code>null</code> if it is
+	 * not computed yet.
+	 *
+	 * @param edition an edition
+	 * @return the summary or <code>null</code>
+	 */
+	public synchronized DiffSummary getSummary(T edition) {
+		return fSummaries.get(edition);
+	}
+
+	/**
+	 * Computes the summaries of the given editions in the background unless
+	 * they are known or already being computed.
+	 *
+	 * @param editions the editions, most important first
+	 */
+	public synchronized void summarize(Iterable<T> editions) {
+		if (fMonitor.isCanceled())
+			return;
+		for (T edition : editions) {
+			if (!fSummaries.containsKey(edition) && !fPending.containsKey(edition)) {
+				fPending.put(edition, getExecutor().submit(() -> summarizeEdition(edition)));
+			}
+		}
+	}
+
+	private void summarizeEdition(T edition) {
+		DiffSummary summary= null;
+		try {
+			String base= getBaseContents();
+			String contents= fLoader.getContents(edition);
+			if (base != null && contents != null && !fMonitor.isCanceled())
+				summary= DiffSummary.compute(base, contents, fMonitor);
+		} catch (CoreException e) {
+			// no summary is shown for editions that cannot be read
+		} catch (OperationCanceledException e) {
+			// the cache was disposed
+		}
+		synchronized (this) {
+			fPending.remove(edition);
+			if (fMonitor.isCanceled())
+				return;
+			fSummaries.put(edition, summary);
+		}
+		if (summary != null)
+			fListener.accept(edition);
+	}
+
+	private String getBaseContents() throws CoreException {
+		// The base is loaded by the first task that needs it
+		// and is not loaded again if that fails
+		synchronized (fBaseLock) {
+			if (!fBaseLoaded) {
+				fBaseLoaded= true;
+				fBaseContents= fLoader.getContents(null);
+			}
+			return fBaseContents;
+		}
+	}
+
+	/**
+	 * Cancels the computations in progress. No further summaries are computed.
+	 */
+	public synchronized void dispose() {
+		fMonitor.setCanceled(true);
+		for (Iterator<Future<?>> iterator= fPending.values().iterator(); iterator.hasNext();) {
+			iterator.next().cancel(false);
+			iterator.remove();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,7 +16,6 @@ package org.eclipse.compare.internal;
 import org.eclipse.compare.ICompareFilter;
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
-import org.eclipse.core.internal.expressions.util.LRUCache;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -28,6 +27,9 @@ import org.eclipse.jface.text.IRegion;
  * <p>
  * A <code>DocLineComparator</code> doesn't know anything about line separators because
  * its notion of lines is solely defined in the underlying <code>IDocument</code>.
+ * <p>
+ * If the compare filters can cache their filtered regions, the filters are applied
+ * to each line only once and the filtered lines are compared directly.
  */
 public class DocLineComparator implements ITokenComparator {
 
@@ -38,7 +40,9 @@ public class DocLineComparator implements ITokenComparator {
 	private boolean fIgnoreWhiteSpace;
 	private ICompareFilter[] fCompareFilters;
 	private char fContributor;
-	private LRUCache fCompareFilterCache;
+	private boolean fCacheFilteredLines;
+	private String[] fFilteredLines;
+	private String[] fFilteredLinesWithSeparator;
 
 	/**
 	 * Creates a <code>DocLineComparator</code> for the given document range.
@@ -81,17 +85,15 @@ public class DocLineComparator implements ITokenComparator {
 		fCompareFilters = compareFilters;
 		fContributor = contributor;
 
-		boolean cacheFilteredLines = false;
 		if (compareFilters != null && compareFilters.length > 0) {
-			cacheFilteredLines = true;
+			fCacheFilteredLines = true;
 			for (ICompareFilter compareFilter : compareFilters) {
 				if (!compareFilter.canCacheFilteredRegions()) {
-					cacheFilteredLines = false;
+					fCacheFilteredLines = false;
 					break;
 				}
 			}
 		}
-		fCompareFilterCache = (cacheFilteredLines) ? new LRUCache(1024) : null;
 
 		fLineOffset = 0;
 		if (region != null) {
@@ -168,6 +170,14 @@ public class DocLineComparator implements ITokenComparator {
 		if (otherComparator != null && otherComparator.getClass() == getClass()) {
 			DocLineComparator other= (DocLineComparator) otherComparator;
 
+			if (fCacheFilteredLines && other.fCacheFilteredLines && fIgnoreWhiteSpace == other.fIgnoreWhiteSpace) {
+				// Lines of equal length are compared without their separators
+				boolean includeSeparator= !fIgnoreWhiteSpace && getTokenLength(thisIndex) != other.getTokenLength(otherIndex);
+				String thisLine= getFilteredLine(thisIndex, includeSeparator);
+				String otherLine= other.getFilteredLine(otherIndex, includeSeparator);
+				return thisLine.hashCode() == otherLine.hashCode() && thisLine.equals(otherLine);
+			}
+
 			if (fIgnoreWhiteSpace) {
 				String[] linesToCompare = extract(thisIndex, otherIndex, other, false);
 				return compare(linesToCompare[0], linesToCompare[1]);
@@ -206,45 +216,63 @@ public class DocLineComparator implements ITokenComparator {
 	private String[] extract(int thisIndex, int otherIndex,
 			DocLineComparator other, boolean includeSeparator) {
 
-		String[] extracts = new String[2];
+		String thisLine = extract(thisIndex, includeSeparator);
+		String otherLine = other.extract(otherIndex, includeSeparator);
 		if (fCompareFilters != null && fCompareFilters.length > 0) {
-			if (fCompareFilterCache != null
-					&& other.fCompareFilterCache != null) {
-				extracts[0] = (String) fCompareFilterCache.get(Integer.valueOf(
-						thisIndex));
-				if (extracts[0] == null) {
-					extracts[0] = Utilities.applyCompareFilters(
-							extract(thisIndex, includeSeparator), fContributor,
-							other.extract(otherIndex, includeSeparator), other.fContributor,
-							fCompareFilters);
-					fCompareFilterCache
-							.put(Integer.valueOf(thisIndex), extracts[0]);
-				}
+			return new String[] {
+					Utilities.applyCompareFilters(thisLine, fContributor,
+							otherLine, other.fContributor, fCompareFilters),
+					Utilities.applyCompareFilters(otherLine,
+							other.fContributor, thisLine, fContributor,
+							fCompareFilters) };
+		}
+		return new String[] { thisLine, otherLine };
+	}
 
-				extracts[1] = (String) other.fCompareFilterCache
-						.get(Integer.valueOf(otherIndex));
-				if (extracts[1] == null) {
-					extracts[1] = Utilities.applyCompareFilters(
-							other.extract(otherIndex, includeSeparator), other.fContributor,
-							extract(thisIndex, includeSeparator), fContributor, fCompareFilters);
-					other.fCompareFilterCache.put(Integer.valueOf(otherIndex),
-							extracts[1]);
+	/*
+	 * Returns the given line with the compare filters applied and, if white space
+	 * is ignored, without white space. All lines are filtered on first access.
+	 */
+	private String getFilteredLine(int line, boolean includeSeparator) {
+		String[] lines = includeSeparator ? fFilteredLinesWithSeparator : fFilteredLines;
+		if (lines == null) {
+			lines = filterLines(includeSeparator);
+			if (includeSeparator)
+				fFilteredLinesWithSeparator = lines;
+			else
+				fFilteredLines = lines;
+		}
+		return line < lines.length ? lines[line] : ""; //$NON-NLS-1$
+	}
+
+	private String[] filterLines(boolean includeSeparator) {
+		// Compare filters make no promise about being thread safe, so the
+		// lines are filtered sequentially by the calling thread
+		String[] lines = new String[fLineCount];
+		for (int i = 0; i < lines.length; i++) {
+			String line = extract(i, includeSeparator);
+			// The filtered regions do not depend on the other line
+			String filtered = Utilities.applyCompareFilters(line, fContributor,
+					line, fContributor, fCompareFilters);
+			lines[i] = fIgnoreWhiteSpace ? removeWhiteSpace(filtered) : filtered;
+		}
+		return lines;
+	}
+
+	private static String removeWhiteSpace(String s) {
+		StringBuilder buffer = null;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.isWhitespace(c)) {
+				if (buffer == null) {
+					buffer = new StringBuilder(s.length());
+					buffer.append(s, 0, i);
 				}
-			} else {
-				String thisLine = extract(thisIndex, includeSeparator);
-				String otherLine = other.extract(otherIndex, includeSeparator);
-				extracts = new String[] {
-						Utilities.applyCompareFilters(thisLine, fContributor,
-								otherLine, other.fContributor, fCompareFilters),
-						Utilities.applyCompareFilters(otherLine,
-								other.fContributor, thisLine, fContributor,
-								fCompareFilters) };
+			} else if (buffer != null) {
+				buffer.append(c);
 			}
-		} else {
-			extracts = new String[] { extract(thisIndex, includeSeparator),
-					other.extract(otherIndex, includeSeparator) };
 		}
-		return extracts;
+		return buffer == null ? s : buffer.toString();
 	}
 
 	/**
@@ -258,8 +286,8 @@ public class DocLineComparator implements ITokenComparator {
 		if (line < fLineCount) {
 			try {
 				if (includeSeparator)
-					return fDocument.get(fDocument.getLineOffset(line),
-							fDocument.getLineLength(line));
+					return fDocument.get(fDocument.getLineOffset(fLineOffset + line),
+							fDocument.getLineLength(fLineOffset + line));
 
 				IRegion r = fDocument.getLineInformation(fLineOffset + line);
 				return fDocument.get(r.getOffset(), r.getLength());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,6 +26,7 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -896,18 +897,20 @@ public class Utilities {
 			ignoredRegions[i] = filters[i].getFilteredRegions(input);
 		}
 
-		boolean[] ignored = new boolean[thisLine.length()];
+		boolean[] ignored = null;
 		for (IRegion[] regions : ignoredRegions) {
 			if (regions != null) {
 				for (IRegion region : regions) {
-					if (region != null) {
-						for (int l = 0; l < region.getLength(); l++) {
-							ignored[region.getOffset() + l] = true;
-						}
+					if (region != null && region.getLength() > 0) {
+						if (ignored == null)
+							ignored = new boolean[thisLine.length()];
+						Arrays.fill(ignored, region.getOffset(), region.getOffset() + region.getLength(), true);
 					}
 				}
 			}
 		}
+		if (ignored == null)
+			return thisLine;
 		StringBuilder buffer = new StringBuilder(thisLine.length());
 		for (int i = 0; i < ignored.length; i++) {
 			if (!ignored[i]) {
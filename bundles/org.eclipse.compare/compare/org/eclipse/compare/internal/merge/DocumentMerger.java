@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,13 +16,25 @@ package org.eclipse.compare.internal.merge;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.compare.CompareConfiguration;
 import org.eclipse.compare.ICompareFilter;
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
+import org.eclipse.compare.contentmergeviewer.TokenComparator;
 import org.eclipse.compare.internal.CompareContentViewerSwitchingPane;
 import org.eclipse.compare.internal.CompareMessages;
 import org.eclipse.compare.internal.ComparePreferencePage;
@@ -41,6 +53,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
@@ -65,6 +78,12 @@ public class DocumentMerger {
 	/** if true copying conflicts from one side to other concatenates both sides */
 	private static final boolean APPEND_CONFLICT= true;
 
+	/** The maximum number of threads that compute token diffs */
+	private static final int MAX_TOKEN_DIFF_THREADS= 4;
+
+	/** Computes the token diffs of all mergers in the background */
+	private static ExecutorService fgTokenDiffExecutor;
+
 	/** All diffs for calculating scrolling position (includes line ranges without changes) */
 	private ArrayList<Diff> fAllDiffs;
 	/** Subset of above: just real differences. */
@@ -72,6 +91,15 @@ public class DocumentMerger {
 
 	private IDocumentMergerInput fInput;
 
+	/** Notified in a background thread when token diffs become available or <code>null</code> */
+	private volatile Runnable fTokenDiffListener;
+
+	/** The settings of the last diff or <code>null</code> if it cannot be updated incrementally */
+	private List<Object> fDiffSettings;
+	/** Range of indices in fAllDiffs touched by document changes since the last diff or -1 */
+	private int fDirtyStart= -1;
+	private int fDirtyEnd= -1;
+
 	/**
 	 * Interface that defines that input to the document merge process
 	 */
@@ -115,6 +143,8 @@ public class DocumentMerger {
 		boolean fIsToken= false;
 		/** child token diffs */
 		List<Diff> fDiffs;
+		/** the token diffs that are still to be added as children or null */
+		PendingTokenDiffs fPendingTokenDiffs;
 		boolean fIsWhitespace= false;
 
 		/*
@@ -232,11 +262,14 @@ public class DocumentMerger {
 
 		void setResolved(boolean r) {
 			fResolved= r;
-			if (r)
+			if (r) {
 				fDiffs= null;
+				cancelTokenDiffs();
+			}
 		}
 
 		public boolean isResolved() {
+			// Token diffs that are not added yet cannot have been resolved
 			if (!fResolved && fDiffs != null) {
 				Iterator<Diff> e= fDiffs.iterator();
 				while (e.hasNext()) {
@@ -299,7 +332,7 @@ public class DocumentMerger {
 		}
 
 		public Diff[] getChangeDiffs(int contributor, IRegion region) {
-			if (fDiffs != null && intersectsRegion(contributor, region)) {
+			if (intersectsRegion(contributor, region) && hasComputedChildren()) {
 				List<Diff> result = new ArrayList<>();
 				for (Diff diff : fDiffs) {
 					if (diff.intersectsRegion(contributor, region)) {
@@ -319,6 +352,20 @@ public class DocumentMerger {
 		}
 
 		public boolean hasChildren() {
+			addPendingTokenDiffs();
+			return fDiffs != null && !fDiffs.isEmpty();
+		}
+
+		/*
+		 * Same as hasChildren() but never waits for the token diffs. This is used
+		 * when painting; the token diff listener is notified once they are available.
+		 */
+		private boolean hasComputedChildren() {
+			if (fPendingTokenDiffs != null && fPendingTokenDiffs.isDone()) {
+				PendingTokenDiffs pending= fPendingTokenDiffs;
+				fPendingTokenDiffs= null;
+				pending.addTo(this);
+			}
 			return fDiffs != null && !fDiffs.isEmpty();
 		}
 
@@ -335,16 +382,210 @@ public class DocumentMerger {
 		}
 
 		public Iterator<Diff> childIterator() {
+			addPendingTokenDiffs();
 			if (fDiffs == null)
 				return new ArrayList<Diff>().iterator();
 			return fDiffs.iterator();
 		}
+
+		/*
+		 * Adds the token diffs as children, comparing the texts now or waiting
+		 * for a comparison that is running in the background.
+		 */
+		private void addPendingTokenDiffs() {
+			while (fPendingTokenDiffs != null) {
+				PendingTokenDiffs pending= fPendingTokenDiffs;
+				fPendingTokenDiffs= null;
+				pending.addTo(this);
+			}
+		}
+
+		void cancelTokenDiffs() {
+			if (fPendingTokenDiffs != null) {
+				fPendingTokenDiffs.cancel();
+				fPendingTokenDiffs= null;
+			}
+		}
+	}
+
+	/*
+	 * The token comparators and differences of the texts of a changed line range.
+	 * The comparators are created by the thread that creates the comparison;
+	 * only the differences may be computed by a worker thread.
+	 */
+	private class TokenComparison {
+		final ITokenComparator fAncestor;
+		final ITokenComparator fLeft;
+		final ITokenComparator fRight;
+		RangeDifference[] fRanges;
+
+		TokenComparison(String a, String s, String d) {
+			fAncestor= a != null ? createTokenComparator(a) : null;
+			fRight= createTokenComparator(d);
+			fLeft= createTokenComparator(s);
+		}
+
+		TokenComparison compare() {
+			fRanges= RangeDifferencer.findRanges(fAncestor, fLeft, fRight);
+			return this;
+		}
+
+		/*
+		 * Clients may provide their own token comparators, which are not required
+		 * to be usable from another thread, so only the default ones are compared
+		 * in the background.
+		 */
+		boolean canCompareInBackground() {
+			return (fAncestor == null || fAncestor.getClass() == TokenComparator.class)
+					&& fLeft.getClass() == TokenComparator.class
+					&& fRight.getClass() == TokenComparator.class;
+		}
+	}
+
+	/*
+	 * The token diffs of a changed line range. They are only compared once the
+	 * range diff is painted or its children are accessed. When painting, the
+	 * comparison is started on a worker thread (if the token comparators allow it)
+	 * and the token diffs are added once the token diff listener has been notified;
+	 * until then the painted range diff has no children. Accessing the children
+	 * (e.g. when navigating) compares the texts right away or waits for the
+	 * comparison that is running in the background.
+	 */
+	private class PendingTokenDiffs {
+		private final IDocument fAncestorDoc;
+		private final String fAncestorText;
+		private final IDocument fLeftDoc;
+		private final String fLeftText;
+		private final IDocument fRightDoc;
+		private final String fRightText;
+		private FutureTask<TokenComparison> fComparison;
+		private boolean fCanCompareInBackground;
+		private boolean fScheduled;
+
+		PendingTokenDiffs(IDocument ancestorDoc, String a, IDocument rightDoc, String d, IDocument leftDoc, String s) {
+			fAncestorDoc= ancestorDoc;
+			fAncestorText= a;
+			fLeftDoc= leftDoc;
+			fLeftText= s;
+			fRightDoc= rightDoc;
+			fRightText= d;
+		}
+
+		private FutureTask<TokenComparison> getComparison() {
+			if (fComparison == null) {
+				TokenComparison comparison= new TokenComparison(fAncestorText, fLeftText, fRightText);
+				fCanCompareInBackground= comparison.canCompareInBackground();
+				fComparison= new FutureTask<TokenComparison>(comparison::compare) {
+					@Override
+					protected void done() {
+						if (fScheduled && !isCancelled())
+							tokenDiffsComputed();
+					}
+				};
+			}
+			return fComparison;
+		}
+
+		/*
+		 * Returns whether the comparison is done, starting it in the background
+		 * if it has not been started yet. Comparisons that cannot be done in the
+		 * background are done right away.
+		 */
+		boolean isDone() {
+			FutureTask<TokenComparison> comparison= getComparison();
+			if (!fCanCompareInBackground) {
+				comparison.run();
+			} else if (!fScheduled) {
+				fScheduled= true;
+				getTokenDiffExecutor().execute(comparison);
+			}
+			return comparison.isDone();
+		}
+
+		/*
+		 * Adds the token diffs, doing the comparison now if it has not been started
+		 * yet. If the documents have been changed since the line diff a new
+		 * comparison of the texts is left pending.
+		 */
+		void addTo(Diff baseDiff) {
+			FutureTask<TokenComparison> task= getComparison();
+			// does nothing if the comparison is already running or done
+			task.run();
+			TokenComparison comparison;
+			try {
+				comparison= task.get();
+			} catch (InterruptedException | ExecutionException | CancellationException e) {
+				return;
+			}
+			String a= fAncestorDoc != null ? getText(fAncestorDoc, baseDiff.fAncestorPos) : null;
+			String s= getText(fLeftDoc, baseDiff.fLeftPos);
+			String d= getText(fRightDoc, baseDiff.fRightPos);
+			if (!Objects.equals(a, fAncestorText) || !s.equals(fLeftText) || !d.equals(fRightText)) {
+				if (s.length() > 0 && d.length() > 0)
+					baseDiff.fPendingTokenDiffs= new PendingTokenDiffs(fAncestorDoc, a, fRightDoc, d, fLeftDoc, s);
+				return;
+			}
+			simpleTokenDiff(baseDiff, fAncestorDoc, fRightDoc, fLeftDoc, comparison);
+		}
+
+		void cancel() {
+			if (fComparison != null)
+				fComparison.cancel(false);
+		}
 	}
 
 	public DocumentMerger(IDocumentMergerInput input) {
 		this.fInput = input;
 	}
 
+	/**
+	 * Sets the listener that is notified when the token diffs of a change have
+	 * been computed. The token diffs are computed in the background and are only
+	 * returned as children of the change once they are available, so the
+	 * listener should refresh the presentation of the changes. The listener is
+	 * called in a background thread.
+	 * @param listener the listener or <code>null</code>
+	 */
+	public void setTokenDiffListener(Runnable listener) {
+		fTokenDiffListener= listener;
+	}
+
+	private void tokenDiffsComputed() {
+		Runnable listener= fTokenDiffListener;
+		if (listener != null)
+			listener.run();
+	}
+
+	private static synchronized ExecutorService getTokenDiffExecutor() {
+		if (fgTokenDiffExecutor == null) {
+			int threads= Math.max(1, Math.min(MAX_TOKEN_DIFF_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+			ThreadPoolExecutor executor= new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread= new Thread(runnable, "Compare Token Diffs"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+			fgTokenDiffExecutor= executor;
+		}
+		return fgTokenDiffExecutor;
+	}
+
+	private static String getText(IDocument doc, Position p) {
+		try {
+			return doc.get(p.getOffset(), p.getLength());
+		} catch (BadLocationException e) {
+			return ""; //$NON-NLS-1$
+		}
+	}
+
+	private static void cancelTokenDiffs(List<Diff> diffs) {
+		if (diffs != null) {
+			for (Diff diff : diffs)
+				diff.cancelTokenDiffs();
+		}
+	}
+
 	/**
 	 * Perform a two level 2- or 3-way diff.
 	 * The first level is based on line comparison, the second level on token comparison.
@@ -352,7 +593,14 @@ public class DocumentMerger {
 	 */
 	public void doDiff() throws CoreException {
 
+		if (doIncrementalDiff())
+			return;
+
+		cancelTokenDiffs(fAllDiffs);
 		fChangeDiffs= new ArrayList<>();
+		fDiffSettings= null;
+		fDirtyStart= -1;
+		fDirtyEnd= -1;
 		IDocument lDoc = getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
 		IDocument rDoc = getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
 
@@ -373,6 +621,10 @@ public class DocumentMerger {
 		resetPositions(rDoc);
 		resetPositions(aDoc);
 
+		List<Object> diffSettings= null;
+		if (lRegion == null && rRegion == null && aRegion == null && !isPatchHunk())
+			diffSettings= getDiffSettings(aDoc, lDoc, rDoc);
+
 		boolean ignoreWhiteSpace= isIgnoreWhitespace();
 		ICompareFilter[] compareFilters = getCompareFilters();
 
@@ -449,72 +701,272 @@ public class DocumentMerger {
 
 		ArrayList<Diff> newAllDiffs = new ArrayList<>();
 		for (RangeDifference es : e) {
-			int ancestorStart= 0;
-			int ancestorEnd= 0;
-			if (sancestor != null) {
-				ancestorStart= sancestor.getTokenStart(es.ancestorStart());
-				ancestorEnd= getTokenEnd2(sancestor, es.ancestorStart(), es.ancestorLength());
-			}
+			Diff diff= createDiff(es, aDoc, aRegion, sancestor, lDoc, lRegion, sleft,
+				rDoc, rRegion, sright, ignoreWhiteSpace, fChangeDiffs);
+			newAllDiffs.add(diff);	// remember all range diffs for scrolling
+		}
+		fAllDiffs = newAllDiffs;
+		fDiffSettings = diffSettings;
+	}
 
-			int leftStart= sleft.getTokenStart(es.leftStart());
-			int leftEnd= getTokenEnd2(sleft, es.leftStart(), es.leftLength());
+	/*
+	 * Creates the Diff for the given line range difference. If the Diff is a change
+	 * of interest it is added to the given list and its token diffs are computed.
+	 */
+	private Diff createDiff(RangeDifference es,
+			IDocument aDoc, Position aRegion, DocLineComparator sancestor,
+			IDocument lDoc, Position lRegion, DocLineComparator sleft,
+			IDocument rDoc, Position rRegion, DocLineComparator sright,
+			boolean ignoreWhiteSpace, List<Diff> changeDiffs) {
+		int ancestorStart= 0;
+		int ancestorEnd= 0;
+		if (sancestor != null) {
+			ancestorStart= sancestor.getTokenStart(es.ancestorStart());
+			ancestorEnd= getTokenEnd2(sancestor, es.ancestorStart(), es.ancestorLength());
+		}
 
-			int rightStart= sright.getTokenStart(es.rightStart());
-			int rightEnd= getTokenEnd2(sright, es.rightStart(), es.rightLength());
+		int leftStart= sleft.getTokenStart(es.leftStart());
+		int leftEnd= getTokenEnd2(sleft, es.leftStart(), es.leftLength());
 
-			/*if (isPatchHunk()) {
-				if (isHunkOnLeft()) {
-					rightStart = rightEnd = getHunkStart();
-				} else {
-					leftStart = leftEnd = getHunkStart();
-				}
-			}*/
+		int rightStart= sright.getTokenStart(es.rightStart());
+		int rightEnd= getTokenEnd2(sright, es.rightStart(), es.rightLength());
 
-			Diff diff= new Diff(null, es.kind(),
-				aDoc, aRegion, ancestorStart, ancestorEnd,
-				lDoc, lRegion, leftStart, leftEnd,
-				rDoc, rRegion, rightStart, rightEnd);
+		/*if (isPatchHunk()) {
+			if (isHunkOnLeft()) {
+				rightStart = rightEnd = getHunkStart();
+			} else {
+				leftStart = leftEnd = getHunkStart();
+			}
+		}*/
 
-			newAllDiffs.add(diff);	// remember all range diffs for scrolling
+		Diff diff= new Diff(null, es.kind(),
+			aDoc, aRegion, ancestorStart, ancestorEnd,
+			lDoc, lRegion, leftStart, leftEnd,
+			rDoc, rRegion, rightStart, rightEnd);
 
-			if (isPatchHunk()) {
-				if (useChange(diff)) {
-					recordChangeDiff(diff);
+		if (isPatchHunk()) {
+			if (useChange(diff)) {
+				changeDiffs.add(diff);	// here we remember only the real diffs
+			}
+		} else {
+			if (ignoreWhiteSpace || useChange(es.kind())) {
+
+				// Extract the string for each contributor.
+				String a= null;
+				if (sancestor != null)
+					a= extract2(aDoc, sancestor, es.ancestorStart(), es.ancestorLength());
+				String s= extract2(lDoc, sleft, es.leftStart(), es.leftLength());
+				String d= extract2(rDoc, sright, es.rightStart(), es.rightLength());
+
+				// Indicate whether all contributors are whitespace
+				if (ignoreWhiteSpace
+						&& (a == null || a.trim().length() == 0)
+						&& s.trim().length() == 0
+						&& d.trim().length() == 0) {
+					diff.fIsWhitespace= true;
 				}
-			} else {
-				if (ignoreWhiteSpace || useChange(es.kind())) {
-
-					// Extract the string for each contributor.
-					String a= null;
-					if (sancestor != null)
-						a= extract2(aDoc, sancestor, es.ancestorStart(), es.ancestorLength());
-					String s= extract2(lDoc, sleft, es.leftStart(), es.leftLength());
-					String d= extract2(rDoc, sright, es.rightStart(), es.rightLength());
-
-					// Indicate whether all contributors are whitespace
-					if (ignoreWhiteSpace
-							&& (a == null || a.trim().length() == 0)
-							&& s.trim().length() == 0
-							&& d.trim().length() == 0) {
-						diff.fIsWhitespace= true;
-					}
 
-					// If the diff is of interest, record it and generate the token diffs
-					if (useChange(diff)) {
-						recordChangeDiff(diff);
-						if (s.length() > 0 && d.length() > 0) {
-							if (a == null && sancestor != null)
-								a= extract2(aDoc, sancestor, es.ancestorStart(), es.ancestorLength());
-							if (USE_MERGING_TOKEN_DIFF)
-								mergingTokenDiff(diff, aDoc, a, rDoc, d, lDoc, s);
-							else
-								simpleTokenDiff(diff, aDoc, a, rDoc, d, lDoc, s);
-						}
+				// If the diff is of interest, record it and generate the token diffs
+				if (useChange(diff)) {
+					changeDiffs.add(diff);	// here we remember only the real diffs
+					if (s.length() > 0 && d.length() > 0) {
+						if (a == null && sancestor != null)
+							a= extract2(aDoc, sancestor, es.ancestorStart(), es.ancestorLength());
+						if (USE_MERGING_TOKEN_DIFF)
+							mergingTokenDiff(diff, aDoc, a, rDoc, d, lDoc, s);
+						else
+							diff.fPendingTokenDiffs= new PendingTokenDiffs(aDoc, a, rDoc, d, lDoc, s);
 					}
 				}
 			}
 		}
-		fAllDiffs = newAllDiffs;
+		return diff;
+	}
+
+	/**
+	 * Records the range diffs touched by a change of one of the compared documents
+	 * so that the next {@link #doDiff()} only needs to compare the affected lines.
+	 * This must be called for every change of the documents after it is applied.
+	 * @param event the document event
+	 */
+	public void documentChanged(DocumentEvent event) {
+		if (fDiffSettings == null)
+			return;
+		char contributor;
+		IDocument doc= event.getDocument();
+		if (doc == getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR))
+			contributor= MergeViewerContentProvider.LEFT_CONTRIBUTOR;
+		else if (doc == getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR))
+			contributor= MergeViewerContentProvider.RIGHT_CONTRIBUTOR;
+		else if (doc == getDocument(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR))
+			contributor= MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR;
+		else
+			return;
+		int start= event.getOffset();
+		int end= start + (event.getText() != null ? event.getText().length() : 0);
+		boolean touched= false;
+		for (int i= 0; i < fAllDiffs.size(); i++) {
+			Position p= fAllDiffs.get(i).getPosition(contributor);
+			// Ranges that end or start at the change are touched too since lines may have been joined
+			if (p != null && (p.isDeleted() || (p.offset <= end && start <= p.offset + p.length))) {
+				fDirtyStart= fDirtyStart == -1 ? i : Math.min(fDirtyStart, i);
+				fDirtyEnd= Math.max(fDirtyEnd, i);
+				touched= true;
+			}
+		}
+		if (!touched) {
+			fDirtyStart= 0;
+			fDirtyEnd= fAllDiffs.size() - 1;
+		}
+	}
+
+	/*
+	 * Compares only the lines between the unchanged ranges that enclose the ranges
+	 * touched by document changes since the last diff and replaces the diffs of
+	 * those lines. Returns false if the whole documents need to be compared.
+	 */
+	private boolean doIncrementalDiff() {
+		if (fDiffSettings == null || fAllDiffs == null || fDirtyStart == -1)
+			return false;
+		IDocument lDoc= getDocument(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+		IDocument rDoc= getDocument(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+		IDocument aDoc= null;
+		if (isThreeWay() && !isIgnoreAncestor())
+			aDoc= getDocument(MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR);
+		if (lDoc == null || rDoc == null || !fDiffSettings.equals(getDiffSettings(aDoc, lDoc, rDoc)))
+			return false;
+
+		// Extend the dirty range to the closest unchanged ranges which act as anchors
+		int first= fDirtyStart - 1;
+		while (first >= 0 && fAllDiffs.get(first).fDirection != RangeDifference.NOCHANGE)
+			first--;
+		int last= fDirtyEnd + 1;
+		while (last < fAllDiffs.size() && fAllDiffs.get(last).fDirection != RangeDifference.NOCHANGE)
+			last++;
+		boolean hasFirstAnchor= first >= 0;
+		boolean hasLastAnchor= last < fAllDiffs.size();
+		if (!hasFirstAnchor && !hasLastAnchor)
+			return false;
+		if (!hasFirstAnchor)
+			first= 0;
+		if (!hasLastAnchor)
+			last= fAllDiffs.size() - 1;
+
+		boolean ignoreWhiteSpace= isIgnoreWhitespace();
+		ICompareFilter[] compareFilters= getCompareFilters();
+		Diff firstDiff= fAllDiffs.get(first);
+		Diff lastDiff= fAllDiffs.get(last);
+		DocLineComparator sleft= createLineComparator(lDoc, MergeViewerContentProvider.LEFT_CONTRIBUTOR,
+				firstDiff, lastDiff, hasFirstAnchor, hasLastAnchor, ignoreWhiteSpace, compareFilters);
+		DocLineComparator sright= createLineComparator(rDoc, MergeViewerContentProvider.RIGHT_CONTRIBUTOR,
+				firstDiff, lastDiff, hasFirstAnchor, hasLastAnchor, ignoreWhiteSpace, compareFilters);
+		DocLineComparator sancestor= null;
+		if (aDoc != null) {
+			sancestor= createLineComparator(aDoc, MergeViewerContentProvider.ANCESTOR_CONTRIBUTOR,
+					firstDiff, lastDiff, hasFirstAnchor, hasLastAnchor, ignoreWhiteSpace, compareFilters);
+			if (sancestor == null)
+				return false;
+		}
+		if (sleft == null || sright == null)
+			return false;
+
+		RangeDifference[] e= RangeDifferencer.findRanges(sancestor, sleft, sright);
+
+		List<Diff> oldDiffs= fAllDiffs.subList(first, last + 1);
+		Set<Diff> changeDiffs= Collections.newSetFromMap(new IdentityHashMap<>());
+		changeDiffs.addAll(fChangeDiffs);
+		for (Diff diff : oldDiffs) {
+			changeDiffs.remove(diff);
+			diff.cancelTokenDiffs();
+			removePositions(diff, aDoc, lDoc, rDoc);
+		}
+		List<Diff> newDiffs= new ArrayList<>(e.length);
+		List<Diff> newChangeDiffs= new ArrayList<>();
+		for (RangeDifference es : e) {
+			newDiffs.add(createDiff(es, aDoc, null, sancestor, lDoc, null, sleft,
+				rDoc, null, sright, ignoreWhiteSpace, newChangeDiffs));
+		}
+		changeDiffs.addAll(newChangeDiffs);
+		oldDiffs.clear();
+		fAllDiffs.addAll(first, newDiffs);
+
+		ArrayList<Diff> newAllChangeDiffs= new ArrayList<>(changeDiffs.size());
+		for (Diff diff : fAllDiffs) {
+			if (changeDiffs.contains(diff))
+				newAllChangeDiffs.add(diff);
+		}
+		fChangeDiffs= newAllChangeDiffs;
+		fDirtyStart= -1;
+		fDirtyEnd= -1;
+		return true;
+	}
+
+	/*
+	 * Creates a line comparator for the lines from the start of the first diff
+	 * to the end of the last diff, or to the start or end of the document if
+	 * there is no anchor on that side. Returns null if the lines cannot be
+	 * compared separately from the rest of the document.
+	 */
+	private DocLineComparator createLineComparator(IDocument doc, char contributor, Diff firstDiff, Diff lastDiff,
+			boolean hasFirstAnchor, boolean hasLastAnchor, boolean ignoreWhiteSpace, ICompareFilter[] compareFilters) {
+		int start= hasFirstAnchor ? firstDiff.getPosition(contributor).getOffset() : 0;
+		int end= doc.getLength();
+		if (hasLastAnchor) {
+			Position p= lastDiff.getPosition(contributor);
+			end= p.getOffset() + p.getLength();
+		}
+		try {
+			// The lines of the region must not be shared with the diffs that are kept
+			if (doc.getLineOffset(doc.getLineOfOffset(start)) != start)
+				return null;
+		} catch (BadLocationException e) {
+			return null;
+		}
+		// The comparator includes the line that contains the end of the region so
+		// exclude the line that starts after the anchor unless it is the last line
+		int length= end - start;
+		if (end < doc.getLength()) {
+			if (length == 0)
+				return null;
+			length--;
+		}
+		return new DocLineComparator(doc, new Region(start, length), ignoreWhiteSpace, compareFilters, contributor);
+	}
+
+	private void removePositions(Diff diff, IDocument aDoc, IDocument lDoc, IDocument rDoc) {
+		removePosition(aDoc, diff.fAncestorPos);
+		removePosition(lDoc, diff.fLeftPos);
+		removePosition(rDoc, diff.fRightPos);
+		if (diff.fDiffs != null) {
+			for (Diff child : diff.fDiffs)
+				removePositions(child, aDoc, lDoc, rDoc);
+		}
+	}
+
+	private void removePosition(IDocument doc, Position position) {
+		if (doc == null || position == null)
+			return;
+		try {
+			doc.removePosition(DIFF_RANGE_CATEGORY, position);
+		} catch (BadPositionCategoryException e) {
+			// silently ignored
+		}
+	}
+
+	/*
+	 * Returns the inputs and options that determine the diffs of the documents.
+	 */
+	private List<Object> getDiffSettings(IDocument aDoc, IDocument lDoc, IDocument rDoc) {
+		CompareConfiguration cc= getCompareConfiguration();
+		int ignoredKinds= 0;
+		int[] kinds= { RangeDifference.LEFT, RangeDifference.RIGHT, RangeDifference.CONFLICT, RangeDifference.ANCESTOR };
+		for (int kind : kinds) {
+			if (cc.isChangeIgnored(kind))
+				ignoredKinds |= 1 << kind;
+		}
+		return Arrays.asList(aDoc, lDoc, rDoc, Boolean.valueOf(isIgnoreWhitespace()),
+				Arrays.asList(getCompareFilters()), Integer.valueOf(ignoredKinds),
+				Boolean.valueOf(fInput.isShowPseudoConflicts()));
 	}
 
 	private boolean isCapped(DocLineComparator ancestor,
@@ -613,10 +1065,6 @@ public class DocumentMerger {
 		return null;
 	}
 
-	private void recordChangeDiff(Diff diff) {
-		fChangeDiffs.add(diff);	// here we remember only the real diffs
-	}
-
 	/*private boolean isHunkOnLeft() {
 		return fInput.isHunkOnLeft();
 	}
@@ -836,27 +1284,27 @@ public class DocumentMerger {
 	}
 
 	/*
-	 * Performs a token based 3-way diff on the character range specified by the given baseDiff.
+	 * Adds the token diffs of the given token based 3-way comparison of the
+	 * character range specified by the given baseDiff.
 	 */
 	private void simpleTokenDiff(final Diff baseDiff,
-				IDocument ancestorDoc, String a,
-				IDocument rightDoc, String d,
-				IDocument leftDoc, String s) {
+				IDocument ancestorDoc, IDocument rightDoc, IDocument leftDoc,
+				TokenComparison comparison) {
 
 		int ancestorStart= 0;
 		ITokenComparator sa= null;
 		if (ancestorDoc != null) {
 			ancestorStart= baseDiff.fAncestorPos.getOffset();
-			sa= createTokenComparator(a);
+			sa= comparison.fAncestor;
 		}
 
 		int rightStart= baseDiff.fRightPos.getOffset();
-		ITokenComparator sm= createTokenComparator(d);
+		ITokenComparator sm= comparison.fRight;
 
 		int leftStart= baseDiff.fLeftPos.getOffset();
-		ITokenComparator sy= createTokenComparator(s);
+		ITokenComparator sy= comparison.fLeft;
 
-		RangeDifference[] e= RangeDifferencer.findRanges(sa, sy, sm);
+		RangeDifference[] e= comparison.fRanges;
 		for (RangeDifference es : e) {
 			int kind= es.kind();
 			if (kind != RangeDifference.NOCHANGE) {
@@ -987,8 +1435,10 @@ public class DocumentMerger {
 	}
 
 	public void reset() {
+		cancelTokenDiffs(fAllDiffs);
 		fChangeDiffs= null;
 		fAllDiffs= null;
+		fDiffSettings= null;
 	}
 
 	/**
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.core.diff.DiffFilter;
+import org.eclipse.team.core.diff.IDiff;
+
+/**
+ * A diff filter that can evaluate a batch of diffs at once, for instance in
+ * parallel, before they are selected one at a time.
+ */
+public abstract class BatchDiffFilter extends DiffFilter {
+
+	/**
+	 * Prepare the selection of the given diffs. The <code>select</code>
+	 * method is invoked for each of the diffs afterwards and returns the
+	 * same result as it would have without the preparation.
+	 * @param diffs the diffs that are about to be selected
+	 * @param monitor a progress monitor
+	 */
+	public abstract void prepare(IDiff[] diffs, IProgressMonitor monitor);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,12 +13,12 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
@@ -45,6 +45,12 @@ import org.eclipse.team.internal.core.TeamPlugin;
  * provides the nesting mechanism in order to allow the client to determine when
  * the lock for the thread has been released. Therefore, this lock will block if
  * another thread already locks the same resource.</p>
+ * <p>
+ * The lock state of the current thread is kept in a thread local so that the
+ * common operations (acquire, release and recording changes) do not need to
+ * synchronize with other threads. The states are also registered in a concurrent
+ * map so that other threads can determine if a resource is within the scope
+ * of an active operation.</p>
  */
 public class BatchingLock {
 	// This is a placeholder rule used to indicate that no scheduling rule is needed
@@ -62,7 +68,9 @@ public class BatchingLock {
 	public class ThreadInfo {
 		private Set<IResource> changedResources = new HashSet<>();
 		private IFlushOperation operation;
-		private List<ISchedulingRule> rules = new ArrayList<>();
+		// Other threads may check the rules (see ruleContains) so they are kept
+		// in a list that can be iterated while this thread pushes and pops rules
+		private List<ISchedulingRule> rules = new CopyOnWriteArrayList<>();
 		public ThreadInfo(IFlushOperation operation) {
 			this.operation = operation;
 		}
@@ -236,42 +244,36 @@ public class BatchingLock {
 		public void flush(ThreadInfo info, IProgressMonitor monitor) throws TeamException;
 	}
 
-	private Map<Thread, ThreadInfo> infos = new HashMap<>();
+	private final ThreadLocal<ThreadInfo> currentInfo = new ThreadLocal<>();
+	private final Map<Thread, ThreadInfo> infos = new ConcurrentHashMap<>();
 
 	/**
 	 * Return the thread info for the current thread
 	 * @return the thread info for the current thread
 	 */
 	protected ThreadInfo getThreadInfo() {
-		Thread thisThread = Thread.currentThread();
-		synchronized (infos) {
-			ThreadInfo info = infos.get(thisThread);
-			return info;
-		}
+		return currentInfo.get();
 	}
 
 	private ThreadInfo getThreadInfo(IResource resource) {
-		synchronized (infos) {
-			for (ThreadInfo info : infos.values()) {
-				if (info.ruleContains(resource)) {
-					return info;
-				}
+		for (ThreadInfo info : infos.values()) {
+			if (info.ruleContains(resource)) {
+				return info;
 			}
-			return null;
 		}
+		return null;
 	}
 
 	public ISchedulingRule acquire(ISchedulingRule resourceRule, IFlushOperation operation, IProgressMonitor monitor) {
 		ThreadInfo info = getThreadInfo();
 		boolean added = false;
-		synchronized (infos) {
-			if (info == null) {
-				info = createThreadInfo(operation);
-				Thread thisThread = Thread.currentThread();
-				infos.put(thisThread, info);
-				added = true;
-				if(Policy.DEBUG_THREADING) System.out.println("[" + thisThread.getName() + "] acquired batching lock on " + resourceRule); //$NON-NLS-1$ //$NON-NLS-2$
-			}
+		if (info == null) {
+			info = createThreadInfo(operation);
+			Thread thisThread = Thread.currentThread();
+			currentInfo.set(info);
+			infos.put(thisThread, info);
+			added = true;
+			if(Policy.DEBUG_THREADING) System.out.println("[" + thisThread.getName() + "] acquired batching lock on " + resourceRule); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		try {
 			return info.pushRule(resourceRule, monitor);
@@ -279,14 +281,17 @@ public class BatchingLock {
 			// The operation was canceled.
 			// If this is the outermost acquire then remove the info that was just added
 			if (added) {
-				synchronized (infos) {
-					infos.remove(Thread.currentThread());
-				}
+				removeThreadInfo();
 			}
 			throw e;
 		}
 	}
 
+	private void removeThreadInfo() {
+		currentInfo.remove();
+		infos.remove(Thread.currentThread());
+	}
+
 	/**
 	 * Create the ThreadInfo instance used to cache the lock state for the
 	 * current thread. Subclass can override to provide a subclass of
@@ -312,12 +317,9 @@ public class BatchingLock {
 		Assert.isNotNull(info, "Unmatched acquire/release."); //$NON-NLS-1$
 		Assert.isTrue(info.isNested(), "Unmatched acquire/release."); //$NON-NLS-1$
 		info.popRule(rule, monitor);
-		synchronized (infos) {
-			if (!info.isNested()) {
-				Thread thisThread = Thread.currentThread();
-				if(Policy.DEBUG_THREADING) System.out.println("[" + thisThread.getName() + "] released batching lock"); //$NON-NLS-1$ //$NON-NLS-2$
-				infos.remove(thisThread);
-			}
+		if (!info.isNested()) {
+			if(Policy.DEBUG_THREADING) System.out.println("[" + Thread.currentThread().getName() + "] released batching lock"); //$NON-NLS-1$ //$NON-NLS-2$
+			removeThreadInfo();
 		}
 	}
 
@@ -339,8 +341,6 @@ public class BatchingLock {
 	}
 
 	public boolean isWithinActiveOperationScope(IResource resource) {
-		synchronized (infos) {
-			return getThreadInfo(resource) != null;
-		}
+		return getThreadInfo(resource) != null;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,9 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.resources.mapping.ResourceTraversal;
@@ -206,6 +209,9 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 			IProgressMonitor monitor) {
 		try {
 			tree.beginInput();
+			if (filter instanceof BatchDiffFilter) {
+				prepareFilter((BatchDiffFilter) filter, events, monitor);
+			}
 			for (SubscriberEvent event : events) {
 				switch (event.getType()) {
 					case SubscriberEvent.CHANGE :
@@ -232,6 +238,24 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 		}
 	}
 
+	/*
+	 * Let the filter evaluate the changed diffs together before they are added one at a time
+	 */
+	private void prepareFilter(BatchDiffFilter batchFilter, SubscriberEvent[] events, IProgressMonitor monitor) {
+		List<IDiff> diffs = new ArrayList<>();
+		for (SubscriberEvent event : events) {
+			if (event.getType() == SubscriberEvent.CHANGE && event instanceof SubscriberDiffChangedEvent) {
+				IDiff changedNode = ((SubscriberDiffChangedEvent) event).getChangedNode();
+				if (changedNode.getKind() != IDiff.NO_CHANGE) {
+					diffs.add(changedNode);
+				}
+			}
+		}
+		if (diffs.size() > 1) {
+			batchFilter.prepare(diffs.toArray(new IDiff[diffs.size()]), monitor);
+		}
+	}
+
 	private void addDiff(IDiff diff, IProgressMonitor monitor) {
 		if (filter == null || filter.select(diff, monitor)) {
 			tree.add(diff);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -103,6 +103,11 @@ public class CVSCompareSubscriber extends CVSSyncTreeSubscriber implements ISubs
 	protected IResourceVariantTree getRemoteTree() {
 		return tree;
 	}
+
+	@Override
+	protected CVSResourceVariantTree[] getConcurrentlyFetchedTrees() {
+		return new CVSResourceVariantTree[] { tree };
+	}
 	
 	@Override
 	public boolean isThreeWay() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -27,6 +27,7 @@ import org.eclipse.team.core.variants.*;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.ccvs.core.syncinfo.CVSResourceVariantTree;
+import org.eclipse.team.internal.ccvs.core.syncinfo.RemoteTreePrefetch;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
@@ -70,6 +71,18 @@ public class CVSMergeSubscriber extends CVSSyncTreeSubscriber implements IResour
 			IResource[] refreshed = super.refresh((IResource[]) unrefreshed.toArray(new IResource[unrefreshed.size()]), depth, monitor);
 			return refreshed;
 		}
+		@Override
+		public void prefetchVariant(IResource resource, int depth, RemoteTreePrefetch prefetch) {
+			// The base is not refreshed again so there is no need to fetch it
+			try {
+				if (hasResourceVariant(resource))
+					return;
+			} catch (TeamException e) {
+				// Let the refresh fetch and report the failure
+				return;
+			}
+			super.prefetchVariant(resource, depth, prefetch);
+		}
 		public IResourceVariant getResourceVariant(IResource resource) throws TeamException {
 			// Use the merged bytes for the base if there are some
 			byte[] mergedBytes = mergedSynchronizer.getBytes(resource);
@@ -291,6 +304,11 @@ public class CVSMergeSubscriber extends CVSSyncTreeSubscriber implements IResour
 		}
 	}
 
+	@Override
+	protected CVSResourceVariantTree[] getConcurrentlyFetchedTrees() {
+		return new CVSResourceVariantTree[] { baseTree, remoteTree };
+	}
+
 	@Override
 	protected IResourceVariantTree getBaseTree() {
 		return baseTree;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -108,6 +108,8 @@ public class CVSMessages extends NLS {
 	public static String Session_receiving;
 	public static String Session_transfer;
 	public static String Session_transferNoSize;
+	public static String Session_notGzip;
+	public static String Session_corruptGzip;
 	public static String Session_calculatingCompressedSize;
 	public static String Session_0;
 	public static String Session_sending;
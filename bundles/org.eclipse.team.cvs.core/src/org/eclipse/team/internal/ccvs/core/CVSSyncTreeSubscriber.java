@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -28,6 +28,8 @@ import org.eclipse.team.core.synchronize.SyncInfo;
 import org.eclipse.team.core.variants.*;
 import org.eclipse.team.internal.ccvs.core.filehistory.CVSResourceVariantFileRevision;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.syncinfo.CVSResourceVariantTree;
+import org.eclipse.team.internal.ccvs.core.syncinfo.RemoteTreePrefetch;
 import org.eclipse.team.internal.core.mapping.ResourceVariantFileRevision;
 import org.eclipse.team.internal.core.mapping.SyncInfoToDiffConverter;
 
@@ -39,6 +41,9 @@ public abstract class CVSSyncTreeSubscriber extends ResourceVariantTreeSubscribe
 	
 	public static final String SYNC_KEY_QUALIFIER = "org.eclipse.team.cvs"; //$NON-NLS-1$
 	
+	// The maximum number of remote trees that are fetched at the same time
+	private static final int MAX_CONCURRENT_FETCHES = 4;
+	
 	private IResourceVariantComparator comparisonCriteria;
 	
 	private QualifiedName id;
@@ -104,6 +109,42 @@ public abstract class CVSSyncTreeSubscriber extends ResourceVariantTreeSubscribe
 		}
 	}
 
+	@Override
+	public void refresh(IResource[] resources, int depth, IProgressMonitor monitor) throws TeamException {
+		CVSResourceVariantTree[] trees = getConcurrentlyFetchedTrees();
+		int fetches = trees.length * resources.length;
+		if (fetches <= 1) {
+			super.refresh(resources, depth, monitor);
+			return;
+		}
+		// Fetch the remote trees over separate connections while the refresh records each tree
+		// in turn so that the refresh takes about as long as fetching the slowest tree.
+		// The fetched trees belong to this refresh only.
+		RemoteTreePrefetch prefetch = new RemoteTreePrefetch(Math.min(fetches, MAX_CONCURRENT_FETCHES), monitor);
+		try {
+			// Submit the fetches in the order in which the refresh uses the trees
+			for (IResource resource : resources) {
+				for (CVSResourceVariantTree tree : trees) {
+					tree.prefetchVariant(resource, depth, prefetch);
+				}
+			}
+			prefetch.activate();
+			super.refresh(resources, depth, monitor);
+		} finally {
+			prefetch.dispose();
+		}
+	}
+
+	/**
+	 * Return the trees whose remote trees are fetched concurrently when the subscriber
+	 * is refreshed, in the order in which they are refreshed. By default, the trees are
+	 * fetched one after the other by the refresh.
+	 * @return the trees that are fetched concurrently
+	 */
+	protected CVSResourceVariantTree[] getConcurrentlyFetchedTrees() {
+		return new CVSResourceVariantTree[0];
+	}
+
 	@Override
 	public IResourceVariantComparator getResourceComparator() {
 		return comparisonCriteria;
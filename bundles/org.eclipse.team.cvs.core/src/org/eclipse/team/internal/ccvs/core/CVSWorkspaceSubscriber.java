@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -70,6 +70,7 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 				return getCacheFileContentsHint();
 			}
 		};
+		remoteTree.enableIncrementalRefresh();
 		
 		ResourceStateChangeListeners.getListener().addResourceStateChangeListener(this); 
 	}
@@ -103,6 +104,7 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 
 	private void internalResourceSyncInfoChanged(IResource[] changedResources, boolean canModifyWorkspace) {
 		getRemoteByteStore().handleResourceChanges(changedResources, canModifyWorkspace);	
+		remoteTree.syncInfoChanged(changedResources);
 		fireTeamResourceChange(SubscriberChangeEvent.asSyncChangedDeltas(this, changedResources));
 	}
 
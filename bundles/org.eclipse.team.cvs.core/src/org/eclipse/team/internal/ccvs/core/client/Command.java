@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -22,6 +22,7 @@ import org.eclipse.core.runtime.*;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.listeners.ICommandOutputListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.IRepositoryModificationListener;
 
 /**
  * Abstract base class for command requests.
@@ -99,11 +100,27 @@ public abstract class Command extends Request {
 	/*** Default command output listener ***/
 	protected static final ICommandOutputListener DEFAULT_OUTPUT_LISTENER = new CommandOutputListener();
 	
+	/*** Listeners notified of commands that modify the repository ***/
+	private static final ListenerList<IRepositoryModificationListener> repositoryModificationListeners = new ListenerList<>();
+	
 	/**
 	 * Prevents client code from instantiating us.
 	 */
 	protected Command() { }
 
+	/**
+	 * Add a listener that is notified when a command that modifies the repository
+	 * has been executed.
+	 * @param listener the listener
+	 */
+	public static void addRepositoryModificationListener(IRepositoryModificationListener listener) {
+		repositoryModificationListeners.add(listener);
+	}
+
+	public static void removeRepositoryModificationListener(IRepositoryModificationListener listener) {
+		repositoryModificationListeners.remove(listener);
+	}
+
 	/**
 	 * Provides the default command output listener which is used to accumulate errors.
 	 * 
@@ -355,6 +372,36 @@ public abstract class Command extends Request {
 		return true;
 	}
 
+	/**
+	 * Return whether this command modifies the contents of the repository.
+	 * If <code>true</code> is returned, the registered repository modification
+	 * listeners are notified when the command is executed so that they can
+	 * discard what they know about the paths below the session local root.
+	 * By default, <code>false</code> is returned
+	 * @return whether this command modifies the repository
+	 */
+	protected boolean isRepositoryModification() {
+		return false;
+	}
+
+	private void notifyRepositoryModified(Session session) {
+		if (repositoryModificationListeners.isEmpty()) return;
+		ICVSRepositoryLocation location = session.getCVSRepositoryLocation();
+		ICVSFolder folder = session.getLocalRoot();
+		for (IRepositoryModificationListener listener : repositoryModificationListeners) {
+			SafeRunner.run(new ISafeRunnable() {
+				@Override
+				public void handleException(Throwable exception) {
+					// Exception logged by the platform
+				}
+				@Override
+				public void run() throws Exception {
+					listener.repositoryModified(location, folder);
+				}
+			});
+		}
+	}
+
 	private void notifyConsoleOnCompletion(Session session, IStatus status, Exception exception) {
 		ConsoleListeners.getInstance().commandCompleted(session, status, exception);
 		if (Policy.isDebugProtocol()) {
@@ -412,6 +459,10 @@ public abstract class Command extends Request {
 			/*** execute command and process responses ***/
 			// Processing responses contributes 50% of work.
 			IStatus status = executeRequest(session, listener, Policy.subMonitorFor(monitor, 50));
+			if (isRepositoryModification()) {
+				// Even a failed command may have changed part of the repository
+				notifyRepositoryModified(session);
+			}
 
 			// Finished adds last 2% of work.
 			status = commandFinished(session, globalOptions, localOptions, resources, Policy.subMonitorFor(monitor, 2),
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -37,6 +37,11 @@ public class Commit extends Command {
 		return "ci"; //$NON-NLS-1$
 	}
 
+	@Override
+	protected boolean isRepositoryModification() {
+		return true;
+	}
+
 	/**
 	 * Send all files under the workingFolder as changed files to 
 	 * the server.
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.client;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.*;
+
+import org.eclipse.team.internal.ccvs.core.CVSMessages;
+
+/**
+ * Inflates the gzip compressed file payloads sent by the server in one pass.
+ * The inflater is reused for the payloads of a session and must be disposed
+ * when the session is closed.
+ * <p>
+ * The size recorded in the gzip trailer is supplied by the server, so it is
+ * only verified and never used to allocate the result. The result grows
+ * while the payload is inflated and inflation stops once it exceeds the limit
+ * given by the caller.
+ * </p>
+ */
+public class GzipPayloadInflater {
+
+	// gzip header flags (RFC 1952)
+	private static final int GZIP_FHCRC = 2;
+	private static final int GZIP_FEXTRA = 4;
+	private static final int GZIP_FNAME = 8;
+	private static final int GZIP_FCOMMENT = 16;
+
+	private static final int INITIAL_RESULT_SIZE = 8192;
+
+	private Inflater inflater;
+
+	/**
+	 * Inflate the gzip member contained in the first length bytes of the given buffer.
+	 *
+	 * @param bytes the buffer containing the compressed payload
+	 * @param length the length of the compressed payload
+	 * @param limit the maximum size of the inflated contents
+	 * @return the inflated contents or <code>null</code> if they are larger
+	 * than the limit
+	 * @throws IOException if the payload is not a valid gzip member
+	 */
+	public byte[] inflate(byte[] bytes, int length, int limit) throws IOException {
+		if (length < 18 || bytes[0] != (byte) 0x1f || bytes[1] != (byte) 0x8b || bytes[2] != Deflater.DEFLATED)
+			throw new ZipException(CVSMessages.Session_notGzip);
+		int flags = bytes[3];
+		int offset = 10;
+		if ((flags & GZIP_FEXTRA) != 0)
+			offset += 2 + readShort(bytes, offset);
+		if ((flags & GZIP_FNAME) != 0)
+			offset = skipString(bytes, offset, length);
+		if ((flags & GZIP_FCOMMENT) != 0)
+			offset = skipString(bytes, offset, length);
+		if ((flags & GZIP_FHCRC) != 0)
+			offset += 2;
+		int trailer = length - 8;
+		if (offset > trailer)
+			throw new ZipException(CVSMessages.Session_notGzip);
+		if (inflater == null) {
+			inflater = new Inflater(true /* no zlib wrapper */);
+		} else {
+			inflater.reset();
+		}
+		inflater.setInput(bytes, offset, trailer - offset);
+		byte[] result = new byte[Math.min(limit, Math.max(INITIAL_RESULT_SIZE, length * 2))];
+		int count = 0;
+		try {
+			while (!inflater.finished()) {
+				if (count == result.length) {
+					if (count >= limit)
+						return null;
+					result = Arrays.copyOf(result, (int) Math.min(limit, 2L * count));
+				}
+				int n = inflater.inflate(result, count, result.length - count);
+				if (n == 0 && !inflater.finished())
+					throw new ZipException(CVSMessages.Session_corruptGzip);
+				count += n;
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage());
+		}
+		CRC32 crc = new CRC32();
+		crc.update(result, 0, count);
+		if (count != readInt(bytes, trailer + 4) || (int) crc.getValue() != readInt(bytes, trailer))
+			throw new ZipException(CVSMessages.Session_corruptGzip);
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * Release the native resources of the inflater.
+	 */
+	public void dispose() {
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+	}
+
+	private static int readShort(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return readShort(bytes, offset) | readShort(bytes, offset + 2) << 16;
+	}
+
+	private static int skipString(byte[] bytes, int offset, int length) {
+		while (offset < length && bytes[offset] != 0) offset++;
+		return offset + 1;
+	}
+}
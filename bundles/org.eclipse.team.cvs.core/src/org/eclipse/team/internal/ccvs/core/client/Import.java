@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -28,6 +28,11 @@ public class Import extends Command {
 		return "import"; //$NON-NLS-1$
 	}
 
+	@Override
+	protected boolean isRepositoryModification() {
+		return true;
+	}
+
 	protected ICVSResource[] computeWorkResources(Session session, LocalOption[] localOptions,
 		String[] arguments) throws CVSException {
 		if (arguments.length < 3) throw new IllegalArgumentException();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,9 @@ public class Log extends AbstractMessageCommand {
 	public static LocalOption makeRevisionOption(String revision) {
 		return new LocalOption("-r" + revision, null); //$NON-NLS-1$
 	}
+	public static LocalOption makeDateOption(String dateRange) {
+		return new LocalOption("-d", dateRange); //$NON-NLS-1$
+	}
 	public static final LocalOption RCS_FILE_NAMES_ONLY = new LocalOption("-R"); //$NON-NLS-1$
 	
 	public static final LocalOption NO_TAGS = new LocalOption("-N"); //$NON-NLS-1$
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -54,6 +54,11 @@ public class RTag extends RemoteCommand {
 		return "rtag"; //$NON-NLS-1$
 	}
 
+	@Override
+	protected boolean isRepositoryModification() {
+		return true;
+	}
+
 	protected ICVSResource[] computeWorkResources(Session session, LocalOption[] localOptions,
 		String[] arguments) throws CVSException {
 		if (arguments.length < 2) throw new IllegalArgumentException();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -70,6 +70,8 @@ public class Session {
 	// update progress bar in increments of this size (in bytes)
 	//   no incremental progress shown for files smaller than this size
 	private static final int TRANSFER_PROGRESS_INCREMENT = 32768;
+	// files up to this size (in bytes), compressed and inflated, are received in one read rather than streamed
+	private static final int IN_MEMORY_TRANSFER_LIMIT = 1024 * 1024;
 
 	public static final boolean IS_CRLF_PLATFORM = Arrays.equals(
 		System.getProperty("line.separator").getBytes(), new byte[] { '\r', '\n' }); //$NON-NLS-1$
@@ -85,6 +87,9 @@ public class Session {
 	private int compressionLevel = 0;
 	private List<String> expansions;
 	private Collection /* of ICVSFile */ textTransferOverrideSet = null;
+	// buffer and inflater reused by the files received in memory
+	private byte[] transferBuffer;
+	private GzipPayloadInflater inflater;
 	
 	// state need to indicate whether 
 	private boolean ignoringLocalChanges = false;
@@ -226,6 +231,11 @@ public class Session {
 			connection = null;
 			validRequests = null;
 		}
+		transferBuffer = null;
+		if (inflater != null) {
+			inflater.dispose();
+			inflater = null;
+		}
 	}
 	
 	/**
@@ -732,6 +742,7 @@ public class Session {
 	 * contents of the file that is received.
 	 * </p><p>
 	 * Translation is performed on-the-fly, so the file need not fit in available memory.
+	 * Small files that do not need translation are received in memory in one read.
 	 * </p>
 	 * @param file the file to be received
 	 * @param isBinary is true if the file should be received without translation
@@ -769,6 +780,11 @@ public class Session {
 				throw new CVSException(status); 
 			}
 		}
+		boolean translateLineEnds = !isBinary && IS_CRLF_PLATFORM && CVSProviderPlugin.getPlugin().isUsePlatformLineend();
+		if (size <= IN_MEMORY_TRANSFER_LIMIT && !translateLineEnds) {
+			receiveFileInMemory(file, (int) size, compressed, isBinary, responseType, title, monitor);
+			return;
+		}
 		// create an input stream that spans the next 'size' bytes from the connection
 		InputStream in = new SizeConstrainedInputStream(connection.getInputStream(), size, true /*discardOnClose*/);
 		// setup progress monitoring
@@ -794,7 +810,7 @@ public class Session {
 		// if not binary, translate line delimiters on the fly
 		if (! isBinary) {
 			// switch from LF to CRLF if appropriate
-			if (IS_CRLF_PLATFORM && CVSProviderPlugin.getPlugin().isUsePlatformLineend()) {
+			if (translateLineEnds) {
 				// auto-correct for CRLF line-ends that come from the server
 				in = new CRLFtoLFInputStream(in);
 				// convert LF to CRLF
@@ -808,6 +824,53 @@ public class Session {
 		file.setContents(in, responseType, true, new NullProgressMonitor());
 	}
 
+	/*
+	 * Receive a file that does not need line delimiter translation by reading the
+	 * bytes from the connection in one read and, if they are compressed, inflating
+	 * them in one pass. This avoids copying the contents through a stack of streams.
+	 * Compressed contents that inflate to more than the in-memory limit are inflated
+	 * while they are written instead.
+	 */
+	private void receiveFileInMemory(ICVSStorage file, int size, boolean compressed, boolean isBinary, int responseType, String title, IProgressMonitor monitor) throws CVSException {
+		byte[] bytes = getTransferBuffer(size);
+		connection.readFully(bytes, 0, size);
+		if (size >= TRANSFER_PROGRESS_INCREMENT) {
+			String kbytes = Long.toString(size >> 10);
+			monitor.subTask(NLS.bind(CVSMessages.Session_transfer, (new Object[] { title, kbytes, kbytes })));
+		}
+		InputStream in;
+		if (compressed) {
+			if (inflater == null)
+				inflater = new GzipPayloadInflater();
+			try {
+				byte[] inflated = inflater.inflate(bytes, size, IN_MEMORY_TRANSFER_LIMIT);
+				if (inflated != null) {
+					in = new ByteArrayInputStream(inflated);
+				} else {
+					// too large to be held in memory so inflate the contents while they are written
+					in = new GZIPInputStream(new ByteArrayInputStream(bytes, 0, size));
+				}
+			} catch (IOException e) {
+				throw CVSException.wrapException(e);
+			}
+		} else {
+			in = new ByteArrayInputStream(bytes, 0, size);
+		}
+		if (! isBinary) {
+			// be nice and warn about text files that contain CRLF
+			in = new CRLFDetectInputStream(in, file);
+		}
+		// write the file locally
+		file.setContents(in, responseType, true, new NullProgressMonitor());
+	}
+
+	private byte[] getTransferBuffer(int size) {
+		if (transferBuffer == null || transferBuffer.length < size) {
+			transferBuffer = new byte[Math.max(size, TRANSFER_BUFFER_SIZE)];
+		}
+		return transferBuffer;
+	}
+
 	/**
 	 * Stores the value of the last Mod-time response encountered.
 	 * Valid only for the duration of a single CVS command.
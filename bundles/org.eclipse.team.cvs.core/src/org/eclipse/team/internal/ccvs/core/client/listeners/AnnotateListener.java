@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -29,10 +29,12 @@ public class AnnotateListener extends CommandOutputListener {
  */	
 	ByteArrayOutputStream aStream = new ByteArrayOutputStream();
 	List<CVSAnnotateBlock> blocks = new ArrayList<>();
+	List<String> lines = new ArrayList<>();
 	int lineNumber;
 	
 	public IStatus messageLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
 		String error = null;
+		lines.add(line);
 		CVSAnnotateBlock aBlock = new CVSAnnotateBlock(line, lineNumber++);
 		if (!aBlock.isValid()) {
 			error = line;
@@ -61,6 +63,15 @@ public class AnnotateListener extends CommandOutputListener {
 	public List getCvsAnnotateBlocks() {
 		return blocks;
 	}
+	
+	/**
+	 * Return the lines of the annotate command output received
+	 * by the listener.
+	 * @return the lines of the annotate output
+	 */
+	public String[] getLines() {
+		return lines.toArray(new String[lines.size()]);
+	}
 	/**
 	 * Add an annotate block to the receiver merging this block with the
 	 * previous block if it is part of the same change.
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.client.listeners;
+
+import org.eclipse.team.internal.ccvs.core.ICVSFolder;
+import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
+
+/**
+ * Notified when a command that modifies the contents of the repository
+ * (e.g. a commit or a tag operation) has been executed.
+ */
+public interface IRepositoryModificationListener {
+	/**
+	 * Called when a command that modifies the repository has been executed.
+	 * The command may have failed after having modified part of the repository.
+	 * @param location the repository that was modified
+	 * @param folder the root folder of the command
+	 */
+	public void repositoryModified(ICVSRepositoryLocation location, ICVSFolder folder);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,7 +16,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.client.listeners;
 
-import java.text.*;
+import java.text.ParseException;
 import java.util.*;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -27,6 +27,7 @@ import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.CommandOutputListener;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
 /**
@@ -35,15 +36,6 @@ import org.eclipse.team.internal.ccvs.core.util.Util;
  */
 public class LogListener extends CommandOutputListener {
 	
-	/*
-	 * A new format for log dates was introduced in 1.12.9
-	 */
-	private static final String LOG_TIMESTAMP_FORMAT_OLD= "yyyy/MM/dd HH:mm:ss zzz";//$NON-NLS-1$
-	private static final String LOG_TIMESTAMP_FORMAT= "yyyy-MM-dd HH:mm:ss zzz";//$NON-NLS-1$
-	private static final Locale LOG_TIMESTAMP_LOCALE= Locale.US;
-	private final DateFormat LOG_DATE_FORMATTER_OLD = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT_OLD, LOG_TIMESTAMP_LOCALE);
-	private final DateFormat LOG_DATE_FORMATTER = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT, LOG_TIMESTAMP_LOCALE);
-	
 	// Server message prefix used for error detection
 	private static final String NOTHING_KNOWN_ABOUT = "nothing known about "; //$NON-NLS-1$
 
@@ -166,7 +158,7 @@ public class LogListener extends CommandOutputListener {
 				// date: 2000/06/19 04:56:21;  author: somebody;  state: Exp;  lines: +114 -45
 				// get the creation date
 				int endOfDateIndex = line.indexOf(';', 6);
-				creationDate = convertFromLogTime(line.substring(6, endOfDateIndex) + " GMT"); //$NON-NLS-1$
+				creationDate = convertFromLogTime(line.substring(6, endOfDateIndex));
 	
 				// get the author name
 				int endOfAuthorIndex = line.indexOf(';', endOfDateIndex + 1);
@@ -195,57 +187,81 @@ public class LogListener extends CommandOutputListener {
 				break;
 		}
 		if (state == DONE) {
-			// we are only interested in tag names for this revision, remove all others.
-			List<ITag> thisRevisionTags = versions.isEmpty() ? Collections.emptyList() : new ArrayList<>(3);
-			List<ITag> thisRevisionBranches = new ArrayList<>(1);
-			//a parallel lists for revision tags (used only for branches with no commits on them)
-			List<String> revisionVersions = versions.isEmpty() ? Collections.emptyList() : new ArrayList<>(3);
-			String branchRevision = this.getBranchRevision(revision);
-			for (Iterator i = versions.iterator(); i.hasNext();) {
-				VersionInfo version = (VersionInfo) i.next();
-				String tagName = version.getTagName();
-				String tagRevision = version.getTagRevision();
-				String tagBranchRevision = version.getBranchRevision();
-				int type = version.isBranch() ? CVSTag.BRANCH : CVSTag.VERSION;
-				if ( branchRevision.equals(tagBranchRevision) || 
-						(version.isBranch() && revision.equals(tagRevision))) {
-					CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
-					thisRevisionBranches.add(cvsTag);
-				}
-				
-				if (tagRevision.equals(revision) ||
-					revision.equals(BRANCH_REVISION)) {
-					CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
-					thisRevisionTags.add(cvsTag);
-					if (revision.equals(BRANCH_REVISION)){
-						//also record the tag revision
-						revisionVersions.add(tagRevision);
-					}
-				}
-			}
-			
-			if (branchRevision.equals(CVSTag.HEAD_REVISION)) {
-				CVSTag tag = new CVSTag(CVSTag.HEAD_BRANCH, CVSTag.HEAD_REVISION, CVSTag.HEAD);
-				thisRevisionBranches.add(tag);
-			} else {
-				if ( thisRevisionBranches.isEmpty()) {
-					CVSTag cvsTag = new CVSTag(CVSTag.UNKNOWN_BRANCH, branchRevision, CVSTag.BRANCH);
-					thisRevisionBranches.add(cvsTag);
-				}			
-			}
 			if (currentFile != null) {
-				LogEntry entry = new LogEntry(currentFile, revision, author, creationDate,
-					internString(comment.toString()), fileState, 
-					!thisRevisionTags.isEmpty() ? (CVSTag[]) thisRevisionTags.toArray(new CVSTag[thisRevisionTags.size()]) :NO_TAGS, 
-					!thisRevisionBranches.isEmpty() ? (CVSTag[]) thisRevisionBranches.toArray(new CVSTag[thisRevisionBranches.size()]) :NO_TAGS, 
-						!revisionVersions.isEmpty() ? (String[]) revisionVersions.toArray(new String[revisionVersions.size()]) : NO_VERSIONS);
-				addEntry(entry);
+				addEntry(createLogEntry(currentFile, revision, author, creationDate,
+					internString(comment.toString()), fileState, versions));
 			}
 			state = BEGIN;
 		}
 		return OK;
 	}
 
+	/**
+	 * Create the log entry of the given revision of a file along with the tags and
+	 * branches that the given symbolic names assign to it.
+	 * @param file the remote file
+	 * @param revision the revision
+	 * @param author the author of the revision
+	 * @param date the date of the revision
+	 * @param comment the comment of the revision
+	 * @param state the state of the revision
+	 * @param symbolicNames the symbolic names of the file as returned by <code>getSymbolicNames</code>
+	 * @return the log entry
+	 */
+	public static LogEntry createLogEntry(RemoteFile file, String revision, String author, Date date, String comment, String state, String[] symbolicNames) {
+		List<VersionInfo> versions = new ArrayList<>(symbolicNames.length);
+		for (String name : symbolicNames) {
+			int colon = name.lastIndexOf(':');
+			versions.add(new VersionInfo(name.substring(colon + 1), name.substring(0, colon)));
+		}
+		return createLogEntry(file, revision, author, date, comment, state, versions);
+	}
+
+	private static LogEntry createLogEntry(RemoteFile file, String revision, String author, Date date, String comment, String fileState, List<VersionInfo> versions) {
+		// we are only interested in tag names for this revision, remove all others.
+		List<ITag> thisRevisionTags = versions.isEmpty() ? Collections.emptyList() : new ArrayList<>(3);
+		List<ITag> thisRevisionBranches = new ArrayList<>(1);
+		//a parallel lists for revision tags (used only for branches with no commits on them)
+		List<String> revisionVersions = versions.isEmpty() ? Collections.emptyList() : new ArrayList<>(3);
+		String branchRevision = getBranchRevision(revision);
+		for (Iterator i = versions.iterator(); i.hasNext();) {
+			VersionInfo version = (VersionInfo) i.next();
+			String tagName = version.getTagName();
+			String tagRevision = version.getTagRevision();
+			String tagBranchRevision = version.getBranchRevision();
+			int type = version.isBranch() ? CVSTag.BRANCH : CVSTag.VERSION;
+			if ( branchRevision.equals(tagBranchRevision) || 
+					(version.isBranch() && revision.equals(tagRevision))) {
+				CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
+				thisRevisionBranches.add(cvsTag);
+			}
+			
+			if (tagRevision.equals(revision) ||
+				revision.equals(BRANCH_REVISION)) {
+				CVSTag cvsTag = new CVSTag(tagName, tagBranchRevision, type);
+				thisRevisionTags.add(cvsTag);
+				if (revision.equals(BRANCH_REVISION)){
+					//also record the tag revision
+					revisionVersions.add(tagRevision);
+				}
+			}
+		}
+		
+		if (branchRevision.equals(CVSTag.HEAD_REVISION)) {
+			CVSTag tag = new CVSTag(CVSTag.HEAD_BRANCH, CVSTag.HEAD_REVISION, CVSTag.HEAD);
+			thisRevisionBranches.add(tag);
+		} else {
+			if ( thisRevisionBranches.isEmpty()) {
+				CVSTag cvsTag = new CVSTag(CVSTag.UNKNOWN_BRANCH, branchRevision, CVSTag.BRANCH);
+				thisRevisionBranches.add(cvsTag);
+			}			
+		}
+		return new LogEntry(file, revision, author, date, comment, fileState, 
+			!thisRevisionTags.isEmpty() ? (CVSTag[]) thisRevisionTags.toArray(new CVSTag[thisRevisionTags.size()]) :NO_TAGS, 
+			!thisRevisionBranches.isEmpty() ? (CVSTag[]) thisRevisionBranches.toArray(new CVSTag[thisRevisionBranches.size()]) :NO_TAGS, 
+				!revisionVersions.isEmpty() ? (String[]) revisionVersions.toArray(new String[revisionVersions.size()]) : NO_VERSIONS);
+	}
+
 	/**
 	 * Convert revision number to branch number.
 	 * 
@@ -261,7 +277,7 @@ public class LogListener extends CommandOutputListener {
 	 * @return branch number
 	 * 
 	 */
-	private String getBranchRevision(String revision) {
+	private static String getBranchRevision(String revision) {
 		if (revision.length() == 0 || !revision.contains(".")) //$NON-NLS-1$
 			throw new IllegalArgumentException(
 					"Revision malformed: " + revision); //$NON-NLS-1$
@@ -281,6 +297,22 @@ public class LogListener extends CommandOutputListener {
 		versions.clear();
 	}
 
+	/**
+	 * Return the symbolic names (tag name and revision separated by a colon) that
+	 * were received for the file whose log is currently being received. The revision
+	 * is the one received from the server so the names can be passed to
+	 * <code>createLogEntry</code>.
+	 * @return the symbolic names of the current file
+	 */
+	protected String[] getSymbolicNames() {
+		String[] names = new String[versions.size()];
+		for (int i = 0; i < names.length; i++) {
+			VersionInfo version = versions.get(i);
+			names[i] = version.getTagName() + ':' + version.getVersion();
+		}
+		return names;
+	}
+	
 	protected void addEntry(LogEntry entry) {
 		listener.handleLogEntryReceived(entry);
 	}
@@ -294,13 +326,9 @@ public class LogListener extends CommandOutputListener {
 	 * <code>Date</code>.
 	 */
 	private Date convertFromLogTime(String modTime) {
-		DateFormat format = LOG_DATE_FORMATTER;
-		// Compatibility for older cvs version (pre 1.12.9)
-		if (modTime.length() > 4 && modTime.charAt(4) == '/')
-			format = LOG_DATE_FORMATTER_OLD;
-		
+		// Handles both the format introduced in 1.12.9 and the one used by older cvs versions
 		try {
-			return format.parse(modTime);
+			return CVSDateFormatter.logStampToDate(modTime);
 		} catch (ParseException e) {
 			// fallback is to return null
 			return null;
@@ -327,12 +355,14 @@ public class LogListener extends CommandOutputListener {
 	
 	private static class VersionInfo {
 		private final boolean isBranch;
+		private final String version;
 		private String tagRevision;
 		private String branchRevision;
 		private final String tagName;
 		
 		public VersionInfo(String version, String tagName) {
 			this.tagName = tagName;
+			this.version = version;
 			this.isBranch = isBranchTag(version);
 			tagRevision = version;
 			if (isBranch) {
@@ -358,6 +388,10 @@ public class LogListener extends CommandOutputListener {
 			return this.tagRevision;
 		}
 		
+		public String getVersion() {
+			return this.version;
+		}
+		
 		public boolean isBranch() {
 			return isBranch;
 		}
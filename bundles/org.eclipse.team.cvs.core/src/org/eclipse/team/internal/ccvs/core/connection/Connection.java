@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -38,9 +38,16 @@ import org.eclipse.team.internal.ccvs.core.*;
  *	<li> close: closes the connection. A closed connection can be reopened by
  *	     calling open again.
  * </ul>
+ * <p>
+ * Requests are buffered and only sent to the server when the buffer is full,
+ * when the connection is flushed or when a response is read. Since the server
+ * does not respond until it receives a command request, this allows long
+ * sequences of requests (e.g. the entries of a large tree) to be sent in a
+ * few large writes instead of one write per line.</p>
  */
 public class Connection {
 	private static final byte NEWLINE= 0xA;
+	private static final int REQUEST_BUFFER_SIZE = 32 * 1024;
 	
 	private IServerConnection serverConnection;
 	private ICVSRepositoryLocation fCVSRoot;
@@ -48,6 +55,9 @@ public class Connection {
 	private InputStream fResponseStream;
 	private String fServerEncoding;
 	private byte[] readLineBuffer = new byte[256];
+	private byte[] requestBuffer = new byte[REQUEST_BUFFER_SIZE];
+	private int requestLength;
+	private OutputStream requestStream;
 
 	public Connection(ICVSRepositoryLocation cvsroot, IServerConnection serverConnection) {
 		fCVSRoot = cvsroot;
@@ -80,6 +90,9 @@ public class Connection {
 			}
 		} finally {
 			fResponseStream = null;
+			requestStream = null;
+			// Any pending requests are discarded since no response will be read for them
+			requestLength = 0;
 			fIsEstablished = false;
 		}
 	}
@@ -98,13 +111,64 @@ public class Connection {
 	
 	/**
 	 * Returns the <code>OutputStream</code> used to send requests
-	 * to the server.
+	 * to the server. Bytes written to the stream are buffered along
+	 * with the other requests so the stream must be flushed (or a response
+	 * read) for them to be sent.
 	 */
 	public OutputStream getOutputStream() {
 		if (!isEstablished())
 			return null;
-		return serverConnection.getOutputStream();
+		if (requestStream == null)
+			requestStream = new RequestOutputStream();
+		return requestStream;
 	}
+	
+	/*
+	 * Send the buffered requests to the server without flushing the underlying stream.
+	 */
+	private void sendBufferedRequests() throws IOException {
+		if (requestLength > 0) {
+			int length = requestLength;
+			// Reset first so the requests are not sent again if the write fails
+			requestLength = 0;
+			serverConnection.getOutputStream().write(requestBuffer, 0, length);
+		}
+	}
+	
+	/*
+	 * Buffer the given bytes, sending the buffered requests first if they do not fit.
+	 * Writes that are larger than the buffer are sent directly.
+	 */
+	private void bufferRequest(byte[] b, int off, int len) throws IOException {
+		if (len > requestBuffer.length - requestLength) {
+			sendBufferedRequests();
+			if (len > requestBuffer.length) {
+				serverConnection.getOutputStream().write(b, off, len);
+				return;
+			}
+		}
+		System.arraycopy(b, off, requestBuffer, requestLength, len);
+		requestLength += len;
+	}
+	
+	private class RequestOutputStream extends OutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			if (requestLength == requestBuffer.length)
+				sendBufferedRequests();
+			requestBuffer[requestLength++] = (byte) b;
+		}
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			bufferRequest(b, off, len);
+		}
+		@Override
+		public void flush() throws IOException {
+			sendBufferedRequests();
+			serverConnection.getOutputStream().flush();
+		}
+	}
+	
 	/**
 	 * Returns the <code>InputStream</code> used to read responses from
 	 * the server.
@@ -144,6 +208,9 @@ public class Connection {
 	public String readLine() throws CVSException {
 		if (!isEstablished())
 			throw new CVSCommunicationException(CVSMessages.Connection_readUnestablishedConnection,fCVSRoot,null);
+		// The server will not respond to requests that were not sent
+		if (requestLength > 0)
+			flush();
 		try { 
 			InputStream in = getInputStream();
 			int index = 0;
@@ -160,7 +227,31 @@ public class Connection {
 			throw new CVSCommunicationException(fCVSRoot,e);
 		}
 	}
-	
+
+	/**
+	 * Reads exactly <code>length</code> bytes from the response stream
+	 * into the given buffer.
+	 */
+	public void readFully(byte[] buffer, int offset, int length) throws CVSException {
+		if (!isEstablished())
+			throw new CVSCommunicationException(CVSMessages.Connection_readUnestablishedConnection,fCVSRoot,null);
+		// The server will not respond to requests that were not sent
+		if (requestLength > 0)
+			flush();
+		try {
+			InputStream in = getInputStream();
+			while (length > 0) {
+				int count = in.read(buffer, offset, length);
+				if (count == -1)
+					throw new EOFException();
+				offset += count;
+				length -= count;
+			}
+		} catch (IOException e) {
+			throw new CVSCommunicationException(fCVSRoot,e);
+		}
+	}
+
 	static String readLine(ICVSRepositoryLocation location, InputStream in) throws IOException {
 		byte[] buffer = new byte[256];
 		int index = 0;
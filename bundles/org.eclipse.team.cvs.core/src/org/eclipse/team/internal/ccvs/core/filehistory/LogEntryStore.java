@@ -0,0 +1,469 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.filehistory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.Command;
+import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
+import org.eclipse.team.internal.ccvs.core.client.Log;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
+import org.eclipse.team.internal.ccvs.core.util.Util;
+
+/**
+ * Persistent store of the log entries of remote files.
+ * <p>
+ * The history of each file is kept in the plug-in state location in a directory per
+ * repository location and a file per repository relative path. Once the complete history
+ * of a file has been fetched, refreshing it only asks the server for the revisions
+ * committed since the last known revision. A bounded number of histories is kept on
+ * disk, the least recently used ones being deleted, and a smaller number in memory.</p>
+ * <p>
+ * Only the parts of an entry that never change (revision, author, date, comment and
+ * state) are stored. Tags can be added, moved or removed at any time so the tags and
+ * branches of the entries are computed from the symbolic names that the server returns
+ * each time the history is refreshed. Clients that read the stored entries without
+ * contacting the server get entries without tags.</p>
+ */
+public class LogEntryStore {
+
+	private static final String STORE_DIRECTORY = "history"; //$NON-NLS-1$
+	private static final String TEMP_FILE_SUFFIX = ".tmp"; //$NON-NLS-1$
+	private static final int STORE_VERSION = 2;
+	private static final int MAX_CACHED_HISTORIES = 128;
+	private static final int MAX_STORED_HISTORIES = 2000;
+	// the stored histories are pruned after this number of writes
+	private static final int PRUNE_INTERVAL = 100;
+	// temporary files older than this (in ms) were left behind by an interrupted write
+	private static final long TEMP_FILE_AGE = 60 * 60 * 1000;
+	private static final int FILE_LOCK_COUNT = 16;
+	private static final long NO_DATE = -1;
+	private static final String[] NO_SYMBOLIC_NAMES = new String[0];
+
+	private static LogEntryStore instance;
+
+	private final File root;
+	// reads and writes of the same file are serialized by one of these locks
+	private final Object[] fileLocks = new Object[FILE_LOCK_COUNT];
+	private int writeCount;
+	private boolean pruning;
+	private final Map<String, StoredHistory> histories = new LinkedHashMap<String, StoredHistory>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, StoredHistory> eldest) {
+			return size() > MAX_CACHED_HISTORIES;
+		}
+	};
+
+	/*
+	 * The entries of a file along with the symbolic names the server
+	 * reported when the history was last refreshed.
+	 */
+	private static class StoredHistory {
+		final String location;
+		final String path;
+		final String[] symbolicNames;
+		// the entries in the order they were received, keyed by revision
+		final Map<String, StoredEntry> entries;
+		StoredHistory(String location, String path, String[] symbolicNames, Map<String, StoredEntry> entries) {
+			this.location = location;
+			this.path = path;
+			this.symbolicNames = symbolicNames;
+			this.entries = entries;
+		}
+		long getLastDate() {
+			long lastDate = NO_DATE;
+			for (StoredEntry entry : entries.values()) {
+				lastDate = Math.max(lastDate, entry.date);
+			}
+			return lastDate;
+		}
+		StoredHistory merge(List<StoredEntry> newEntries, String[] newSymbolicNames) {
+			Map<String, StoredEntry> merged = toMap(newEntries);
+			for (StoredEntry entry : entries.values()) {
+				if (!merged.containsKey(entry.revision)) {
+					merged.put(entry.revision, entry);
+				}
+			}
+			return new StoredHistory(location, path, newSymbolicNames, merged);
+		}
+		ILogEntry[] toLogEntries(RemoteFile file, String[] names) {
+			ILogEntry[] result = new ILogEntry[entries.size()];
+			int i = 0;
+			for (StoredEntry entry : entries.values()) {
+				result[i++] = entry.toLogEntry(file, names);
+			}
+			return result;
+		}
+	}
+
+	private static Map<String, StoredEntry> toMap(List<StoredEntry> entries) {
+		Map<String, StoredEntry> map = new LinkedHashMap<>();
+		for (StoredEntry entry : entries) {
+			map.put(entry.revision, entry);
+		}
+		return map;
+	}
+
+	/*
+	 * The parts of a log entry that do not change once the revision is committed
+	 */
+	private static class StoredEntry {
+		final String revision;
+		final String author;
+		final long date;
+		final String comment;
+		final String state;
+		StoredEntry(String revision, String author, long date, String comment, String state) {
+			this.revision = revision;
+			this.author = author;
+			this.date = date;
+			this.comment = comment;
+			this.state = state;
+		}
+		StoredEntry(LogEntry entry) {
+			this(entry.getRevision(), entry.getAuthor(), entry.getDate() == null ? NO_DATE : entry.getDate().getTime(), entry.getComment(),
+					entry.getState());
+		}
+		LogEntry toLogEntry(RemoteFile file, String[] symbolicNames) {
+			return LogListener.createLogEntry(file, revision, author, date == NO_DATE ? null : new Date(date), comment, state, symbolicNames);
+		}
+	}
+
+	/*
+	 * Log listener that accumulates the entries and keeps the symbolic names
+	 */
+	private static class HistoryListener extends LogListener {
+		private final String path;
+		private final List<StoredEntry> entries = new ArrayList<>();
+		HistoryListener(RemoteFile file) {
+			super(file, null);
+			this.path = file.getRepositoryRelativePath();
+		}
+		@Override
+		protected void addEntry(LogEntry entry) {
+			// When no revisions are selected, the listener creates an entry for the branch
+			// revision which is not a revision of the file
+			if (!entry.getRevision().equals(BRANCH_REVISION)
+					&& entry.getRemoteFile().getRepositoryRelativePath().equals(path)) {
+				entries.add(new StoredEntry(entry));
+			}
+		}
+		String[] getReceivedSymbolicNames() {
+			return getSymbolicNames();
+		}
+	}
+
+	/**
+	 * Return the store that keeps the history in the state location of the CVS core plug-in.
+	 * @return the log entry store
+	 */
+	public static synchronized LogEntryStore getInstance() {
+		if (instance == null) {
+			instance = new LogEntryStore(CVSProviderPlugin.getPlugin().getStateLocation().append(STORE_DIRECTORY).toFile());
+		}
+		return instance;
+	}
+
+	LogEntryStore(File root) {
+		this.root = root;
+		for (int i = 0; i < fileLocks.length; i++) {
+			fileLocks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Return the log entries of the given file. The server is only asked for the
+	 * revisions that were committed since the history of the file was last fetched.
+	 * The tags of all the entries are computed from the symbolic names returned by
+	 * the server so they are up to date.
+	 * @param file the remote file
+	 * @param monitor a progress monitor
+	 * @return the log entries of the file
+	 * @throws CVSException
+	 */
+	public ILogEntry[] getLogEntries(RemoteFile file, IProgressMonitor monitor) throws CVSException {
+		monitor = Policy.monitorFor(monitor);
+		monitor.beginTask(CVSMessages.RemoteFile_getLogEntries, 100);
+		try {
+			String location = file.getRepository().getLocation(false);
+			StoredHistory history = getHistory(location, file.getRepositoryRelativePath());
+			if (history != null && history.getLastDate() != NO_DATE) {
+				// The date range is inclusive so that revisions committed in the
+				// same second as the last known one are not missed
+				HistoryListener listener = new HistoryListener(file);
+				LocalOption dateOption = Log.makeDateOption(">=" + new CVSTag(new Date(history.getLastDate())).getName()); //$NON-NLS-1$
+				file.log(new LocalOption[] { dateOption }, listener, Policy.subMonitorFor(monitor, 50));
+				// The log header lists all the symbolic names even though only the new
+				// revisions are listed so the tags of the stored entries are refreshed too
+				history = history.merge(listener.entries, listener.getReceivedSymbolicNames());
+			} else {
+				history = null;
+				monitor.worked(50);
+			}
+			if (history == null) {
+				HistoryListener listener = new HistoryListener(file);
+				file.log(Command.NO_LOCAL_OPTIONS, listener, Policy.subMonitorFor(monitor, 50));
+				history = new StoredHistory(location, file.getRepositoryRelativePath(), listener.getReceivedSymbolicNames(), toMap(listener.entries));
+			}
+			putHistory(history);
+			return history.toLogEntries(file, history.symbolicNames);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Return all the stored log entries of the given file if its revision is
+	 * in the stored history and <code>null</code> otherwise. The server is not contacted
+	 * so the stored history may not include revisions newer than the given one and the
+	 * entries have no tags, as if the log had been fetched without tags.
+	 * @param file the remote file
+	 * @return the stored log entries or <code>null</code>
+	 */
+	public ILogEntry[] getStoredLogEntries(ICVSRemoteFile file) {
+		String location = file.getRepository().getLocation(false);
+		String path = file.getRepositoryRelativePath();
+		StoredHistory history = getHistory(location, path);
+		try {
+			if (history != null && history.entries.containsKey(file.getRevision())) {
+				return history.toLogEntries(RemoteFile.create(path, file.getRepository()), NO_SYMBOLIC_NAMES);
+			}
+		} catch (TeamException e) {
+			CVSProviderPlugin.log(e);
+		}
+		return null;
+	}
+
+	/**
+	 * Return the stored log entry of the revision of the given file or <code>null</code>
+	 * if the revision is not in the stored history. The server is not contacted so
+	 * the entry has no tags.
+	 * @param file the remote file
+	 * @return the stored log entry or <code>null</code>
+	 */
+	public ILogEntry getStoredLogEntry(ICVSRemoteFile file) {
+		ILogEntry[] entries = getStoredLogEntries(file);
+		if (entries != null) {
+			for (ILogEntry entry : entries) {
+				if (entry.getRevision().equals(file.getRevision())) {
+					return entry;
+				}
+			}
+		}
+		return null;
+	}
+
+	private StoredHistory getHistory(String location, String path) {
+		String key = Util.appendPath(location, path);
+		synchronized (histories) {
+			StoredHistory history = histories.get(key);
+			if (history != null) {
+				return history;
+			}
+		}
+		File file = getFile(location, path);
+		StoredHistory history;
+		synchronized (getFileLock(file)) {
+			history = readHistory(file, location, path);
+		}
+		if (history == null) {
+			return null;
+		}
+		synchronized (histories) {
+			// A newer history may have been put while the file was read
+			StoredHistory current = histories.get(key);
+			if (current != null) {
+				return current;
+			}
+			histories.put(key, history);
+		}
+		return history;
+	}
+
+	private void putHistory(StoredHistory history) {
+		String key = Util.appendPath(history.location, history.path);
+		synchronized (histories) {
+			histories.put(key, history);
+		}
+		File file = getFile(history.location, history.path);
+		synchronized (getFileLock(file)) {
+			synchronized (histories) {
+				// Do not overwrite a newer history that was put while waiting for the file
+				StoredHistory current = histories.get(key);
+				if (current != null && current != history) {
+					return;
+				}
+			}
+			writeHistory(file, history);
+		}
+		pruneIfNeeded();
+	}
+
+	private Object getFileLock(File file) {
+		return fileLocks[(file.hashCode() & Integer.MAX_VALUE) % fileLocks.length];
+	}
+
+	/*
+	 * Delete the least recently used histories when there are more than the maximum
+	 * along with the temporary files left behind by interrupted writes. This is done
+	 * on the first write and then periodically.
+	 */
+	private void pruneIfNeeded() {
+		synchronized (histories) {
+			if (pruning || writeCount++ % PRUNE_INTERVAL != 0) {
+				return;
+			}
+			pruning = true;
+		}
+		try {
+			prune();
+		} finally {
+			synchronized (histories) {
+				pruning = false;
+			}
+		}
+	}
+
+	private void prune() {
+		File[] locations = root.listFiles();
+		if (locations == null) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		List<File> files = new ArrayList<>();
+		for (File location : locations) {
+			File[] stored = location.listFiles();
+			if (stored == null) {
+				continue;
+			}
+			for (File file : stored) {
+				if (!file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+					files.add(file);
+				} else if (now - file.lastModified() > TEMP_FILE_AGE) {
+					file.delete();
+				}
+			}
+		}
+		if (files.size() <= MAX_STORED_HISTORIES) {
+			return;
+		}
+		// The files are touched when they are read so the oldest are the least recently used
+		Map<File, Long> lastModified = new HashMap<>();
+		for (File file : files) {
+			lastModified.put(file, Long.valueOf(file.lastModified()));
+		}
+		files.sort(Comparator.comparing(lastModified::get));
+		for (File file : files.subList(0, files.size() - MAX_STORED_HISTORIES)) {
+			file.delete();
+		}
+	}
+
+	private File getFile(String location, String path) {
+		return new File(new File(root, Integer.toHexString(location.hashCode())), Integer.toHexString(path.hashCode()));
+	}
+
+	private StoredHistory readHistory(File file, String location, String path) {
+		if (!file.exists()) return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != STORE_VERSION) return null;
+			// The file name is a hash so make sure this is the history of the right file
+			if (!location.equals(readString(in)) || !path.equals(readString(in))) return null;
+			String[] symbolicNames = readStrings(in);
+			int count = in.readInt();
+			Map<String, StoredEntry> entries = new LinkedHashMap<>();
+			for (int i = 0; i < count; i++) {
+				StoredEntry entry = new StoredEntry(readString(in), readString(in), in.readLong(), readString(in), readString(in));
+				entries.put(entry.revision, entry);
+			}
+			// Keep track of the use of the history so the least recently used ones are pruned
+			file.setLastModified(System.currentTimeMillis());
+			return new StoredHistory(location, path, symbolicNames, entries);
+		} catch (IOException e) {
+			// The history will be fetched again and the file overwritten
+			CVSProviderPlugin.log(IStatus.WARNING, e.getMessage(), e);
+			return null;
+		}
+	}
+
+	private void writeHistory(File file, StoredHistory history) {
+		File tempFile = new File(file.getParentFile(), file.getName() + TEMP_FILE_SUFFIX);
+		try {
+			file.getParentFile().mkdirs();
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(STORE_VERSION);
+				writeString(out, history.location);
+				writeString(out, history.path);
+				writeStrings(out, history.symbolicNames);
+				out.writeInt(history.entries.size());
+				for (StoredEntry entry : history.entries.values()) {
+					writeString(out, entry.revision);
+					writeString(out, entry.author);
+					out.writeLong(entry.date);
+					writeString(out, entry.comment);
+					writeString(out, entry.state);
+				}
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			// The history will be fetched again the next time it is needed
+			CVSProviderPlugin.log(IStatus.WARNING, e.getMessage(), e);
+			tempFile.delete();
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+		} else {
+			// Comments can be longer than what writeUTF supports
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+		out.writeInt(strings.length);
+		for (String string : strings) {
+			writeString(out, string);
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] strings = new String[in.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = readString(in);
+		}
+		return strings;
+	}
+}
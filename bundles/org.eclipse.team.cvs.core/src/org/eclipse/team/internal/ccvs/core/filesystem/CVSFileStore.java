@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2007 IBM Corporation and others.
+ * Copyright (c) 2005, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -58,15 +58,21 @@ public class CVSFileStore extends FileStore {
 		if (info != null && !info.isDirectory()) {
 			return new IFileInfo[0];
 		}
+		RemoteInfoCache cache = RemoteInfoCache.getInstance();
+		IFileInfo[] childInfos = cache.getChildInfos(uri);
+		if (childInfos != null) {
+			return childInfos;
+		}
 		ICVSRemoteFolder folder = uri.toFolder();
 		ICVSResource[] children = folder.fetchChildren(monitor);
 		
-		IFileInfo[] childInfos = new IFileInfo[children.length];
+		childInfos = new IFileInfo[children.length];
 		for (int i = 0; i < children.length; i++) {
 			ICVSResource child = children[i];
 			IFileInfo info = getFileInfo(child, monitor);
 			childInfos[i] = info;
 		}
+		cache.putChildInfos(uri, childInfos);
 		return childInfos;
 	}
 
@@ -87,28 +93,38 @@ public class CVSFileStore extends FileStore {
 	public IFileInfo fetchInfo(int options, IProgressMonitor monitor) throws CoreException {
 		monitor = Policy.monitorFor(monitor);
 		
-		if (isStickyRevision()) {
-			ICVSRemoteFile file = uri.toFile();
-			return getFileInfo(file, monitor);
-		}
-		ICVSRemoteFolder folder = uri.getParentFolder();
-		
-		if (folder == null) {
+		if (uri.isRepositoryRoot()) {
 			// this is the repo root so return an info that indicates this
 			FileInfo info = new FileInfo();
 			info.setExists(true);
 			info.setName(uri.getRepositoryName());
 			info.setDirectory(true);
+			return info;
 		}
-		ICVSResource[] children = folder.fetchChildren(monitor);
-		ICVSResource resource = null;
-		for (ICVSResource child : children) {
-			if (child.getName().equals(getName())) {
-				resource = child;
-				break;
+		RemoteInfoCache cache = RemoteInfoCache.getInstance();
+		IFileInfo info = cache.getFileInfo(uri);
+		if (info != null) {
+			return info;
+		}
+		if (isStickyRevision()) {
+			ICVSRemoteFile file = uri.toFile();
+			info = getFileInfo(file, monitor);
+		} else {
+			ICVSRemoteFolder folder = uri.getParentFolder();
+			ICVSResource[] children = folder.fetchChildren(monitor);
+			ICVSResource resource = null;
+			for (ICVSResource child : children) {
+				if (child.getName().equals(getName())) {
+					resource = child;
+					break;
+				}
 			}
+			info = getFileInfo(resource, monitor);
+		}
+		if (info != null) {
+			cache.putFileInfo(uri, info);
 		}
-		return getFileInfo(resource, monitor);
+		return info;
 	}
 
 	private boolean isStickyRevision() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,9 +25,6 @@ import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTree;
 
 public class CVSFileSystem extends FileSystem {
 
-
-	private CVSFileTree cvsTree;
-
 	public CVSFileSystem() {
 		super();
 	}
@@ -43,8 +40,8 @@ public class CVSFileSystem extends FileSystem {
 	public CVSFileTree getFullTree(URI uri, IProgressMonitor monitor){
 		try{
 		monitor.beginTask(CVSMessages.CVSFileSystem_FetchTree, 100);
-		//always return new tree
 		//monitor.subTask(NLS.bind(message, binding));
+		CVSFileTree cvsTree = RemoteInfoCache.getInstance().getTree(CVSURI.fromUri(uri));
 		if (cvsTree != null)
 		return cvsTree;
 
@@ -70,7 +67,8 @@ public class CVSFileSystem extends FileSystem {
 			HashMap logMap = logger.getLogMap();
 			folderMap.put(folder.getName(), remoteTree);
 			//Save tree
-			cvsTree = new CVSFileTree(new CVSFileStore(cvsURI, null), cvsURI, remoteTree, folderMap, logMap);
+			CVSFileTree cvsTree = new CVSFileTree(new CVSFileStore(cvsURI, null), cvsURI, remoteTree, folderMap, logMap);
+			RemoteInfoCache.getInstance().putTree(cvsURI, cvsTree);
 
 			return cvsTree;
 		} catch (CoreException e) {
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.filesystem;
+
+import java.util.*;
+
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.Command;
+import org.eclipse.team.internal.ccvs.core.client.Session;
+import org.eclipse.team.internal.ccvs.core.client.listeners.IRepositoryModificationListener;
+
+/**
+ * Caches the listings, file infos and trees fetched for <code>cvs://</code> URIs
+ * so that repeated navigation of the same remote folders does not go back to the
+ * server. Entries expire after a short time and the least recently used entries
+ * are evicted when the cache is full. Commands that modify the repository (e.g.
+ * commits and tag operations) discard the entries of the paths they touch.
+ */
+public class RemoteInfoCache implements IRepositoryModificationListener {
+
+	// The time after which an entry is fetched again from the server
+	private static final long TIME_TO_LIVE = 60 * 1000;
+
+	// The time after which the info of a resource that does not exist is fetched again
+	private static final long NEGATIVE_TIME_TO_LIVE = 5 * 1000;
+
+	// The maximum number of entries kept in the cache
+	private static final int MAX_ENTRIES = 256;
+
+	private static final char LISTING = 'L';
+	private static final char FILE_INFO = 'F';
+	private static final char TREE = 'T';
+
+	private static RemoteInfoCache instance;
+
+	private static class Entry {
+		final String location;
+		final String path;
+		final Object value;
+		final long expiry;
+		Entry(String location, String path, Object value, long timeToLive) {
+			this.location = location;
+			this.path = path;
+			this.value = value;
+			this.expiry = System.currentTimeMillis() + timeToLive;
+		}
+		boolean isExpired(long now) {
+			return now > expiry;
+		}
+	}
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true /* access order */) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * Return the cache shared by all <code>cvs://</code> file stores.
+	 * @return the shared cache
+	 */
+	public static synchronized RemoteInfoCache getInstance() {
+		if (instance == null) {
+			instance = new RemoteInfoCache();
+			Command.addRepositoryModificationListener(instance);
+		}
+		return instance;
+	}
+
+	/**
+	 * Return the cached infos of the children of the folder at the given URI
+	 * or <code>null</code> if they are not cached.
+	 * @param uri the URI of a remote folder
+	 * @return the cached child infos or <code>null</code>
+	 */
+	public IFileInfo[] getChildInfos(CVSURI uri) {
+		return (IFileInfo[]) get(LISTING, uri);
+	}
+
+	public void putChildInfos(CVSURI uri, IFileInfo[] infos) {
+		put(LISTING, uri, infos);
+	}
+
+	/**
+	 * Return the cached info of the resource at the given URI or <code>null</code>
+	 * if it is not cached. The info is also found in the cached listing of the parent
+	 * folder.
+	 * @param uri the URI of a remote resource
+	 * @return the cached info or <code>null</code>
+	 */
+	public IFileInfo getFileInfo(CVSURI uri) {
+		IFileInfo info = (IFileInfo) get(FILE_INFO, uri);
+		if (info == null && !uri.isRepositoryRoot() && uri.getRevision() == null) {
+			IFileInfo[] siblings = getChildInfos(uri.removeLastSegment());
+			if (siblings != null) {
+				String name = uri.getLastSegment();
+				for (IFileInfo sibling : siblings) {
+					if (sibling.getName().equals(name)) {
+						return sibling;
+					}
+				}
+			}
+		}
+		return info;
+	}
+
+	public void putFileInfo(CVSURI uri, IFileInfo info) {
+		// The resource may be created soon, so don't remember that it doesn't exist for long
+		put(FILE_INFO, uri, uri.getPath().toString(), info, info.exists() ? TIME_TO_LIVE : NEGATIVE_TIME_TO_LIVE);
+	}
+
+	/**
+	 * Return the cached tree rooted at the given URI or <code>null</code>
+	 * if it is not cached.
+	 * @param uri the URI of the root of the tree
+	 * @return the cached tree or <code>null</code>
+	 */
+	public CVSFileTree getTree(CVSURI uri) {
+		return (CVSFileTree) get(TREE, uri);
+	}
+
+	public void putTree(CVSURI uri, CVSFileTree tree) {
+		// The tree contains the whole project so it is discarded when any part of the project changes
+		put(TREE, uri, uri.getProjectURI().getPath().toString(), tree, TIME_TO_LIVE);
+	}
+
+	private synchronized Object get(char kind, CVSURI uri) {
+		String key = getKey(kind, uri);
+		Entry entry = entries.get(key);
+		if (entry == null)
+			return null;
+		if (entry.isExpired(System.currentTimeMillis())) {
+			entries.remove(key);
+			return null;
+		}
+		return entry.value;
+	}
+
+	private void put(char kind, CVSURI uri, Object value) {
+		put(kind, uri, uri.getPath().toString(), value, TIME_TO_LIVE);
+	}
+
+	private synchronized void put(char kind, CVSURI uri, String path, Object value, long timeToLive) {
+		// Expired entries are only noticed by get, so purge them here to not keep large trees
+		// that are no longer accessed until they are evicted
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> entry.isExpired(now));
+		entries.put(getKey(kind, uri), new Entry(getLocation(uri.getRepository()), getPath(path), value, timeToLive));
+	}
+
+	/**
+	 * Discard the entries of the given folder, of the resources below it and of
+	 * its ancestors since their contents may have been changed by a command.
+	 * All entries of the repository are discarded if the folder is not mapped
+	 * to a repository path.
+	 * @param location the repository that was modified
+	 * @param folder the root folder of the command
+	 */
+	@Override
+	public void repositoryModified(ICVSRepositoryLocation location, ICVSFolder folder) {
+		String path = null;
+		try {
+			path = folder.getRepositoryRelativePath();
+		} catch (CVSException e) {
+			// Discard all the entries of the repository
+		}
+		repositoryChanged(location, path);
+	}
+
+	/**
+	 * Discard the entries of the given repository path, of the resources below it
+	 * and of its ancestors. All entries of the repository are discarded if the path
+	 * is <code>null</code>.
+	 * @param location the repository that was modified
+	 * @param path the repository relative path that was modified or <code>null</code>
+	 */
+	public synchronized void repositoryChanged(ICVSRepositoryLocation location, String path) {
+		if (entries.isEmpty())
+			return;
+		String locationKey = getLocation(location);
+		String changedPath = path == null ? null : getPath(path);
+		for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+			Entry entry = iterator.next();
+			if (entry.location.equals(locationKey)
+					&& (changedPath == null || isRelated(entry.path, changedPath))) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discard all the cached entries.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	private static boolean isRelated(String path, String changedPath) {
+		return isPrefix(path, changedPath) || isPrefix(changedPath, path);
+	}
+
+	private static boolean isPrefix(String prefix, String path) {
+		return prefix.isEmpty() || path.equals(prefix)
+				|| (path.startsWith(prefix) && path.charAt(prefix.length()) == '/');
+	}
+
+	private static String getKey(char kind, CVSURI uri) {
+		StringBuilder key = new StringBuilder();
+		key.append(kind);
+		key.append(getLocation(uri.getRepository()));
+		key.append('|');
+		key.append(getPath(uri.getPath().toString()));
+		CVSTag tag = uri.getTag();
+		if (tag != null) {
+			key.append('|');
+			key.append(tag.getType());
+			key.append(tag.getName());
+		}
+		if (uri.getRevision() != null) {
+			key.append('|');
+			key.append(uri.getRevision());
+		}
+		return key.toString();
+	}
+
+	private static String getLocation(ICVSRepositoryLocation location) {
+		return location.getLocation(false);
+	}
+
+	private static String getPath(String path) {
+		if (path.equals(Session.CURRENT_LOCAL_FOLDER))
+			return ""; //$NON-NLS-1$
+		int start = 0;
+		int end = path.length();
+		while (start < end && path.charAt(start) == '/')
+			start++;
+		while (end > start && path.charAt(end - 1) == '/')
+			end--;
+		return path.substring(start, end);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.resources;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.Policy;
+
+/*
+ * Fetches a list of independent groups from the server where each group is
+ * fetched over its own connection. At most MAX_CONNECTIONS groups are fetched
+ * at any one time.
+ *
+ * Subclasses must ensure that fetching a group only modifies state that
+ * is not shared with the other groups (or that the shared state is thread safe).
+ * Progress and cancellation are handled in the calling thread since progress
+ * monitors are not thread safe. The monitor passed to fetch(Object, IProgressMonitor)
+ * only reports cancellation when fetching concurrently.
+ */
+abstract class ConcurrentSessionFetcher<T> {
+
+	/* package */ static final int MAX_CONNECTIONS = 4;
+
+	/**
+	 * Fetch the given group over a new connection.
+	 * @param group the group to be fetched
+	 * @param monitor a progress monitor
+	 * @throws CVSException
+	 */
+	protected abstract void fetch(T group, IProgressMonitor monitor) throws CVSException;
+
+	/**
+	 * Return the amount of work the given group represents in the monitor
+	 * provided to <code>run</code>. By default, each group is one unit of work.
+	 * @param group a group
+	 * @return the amount of work for the group
+	 */
+	protected int getWork(T group) {
+		return 1;
+	}
+
+	/**
+	 * Callback that is invoked in the calling thread once a group has been fetched.
+	 * By default, nothing is done.
+	 * @param group the group that was fetched
+	 * @param monitor the monitor provided to <code>run</code>
+	 */
+	protected void fetched(T group, IProgressMonitor monitor) {
+		// Do nothing by default
+	}
+
+	/**
+	 * Fetch all the groups. If there is only one group, it is fetched in the calling
+	 * thread. The first failure cancels the fetching of the remaining groups and
+	 * is rethrown.
+	 * @param groups the groups to be fetched
+	 * @param monitor a progress monitor
+	 * @throws CVSException
+	 */
+	public void run(List<T> groups, final IProgressMonitor monitor) throws CVSException {
+		if (groups.isEmpty()) return;
+		if (groups.size() == 1) {
+			T group = groups.get(0);
+			fetch(group, Policy.subMonitorFor(monitor, getWork(group)));
+			fetched(group, monitor);
+			return;
+		}
+		final IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(groups.size(), MAX_CONNECTIONS), runnable -> {
+			Thread thread = new Thread(runnable, "CVS Fetch"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+			for (final T group : groups) {
+				completionService.submit(() -> {
+					fetch(group, workerMonitor);
+					return group;
+				});
+			}
+			for (int i = 0; i < groups.size(); i++) {
+				Future<T> result;
+				while ((result = completionService.poll(100, TimeUnit.MILLISECONDS)) == null) {
+					Policy.checkCanceled(monitor);
+				}
+				T group = getResult(result);
+				fetched(group, monitor);
+				monitor.worked(getWork(group));
+			}
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private T getResult(Future<T> result) throws CVSException, InterruptedException {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof CVSException) {
+				throw (CVSException)cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw CVSException.wrapException((Exception)cause);
+		}
+	}
+}
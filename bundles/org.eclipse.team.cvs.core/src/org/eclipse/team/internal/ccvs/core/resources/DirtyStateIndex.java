@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+
+/*
+ * Index of the files that are known to be dirty. For each container, the index
+ * keeps the number of known dirty files below it so that a container can be
+ * determined to be dirty without visiting its members.
+ *
+ * The index only ever contains a subset of the dirty files: a file is added when it
+ * is marked dirty and is removed as soon as its dirty state is cleared or needs to be
+ * recomputed. Therefore, a container with a count of zero is not necessarily clean
+ * and the cached dirty indicators must be consulted in that case. Making the index
+ * complete would require the dirty state of every file of a project when the project
+ * is loaded, which is the recursive computation the index is meant to avoid, and the
+ * persisted state cannot be trusted after a crash or changes made while the workbench
+ * was not running.
+ *
+ * The dirty files of a project are persisted using the workspace synchronizer when
+ * the workspace is saved or the project is closed and are loaded the first time the
+ * project is accessed.
+ */
+/* package */ class DirtyStateIndex {
+
+	private static final QualifiedName DIRTY_FILES_KEY = new QualifiedName(CVSProviderPlugin.ID, "dirty-files"); //$NON-NLS-1$
+	private static final char SEPARATOR = '\n';
+
+	private final Set<IPath> dirtyFiles = new HashSet<>();
+	private final Map<IPath, Integer> dirtyCounts = new HashMap<>();
+	private final Set<IProject> loadedProjects = new HashSet<>();
+
+	DirtyStateIndex() {
+		ResourcesPlugin.getWorkspace().getSynchronizer().add(DIRTY_FILES_KEY);
+	}
+
+	/**
+	 * Record whether the given file is dirty.
+	 * @param file the file
+	 * @param dirty whether the file is dirty
+	 */
+	public synchronized void setDirty(IFile file, boolean dirty) {
+		ensureLoaded(file.getProject());
+		internalSetDirty(file.getFullPath(), dirty);
+	}
+
+	/**
+	 * Return whether the resource is known to be dirty. For a container, this
+	 * is the case if any file below the container is known to be dirty.
+	 * @param resource the resource
+	 * @return whether the resource is known to be dirty
+	 */
+	public synchronized boolean isDirty(IResource resource) {
+		if (resource.getType() == IResource.ROOT) {
+			return false;
+		}
+		ensureLoaded(resource.getProject());
+		if (resource.getType() == IResource.FILE) {
+			return dirtyFiles.contains(resource.getFullPath());
+		}
+		return dirtyCounts.containsKey(resource.getFullPath());
+	}
+
+	/**
+	 * Forget the dirty state of the given resource and, for a container,
+	 * of all the files below it.
+	 * @param resource the resource
+	 */
+	public synchronized void flush(IResource resource) {
+		if (resource.getType() == IResource.ROOT) {
+			return;
+		}
+		ensureLoaded(resource.getProject());
+		IPath path = resource.getFullPath();
+		if (resource.getType() == IResource.FILE) {
+			internalSetDirty(path, false);
+		} else if (dirtyCounts.containsKey(path)) {
+			List<IPath> flushed = new ArrayList<>();
+			for (IPath file : dirtyFiles) {
+				if (path.isPrefixOf(file)) {
+					flushed.add(file);
+				}
+			}
+			for (IPath file : flushed) {
+				internalSetDirty(file, false);
+			}
+		}
+	}
+
+	/**
+	 * Persist the dirty files of the given project. If the project is being closed,
+	 * the in-memory state of the project is discarded and will be loaded again
+	 * when the project is accessed.
+	 * @param project the project
+	 * @param closing whether the project is being closed
+	 * @throws CoreException
+	 */
+	public synchronized void save(IProject project, boolean closing) throws CoreException {
+		if (!loadedProjects.contains(project)) {
+			// The project was not accessed so the persisted state is still current
+			return;
+		}
+		ISynchronizer synchronizer = ResourcesPlugin.getWorkspace().getSynchronizer();
+		IPath projectPath = project.getFullPath();
+		StringBuilder buffer = new StringBuilder();
+		List<IPath> projectFiles = new ArrayList<>();
+		for (IPath file : dirtyFiles) {
+			if (projectPath.isPrefixOf(file)) {
+				projectFiles.add(file);
+				if (buffer.length() > 0) {
+					buffer.append(SEPARATOR);
+				}
+				buffer.append(file.makeRelativeTo(projectPath).toString());
+			}
+		}
+		if (project.isAccessible()) {
+			synchronizer.setSyncInfo(DIRTY_FILES_KEY, project, projectFiles.isEmpty() ? null : buffer.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		if (closing) {
+			for (IPath file : projectFiles) {
+				internalSetDirty(file, false);
+			}
+			loadedProjects.remove(project);
+		}
+	}
+
+	private void ensureLoaded(IProject project) {
+		if (!loadedProjects.add(project)) {
+			return;
+		}
+		// Don't trust the persisted state if the workbench crashed
+		if (CVSProviderPlugin.getPlugin().crashOnLastRun() || !project.isAccessible()) {
+			return;
+		}
+		try {
+			byte[] bytes = ResourcesPlugin.getWorkspace().getSynchronizer().getSyncInfo(DIRTY_FILES_KEY, project);
+			if (bytes == null) {
+				return;
+			}
+			for (String path : new String(bytes, StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR))) {
+				IFile file = project.getFile(path);
+				if (file.exists()) {
+					internalSetDirty(file.getFullPath(), true);
+				}
+			}
+		} catch (CoreException e) {
+			CVSProviderPlugin.log(e);
+		}
+	}
+
+	private void internalSetDirty(IPath file, boolean dirty) {
+		boolean changed = dirty ? dirtyFiles.add(file) : dirtyFiles.remove(file);
+		if (!changed) {
+			return;
+		}
+		for (IPath container = file.removeLastSegments(1); !container.isRoot(); container = container.removeLastSegments(1)) {
+			if (dirty) {
+				dirtyCounts.merge(container, 1, Integer::sum);
+			} else {
+				dirtyCounts.computeIfPresent(container, (path, count) -> count == 1 ? null : count - 1);
+			}
+		}
+	}
+}
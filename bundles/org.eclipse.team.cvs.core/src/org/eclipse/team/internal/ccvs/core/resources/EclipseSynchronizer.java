@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -65,7 +65,8 @@ public class EclipseSynchronizer implements IFlushOperation {
 	private ReentrantLock resourceLock = new ReentrantLock();
 	
 	private SynchronizerSyncInfoCache synchronizerCache = new SynchronizerSyncInfoCache();
-	private SessionPropertySyncInfoCache sessionPropertyCache = new SessionPropertySyncInfoCache(synchronizerCache);
+	private DirtyStateIndex dirtyStateIndex = new DirtyStateIndex();
+	private SessionPropertySyncInfoCache sessionPropertyCache = new SessionPropertySyncInfoCache(synchronizerCache, dirtyStateIndex);
 	
 	/*
 	 * Package private constructor to allow specialized subclass for handling folder deletions
@@ -363,7 +364,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 */
 	private void clearDirtyIndicator(IResource resource) throws CVSException {
 		getSyncInfoCacheFor(resource).flushDirtyCache(resource);
-		adjustDirtyStateRecursively(resource.getParent(), RECOMPUTE_INDICATOR);
+		dirtyStateIndex.flush(resource);
+		// The other members of the parent are not affected so the parent
+		// is adjusted without flushing the index
+		internalAdjustDirtyStateRecursively(resource.getParent(), RECOMPUTE_INDICATOR);
 	}
 
 	/**
@@ -1482,10 +1486,33 @@ public class EclipseSynchronizer implements IFlushOperation {
 	}
 	
 	/* package */ void adjustDirtyStateRecursively(IResource resource, String indicator) throws CVSException {
+		if (resource.getType() == IResource.ROOT) return;
+		try {
+			beginOperation();
+			if (resource.getType() == IResource.FILE) {
+				// Only files whose dirty state is cached are indexed (i.e. not phantoms)
+				boolean dirty = indicator == IS_DIRTY_INDICATOR && getSyncInfoCacheFor(resource).cachesDirtyState();
+				dirtyStateIndex.setDirty((IFile)resource, dirty);
+			} else if (indicator == RECOMPUTE_INDICATOR) {
+				// The container was added, deleted or purged so what is known about its members is discarded
+				dirtyStateIndex.flush(resource);
+			}
+			internalAdjustDirtyStateRecursively(resource, indicator);
+		} finally {
+			endOperation();
+		}
+	}
+
+	private void internalAdjustDirtyStateRecursively(IResource resource, String indicator) throws CVSException {
 		if (resource.getType() == IResource.ROOT) return;
 		try {
 			beginOperation();
 			
+			if (indicator == RECOMPUTE_INDICATOR && resource.getType() != IResource.FILE && dirtyStateIndex.isDirty(resource)) {
+				// A file below the container is known to be dirty so there is no need to recompute
+				indicator = IS_DIRTY_INDICATOR;
+			}
+			
 			if (getSyncInfoCacheFor(resource).cachesDirtyState()) {
 				if (indicator == getDirtyIndicator(resource)) {
 					return;
@@ -1499,15 +1526,15 @@ public class EclipseSynchronizer implements IFlushOperation {
 
 			IContainer parent = resource.getParent();
 			if(indicator == NOT_DIRTY_INDICATOR) {
-				adjustDirtyStateRecursively(parent, RECOMPUTE_INDICATOR);
+				internalAdjustDirtyStateRecursively(parent, RECOMPUTE_INDICATOR);
 			}
 			
 			if(indicator == RECOMPUTE_INDICATOR) {
-				adjustDirtyStateRecursively(parent, RECOMPUTE_INDICATOR);
+				internalAdjustDirtyStateRecursively(parent, RECOMPUTE_INDICATOR);
 			} 
 			
 			if(indicator == IS_DIRTY_INDICATOR) {
-				adjustDirtyStateRecursively(parent, indicator);
+				internalAdjustDirtyStateRecursively(parent, indicator);
 			} 
 		} finally {
 			endOperation();
@@ -1581,6 +1608,9 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 * @return int
 	 */
 	public int getModificationState(IResource resource) throws CVSException {
+		if (dirtyStateIndex.isDirty(resource)) {
+			return ICVSFile.DIRTY;
+		}
 		String indicator =  getDirtyIndicator(resource);
 		if (Policy.DEBUG_DIRTY_CACHING) {
 			debug(resource, indicator, "getModificationState"); //$NON-NLS-1$
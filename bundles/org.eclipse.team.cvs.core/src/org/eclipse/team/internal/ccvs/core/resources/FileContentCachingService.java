@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.resources;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -31,12 +30,15 @@ import org.eclipse.team.internal.ccvs.core.client.Session;
 import org.eclipse.team.internal.ccvs.core.client.Update;
 import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
 import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.util.Util;
 
 /**
  * This class can be used to fetch and cache file contents for remote files.
  */
 public class FileContentCachingService {
 
+	private static final int MIN_FILES_PER_PARTITION = 32;
+
 	String[] fileDiffs;
 	private CVSRepositoryLocation repository;
 	private ICVSFolder remoteRoot;
@@ -93,7 +95,31 @@ public class FileContentCachingService {
 		String[] files = getUncachedFiles();
 		if (files.length == 0) return;
 		// Fetch the file contents for all out-of-sync files by running an update
-		// on the remote tree passing the known changed files as arguments
+		// on the remote tree passing the known changed files as arguments.
+		// Each file is cached as it is received so the contents of a file
+		// are available as soon as its partition delivers it.
+		monitor.beginTask(null, files.length * 100);
+		try {
+			new ConcurrentSessionFetcher<List<String>>() {
+				@Override
+				protected void fetch(List<String> partition, IProgressMonitor monitor) throws CVSException {
+					cacheFileContents(partition.toArray(new String[partition.size()]), monitor);
+				}
+				@Override
+				protected int getWork(List<String> partition) {
+					return partition.size() * 100;
+				}
+			}.run(partitionByFolder(files), monitor);
+		} finally {
+			monitor.done();
+		}
+	}
+	
+	/*
+	 * Fetch the contents of the given files over a new connection. This is invoked
+	 * concurrently for different partitions of the files.
+	 */
+	private void cacheFileContents(String[] files, IProgressMonitor monitor) throws CVSException {
 		monitor.beginTask(null, 10 + files.length * 100);
 		Policy.checkCanceled(monitor);
 		Session session = new Session(repository, remoteRoot, false);
@@ -115,6 +141,41 @@ public class FileContentCachingService {
 			monitor.done();
 		}
 	}
+	
+	/*
+	 * Split the files into at most ConcurrentSessionFetcher.MAX_CONNECTIONS partitions 
+	 * keeping the files of a folder together so that each folder is only sent over one 
+	 * connection. Small fetches are not split since opening a connection costs more 
+	 * than the transfer.
+	 */
+	private List<List<String>> partitionByFolder(String[] files) {
+		if (files.length < MIN_FILES_PER_PARTITION * 2) {
+			return Collections.singletonList(Arrays.asList(files));
+		}
+		Map<String, List<String>> folders = new HashMap<>();
+		for (String file : files) {
+			folders.computeIfAbsent(Util.removeLastSegment(file), folder -> new ArrayList<>()).add(file);
+		}
+		List<List<String>> folderFiles = new ArrayList<>(folders.values());
+		// Place the largest folders first so that the partitions end up balanced
+		folderFiles.sort((f1, f2) -> f2.size() - f1.size());
+		int count = Math.min(ConcurrentSessionFetcher.MAX_CONNECTIONS, files.length / MIN_FILES_PER_PARTITION);
+		List<List<String>> partitions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			partitions.add(new ArrayList<>());
+		}
+		for (List<String> filesInFolder : folderFiles) {
+			List<String> smallest = partitions.get(0);
+			for (List<String> partition : partitions) {
+				if (partition.size() < smallest.size()) {
+					smallest = partition;
+				}
+			}
+			smallest.addAll(filesInFolder);
+		}
+		partitions.removeIf(List::isEmpty);
+		return partitions;
+	}
 
 	/*
 	 * Only return those file in the diff list that exist remotely and whose contents are not already cached
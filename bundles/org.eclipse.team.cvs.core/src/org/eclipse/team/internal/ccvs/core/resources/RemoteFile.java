@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -32,6 +32,7 @@ import org.eclipse.team.internal.ccvs.core.client.listeners.ILogEntryListener;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
 import org.eclipse.team.internal.ccvs.core.connection.CVSServerException;
 import org.eclipse.team.internal.ccvs.core.filehistory.CVSResourceVariantFileRevision;
+import org.eclipse.team.internal.ccvs.core.filehistory.LogEntryStore;
 import org.eclipse.team.internal.ccvs.core.filesystem.CVSURI;
 import org.eclipse.team.internal.ccvs.core.syncinfo.*;
 
@@ -270,6 +271,18 @@ public class RemoteFile extends RemoteResource implements ICVSRemoteFile  {
 	
 	@Override
 	public ILogEntry[] getLogEntries(IProgressMonitor monitor) throws CVSException {
+		return LogEntryStore.getInstance().getLogEntries(this, monitor);
+	}
+	
+	/**
+	 * Run the log command for this file using the given local options.
+	 * The log entries are passed to the given listener.
+	 * @param localOptions the local options of the log command
+	 * @param listener the listener that parses the log entries
+	 * @param monitor a progress monitor
+	 * @throws CVSException
+	 */
+	public void log(LocalOption[] localOptions, LogListener listener, IProgressMonitor monitor) throws CVSException {
 		monitor = Policy.monitorFor(monitor);
 		monitor.beginTask(CVSMessages.RemoteFile_getLogEntries, 100); 
 		Session session = new Session(getRepository(), parent, false /* output to console */);
@@ -278,16 +291,14 @@ public class RemoteFile extends RemoteResource implements ICVSRemoteFile  {
 			QuietOption quietness = CVSProviderPlugin.getPlugin().getQuietness();
 			try {
 				CVSProviderPlugin.getPlugin().setQuietness(Command.VERBOSE);
-				LogEntryListener listener = new LogEntryListener();  
 				IStatus status = Command.LOG.execute(
 					session,
-					Command.NO_GLOBAL_OPTIONS, Command.NO_LOCAL_OPTIONS,
-					new ICVSResource[] { RemoteFile.this }, new LogListener(RemoteFile.this, listener),
+					Command.NO_GLOBAL_OPTIONS, localOptions,
+					new ICVSResource[] { RemoteFile.this }, listener,
 					Policy.subMonitorFor(monitor, 90));
 				if (status.getCode() == CVSStatus.SERVER_ERROR) {
 					throw new CVSServerException(status);
 				}
-				return listener.getEntries();
 			} finally {
 				CVSProviderPlugin.getPlugin().setQuietness(quietness);
 				monitor.done();
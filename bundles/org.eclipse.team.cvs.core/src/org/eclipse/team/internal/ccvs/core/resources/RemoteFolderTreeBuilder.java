@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -55,6 +55,7 @@ public class RemoteFolderTreeBuilder {
 	private CVSTag tag;
 	
 	private LocalOption[] updateLocalOptions;
+	private int depth = IResource.DEPTH_INFINITE;
 	
 	private boolean rootDoesNotExist = false;
 	
@@ -137,7 +138,17 @@ public class RemoteFolderTreeBuilder {
 	}
 	
 	public static RemoteFolderTree buildRemoteTree(CVSRepositoryLocation repository, ICVSFolder root, CVSTag tag, IProgressMonitor monitor) throws CVSException {
+		return buildRemoteTree(repository, root, tag, IResource.DEPTH_INFINITE, monitor);
+	}
+
+	/*
+	 * Build the remote tree to the given depth. If the depth is not infinite, only the files
+	 * of the root are compared with the server and the members of the child folders are
+	 * left to be fetched on demand.
+	 */
+	public static RemoteFolderTree buildRemoteTree(CVSRepositoryLocation repository, ICVSFolder root, CVSTag tag, int depth, IProgressMonitor monitor) throws CVSException {
 		RemoteFolderTreeBuilder builder = new RemoteFolderTreeBuilder(repository, root, tag);
+		builder.depth = depth;
 		return builder.buildTree(new ICVSResource[] { root }, monitor);
 	}
 	public static RemoteFile buildRemoteTree(CVSRepositoryLocation repository, ICVSFile file, CVSTag tag, IProgressMonitor monitor) throws CVSException {
@@ -163,7 +174,7 @@ public class RemoteFolderTreeBuilder {
 			// NOTE: Multiple commands may be issued over this connection.
 			fetchNewDirectories(Policy.subMonitorFor(monitor, 10));
 
-			//	3rd+ Connection: Used to fetch file status in groups of 1024
+			//	3rd+ Connection: Used to fetch file status in groups of 1024 (several groups are fetched concurrently)
 			fetchFileRevisions(Policy.subMonitorFor(monitor, 15));
 			
 			return remoteRoot;
@@ -260,21 +271,44 @@ public class RemoteFolderTreeBuilder {
 		// 3rd+ Connection: Used to fetch file status in groups of 1024
 		if (remoteRoot != null && !changedFiles.isEmpty()) {
 			String[] allChangedFiles = changedFiles.toArray(new String[changedFiles.size()]);
-			int iterations = (allChangedFiles.length / MAX_REVISION_FETCHES_PER_CONNECTION) 
-				+ (allChangedFiles.length % MAX_REVISION_FETCHES_PER_CONNECTION == 0 ? 0 : 1);
-			for (int i = 0; i < iterations ; i++) {
-				int length = Math.min(MAX_REVISION_FETCHES_PER_CONNECTION, 
-					allChangedFiles.length - (MAX_REVISION_FETCHES_PER_CONNECTION * i));
+			List<String[]> groups = new ArrayList<>();
+			for (int start = 0; start < allChangedFiles.length; start += MAX_REVISION_FETCHES_PER_CONNECTION) {
+				int length = Math.min(MAX_REVISION_FETCHES_PER_CONNECTION, allChangedFiles.length - start);
 				String buffer[] = new String[length];
-				System.arraycopy(allChangedFiles, i * MAX_REVISION_FETCHES_PER_CONNECTION, buffer, 0, length);
-				Session session = new Session(repository, remoteRoot, false);
-				session.open(Policy.subMonitorFor(monitor, 1), false /* read-only */);
-				try {
-					fetchFileRevisions(session, buffer, Policy.subMonitorFor(monitor, 2));
-				} finally {
-					session.close();
-				}
+				System.arraycopy(allChangedFiles, start, buffer, 0, length);
+				groups.add(buffer);
 			}
+			new ConcurrentSessionFetcher<String[]>() {
+				@Override
+				protected void fetch(String[] group, IProgressMonitor monitor) throws CVSException {
+					fetchFileRevisions(group, monitor);
+				}
+				@Override
+				protected int getWork(String[] group) {
+					return 3;
+				}
+				@Override
+				protected void fetched(String[] group, IProgressMonitor monitor) {
+					monitor.subTask(NLS.bind(CVSMessages.RemoteFolderTreeBuilder_receivingRevision, new String[] { Util.toTruncatedPath(group[group.length - 1], 3) })); 
+				}
+			}.run(groups, monitor);
+		}
+	}
+	
+	/*
+	 * Fetch the revisions of the given files over a new connection. This is invoked
+	 * concurrently for different groups of files. The remote folder table is complete
+	 * at this point so it is only read and each group updates a disjoint set of remote files.
+	 * 
+	 * Does 3 units of work in the provided monitor.
+	 */
+	private void fetchFileRevisions(String[] fileNames, IProgressMonitor monitor) throws CVSException {
+		Session session = new Session(repository, remoteRoot, false);
+		session.open(Policy.subMonitorFor(monitor, 1), false /* read-only */);
+		try {
+			fetchFileRevisions(session, fileNames, Policy.subMonitorFor(monitor, 2));
+		} finally {
+			session.close();
 		}
 	}
 	
@@ -535,7 +569,7 @@ public class RemoteFolderTreeBuilder {
 		List<RemoteFolderTree> emptyChildren = new ArrayList<>();
 		while (childIterator.hasNext()) {
 			Map.Entry entry = (Map.Entry)childIterator.next();
-			if (((RemoteResource)entry.getValue()).isFolder()) {
+			if (((RemoteResource)entry.getValue()).isFolder() && depth == IResource.DEPTH_INFINITE) {
 				RemoteFolderTree remoteFolder = (RemoteFolderTree)entry.getValue();
 				String name = (String)entry.getKey();
 				ICVSFolder localFolder;
@@ -630,9 +664,12 @@ public class RemoteFolderTreeBuilder {
 		// Perform a "cvs -n update -d [-r tag] ." in order to get the
 		// messages from the server that will indicate what has changed on the 
 		// server.
+		LocalOption[] localOptions = updateLocalOptions;
+		if (depth != IResource.DEPTH_INFINITE)
+			localOptions = Command.DO_NOT_RECURSE.addTo(localOptions);
 		IStatus status = Command.SYNCUPDATE.execute(session,
 			new GlobalOption[] { Command.DO_NOT_CHANGE },
-			updateLocalOptions,
+			localOptions,
 			arguments,
 			new UpdateListener(listener),
 			monitor);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -30,8 +30,8 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 /**
  * This cache uses session properties to hold the bytes representing the sync
  * info. In addition when the workbench closes or a project is closed, the dirty 
- * state for all cvs managed folders are persisted using the resource's plugin
- * synchronizer.
+ * state for all cvs managed folders and the dirty files known to the dirty state
+ * index are persisted using the resource's plugin synchronizer.
  */
 /*package*/ class SessionPropertySyncInfoCache extends SyncInfoCache implements ISaveParticipant {
 	
@@ -48,8 +48,11 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 	// (i.e. for those cases where a deleted resource is recreated)
 	private SynchronizerSyncInfoCache synchronizerCache;
 	
-	/*package*/ SessionPropertySyncInfoCache(SynchronizerSyncInfoCache synchronizerCache) {
+	private DirtyStateIndex dirtyStateIndex;
+	
+	/*package*/ SessionPropertySyncInfoCache(SynchronizerSyncInfoCache synchronizerCache, DirtyStateIndex dirtyStateIndex) {
 		this.synchronizerCache = synchronizerCache;
+		this.dirtyStateIndex = dirtyStateIndex;
 		try {
 			// this save participant is removed when the plugin is shutdown.			
 			ResourcesPlugin.getWorkspace().addSaveParticipant(CVSProviderPlugin.getPlugin(), this);
@@ -434,6 +437,7 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 							return true;
 						}
 					});
+					dirtyStateIndex.save(project, projectSave);
 				}
 			}
 		}
@@ -457,6 +461,7 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 	 */
 	/* package*/ void purgeDirtyCache(IResource resource) throws CVSException {
 		if (! resource.exists()) return;
+		dirtyStateIndex.flush(resource);
 		try {
 			if (resource.getType() != IResource.ROOT) {
 				safeSetSessionProperty(resource, IS_DIRTY, null);
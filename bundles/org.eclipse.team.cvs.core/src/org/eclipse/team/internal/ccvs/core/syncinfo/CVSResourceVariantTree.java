@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.team.internal.ccvs.core.syncinfo;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -33,6 +34,7 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 	private CVSTag tag;
 	private boolean cacheFileContentsHint;
 	private CVSSyncTreeSubscriber subscriber;
+	private IncrementalRefresh incrementalRefresh;
 
 	public CVSResourceVariantTree(ResourceVariantByteStore cache, CVSTag tag, boolean cacheFileContentsHint) {
 		super(cache);
@@ -70,8 +72,57 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 
 	@Override
 	protected IResourceVariant fetchVariant(IResource resource, int depth, IProgressMonitor monitor) throws TeamException {
+		RemoteTreePrefetch prefetch = RemoteTreePrefetch.getActive();
+		Future<IResourceVariant> prefetched = prefetch == null ? null : prefetch.remove(this, resource, depth);
+		if (prefetched != null) {
+			return waitForVariant(prefetched, monitor);
+		}
 		return (IResourceVariant)CVSWorkspaceRoot.getRemoteTree(resource, getTag(resource), isCacheFileContentsHint(), depth, monitor);
 	}
+
+	/**
+	 * Start fetching the remote tree of the given resource using the given prefetch so that
+	 * a refresh of the resource to the given depth while the prefetch is active does not need
+	 * to wait for the server once the tree is fetched. The tree is recorded in the byte store
+	 * by the refresh.
+	 * @param resource the resource to be refreshed
+	 * @param depth the depth of the refresh
+	 * @param prefetch the prefetch of the refresh
+	 */
+	public void prefetchVariant(final IResource resource, final int depth, RemoteTreePrefetch prefetch) {
+		prefetch.submit(this, resource, depth, monitor -> (IResourceVariant)CVSWorkspaceRoot.getRemoteTree(resource, getTag(resource), isCacheFileContentsHint(), depth, monitor));
+	}
+
+	private IResourceVariant waitForVariant(Future<IResourceVariant> future, IProgressMonitor monitor) throws TeamException {
+		monitor.beginTask(null, IProgressMonitor.UNKNOWN);
+		try {
+			while (true) {
+				try {
+					return future.get(100, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					Policy.checkCanceled(monitor);
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} catch (CancellationException e) {
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof TeamException) {
+				throw (TeamException)cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw CVSException.wrapException((Exception)cause);
+		} finally {
+			monitor.done();
+		}
+	}
 	
 	@Override
 	public IResource[] collectChanges(IResource local,
@@ -181,12 +232,43 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 		return tag;
 	}
 
+	/**
+	 * Enable incremental refreshes of projects. When a project is refreshed to infinite depth,
+	 * only the folders that contain files committed since the previous refresh and the folders
+	 * whose local sync info changed are compared with the server. Refreshes that cache the file
+	 * contents are always full refreshes. This is only valid for trees that use the tags of the
+	 * local folders.
+	 */
+	public void enableIncrementalRefresh() {
+		if (incrementalRefresh == null) {
+			incrementalRefresh = new IncrementalRefresh();
+		}
+	}
+
+	/**
+	 * Notify the tree that the local sync info of the given resources has changed.
+	 * @param resources the resources whose sync info changed
+	 */
+	public void syncInfoChanged(IResource[] resources) {
+		if (incrementalRefresh != null) {
+			incrementalRefresh.syncInfoChanged(resources);
+		}
+	}
+
 	/**
 	 * Dispose of the underlying byte store
 	 */
 	public void dispose() {
 		getByteStore().dispose();
 	}
+
+	@Override
+	public void flushVariants(IResource resource, int depth) throws TeamException {
+		super.flushVariants(resource, depth);
+		if (incrementalRefresh != null && resource.getType() == IResource.PROJECT) {
+			incrementalRefresh.reset((IProject)resource);
+		}
+	}
 	
 	@Override
 	protected boolean setVariant(IResource local, IResourceVariant remote) throws TeamException {
@@ -311,7 +393,12 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 			Policy.checkCanceled(monitor);
 		}
 		try {
-			changedResources = super.refresh(resource, depth, Policy.subMonitorFor(monitor, 99));
+			if (incrementalRefresh != null && resource.getType() == IResource.PROJECT && depth == IResource.DEPTH_INFINITE
+					&& !isCacheFileContentsHint()) {
+				changedResources = refreshIncrementally((IProject)resource, Policy.subMonitorFor(monitor, 99));
+			} else {
+				changedResources = super.refresh(resource, depth, Policy.subMonitorFor(monitor, 99));
+			}
 		} catch (TeamException e) {
 			// Try to properly handle exceptions that are due to project modifications
 			// performed while the refresh was happening
@@ -327,6 +414,36 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 		return changedResources;
 	}
 	
+	private IResource[] refreshIncrementally(IProject project, IProgressMonitor monitor) throws TeamException {
+		monitor.beginTask(null, 100);
+		long start = System.currentTimeMillis();
+		boolean success = false;
+		try {
+			IContainer[] folders = incrementalRefresh.getChangedFolders(project, Policy.subMonitorFor(monitor, 10));
+			IResource[] changedResources;
+			if (folders == null) {
+				changedResources = super.refresh(project, IResource.DEPTH_INFINITE, Policy.subMonitorFor(monitor, 90));
+			} else {
+				List<IResource> result = new ArrayList<>();
+				IProgressMonitor subMonitor = Policy.subMonitorFor(monitor, 90);
+				subMonitor.beginTask(null, 100 * folders.length);
+				for (IContainer folder : folders) {
+					result.addAll(Arrays.asList(super.refresh(folder, IResource.DEPTH_ONE, Policy.subMonitorFor(subMonitor, 100))));
+				}
+				subMonitor.done();
+				changedResources = result.toArray(new IResource[result.size()]);
+			}
+			incrementalRefresh.refreshed(project, start, folders == null);
+			success = true;
+			return changedResources;
+		} finally {
+			if (!success) {
+				incrementalRefresh.reset(project);
+			}
+			monitor.done();
+		}
+	}
+
 	private boolean isJobInFamilyRunning(Object family) {
 		Job[] jobs = Job.getJobManager().find(family);
 		if (jobs != null && jobs.length > 0) {
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.syncinfo;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.*;
+import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.util.Util;
+
+/**
+ * Determines the folders of a project that need to be compared with the server
+ * to bring the remote state of the project up to date. The server is asked for
+ * the files that have revisions committed since the project was last refreshed
+ * (using <code>rlog -d</code>) and the folders of those files are combined with
+ * the folders whose local sync info changed in the meantime.
+ * <p>
+ * A full refresh is required if the project was not refreshed before, if the
+ * mapping of the project changed, if a changed file is in a folder that is not
+ * loaded locally or if the server cannot answer the query. Changes that do not
+ * appear in the log of the files (e.g. folders removed directly from the repository
+ * or moved tags) are picked up by the full refresh that is done periodically.</p>
+ */
+class IncrementalRefresh {
+
+	// Allow for differences between the clocks of the client and the server
+	// and for commits that were in progress during the last refresh
+	private static final long CLOCK_SKEW = 10 * 60 * 1000;
+
+	// The maximum time between full refreshes of a project
+	private static final long FULL_REFRESH_INTERVAL = 60 * 60 * 1000;
+
+	// Above this number of changed folders a full refresh is cheaper
+	private static final int MAX_CHANGED_FOLDERS = 32;
+
+	private static final String RCS_FILE = "RCS file: "; //$NON-NLS-1$
+	private static final String RCS_SUFFIX = ",v"; //$NON-NLS-1$
+	private static final String ATTIC = "Attic"; //$NON-NLS-1$
+
+	private static class ProjectState {
+		FolderSyncInfo info;
+		long lastRefresh;
+		long lastFullRefresh;
+		Set<IContainer> syncChangedFolders = new HashSet<>();
+	}
+
+	/*
+	 * Records the paths of the files reported by rlog
+	 */
+	private static class ChangedFilesListener extends CommandOutputListener {
+		List<String> paths = new ArrayList<>();
+		@Override
+		public IStatus messageLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+			if (line.startsWith(RCS_FILE)) {
+				paths.add(line.substring(RCS_FILE.length()).trim());
+			}
+			return OK;
+		}
+	}
+
+	private final Map<IProject, ProjectState> states = new HashMap<>();
+	private final Set<ICVSRepositoryLocation> unsupportedLocations = new HashSet<>();
+
+	/**
+	 * Return the folders of the project that need to be refreshed to depth one or
+	 * <code>null</code> if the whole project needs to be refreshed. The returned
+	 * folders are no longer considered changed once they are returned so
+	 * {@link #refreshed(IProject, long, boolean)} or {@link #reset(IProject)}
+	 * must be called when the refresh ends.
+	 * @param project the project being refreshed
+	 * @param monitor a progress monitor
+	 * @return the folders to refresh or <code>null</code>
+	 * @throws CVSException
+	 */
+	public IContainer[] getChangedFolders(IProject project, IProgressMonitor monitor) throws CVSException {
+		monitor.beginTask(null, 100);
+		try {
+			FolderSyncInfo info = CVSWorkspaceRoot.getCVSFolderFor(project).getFolderSyncInfo();
+			if (info == null || info.getIsStatic())
+				return null;
+			ICVSRemoteFolder remote = (ICVSRemoteFolder)CVSWorkspaceRoot.getRemoteResourceFor(project);
+			if (remote == null)
+				return null;
+			long since;
+			Set<IContainer> folders;
+			synchronized (this) {
+				ProjectState state = states.get(project);
+				if (state == null || !info.equals(state.info)
+						|| System.currentTimeMillis() - state.lastFullRefresh > FULL_REFRESH_INTERVAL
+						|| unsupportedLocations.contains(remote.getRepository()))
+					return null;
+				since = state.lastRefresh - CLOCK_SKEW;
+				folders = state.syncChangedFolders;
+				state.syncChangedFolders = new HashSet<>();
+			}
+			for (IContainer folder : folders) {
+				if (!CVSWorkspaceRoot.getCVSFolderFor(folder).isCVSFolder())
+					return null;
+			}
+			List<String> paths = fetchChangedFiles(remote, since, Policy.subMonitorFor(monitor, 100));
+			if (paths == null)
+				return null;
+			for (String path : paths) {
+				IContainer folder = getFolder(project, remote.getRepository(), info, path);
+				if (folder == null)
+					return null;
+				folders.add(folder);
+			}
+			if (folders.size() > MAX_CHANGED_FOLDERS)
+				return null;
+			return folders.toArray(new IContainer[folders.size()]);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/*
+	 * Return the repository paths of the files with revisions committed since the given
+	 * time or null if the server could not provide them.
+	 */
+	private List<String> fetchChangedFiles(ICVSRemoteFolder remote, long since, IProgressMonitor monitor) throws CVSException {
+		monitor.beginTask(null, 100);
+		Session session = new Session(remote.getRepository(), remote, false /* output to console */);
+		session.open(Policy.subMonitorFor(monitor, 10), false /* read-only */);
+		try {
+			if (!session.isValidRequest("rlog")) { //$NON-NLS-1$
+				markUnsupported(remote.getRepository());
+				return null;
+			}
+			ChangedFilesListener listener = new ChangedFilesListener();
+			LocalOption[] localOptions = new LocalOption[] { RLog.NO_TAGS, RLog.ONLY_INCLUDE_CHANGES,
+					RLog.makeTagOption(CVSTag.DEFAULT, new CVSTag(new Date(since))) };
+			IStatus status = new RLog().execute(session, Command.NO_GLOBAL_OPTIONS, localOptions,
+					new ICVSResource[] { remote }, listener, Policy.subMonitorFor(monitor, 90));
+			if (status.getCode() == CVSStatus.SERVER_ERROR) {
+				// e.g. an older server that does not support the options
+				return null;
+			}
+			return listener.paths;
+		} finally {
+			session.close();
+			monitor.done();
+		}
+	}
+
+	private synchronized void markUnsupported(ICVSRepositoryLocation location) {
+		unsupportedLocations.add(location);
+	}
+
+	/*
+	 * Return the local folder of the file with the given RCS file path or null
+	 * if the folder is not loaded or is mapped to a different repository folder.
+	 */
+	private IContainer getFolder(IProject project, ICVSRepositoryLocation location, FolderSyncInfo info, String rcsPath) throws CVSException {
+		String prefix = Util.appendPath(location.getRootDirectory(), info.getRepository()) + Session.SERVER_SEPARATOR;
+		int start = rcsPath.indexOf(prefix);
+		if (start == -1) {
+			// The root may be reported differently (e.g. a link was resolved)
+			prefix = Session.SERVER_SEPARATOR + info.getRepository() + Session.SERVER_SEPARATOR;
+			start = rcsPath.indexOf(prefix);
+		}
+		if (start == -1 || !rcsPath.endsWith(RCS_SUFFIX))
+			return null;
+		IPath path = new Path(null, rcsPath.substring(start + prefix.length(), rcsPath.length() - RCS_SUFFIX.length()));
+		IPath folderPath = path.removeLastSegments(1);
+		if (folderPath.segmentCount() > 0 && folderPath.lastSegment().equals(ATTIC)) {
+			folderPath = folderPath.removeLastSegments(1);
+		}
+		IContainer folder = folderPath.isEmpty() ? project : project.getFolder(folderPath);
+		FolderSyncInfo folderInfo = CVSWorkspaceRoot.getCVSFolderFor(folder).getFolderSyncInfo();
+		if (folderInfo == null || !folderInfo.getRepository().equals(Util.appendPath(info.getRepository(), folderPath.toString())))
+			return null;
+		return folder;
+	}
+
+	/**
+	 * Record that the remote state of the project was refreshed.
+	 * @param project the project
+	 * @param start the time at which the refresh started
+	 * @param full whether the whole project was refreshed
+	 * @throws CVSException
+	 */
+	public void refreshed(IProject project, long start, boolean full) throws CVSException {
+		FolderSyncInfo info = CVSWorkspaceRoot.getCVSFolderFor(project).getFolderSyncInfo();
+		synchronized (this) {
+			ProjectState state = states.get(project);
+			if (state == null) {
+				if (!full || info == null)
+					return;
+				state = new ProjectState();
+				states.put(project, state);
+			}
+			state.info = info;
+			state.lastRefresh = start;
+			if (full) {
+				state.lastFullRefresh = start;
+			}
+		}
+	}
+
+	/**
+	 * Forget the state of the given project so that its next refresh is a full refresh.
+	 * @param project the project
+	 */
+	public synchronized void reset(IProject project) {
+		states.remove(project);
+	}
+
+	/**
+	 * Record that the local sync info of the given resources changed so that their
+	 * folders are compared with the server on the next refresh.
+	 * @param resources the resources whose sync info changed
+	 */
+	public synchronized void syncInfoChanged(IResource[] resources) {
+		if (states.isEmpty())
+			return;
+		for (IResource resource : resources) {
+			ProjectState state = states.get(resource.getProject());
+			if (state != null) {
+				IContainer folder = resource.getType() == IResource.FILE ? resource.getParent() : (IContainer)resource;
+				if (folder.getType() != IResource.ROOT) {
+					state.syncChangedFolders.add(folder);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.syncinfo;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.IResourceVariant;
+
+/**
+ * The remote trees that are fetched in the background for a single refresh.
+ * <p>
+ * The fetches are started in the order in which they are submitted. While the
+ * prefetch is active, the trees that are refreshed on the thread that activated
+ * it use the fetched trees instead of fetching them again (see
+ * {@link CVSResourceVariantTree#fetchVariant(IResource, int, IProgressMonitor)}).
+ * Refreshes running on other threads have their own prefetch, if any, so they
+ * never see each other's trees.
+ * </p><p>
+ * The prefetch is used by the thread that creates it and must be disposed
+ * when the refresh is done.
+ * </p>
+ */
+public class RemoteTreePrefetch {
+
+	private static final ThreadLocal<RemoteTreePrefetch> active = new ThreadLocal<>();
+
+	/**
+	 * Fetches the remote tree of a resource.
+	 */
+	public interface IFetch {
+		IResourceVariant fetch(IProgressMonitor monitor) throws TeamException;
+	}
+
+	private static final class Key {
+		private final CVSResourceVariantTree tree;
+		private final IResource resource;
+		private final int depth;
+
+		Key(CVSResourceVariantTree tree, IResource resource, int depth) {
+			this.tree = tree;
+			this.resource = resource;
+			this.depth = depth;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+			Key other = (Key) obj;
+			return tree == other.tree && resource.equals(other.resource) && depth == other.depth;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(tree) * 31 + resource.hashCode() * 7 + depth;
+		}
+	}
+
+	private final ExecutorService executor;
+	private final IProgressMonitor fetchMonitor;
+	private final Map<Key, Future<IResourceVariant>> fetches = new HashMap<>();
+	private RemoteTreePrefetch previous;
+	private boolean activated;
+
+	/**
+	 * Create a prefetch that fetches the given number of trees at the same time.
+	 * @param threads the maximum number of concurrent fetches
+	 * @param monitor the monitor of the refresh, which is only checked for cancellation
+	 * by the fetches
+	 */
+	public RemoteTreePrefetch(int threads, final IProgressMonitor monitor) {
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "CVS Fetch"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		fetchMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor != null && monitor.isCanceled();
+			}
+		};
+	}
+
+	/**
+	 * Return the prefetch that is active on the calling thread.
+	 * @return the active prefetch or <code>null</code>
+	 */
+	public static RemoteTreePrefetch getActive() {
+		return active.get();
+	}
+
+	/**
+	 * Start fetching the remote tree of the given resource in the given tree.
+	 * @param tree the tree that will be refreshed
+	 * @param resource the resource that will be refreshed
+	 * @param depth the depth of the refresh
+	 * @param fetch fetches the remote tree
+	 */
+	public void submit(CVSResourceVariantTree tree, IResource resource, int depth, final IFetch fetch) {
+		Future<IResourceVariant> future = executor.submit(() -> fetch.fetch(fetchMonitor));
+		Future<IResourceVariant> replaced = fetches.put(new Key(tree, resource, depth), future);
+		if (replaced != null) {
+			replaced.cancel(true);
+		}
+	}
+
+	/**
+	 * Remove and return the fetch of the remote tree of the given resource.
+	 * @param tree the tree that is refreshed
+	 * @param resource the resource that is refreshed
+	 * @param depth the depth of the refresh
+	 * @return the fetch of the tree or <code>null</code> if it was not submitted
+	 * to this prefetch with the same depth
+	 */
+	public Future<IResourceVariant> remove(CVSResourceVariantTree tree, IResource resource, int depth) {
+		return fetches.remove(new Key(tree, resource, depth));
+	}
+
+	/**
+	 * Make the fetched trees available to the refreshes that run on the calling
+	 * thread until the prefetch is disposed.
+	 */
+	public void activate() {
+		if (activated) return;
+		previous = active.get();
+		active.set(this);
+		activated = true;
+	}
+
+	/**
+	 * Deactivate the prefetch and cancel the fetches that were not used.
+	 */
+	public void dispose() {
+		if (activated) {
+			if (previous == null) {
+				active.remove();
+			} else {
+				active.set(previous);
+			}
+			previous = null;
+			activated = false;
+		}
+		for (Future<IResourceVariant> future : fetches.values()) {
+			future.cancel(true);
+		}
+		fetches.clear();
+		executor.shutdownNow();
+	}
+}
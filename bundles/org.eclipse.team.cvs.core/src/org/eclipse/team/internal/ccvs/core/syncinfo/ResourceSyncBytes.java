@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.syncinfo;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSMessages;
+import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+
+/**
+ * Read-only view of the sync bytes of a file (i.e. a line of the CVS/Entries file).
+ * <p>
+ * Unlike <code>ResourceSyncInfo</code>, the entry line is not split into strings.
+ * The offsets of the slots are computed once when the view is created and the
+ * timestamp is stored as a <code>long</code>. The revision and tag strings are
+ * shared with other views through a small pool so that repeatedly querying the
+ * same entries does not allocate new strings. The view does not copy the sync bytes
+ * so they must not be modified while the view is in use (sync bytes are never
+ * modified in place by the CVS plug-in).</p>
+ *
+ * @see ResourceSyncInfo
+ */
+public final class ResourceSyncBytes {
+
+	/**
+	 * Value returned by <code>getTimestamp()</code> when the entry line
+	 * does not contain a timestamp.
+	 */
+	public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+	private static final long UNKNOWN_TIMESTAMP = Long.MAX_VALUE;
+
+	private static final int SLOT_COUNT = 6;
+	private static final byte[] BINARY_MODE = "-kb".getBytes(); //$NON-NLS-1$
+	private static final byte[] MERGED = ResourceSyncInfo.TIMESTAMP_MERGED.getBytes();
+	private static final byte[] DELETED_AND_RESTORED = ResourceSyncInfo.TIMESTAMP_DELETED_AND_RESTORED.getBytes();
+	private static final byte[] SERVER_MERGED = ResourceSyncInfo.TIMESTAMP_SERVER_MERGED.getBytes();
+	private static final byte[] SERVER_MERGED_WITH_CONFLICT = ResourceSyncInfo.TIMESTAMP_SERVER_MERGED_WITH_CONFLICT.getBytes();
+	private static final byte[] PLUS = new byte[] { '+' };
+	private static final byte[] LOCKED_BY = "locked by".getBytes(); //$NON-NLS-1$
+
+	// Direct mapped pool of the revision, keyword mode and tag strings. A collision simply
+	// replaces the pooled string so the pool is bounded and needs no locking since strings
+	// are immutable.
+	private static final int POOL_SIZE = 4096;
+	private static final String[] pool = new String[POOL_SIZE];
+
+	private final byte[] syncBytes;
+	// offsets of the separators that precede slots 1 to 5
+	private final int[] separators;
+	private final int syncType;
+	// the timestamp is only parsed when it is first requested
+	private volatile long timestamp = UNKNOWN_TIMESTAMP;
+
+	/**
+	 * Create a view of the given sync bytes.
+	 * @param syncBytes the sync bytes of a file
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public ResourceSyncBytes(byte[] syncBytes) throws CVSException {
+		this.syncBytes = syncBytes;
+		this.separators = new int[SLOT_COUNT - 1];
+		int count = 0;
+		for (int i = 0; i < syncBytes.length && count < separators.length; i++) {
+			if (syncBytes[i] == ResourceSyncInfo.SEPARATOR_BYTE) {
+				separators[count++] = i;
+			}
+		}
+		if (count < separators.length) {
+			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) }));
+		}
+		this.syncType = computeSyncType();
+	}
+
+	/**
+	 * Return the sync bytes this is a view of.
+	 * @return the sync bytes
+	 */
+	public byte[] getBytes() {
+		return syncBytes;
+	}
+
+	private int start(int slot) {
+		return separators[slot - 1] + 1;
+	}
+
+	private int end(int slot) {
+		return slot == SLOT_COUNT - 1 ? syncBytes.length : separators[slot];
+	}
+
+	private boolean slotEquals(int slot, byte[] value) {
+		int start = start(slot);
+		return end(slot) - start == value.length && regionMatches(start, value);
+	}
+
+	private boolean slotContains(int slot, byte[] value) {
+		return indexOf(start(slot), end(slot), value) != -1;
+	}
+
+	private boolean regionMatches(int offset, byte[] value) {
+		if (offset + value.length > syncBytes.length) return false;
+		for (int i = 0; i < value.length; i++) {
+			if (syncBytes[offset + i] != value[i]) return false;
+		}
+		return true;
+	}
+
+	private int indexOf(int start, int end, byte[] value) {
+		for (int i = start; i <= end - value.length; i++) {
+			if (regionMatches(i, value)) return i;
+		}
+		return -1;
+	}
+
+	/*
+	 * Return the index of the "locked by" suffix in the given range or -1. As with
+	 * ResourceSyncInfo.LOCKEDBY_REGEX, the suffix starts with any whitespace
+	 * (the Entries file uses a tab) and is followed by the name of the locker.
+	 */
+	private int indexOfLockedBy(int start, int end) {
+		for (int i = start; i < end - LOCKED_BY.length - 1; i++) {
+			if (isWhitespace(syncBytes[i]) && regionMatches(i + 1, LOCKED_BY)) return i;
+		}
+		return -1;
+	}
+
+	/*
+	 * Return whether the byte is matched by the regex \s
+	 */
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+	}
+
+	/**
+	 * Return the name of the file.
+	 * @return the name of the file
+	 */
+	public String getName() {
+		int start = start(1);
+		return new String(syncBytes, start, end(1) - start);
+	}
+
+	/**
+	 * Return the revision without the deleted prefix and "locked by" suffix.
+	 * The returned string is shared with other views.
+	 * @return the revision
+	 */
+	public String getRevision() {
+		int start = start(2);
+		int end = end(2);
+		if (start < end && syncBytes[start] == ResourceSyncInfo.DELETED_PREFIX_BYTE) {
+			start++;
+		}
+		int lockedBy = indexOfLockedBy(start, end);
+		if (lockedBy != -1) {
+			end = lockedBy;
+		}
+		return intern(syncBytes, start, end);
+	}
+
+	/**
+	 * Return whether the file has been added but not committed.
+	 * @return whether the file is an addition
+	 */
+	public boolean isAddition() {
+		int start = start(2);
+		return end(2) - start == 1 && syncBytes[start] == '0';
+	}
+
+	/**
+	 * Return whether the file is scheduled for deletion.
+	 * @return whether the file is a deletion
+	 */
+	public boolean isDeletion() {
+		int start = start(2);
+		return start < end(2) && syncBytes[start] == ResourceSyncInfo.DELETED_PREFIX_BYTE;
+	}
+
+	/**
+	 * Return the timestamp of the entry line in milliseconds or <code>NO_TIMESTAMP</code>
+	 * if the entry line does not have one (e.g. additions and merges).
+	 * @return the timestamp of the entry line
+	 */
+	public long getTimestamp() {
+		long result = timestamp;
+		if (result == UNKNOWN_TIMESTAMP) {
+			result = computeTimestamp();
+			timestamp = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Return whether the file was merged by the server (with or without conflicts).
+	 * @return whether the file was merged
+	 */
+	public boolean isMerge() {
+		return syncType == ResourceSyncInfo.TYPE_MERGED || syncType == ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS;
+	}
+
+	/**
+	 * Return whether the file was merged with conflicts by the server.
+	 * @return whether the file was merged with conflicts
+	 */
+	public boolean isMergedWithConflicts() {
+		return syncType == ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS;
+	}
+
+	/**
+	 * Return whether the file was deleted and restored afterwards.
+	 * @return whether the file was deleted and restored
+	 */
+	public boolean wasDeleted() {
+		return syncType == ResourceSyncInfo.TYPE_DELETED_AND_RESTORED;
+	}
+
+	/**
+	 * Return whether the file was merged with conflicts and not modified since
+	 * (i.e. its modification time is still the timestamp of the entry line).
+	 * @param fileTimestamp the modification time of the file
+	 * @return whether the file still needs to be merged
+	 */
+	public boolean isNeedsMerge(long fileTimestamp) {
+		if (syncType != ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS) return false;
+		long result = getTimestamp();
+		return result != NO_TIMESTAMP && result == fileTimestamp;
+	}
+
+	/**
+	 * Return whether the file is binary (i.e. has a keyword mode of -kb).
+	 * @return whether the file is binary
+	 */
+	public boolean isBinary() {
+		return slotEquals(4, BINARY_MODE);
+	}
+
+	/**
+	 * Return the keyword substitution mode of the file.
+	 * @return the keyword substitution mode
+	 */
+	public KSubstOption getKeywordMode() {
+		int start = start(4);
+		return KSubstOption.fromMode(intern(syncBytes, start, end(4)));
+	}
+
+	/**
+	 * Return the tag slot of the entry line (e.g. Tv1) or an empty
+	 * string if there is none. The returned string is shared with other views.
+	 * @return the tag slot of the entry line
+	 */
+	public String getTagEntry() {
+		int start = start(5);
+		return intern(syncBytes, start, end(5));
+	}
+
+	/*
+	 * Mirrors ResourceSyncInfo.getSyncType(String) without creating the string
+	 */
+	private int computeSyncType() {
+		if (slotContains(3, SERVER_MERGED)) {
+			return ResourceSyncInfo.TYPE_MERGED;
+		} else if (slotContains(3, SERVER_MERGED_WITH_CONFLICT)) {
+			return ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS;
+		} else if (slotContains(3, MERGED)) {
+			int merged = indexOf(start(3), end(3), MERGED);
+			int afterMerged = merged + MERGED.length;
+			return afterMerged < end(3) && syncBytes[afterMerged] == '+' ? ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS : ResourceSyncInfo.TYPE_MERGED;
+		} else if (slotContains(3, DELETED_AND_RESTORED)) {
+			return ResourceSyncInfo.TYPE_DELETED_AND_RESTORED;
+		}
+		return ResourceSyncInfo.TYPE_REGULAR;
+	}
+
+	private long computeTimestamp() {
+		if (isAddition()) return NO_TIMESTAMP;
+		int start = start(3);
+		int end = end(3);
+		switch (syncType) {
+			case ResourceSyncInfo.TYPE_MERGED:
+				return NO_TIMESTAMP;
+			case ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS:
+			case ResourceSyncInfo.TYPE_DELETED_AND_RESTORED:
+				// The date follows the '+' (if there is one)
+				int plus = indexOf(start, end, PLUS);
+				if (plus == -1 || plus == end - 1) return NO_TIMESTAMP;
+				start = plus + 1;
+				break;
+			default:
+				break;
+		}
+		if (start == end) return NO_TIMESTAMP;
+		try {
+			return CVSDateFormatter.entryLineToMillis(new String(syncBytes, start, end - start));
+		} catch (ParseException e) {
+			// something we don't understand, just make this sync have no timestamp and
+			// never be in sync with the server.
+			return NO_TIMESTAMP;
+		}
+	}
+
+	/**
+	 * Return a string for the given range of bytes, reusing a previously returned
+	 * string with the same contents if there is one in the pool. The bytes are
+	 * decoded as ISO-8859-1 so that a pooled string can be matched against the
+	 * bytes one character per byte.
+	 */
+	static String intern(byte[] bytes, int start, int end) {
+		if (start == end) return ""; //$NON-NLS-1$
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + bytes[i];
+		}
+		int index = (hash ^ (hash >>> 16)) & (POOL_SIZE - 1);
+		String pooled = pool[index];
+		if (pooled != null && matches(pooled, bytes, start, end)) {
+			return pooled;
+		}
+		String string = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+		pool[index] = string;
+		return string;
+	}
+
+	/**
+	 * Return the pooled string that is equal to the given one or add it to the pool.
+	 */
+	static String intern(String string) {
+		if (string == null) return null;
+		int hash = string.hashCode();
+		int index = (hash ^ (hash >>> 16)) & (POOL_SIZE - 1);
+		String pooled = pool[index];
+		if (string.equals(pooled)) {
+			return pooled;
+		}
+		pool[index] = string;
+		return string;
+	}
+
+	private static boolean matches(String string, byte[] bytes, int start, int end) {
+		if (string.length() != end - start) return false;
+		for (int i = start; i < end; i++) {
+			if (string.charAt(i - start) != (char)(bytes[i] & 0xFF)) return false;
+		}
+		return true;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -57,7 +57,7 @@ public class ResourceSyncInfo {
 	// file sync information can be associated with a local resource that has been deleted. This is
 	// noted by prefixing the revision with this character.
 	private static final String DELETED_PREFIX = "-"; //$NON-NLS-1$
-	private static final byte DELETED_PREFIX_BYTE = '-';
+	static final byte DELETED_PREFIX_BYTE = '-';
 
 	// revision can be locked in repository using "cvs admin -l<rev>" command
 	// entry looks like [M revision 1.2.2.3	locked by: igorf;]
@@ -366,7 +366,7 @@ public class ResourceSyncInfo {
 			this.revision = revision;
 			isDeleted = false;
 		}
-		this.revision = this.revision.replaceFirst(LOCKEDBY_REGEX, ""); //$NON-NLS-1$
+		this.revision = ResourceSyncBytes.intern(this.revision.replaceFirst(LOCKEDBY_REGEX, "")); //$NON-NLS-1$
 	}
 	
 	/**
@@ -458,7 +458,7 @@ public class ResourceSyncInfo {
 		}
 						
 		if(tagEntry.length()>0) {
-			tag = new CVSEntryLineTag(tagEntry);
+			tag = new CVSEntryLineTag(ResourceSyncBytes.intern(tagEntry));
 		} else {
 			tag = null;
 		}
@@ -543,11 +543,7 @@ public class ResourceSyncInfo {
 	 * @return String
 	 */
 	public static KSubstOption getKeywordMode(byte[] syncBytes) throws CVSException {
-		String mode = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 4, false);
-		if (mode == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		return KSubstOption.fromMode(mode);
+		return new ResourceSyncBytes(syncBytes).getKeywordMode();
 	}
 	
 	/**
@@ -588,11 +584,7 @@ public class ResourceSyncInfo {
 	 */
 	public static boolean isBinary(byte[] syncBytes)  throws CVSException {
 		if (syncBytes == null) return false;
-		String mode = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 4, false);
-		if (mode == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		return "-kb".equals(mode); //$NON-NLS-1$
+		return new ResourceSyncBytes(syncBytes).isBinary();
 	}
 	
 	/**
@@ -870,15 +862,7 @@ public class ResourceSyncInfo {
 	 * @see #LOCKEDBY_REGEX
 	 */
 	public static String getRevision(byte[] syncBytes) throws CVSException {
-		String revision = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 2, false);
-		if (revision == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		if(revision.startsWith(DELETED_PREFIX)) {
-			revision = revision.substring(DELETED_PREFIX.length());
-		}
-		revision = revision.replaceFirst(LOCKEDBY_REGEX, ""); //$NON-NLS-1$
-		return revision;
+		return new ResourceSyncBytes(syncBytes).getRevision();
 	}
 
 	/**
@@ -897,12 +881,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean isMerge(byte[] syncBytes) throws CVSException {
-		String timestamp = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 3, false);
-		if (timestamp == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		int syncType = getSyncType(timestamp);
-		return syncType == TYPE_MERGED || syncType == TYPE_MERGED_WITH_CONFLICTS;
+		return new ResourceSyncBytes(syncBytes).isMerge();
 	}
 
 	/**
@@ -913,15 +892,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean wasDeleted(byte[] syncBytes) throws CVSException {
-		String timestamp = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 3,
-				false);
-		if (timestamp == null) {
-			throw new CVSException(NLS.bind(
-					CVSMessages.ResourceSyncInfo_malformedSyncBytes,
-					new String[] { new String(syncBytes) }));
-		}
-		int syncType = getSyncType(timestamp);
-		return syncType == TYPE_DELETED_AND_RESTORED;
+		return new ResourceSyncBytes(syncBytes).wasDeleted();
 	}
 
 	/**
@@ -930,12 +901,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean isMergedWithConflicts(byte[] syncBytes) throws CVSException {
-		String timestamp = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 3, false);
-		if (timestamp == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		int syncType = getSyncType(timestamp);
-		return syncType == TYPE_MERGED_WITH_CONFLICTS;
+		return new ResourceSyncBytes(syncBytes).isMergedWithConflicts();
 	}
 	
 	
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,90 +15,338 @@ package org.eclipse.team.internal.ccvs.core.util;
 
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.*;
+import java.time.format.TextStyle;
 import java.util.Date;
 import java.util.Locale;
-import java.util.TimeZone;
 
 /**
  * Utility class for converting timestamps used in Entry file lines. The format
  * required in the Entry file is ISO C asctime() function (Sun Apr  7 01:29:26 1996).
  * <p>
  * To be compatible with asctime(), the day field in the entryline format is
- * padded with a space and not a zero. Most other CVS clients use string comparison 
+ * padded with a space and not a zero. Most other CVS clients use string comparison
  * for timestamps based on the result of the C function asctime().
+ * </p><p>
+ * The formats are parsed and formatted field by field rather than with a
+ * <code>SimpleDateFormat</code>. The class holds no mutable state so it can be
+ * used from any number of threads without locking. Entry lines and dates with
+ * a numeric time zone offset are converted without allocating intermediate
+ * objects; named time zones are looked up through <code>java.time</code>.
  * </p>
  */
 public class CVSDateFormatter {
-	
-	private static final String ENTRYLINE_FORMAT = "E MMM dd HH:mm:ss yyyy"; //$NON-NLS-1$
-	private static final String SERVER_FORMAT = "dd MMM yyyy HH:mm:ss";//$NON-NLS-1$
-	private static final int ENTRYLINE_TENS_DAY_OFFSET = 8;
-	
-	private static final SimpleDateFormat serverFormat = new SimpleDateFormat(SERVER_FORMAT, Locale.US);
-	private static SimpleDateFormat entryLineFormat = new SimpleDateFormat(ENTRYLINE_FORMAT, Locale.US);
-	
+
+	private static final int ENTRYLINE_LENGTH = 24;
+	private static final int NOTIFY_SERVER_LENGTH = 24;
+
+	private static final long MILLIS_PER_SECOND = 1000L;
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * MILLIS_PER_SECOND;
+
+	// The day and month names indexed from 0 (i.e. Monday and January)
+	private static final String[] DAY_NAMES = new String[7];
+	private static final String[] MONTH_NAMES = new String[12];
+
 	static {
-		entryLineFormat.setTimeZone(TimeZone.getTimeZone("GMT")); //$NON-NLS-1$
+		for (DayOfWeek day : DayOfWeek.values()) {
+			DAY_NAMES[day.ordinal()] = day.getDisplayName(TextStyle.SHORT, Locale.US);
+		}
+		for (Month month : Month.values()) {
+			MONTH_NAMES[month.ordinal()] = month.getDisplayName(TextStyle.SHORT, Locale.US);
+		}
 	}
-	static synchronized public Date serverStampToDate(String text) throws ParseException {
-		serverFormat.setTimeZone(getTimeZone(text));
-		Date date = serverFormat.parse(text);
-		return date;
+
+	/**
+	 * Parse a Mod-time sent by the server (18 Oct 2001 20:21:13 -0330).
+	 * The time zone may also be named. A missing, malformed or unknown time zone
+	 * is treated as GMT.
+	 */
+	static public Date serverStampToDate(String text) throws ParseException {
+		// dd MMM yyyy HH:mm:ss [[+|-]hhmm|zone]
+		int pos = skipSpaces(text, 0);
+		int end = digitsEnd(text, pos, 2);
+		int day = parseInt(text, pos, end);
+		pos = skipSpaces(text, end);
+		int month = parseName(text, pos, MONTH_NAMES);
+		pos = skipSpaces(text, pos + 3);
+		end = digitsEnd(text, pos, 4);
+		int year = parseInt(text, pos, end);
+		pos = skipSpaces(text, end);
+		end = timeEnd(text, pos);
+		long millis = toMillis(year, month, day, parseTime(text, pos, end));
+		return new Date(millis - parseOffset(text, skipSpaces(text, end), millis));
 	}
-	
-	static synchronized public Date entryLineToDate(String text) throws ParseException {
-		try {
-			if (text.charAt(ENTRYLINE_TENS_DAY_OFFSET) == ' ') {
-				StringBuilder buf = new StringBuilder(text);
-				buf.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, '0');
-				text = buf.toString();
+
+	/**
+	 * Parse an entry line timestamp (Sun Apr  7 01:29:26 1996). The timestamp
+	 * is in GMT. The day may be padded with a space, a zero or not be padded at all.
+	 */
+	static public Date entryLineToDate(String text) throws ParseException {
+		return new Date(entryLineToMillis(text));
+	}
+
+	/**
+	 * Same as <code>entryLineToDate</code> but returns the milliseconds since the epoch.
+	 */
+	static public long entryLineToMillis(String text) throws ParseException {
+		// E MMM dd HH:mm:ss yyyy
+		int pos = skipSpaces(text, 0);
+		parseName(text, pos, DAY_NAMES);
+		pos = skipSpaces(text, pos + 3);
+		int month = parseName(text, pos, MONTH_NAMES);
+		pos = skipSpaces(text, pos + 3);
+		int end = digitsEnd(text, pos, 2);
+		int day = parseInt(text, pos, end);
+		pos = skipSpaces(text, end);
+		end = timeEnd(text, pos);
+		long time = parseTime(text, pos, end);
+		pos = skipSpaces(text, end);
+		end = digitsEnd(text, pos, 4);
+		int year = parseInt(text, pos, end);
+		return toMillis(year, month, day, time);
+	}
+
+	/**
+	 * Parse the date of a log entry. Older servers (pre 1.12.9) send
+	 * 2000/06/19 04:56:21 and newer ones 2000-06-19 04:56:21 +0000.
+	 * The time zone may also be named. A missing, malformed or unknown time zone
+	 * is treated as GMT.
+	 */
+	static public Date logStampToDate(String text) throws ParseException {
+		// yyyy[/|-]MM[/|-]dd HH:mm:ss [[+|-]hhmm|zone]
+		int pos = skipSpaces(text, 0);
+		int end = digitsEnd(text, pos, 4);
+		int year = parseInt(text, pos, end);
+		pos = expect(text, end, '/', '-');
+		end = digitsEnd(text, pos, 2);
+		int month = parseInt(text, pos, end) - 1;
+		pos = expect(text, end, '/', '-');
+		end = digitsEnd(text, pos, 2);
+		int day = parseInt(text, pos, end);
+		pos = skipSpaces(text, end);
+		end = timeEnd(text, pos);
+		long millis = toMillis(year, month, day, parseTime(text, pos, end));
+		return new Date(millis - parseOffset(text, skipSpaces(text, end), millis));
+	}
+
+	static public String dateToEntryLine(Date date) {
+		if (date == null) return ""; //$NON-NLS-1$
+		return dateToEntryLine(date.getTime());
+	}
+
+	/**
+	 * Same as <code>dateToEntryLine</code> but takes the milliseconds since the epoch.
+	 */
+	static public String dateToEntryLine(long millis) {
+		long epochDay = Math.floorDiv(millis, MILLIS_PER_DAY);
+		int secondOfDay = (int)(Math.floorMod(millis, MILLIS_PER_DAY) / MILLIS_PER_SECOND);
+		int date = civilFromDays(epochDay);
+		int year = date >> 9;
+		if (year < 0 || year > 9999) {
+			// asctime() does not handle these so we don't either
+			return ""; //$NON-NLS-1$
+		}
+		char[] buffer = new char[ENTRYLINE_LENGTH];
+		// Day 0 of the epoch was a Thursday (i.e. index 3)
+		appendName(buffer, 0, DAY_NAMES[(int)Math.floorMod(epochDay + 3, 7L)]);
+		buffer[3] = ' ';
+		appendName(buffer, 4, MONTH_NAMES[(date >> 5) & 0xF]);
+		buffer[7] = ' ';
+		int day = date & 0x1F;
+		buffer[8] = day < 10 ? ' ' : (char)('0' + day / 10);
+		buffer[9] = (char)('0' + day % 10);
+		buffer[10] = ' ';
+		appendTime(buffer, 11, secondOfDay);
+		buffer[19] = ' ';
+		appendDigits(buffer, 20, year, 4);
+		return new String(buffer);
+	}
+
+	static public String dateToNotifyServer(Date date) {
+		// dd MMM yyyy HH:mm:ss GMT
+		long millis = date.getTime();
+		int secondOfDay = (int)(Math.floorMod(millis, MILLIS_PER_DAY) / MILLIS_PER_SECOND);
+		int civil = civilFromDays(Math.floorDiv(millis, MILLIS_PER_DAY));
+		int year = civil >> 9;
+		if (year < 0 || year > 9999) {
+			return ""; //$NON-NLS-1$
+		}
+		char[] buffer = new char[NOTIFY_SERVER_LENGTH];
+		appendDigits(buffer, 0, civil & 0x1F, 2);
+		buffer[2] = ' ';
+		appendName(buffer, 3, MONTH_NAMES[(civil >> 5) & 0xF]);
+		buffer[6] = ' ';
+		appendDigits(buffer, 7, year, 4);
+		buffer[11] = ' ';
+		appendTime(buffer, 12, secondOfDay);
+		buffer[20] = ' ';
+		appendName(buffer, 21, "GMT"); //$NON-NLS-1$
+		return new String(buffer);
+	}
+
+	/*
+	 * Return the milliseconds since the epoch of the given GMT date and time. The
+	 * month is 0 based. Fields that are out of range roll over into the next field.
+	 */
+	private static long toMillis(int year, int month, int day, long millisOfDay) {
+		return daysFromCivil(year, month + 1, 1) * MILLIS_PER_DAY + (day - 1) * MILLIS_PER_DAY + millisOfDay;
+	}
+
+	/*
+	 * Return the number of days since 1970-01-01 for the given proleptic Gregorian date.
+	 * The month is 1 based.
+	 */
+	private static long daysFromCivil(int year, int month, int day) {
+		year -= month <= 2 ? 1 : 0;
+		int era = Math.floorDiv(year, 400);
+		int yearOfEra = year - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	/*
+	 * Return the date for the given number of days since 1970-01-01 packed
+	 * as (year << 9) | (month << 5) | day where the month is 0 based.
+	 */
+	private static int civilFromDays(long epochDay) {
+		long days = epochDay + 719468;
+		long era = Math.floorDiv(days, 146097);
+		int dayOfEra = (int)(days - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 2 : mp - 10;
+		int year = (int)(yearOfEra + era * 400) + (month < 2 ? 1 : 0);
+		return (year << 9) | (month << 5) | day;
+	}
+
+	private static int skipSpaces(String text, int pos) {
+		while (pos < text.length() && text.charAt(pos) == ' ') pos++;
+		return pos;
+	}
+
+	/*
+	 * Return the end of the run of at most maxDigits digits starting at pos.
+	 */
+	private static int digitsEnd(String text, int pos, int maxDigits) throws ParseException {
+		int end = pos;
+		while (end < text.length() && end - pos < maxDigits && isDigit(text.charAt(end))) end++;
+		if (end == pos) {
+			throw new ParseException(text, pos);
+		}
+		return end;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static int parseInt(String text, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			value = value * 10 + (text.charAt(i) - '0');
+		}
+		return value;
+	}
+
+	private static int expect(String text, int pos, char c1, char c2) throws ParseException {
+		if (pos >= text.length() || (text.charAt(pos) != c1 && text.charAt(pos) != c2)) {
+			throw new ParseException(text, pos);
+		}
+		return pos + 1;
+	}
+
+	/*
+	 * Return the index of the name at pos in the given names (ignoring case).
+	 */
+	private static int parseName(String text, int pos, String[] names) throws ParseException {
+		for (int i = 0; i < names.length; i++) {
+			if (text.regionMatches(true, pos, names[i], 0, 3)) {
+				return i;
 			}
-		} catch (StringIndexOutOfBoundsException e) {
-			throw new ParseException(e.getMessage(), ENTRYLINE_TENS_DAY_OFFSET);
 		}
-		return entryLineFormat.parse(text);
+		throw new ParseException(text, pos);
 	}
 
-	static synchronized public String dateToEntryLine(Date date) {
-		if (date == null) return ""; //$NON-NLS-1$
-		String passOne = entryLineFormat.format(date);
-		if (passOne.charAt(ENTRYLINE_TENS_DAY_OFFSET) != '0') return passOne;
-		StringBuilder passTwo = new StringBuilder(passOne);
-		passTwo.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, ' ');
-		return passTwo.toString();
-	}
-	
-	static synchronized public String dateToNotifyServer(Date date) {
-		serverFormat.setTimeZone(TimeZone.getTimeZone("GMT"));//$NON-NLS-1$
-		return serverFormat.format(date) + " GMT"; //$NON-NLS-1$
-	}
-	
 	/*
-	 * Converts timezone text from date string from CVS server and
-	 * returns a timezone representing the received timezone.
-	 * Timezone string is of the following format: [-|+]MMSS
+	 * Return the end of the HH:mm:ss time starting at pos.
 	 */
-	static private TimeZone getTimeZone(String dateFromServer) {
-		if (dateFromServer.contains("0000"))  //$NON-NLS-1$
-			return TimeZone.getTimeZone("GMT");//$NON-NLS-1$ 
-		String tz = null;
-		StringBuilder resultTz = new StringBuilder("GMT");//$NON-NLS-1$
-		if (dateFromServer.contains("-")) {//$NON-NLS-1$
-			resultTz.append("-");//$NON-NLS-1$
-			tz = dateFromServer.substring(dateFromServer.indexOf("-"));//$NON-NLS-1$
-		} else if (dateFromServer.contains("+")) {//$NON-NLS-1$
-			resultTz.append('+');
-			tz = dateFromServer.substring(dateFromServer.indexOf("+"));//$NON-NLS-1$
+	private static int timeEnd(String text, int pos) throws ParseException {
+		int end = digitsEnd(text, pos, 2);
+		end = digitsEnd(text, expect(text, end, ':', ':'), 2);
+		return digitsEnd(text, expect(text, end, ':', ':'), 2);
+	}
+
+	/*
+	 * Return the milliseconds of the HH:mm:ss time between start and end.
+	 */
+	private static long parseTime(String text, int start, int end) throws ParseException {
+		long seconds = 0;
+		int field = 0;
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if (c == ':') {
+				seconds = seconds * 60 + field;
+				field = 0;
+			} else {
+				field = field * 10 + (c - '0');
+			}
 		}
-		try {
-			if(tz!=null) {
-				resultTz.append(tz.substring(1, 3) /*hours*/ + ":" + tz.substring(3, 5) /*minutes*/);//$NON-NLS-1$
-				return TimeZone.getTimeZone(resultTz.toString());
+		return (seconds * 60 + field) * MILLIS_PER_SECOND;
+	}
+
+	/*
+	 * Return the offset in milliseconds of the time zone at pos for the given
+	 * local date and time. The zone is either [+|-]hhmm or a zone name such as
+	 * GMT, EST or Europe/Paris. A missing, malformed or unknown zone is GMT, as it
+	 * always has been, so that the date of a server that sends such a zone can still
+	 * be read.
+	 */
+	private static long parseOffset(String text, int pos, long localMillis) {
+		if (pos >= text.length()) return 0;
+		char sign = text.charAt(pos);
+		if (sign == '+' || sign == '-') {
+			for (int i = pos + 1; i < pos + 5; i++) {
+				if (i >= text.length() || !isDigit(text.charAt(i))) {
+					return 0;
+				}
 			}
-		} catch(IndexOutOfBoundsException e) {
-			return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
+			int hours = parseInt(text, pos + 1, pos + 3);
+			int minutes = parseInt(text, pos + 3, pos + 5);
+			long offset = (hours * 60L + minutes) * 60 * MILLIS_PER_SECOND;
+			return sign == '-' ? -offset : offset;
 		}
-		return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
+		int end = pos;
+		while (end < text.length() && !Character.isWhitespace(text.charAt(end))) end++;
+		String name = text.substring(pos, end);
+		if (name.equals("GMT")) return 0; //$NON-NLS-1$
+		try {
+			ZoneId zone = ZoneId.of(name, ZoneId.SHORT_IDS);
+			LocalDateTime local = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, MILLIS_PER_SECOND), 0, ZoneOffset.UTC);
+			return zone.getRules().getOffset(local).getTotalSeconds() * MILLIS_PER_SECOND;
+		} catch (DateTimeException e) {
+			return 0;
+		}
+	}
+
+	private static void appendName(char[] buffer, int pos, String name) {
+		name.getChars(0, 3, buffer, pos);
+	}
+
+	private static void appendDigits(char[] buffer, int pos, int value, int digits) {
+		for (int i = pos + digits - 1; i >= pos; i--) {
+			buffer[i] = (char)('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private static void appendTime(char[] buffer, int pos, int secondOfDay) {
+		appendDigits(buffer, pos, secondOfDay / 3600, 2);
+		buffer[pos + 2] = ':';
+		appendDigits(buffer, pos + 3, secondOfDay / 60 % 60, 2);
+		buffer[pos + 5] = ':';
+		appendDigits(buffer, pos + 6, secondOfDay % 60, 2);
 	}
 }
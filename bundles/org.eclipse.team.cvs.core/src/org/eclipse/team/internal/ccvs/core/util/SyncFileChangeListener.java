@@ -188,11 +188,12 @@ public class SyncFileChangeListener implements IResourceChangeListener {
 	}
 
 	/*
-	 * Consider non-existing resources as being recently deleted and thus modified, and resources
-	 * with modification stamps that differ from when the CVS plugin last modified the meta-file.
+	 * Consider non-existing resources as being recently deleted and thus modified (unless
+	 * the CVS plugin deleted them itself), and resources with modification stamps that differ
+	 * from when the CVS plugin last modified the meta-file.
 	 */
 	protected boolean isModifiedBy3rdParty(IResource resource) {
-		if(!resource.exists()) return true;
+		if(!resource.exists()) return !SyncFileWriter.isDeletedByUs(resource);
 		long modStamp = resource.getModificationStamp();
 		Long whenWeWrote;
 		try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,10 @@ package org.eclipse.team.internal.ccvs.core.util;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 import org.eclipse.core.filesystem.EFS;
@@ -64,6 +68,82 @@ public class SyncFileWriter {
 	// key for saving the mod stamp for each written meta file
 	public static final QualifiedName MODSTAMP_KEY = new QualifiedName("org.eclipse.team.cvs.core", "meta-file-modtime"); //$NON-NLS-1$ //$NON-NLS-2$
 	
+	// key for remembering the entries last read from or written to a CVS subdirectory
+	private static final QualifiedName ENTRIES_STATE_KEY = new QualifiedName("org.eclipse.team.cvs.core", "entries-state"); //$NON-NLS-1$ //$NON-NLS-2$
+	
+	// Entries.log is allowed to grow to this number of lines (or the number of entries if larger)
+	// before the changes are compacted into Entries
+	private static final int MIN_ENTRIES_LOG_LINES = 64;
+	
+	// key for remembering, on a CVS subdirectory, the modification stamp of the Entries file
+	// written when Entries.log was compacted and deleted, until the change listener sees the deletion
+	private static final QualifiedName DELETED_ENTRIES_LOG_KEY = new QualifiedName("org.eclipse.team.cvs.core", "deleted-entries-log"); //$NON-NLS-1$ //$NON-NLS-2$
+	
+	/*
+	 * A fingerprint of each entry of a folder as it is on disk, along with the modification
+	 * stamps of the Entries and Entries.log files at the time they were read or written.
+	 * The entries themselves are cached by the synchronizer, so they are not kept here.
+	 */
+	private static class EntriesState {
+		final Map<String, Long> fingerprints;
+		final int logLines;
+		final long entriesStamp;
+		final long entriesLogStamp;
+		EntriesState(Map<String, byte[]> infos, int logLines, long entriesStamp, long entriesLogStamp) {
+			this.fingerprints = new HashMap<>(infos.size() * 4 / 3 + 1);
+			for (Map.Entry<String, byte[]> entry : infos.entrySet()) {
+				fingerprints.put(entry.getKey(), Long.valueOf(fingerprint(entry.getValue())));
+			}
+			this.logLines = logLines;
+			this.entriesStamp = entriesStamp;
+			this.entriesLogStamp = entriesLogStamp;
+		}
+		boolean isCurrent(IFile entriesFile, IFile entriesLogFile) {
+			return entriesStamp != IResource.NULL_STAMP
+				&& entriesFile.getModificationStamp() == entriesStamp
+				&& entriesLogFile.getModificationStamp() == entriesLogStamp;
+		}
+		/*
+		 * Return the Entries.log lines that turn these entries into the given ones or
+		 * null if entries were removed. A removal line needs the old entry, which is
+		 * not kept, so Entries is rewritten instead.
+		 */
+		List<byte[]> getChanges(Map<String, byte[]> newInfos) {
+			for (String name : fingerprints.keySet()) {
+				if (!newInfos.containsKey(name)) {
+					return null;
+				}
+			}
+			List<byte[]> changes = new ArrayList<>();
+			for (Map.Entry<String, byte[]> entry : newInfos.entrySet()) {
+				Long oldFingerprint = fingerprints.get(entry.getKey());
+				if (oldFingerprint == null || oldFingerprint.longValue() != fingerprint(entry.getValue())) {
+					changes.add(logLine(ADD_TAG, entry.getValue()));
+				}
+			}
+			return changes;
+		}
+		/*
+		 * 64-bit FNV-1a hash of the entry line
+		 */
+		private static long fingerprint(byte[] info) {
+			long hash = 0xcbf29ce484222325L;
+			for (byte b : info) {
+				hash ^= b & 0xff;
+				hash *= 0x100000001b3L;
+			}
+			return hash;
+		}
+		private static byte[] logLine(String tag, byte[] info) {
+			byte[] line = new byte[tag.length() + info.length];
+			for (int i = 0; i < tag.length(); i++) {
+				line[i] = (byte)tag.charAt(i);
+			}
+			System.arraycopy(info, 0, line, tag.length(), info.length);
+			return line;
+		}
+	}
+	
 	/**
 	 * Reads the CVS/Entries, CVS/Entries.log and CVS/Permissions files from the
 	 * specified folder and returns ResourceSyncInfo instances for the data stored therein.
@@ -81,14 +161,18 @@ public class SyncFileWriter {
 		}
 
 		// process Entries file contents
-		String[] entries = readLines(cvsSubDir.getFile(ENTRIES));
+		IFile entriesFile = cvsSubDir.getFile(ENTRIES);
+		IFile entriesLogFile = cvsSubDir.getFile(ENTRIES_LOG);
+		long entriesStamp = entriesFile.getModificationStamp();
+		long entriesLogStamp = entriesLogFile.getModificationStamp();
+		List<byte[]> entries = readLineBytes(entriesFile);
 		if (entries == null) return null;
-		Map infos = new TreeMap();
-		for (String line : entries) {
-			if(!FOLDER_TAG.equals(line) && !"".equals(line)) { //$NON-NLS-1$
+		Map<String, byte[]> infos = new TreeMap<>();
+		for (byte[] line : entries) {
+			if(!isFolderTag(line) && line.length > 0) {
 				try {
-					ResourceSyncInfo info = new ResourceSyncInfo(line, null);
-					infos.put(info.getName(), info);
+					ResourceSyncInfo info = new ResourceSyncInfo(line);
+					infos.put(info.getName(), info.getBytes());
 				} catch (CVSException e) {
 					// There was a problem parsing the entry line.
 					// Log the problem and skip the entry
@@ -98,29 +182,38 @@ public class SyncFileWriter {
 		}
 		
 		// process Entries.log file contents
-		String[] entriesLog = readLines(cvsSubDir.getFile(ENTRIES_LOG));
+		List<byte[]> entriesLog = readLineBytes(entriesLogFile);
 		if (entriesLog != null) {
-			for (String line : entriesLog) {
-				if (line.startsWith(ADD_TAG)) {
-					line = line.substring(ADD_TAG.length());
-					ResourceSyncInfo info = new ResourceSyncInfo(line, null);
-					infos.put(info.getName(), info);
-				} else if (line.startsWith(REMOVE_TAG)) {
-					line = line.substring(REMOVE_TAG.length());
-					ResourceSyncInfo info = new ResourceSyncInfo(line, null);
+			for (byte[] line : entriesLog) {
+				if (startsWith(line, ADD_TAG)) {
+					ResourceSyncInfo info = new ResourceSyncInfo(Arrays.copyOfRange(line, ADD_TAG.length(), line.length));
+					infos.put(info.getName(), info.getBytes());
+				} else if (startsWith(line, REMOVE_TAG)) {
+					ResourceSyncInfo info = new ResourceSyncInfo(Arrays.copyOfRange(line, REMOVE_TAG.length(), line.length));
 					infos.remove(info.getName());
 				}
 			}
 		}
 		
-		//return (ResourceSyncInfo[])infos.values().toArray(new ResourceSyncInfo[infos.size()]);
-		byte[][] result = new byte[infos.size()][];
-		int i = 0;
-		for (Iterator iter = infos.values().iterator(); iter.hasNext();) {
-			ResourceSyncInfo info = (ResourceSyncInfo) iter.next();
-			result[i++] = info.getBytes();
+		// remember what was read so that the next write only needs to append the changes
+		// (unless the files are not known to the workspace yet)
+		if (entriesStamp != IResource.NULL_STAMP && (entriesLog == null || entriesLogStamp != IResource.NULL_STAMP)) {
+			setEntriesState(cvsSubDir, new EntriesState(infos, entriesLog == null ? 0 : entriesLog.size(), entriesStamp, entriesLogStamp));
 		}
-		return result;
+		
+		return infos.values().toArray(new byte[infos.size()][]);
+	}
+	
+	private static boolean isFolderTag(byte[] line) {
+		return line.length == 1 && line[0] == FOLDER_TAG.charAt(0);
+	}
+	
+	private static boolean startsWith(byte[] line, String prefix) {
+		if (line.length < prefix.length()) return false;
+		for (int i = 0; i < prefix.length(); i++) {
+			if (line[i] != prefix.charAt(i)) return false;
+		}
+		return true;
 	}
 	
 	private static boolean folderExists(IFolder cvsSubDir) throws CVSException {
@@ -140,10 +233,43 @@ public class SyncFileWriter {
 
 	public static void writeAllResourceSync(IContainer parent, byte[][] infos) throws CVSException {
 		try {
+			IFolder cvsSubDir = createCVSSubdirectory(parent);
+			IFile entriesFile = cvsSubDir.getFile(ENTRIES);
+			IFile entriesLogFile = cvsSubDir.getFile(ENTRIES_LOG);
+
+			Map<String, byte[]> newInfos = new HashMap<>();
+			for (byte[] info : infos) {
+				newInfos.put(ResourceSyncInfo.getName(info), info);
+			}
+
+			// If the files have not changed since they were last read or written and no
+			// entries were removed, only append the added and changed entries to Entries.log
+			// (as the command line client does).
+			// Entries is rewritten once the log gets as large as the entries themselves
+			// so the cost of rewriting is spread over many changes.
+			EntriesState state = getEntriesState(cvsSubDir);
+			List<byte[]> changes = null;
+			if (state != null && state.isCurrent(entriesFile, entriesLogFile)) {
+				changes = state.getChanges(newInfos);
+			}
+			if (changes != null) {
+				if (changes.isEmpty()) {
+					return;
+				}
+				int logLines = state.logLines + changes.size();
+				if (logLines < Math.max(MIN_ENTRIES_LOG_LINES, newInfos.size())) {
+					if (Policy.DEBUG_METAFILE_CHANGES) {
+						System.out.println("Appending " + changes.size() + " lines to Entries.log file for folder " + parent.getFullPath()); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					appendLines(entriesLogFile, changes);
+					setEntriesState(cvsSubDir, new EntriesState(newInfos, logLines, entriesFile.getModificationStamp(), entriesLogFile.getModificationStamp()));
+					return;
+				}
+			}
+
 			if (Policy.DEBUG_METAFILE_CHANGES) {
 				System.out.println("Writing Entries file for folder " + parent.getFullPath()); //$NON-NLS-1$
 			}
-			IFolder cvsSubDir = createCVSSubdirectory(parent);
 
 			// format file contents
 			String[] entries = new String[infos.length];
@@ -153,14 +279,79 @@ public class SyncFileWriter {
 			}
 
 			// write Entries
-			writeLines(cvsSubDir.getFile(ENTRIES), entries);
+			writeLines(entriesFile, entries);
 
 			// delete Entries.log
-			cvsSubDir.getFile(ENTRIES_LOG).delete(IResource.NONE, null);
+			deleteEntriesLog(cvsSubDir, entriesFile.getModificationStamp());
+			
+			setEntriesState(cvsSubDir, new EntriesState(newInfos, 0, entriesFile.getModificationStamp(), IResource.NULL_STAMP));
 		} catch(CoreException e) {
 			throw CVSException.wrapException(e);
 		}
 	}
+	
+	/*
+	 * Deletes the Entries.log file, remembering the deletion in the CVS subdirectory
+	 * so that the change listener does not mistake it for a change made by a 3rd party.
+	 * The deletion is tied to the Entries file that was just written, so it is not
+	 * attributed to us once Entries changes, even if the listener never saw it.
+	 */
+	private static void deleteEntriesLog(IFolder cvsSubDir, long entriesStamp) throws CoreException {
+		IFile entriesLogFile = cvsSubDir.getFile(ENTRIES_LOG);
+		if (!entriesLogFile.exists()) return;
+		cvsSubDir.setSessionProperty(DELETED_ENTRIES_LOG_KEY, Long.valueOf(entriesStamp));
+		try {
+			entriesLogFile.delete(IResource.NONE, null);
+		} catch (CoreException e) {
+			cvsSubDir.setSessionProperty(DELETED_ENTRIES_LOG_KEY, null);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Return whether the given metafile is an Entries.log file that was deleted by
+	 * compacting it into the Entries file, which has not changed since. The deletion
+	 * is forgotten once it has been queried.
+	 * @param resource a removed CVS metafile
+	 * @return whether the metafile was deleted by the CVS plugin itself
+	 */
+	public static boolean isDeletedByUs(IResource resource) {
+		if (!resource.getName().equals(ENTRIES_LOG)) return false;
+		IContainer cvsSubDir = resource.getParent();
+		if (!cvsSubDir.exists()) return false;
+		try {
+			Long entriesStamp = (Long)cvsSubDir.getSessionProperty(DELETED_ENTRIES_LOG_KEY);
+			if (entriesStamp == null) return false;
+			cvsSubDir.setSessionProperty(DELETED_ENTRIES_LOG_KEY, null);
+			return entriesStamp.longValue() == cvsSubDir.getFile(new Path(ENTRIES)).getModificationStamp();
+		} catch (CoreException e) {
+			CVSProviderPlugin.log(e);
+			return false;
+		}
+	}
+	
+	private static EntriesState getEntriesState(IFolder cvsSubDir) {
+		try {
+			if (cvsSubDir.exists()) {
+				return (EntriesState)cvsSubDir.getSessionProperty(ENTRIES_STATE_KEY);
+			}
+		} catch (CoreException e) {
+			// Ignore and rewrite the Entries file
+		}
+		return null;
+	}
+	
+	private static void setEntriesState(IFolder cvsSubDir, EntriesState state) {
+		try {
+			if (cvsSubDir.exists()) {
+				cvsSubDir.setSessionProperty(ENTRIES_STATE_KEY, state);
+			}
+		} catch (CoreException e) {
+			// The state is only an optimization so just log the failure
+			CVSProviderPlugin.log(e);
+		}
+	}
+	
 	/**
 	 * Reads the CVS/Root, CVS/Repository, CVS/Tag, and CVS/Entries.static files from
 	 * the specified folder and returns a FolderSyncInfo instance for the data stored therein.
@@ -538,6 +729,83 @@ public class SyncFileWriter {
 		return null;
 	}
 	
+	/*
+	 * Reads all lines of the specified file as bytes, without the line terminators.
+	 * Local files are read directly into a single buffer which is then split, other
+	 * files are read through their input stream.
+	 * Returns null if the file does not exist.
+	 */
+	private static List<byte[]> readLineBytes(IFile file) throws CVSException {
+		byte[] contents = readBytes(file);
+		if (contents == null) return null;
+		List<byte[]> lines = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i <= contents.length; i++) {
+			if (i == contents.length || contents[i] == '\n') {
+				int end = i;
+				if (end > start && contents[end - 1] == '\r') {
+					end--;
+				}
+				if (i < contents.length || end > start) {
+					lines.add(Arrays.copyOfRange(contents, start, end));
+				}
+				start = i + 1;
+			}
+		}
+		return lines;
+	}
+	
+	private static byte[] readBytes(IFile file) throws CVSException {
+		// Local files are read directly into a buffer of the size of the file
+		IPath location = file.getLocation();
+		if (location != null) {
+			try (FileChannel channel = FileChannel.open(location.toFile().toPath(), StandardOpenOption.READ)) {
+				long size = channel.size();
+				if (size <= Integer.MAX_VALUE) {
+					ByteBuffer buffer = ByteBuffer.allocate((int)size);
+					while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+						// keep reading until the buffer is full or the end of the file is reached
+					}
+					return buffer.position() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+				}
+			} catch (NoSuchFileException e) {
+				return null;
+			} catch (IOException e) {
+				throw CVSException.wrapException(e);
+			}
+		}
+		try {
+			InputStream in = getInputStream(file);
+			if (in != null) {
+				try {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					byte[] buffer = new byte[1024];
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						out.write(buffer, 0, read);
+					}
+					return out.toByteArray();
+				} finally {
+					in.close();
+				}
+			}
+			return null;
+		} catch (IOException e) {
+			throw CVSException.wrapException(e);
+		} catch (CoreException e) {
+			// If the IFile doesn't exist or the underlying File doesn't exist,
+			// just return null to indicate the absence of the file
+			switch (e.getStatus().getCode()) {
+			case IResourceStatus.RESOURCE_NOT_FOUND:
+			case IResourceStatus.NOT_FOUND_LOCAL:
+			case IResourceStatus.FAILED_READ_LOCAL:
+				return null;
+			default:
+				throw CVSException.wrapException(e);
+			}
+		}
+	}
+	
 	/*
 	 * Reads all lines of the specified file.
 	 * Returns null if the file does not exist.
@@ -604,6 +872,32 @@ public class SyncFileWriter {
 		}
 	}
 	
+	/*
+	 * Appends the lines to the specified file, creating it if it doesn't exist.
+	 */
+	private static void appendLines(final IFile file, final List<byte[]> lines) throws CVSException {
+		try {
+			// Same as writeLines, the append is done in a runnable so the MODSTAMP value is
+			// set before the change listener sees the delta
+			ResourcesPlugin.getWorkspace().run((IWorkspaceRunnable) monitor -> {
+				byte[] lineEnd = getLineDelimiter();
+				ByteArrayOutputStream os = new ByteArrayOutputStream();
+				for (byte[] line : lines) {
+					os.write(line, 0, line.length);
+					os.write(lineEnd, 0, lineEnd.length);
+				}
+				if(!file.exists()) {
+					file.create(new ByteArrayInputStream(os.toByteArray()), IResource.FORCE /*don't keep history but do force*/, null);
+				} else {
+					file.appendContents(new ByteArrayInputStream(os.toByteArray()), IResource.FORCE /*don't keep history but do force*/, null);
+				}
+				file.setSessionProperty(MODSTAMP_KEY, Long.valueOf(file.getModificationStamp()));
+			}, ResourcesPlugin.getWorkspace().getRuleFactory().createRule(file), 0, null);
+		} catch (CoreException e) {
+			throw CVSException.wrapException(e);
+		}
+	}
+	
 	private static void writeLinesToStreamAndClose(OutputStream os, String[] contents) throws CVSException {
 		byte[] lineEnd = getLineDelimiter();
 		try {
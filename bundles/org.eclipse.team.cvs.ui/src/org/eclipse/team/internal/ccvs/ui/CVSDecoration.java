@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -217,6 +217,10 @@ public class CVSDecoration {
 		return suffix;
 	}
 	
+	public int getResourceType() {
+		return resourceType;
+	}
+
 	public void setResourceType(int type) {
 		this.resourceType = type;
 	}
@@ -392,6 +396,10 @@ public class CVSDecoration {
 		this.isNewResource = isNewResource;
 	}
 
+	public ICVSRepositoryLocation getLocation() {
+		return location;
+	}
+
 	public void setLocation(ICVSRepositoryLocation location) {
 		this.location = location;
 	}
@@ -412,6 +420,10 @@ public class CVSDecoration {
 		this.keywordSubstitution = keywordSubstitution;
 	}
 
+	public boolean isNeedsMerge() {
+		return needsMerge;
+	}
+
 	public void setNeedsMerge(boolean needsMerge) {
 		this.needsMerge = needsMerge;
 	}
@@ -424,6 +436,10 @@ public class CVSDecoration {
 		this.hasRemote = hasRemote;
 	}
 
+	public String getRepository() {
+		return repository;
+	}
+
 	public void setRepository(String repository) {
 		this.repository = repository;
 	}
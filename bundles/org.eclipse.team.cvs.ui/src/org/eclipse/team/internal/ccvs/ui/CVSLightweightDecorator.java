@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,8 @@
 package org.eclipse.team.internal.ccvs.ui;
 
 
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 import org.eclipse.core.resources.*;
@@ -24,7 +25,6 @@ import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.viewers.*;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.team.core.RepositoryProvider;
 import org.eclipse.team.core.diff.IDiff;
 import org.eclipse.team.core.diff.IThreeWayDiff;
@@ -32,6 +32,7 @@ import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncBytes;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
@@ -51,7 +52,13 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	private static ExceptionCollector exceptions = new ExceptionCollector(CVSUIMessages.CVSDecorator_exceptionMessage, CVSUIPlugin.ID, IStatus.ERROR, CVSUIPlugin.getPlugin().getLog()); //;
 	
 	private static String DECORATOR_FORMAT = "yyyy/MM/dd HH:mm:ss"; //$NON-NLS-1$
-	private static SimpleDateFormat decorateFormatter = new SimpleDateFormat(DECORATOR_FORMAT, Locale.getDefault());
+	private static final DateTimeFormatter decorateFormatter = DateTimeFormatter.ofPattern(DECORATOR_FORMAT, Locale.getDefault());
+	
+	/*
+	 * The decoration snapshots of resources. The cache only exists while a decorator
+	 * is registered since the decorator invalidates the snapshots of changed resources.
+	 */
+	private static volatile DecorationSnapshotCache snapshots;
 	
 	private static String[] fonts = new String[]  {
 			CVSDecoratorConfiguration.IGNORED_FONT,
@@ -65,7 +72,10 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	
 	private static final SynchronizationStateTester DEFAULT_TESTER = new SynchronizationStateTester();
 
+	private final DecorationUpdateScheduler updateScheduler = new DecorationUpdateScheduler(this::fireLabelEvent);
+
 	public CVSLightweightDecorator() {
+		snapshots = new DecorationSnapshotCache();
 		ResourceStateChangeListeners.getListener().addResourceStateChangeListener(this);
 		TeamUI.addPropertyChangeListener(this);
 		CVSUIPlugin.addPropertyChangeListener(this);
@@ -217,27 +227,22 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 		} else {
 			result.setIgnored(true);
 		}
+		// If the element adapts to a single resource, use the snapshot of its state
+		IResource resource = getResource(element);
+		DecorationSnapshot snapshot = resource == null ? null : getSnapshot(resource);
+		
 		// Tag
 		if (!result.isIgnored()) {
-			CVSTag tag = getTagToShow(element);
+			String tag = snapshot != null ? snapshot.getTag() : getTagLabel(getTagToShow(element));
 			if (tag != null) {
-				String name = tag.getName();
-				if (tag.getType() == CVSTag.DATE) {
-					Date date = tag.asDate();
-					if (date != null) {
-						name = decorateFormatter.format(date);
-					}
-				}
-				result.setTag(name);
+				result.setTag(tag);
 			}
 		}
 		
-		// If the element adapts to a single resource, add additional decorations
-		IResource resource = getResource(element);
-		if (resource == null) {
+		if (snapshot == null) {
 			result.setResourceType(CVSDecoration.MODEL);
 		} else {
-			decorate(resource, result);
+			snapshot.apply(result);
 		}
 		tester.elementDecorated(element, result.asTeamStateDescription(null));
 		return result;
@@ -265,7 +270,45 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 		return (IResource[]) result.toArray(new IResource[result.size()]);
 	}
 
+	private static String getTagLabel(CVSTag tag) {
+		if (tag == null)
+			return null;
+		if (tag.getType() == CVSTag.DATE) {
+			Date date = tag.asDate();
+			if (date != null) {
+				return decorateFormatter.format(date.toInstant().atZone(ZoneId.systemDefault()));
+			}
+		}
+		return tag.getName();
+	}
+
 	private static void decorate(IResource resource, CVSDecoration cvsDecoration) throws CVSException {
+		getSnapshot(resource).apply(cvsDecoration);
+	}
+
+	/*
+	 * Return the snapshot of the state of the resource, computing it if it is not cached.
+	 */
+	private static DecorationSnapshot getSnapshot(IResource resource) throws CVSException {
+		DecorationSnapshotCache cache = snapshots;
+		if (cache == null)
+			return createSnapshot(resource);
+		return cache.get(resource, CVSLightweightDecorator::createSnapshot);
+	}
+
+	private static DecorationSnapshot createSnapshot(IResource resource) throws CVSException {
+		// The decoration is only used to collect the state of the resource
+		CVSDecoration state = new CVSDecoration(null, "", "", ""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		boolean hasDirtyState = computeState(resource, state);
+		return new DecorationSnapshot(state, hasDirtyState, getTagLabel(getTagToShow(resource)));
+	}
+
+	/*
+	 * Compute the state of the resource into the decoration and return whether
+	 * the dirty state was set.
+	 */
+	private static boolean computeState(IResource resource, CVSDecoration cvsDecoration) throws CVSException {
+		boolean hasDirtyState = false;
 		IPreferenceStore store = CVSUIPlugin.getPlugin().getPreferenceStore();
 		ICVSResource cvsResource = CVSWorkspaceRoot.getCVSResourceFor(resource);
 		cvsDecoration.setResourceType(resource.getType());
@@ -284,6 +327,7 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 					if (node != null) {
 						if (node instanceof IThreeWayDiff) {
 							IThreeWayDiff twd = (IThreeWayDiff) node;
+							hasDirtyState = true;
 							cvsDecoration.setDirty(twd.getDirection() == IThreeWayDiff.OUTGOING 
 								|| twd.getDirection() == IThreeWayDiff.CONFLICTING);
 						}
@@ -313,6 +357,7 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 				extractContainerProperties((IContainer) resource, cvsDecoration);
 			}
 		}
+		return hasDirtyState;
 	}
 
 	private static boolean hasRemote(ICVSResource cvsResource) {
@@ -361,13 +406,18 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 
 	private static void extractFileProperties(IFile resource, CVSDecoration cvsDecoration) throws CVSException {
 		ICVSFile file = CVSWorkspaceRoot.getCVSFileFor(resource);
-		ResourceSyncInfo fileInfo = file.getSyncInfo();
+		// Use a view of the sync bytes to avoid parsing the whole entry line
+		byte[] syncBytes = file.getSyncBytes();
 		KSubstOption option = KSubstOption.fromFile(resource);
-		if (fileInfo != null) {
-			cvsDecoration.setAdded(fileInfo.isAdded());
+		if (syncBytes != null) {
+			ResourceSyncBytes fileInfo = new ResourceSyncBytes(syncBytes);
+			cvsDecoration.setAdded(fileInfo.isAddition());
 			cvsDecoration.setRevision(fileInfo.getRevision());
 			cvsDecoration.setReadOnly(file.isReadOnly());
-			cvsDecoration.setNeedsMerge(fileInfo.isNeedsMerge(file.getTimeStamp()));
+			if (fileInfo.isMergedWithConflicts()) {
+				Date timeStamp = file.getTimeStamp();
+				cvsDecoration.setNeedsMerge(timeStamp != null && fileInfo.isNeedsMerge(timeStamp.getTime()));
+			}
 			option = fileInfo.getKeywordMode();
 		}
 		cvsDecoration.setKeywordSubstitution(option.getShortDisplayText());
@@ -451,14 +501,16 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	}
 
 	/*
-	 * Add resource and its parents to the List
+	 * Add resource and its parents to the set. The walk stops at the first
+	 * parent already in the set since its own parents have been added with it.
 	 */
 	
 	private void addWithParents(IResource resource, Set resources) {
 		IResource current = resource;
 
 		while (current.getType() != IResource.ROOT) {
-			resources.add(current);
+			if (!resources.add(current))
+				break;
 			current = current.getParent();
 		}
 	}
@@ -475,13 +527,14 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	 */
 	
 	public void refresh(IProject project) {
+		invalidateSnapshots(project);
 		final List resources = new ArrayList();
 		try {
-			project.accept(resource -> {
-				resources.add(resource);
+			project.accept(proxy -> {
+				resources.add(proxy.requestResource());
 				return true;
-			});
-			postLabelEvent(new LabelProviderChangedEvent(this, resources.toArray()));
+			}, IResource.NONE);
+			updateScheduler.schedule(resources);
 		} catch (CoreException e) {
 			handleException(project, e);
 		}
@@ -521,7 +574,35 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 			}
 		}
 
-		postLabelEvent(new LabelProviderChangedEvent(this, resourcesToUpdate.toArray()));
+		invalidateSnapshots(resourcesToUpdate);
+		updateScheduler.schedule(resourcesToUpdate);
+	}
+
+	/*
+	 * Discard the snapshots of the given resources
+	 */
+	private static void invalidateSnapshots(Collection resources) {
+		DecorationSnapshotCache cache = snapshots;
+		if (cache != null)
+			cache.invalidate(resources);
+	}
+
+	/*
+	 * Discard the snapshots of the resources of the given project
+	 */
+	private static void invalidateSnapshots(IProject project) {
+		DecorationSnapshotCache cache = snapshots;
+		if (cache != null)
+			cache.invalidate(project);
+	}
+
+	/*
+	 * Discard all snapshots
+	 */
+	private static void invalidateSnapshots() {
+		DecorationSnapshotCache cache = snapshots;
+		if (cache != null)
+			cache.clear();
 	}
 	
 	@Override
@@ -533,18 +614,23 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 		refresh(project);
 	}
 
-	/**
-	 * Post the label event to the UI thread
-	 *
-	 * @param events  the events to post
+	/*
+	 * Fire a label event for the given elements or for all elements if
+	 * the elements are null. Called in the UI thread by the update scheduler.
 	 */
-	private void postLabelEvent(final LabelProviderChangedEvent event) {
-		Display.getDefault().asyncExec(() -> fireLabelProviderChanged(event));
+	private void fireLabelEvent(Object[] elements) {
+		if (elements == null) {
+			fireLabelProviderChanged(new LabelProviderChangedEvent(this));
+		} else {
+			fireLabelProviderChanged(new LabelProviderChangedEvent(this, elements));
+		}
 	}
 	
 	@Override
 	public void dispose() {
 		super.dispose();
+		updateScheduler.dispose();
+		snapshots = null;
 		PlatformUI.getWorkbench().getThemeManager().getCurrentTheme().removePropertyChangeListener(this);
 		CVSProviderPlugin.broadcastDecoratorEnablementChanged(false /* disabled */);
 		TeamUI.removePropertyChangeListener(this);
@@ -584,6 +670,7 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 	@Override
 	public void propertyChange(PropertyChangeEvent event) {
 		if (isEventOfInterest(event)) {
+			invalidateSnapshots();
 			ensureFontAndColorsCreated(fonts, colors);
 			refresh();
 		}	
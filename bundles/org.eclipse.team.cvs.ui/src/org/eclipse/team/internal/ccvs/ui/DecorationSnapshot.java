@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.ui;
+
+import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
+
+/**
+ * An immutable copy of the CVS state of a resource that is shown by the
+ * decorator. Snapshots are cached by the decorator so that the sync info
+ * of a resource is only read again after it has changed.
+ */
+public final class DecorationSnapshot {
+
+	private final int resourceType;
+	private final boolean hasRemote;
+	private final boolean ignored;
+	private final boolean hasDirtyState;
+	private final boolean dirty;
+	private final boolean newResource;
+	private final boolean added;
+	private final boolean readOnly;
+	private final boolean needsMerge;
+	private final boolean watchEditEnabled;
+	private final boolean virtualFolder;
+	private final String tag;
+	private final String revision;
+	private final String repository;
+	private final String keywordSubstitution;
+	private final ICVSRepositoryLocation location;
+
+	/**
+	 * Create a snapshot of the given decoration.
+	 * @param state a decoration holding the state of the resource
+	 * @param hasDirtyState whether the dirty state of the decoration was set
+	 * @param tag the formatted tag to show or <code>null</code>
+	 */
+	public DecorationSnapshot(CVSDecoration state, boolean hasDirtyState, String tag) {
+		this.resourceType = state.getResourceType();
+		this.hasRemote = state.isHasRemote();
+		this.ignored = state.isIgnored();
+		this.hasDirtyState = hasDirtyState;
+		this.dirty = state.isDirty();
+		this.newResource = state.isNewResource();
+		this.added = state.isAdded();
+		this.readOnly = state.isReadOnly();
+		this.needsMerge = state.isNeedsMerge();
+		this.watchEditEnabled = state.isWatchEditEnabled();
+		this.virtualFolder = state.isVirtualFolder();
+		this.tag = tag;
+		this.revision = state.getRevision();
+		this.repository = state.getRepository();
+		this.keywordSubstitution = state.getKeywordSubstitution();
+		this.location = state.getLocation();
+	}
+
+	/**
+	 * Return the formatted tag to show for the resource or <code>null</code>.
+	 * @return the tag or <code>null</code>
+	 */
+	public String getTag() {
+		return tag;
+	}
+
+	/**
+	 * Apply the state of the resource to the given decoration. The
+	 * properties that are only shown for resources that are not ignored
+	 * are only applied if the decoration is not ignored. The dirty state
+	 * of the decoration is kept unless the snapshot has one.
+	 * @param decoration the decoration
+	 */
+	public void apply(CVSDecoration decoration) {
+		decoration.setResourceType(resourceType);
+		decoration.setHasRemote(hasRemote);
+		if (ignored)
+			decoration.setIgnored(true);
+		if (decoration.isIgnored())
+			return;
+		if (hasDirtyState)
+			decoration.setDirty(dirty);
+		if (newResource)
+			decoration.setNewResource(true);
+		decoration.setAdded(added);
+		decoration.setRevision(revision);
+		decoration.setReadOnly(readOnly);
+		decoration.setNeedsMerge(needsMerge);
+		decoration.setKeywordSubstitution(keywordSubstitution);
+		decoration.setWatchEditEnabled(watchEditEnabled);
+		decoration.setLocation(location);
+		decoration.setRepository(repository);
+		decoration.setVirtualFolder(virtualFolder);
+	}
+}
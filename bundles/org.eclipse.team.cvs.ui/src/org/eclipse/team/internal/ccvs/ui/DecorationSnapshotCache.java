@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.ui;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+
+/**
+ * The decoration snapshots of resources. The owner of the cache must
+ * invalidate the snapshots of resources whose CVS state changes.
+ * <p>
+ * The cache may be used by several decorating threads at the same time.
+ * </p>
+ */
+public class DecorationSnapshotCache {
+
+	// Above this number of snapshots, the cache is cleared
+	private static final int MAX_SNAPSHOTS = 200000;
+
+	/**
+	 * Computes the snapshot of a resource that is not cached.
+	 */
+	public interface ISnapshotFactory {
+		DecorationSnapshot createSnapshot(IResource resource) throws CVSException;
+	}
+
+	private final Map<IResource, DecorationSnapshot> snapshots = new ConcurrentHashMap<>();
+	// Incremented on each invalidation so that snapshots computed concurrently are not cached
+	private final AtomicLong generation = new AtomicLong();
+	private final int maxSnapshots;
+
+	public DecorationSnapshotCache() {
+		this(MAX_SNAPSHOTS);
+	}
+
+	/**
+	 * Create a cache that is cleared when it holds the given number of snapshots.
+	 * @param maxSnapshots the maximum number of snapshots
+	 */
+	public DecorationSnapshotCache(int maxSnapshots) {
+		this.maxSnapshots = maxSnapshots;
+	}
+
+	/**
+	 * Return the snapshot of the state of the resource, computing it with the
+	 * given factory if it is not cached.
+	 * @param resource the resource
+	 * @param factory computes the snapshot
+	 * @return the snapshot of the resource
+	 * @throws CVSException if the snapshot could not be computed
+	 */
+	public DecorationSnapshot get(IResource resource, ISnapshotFactory factory) throws CVSException {
+		DecorationSnapshot snapshot = snapshots.get(resource);
+		if (snapshot == null) {
+			long current = generation.get();
+			snapshot = factory.createSnapshot(resource);
+			if (snapshots.size() >= maxSnapshots)
+				snapshots.clear();
+			snapshots.put(resource, snapshot);
+			// Drop the snapshot if the resource may have changed while it was computed
+			if (generation.get() != current)
+				snapshots.remove(resource);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Discard the snapshots of the given resources.
+	 * @param resources the resources
+	 */
+	public void invalidate(Collection<?> resources) {
+		generation.incrementAndGet();
+		snapshots.keySet().removeAll(resources);
+	}
+
+	/**
+	 * Discard the snapshots of the resources of the given project.
+	 * @param project the project
+	 */
+	public void invalidate(IProject project) {
+		generation.incrementAndGet();
+		snapshots.keySet().removeIf(resource -> project.equals(resource.getProject()));
+	}
+
+	/**
+	 * Discard all snapshots.
+	 */
+	public void clear() {
+		generation.incrementAndGet();
+		snapshots.clear();
+	}
+
+	/**
+	 * Return the number of cached snapshots.
+	 * @return the number of cached snapshots
+	 */
+	public int size() {
+		return snapshots.size();
+	}
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.ui;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Collects the elements whose decorations need to be updated and dispatches
+ * them to the UI thread in batches.
+ * <p>
+ * Elements are coalesced across notifications so that an element which
+ * changes several times before the UI thread gets to it is only updated once.
+ * Each dispatch runs for at most one frame before yielding to painting and
+ * input. When too many elements are pending, a single update of all
+ * decorations is dispatched instead; viewers then only relabel the items
+ * they have actually created, which is cheaper than looking up every element.
+ * </p>
+ */
+public class DecorationUpdateScheduler {
+
+	// Above this number of pending elements, all decorations are updated
+	private static final int MAX_PENDING = 5000;
+	private static final int BATCH_SIZE = 250;
+	private static final long FRAME_BUDGET = 16;
+
+	private final Consumer<Object[]> dispatcher;
+	private final Set<Object> pending = new LinkedHashSet<>();
+	private boolean updateAll;
+	private boolean scheduled;
+	private boolean disposed;
+
+	/**
+	 * Create a scheduler.
+	 * @param dispatcher called in the UI thread with the elements to update
+	 * or with <code>null</code> to update all decorations
+	 */
+	public DecorationUpdateScheduler(Consumer<Object[]> dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * Schedule an update of the decorations of the given elements.
+	 * @param elements the elements to update
+	 */
+	public void schedule(Collection<?> elements) {
+		synchronized (this) {
+			if (disposed)
+				return;
+			if (!updateAll) {
+				pending.addAll(elements);
+				if (pending.size() > MAX_PENDING) {
+					pending.clear();
+					updateAll = true;
+				}
+			}
+			if (scheduled)
+				return;
+			scheduled = true;
+		}
+		CVSUIPlugin.getStandardDisplay().asyncExec(this::dispatch);
+	}
+
+	/**
+	 * Schedule an update of all decorations.
+	 */
+	public void scheduleAll() {
+		synchronized (this) {
+			if (disposed)
+				return;
+			pending.clear();
+			updateAll = true;
+			if (scheduled)
+				return;
+			scheduled = true;
+		}
+		CVSUIPlugin.getStandardDisplay().asyncExec(this::dispatch);
+	}
+
+	/**
+	 * Discard the pending updates. No further updates are dispatched.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		pending.clear();
+	}
+
+	private void dispatch() {
+		long deadline = System.currentTimeMillis() + FRAME_BUDGET;
+		do {
+			Object[] batch;
+			synchronized (this) {
+				if (disposed || (!updateAll && pending.isEmpty())) {
+					scheduled = false;
+					return;
+				}
+				if (updateAll) {
+					updateAll = false;
+					batch = null;
+				} else {
+					batch = removeBatch();
+				}
+			}
+			dispatcher.accept(batch);
+		} while (System.currentTimeMillis() < deadline);
+		// Yield to painting and input before dispatching the remaining elements
+		CVSUIPlugin.getStandardDisplay().asyncExec(this::dispatch);
+	}
+
+	private Object[] removeBatch() {
+		Object[] batch = new Object[Math.min(BATCH_SIZE, pending.size())];
+		Iterator<Object> iterator = pending.iterator();
+		for (int i = 0; i < batch.length; i++) {
+			batch[i] = iterator.next();
+			iterator.remove();
+		}
+		return batch;
+	}
+}
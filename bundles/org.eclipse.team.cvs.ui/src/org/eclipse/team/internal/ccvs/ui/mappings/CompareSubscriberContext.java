@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,6 +26,7 @@ import org.eclipse.team.core.subscribers.Subscriber;
 import org.eclipse.team.internal.ccvs.core.CVSCompareSubscriber;
 import org.eclipse.team.internal.ccvs.ui.CVSUIPlugin;
 import org.eclipse.team.internal.ccvs.ui.ICVSUIConstants;
+import org.eclipse.team.internal.core.subscribers.BatchDiffFilter;
 import org.eclipse.team.internal.core.subscribers.ContentComparisonDiffFilter;
 import org.eclipse.team.internal.core.subscribers.SubscriberDiffTreeEventHandler;
 import org.eclipse.team.internal.ui.synchronize.RegexDiffFilter;
@@ -58,15 +59,9 @@ public class CompareSubscriberContext extends CVSSubscriberMergeContext implemen
 	@Override
 	protected DiffFilter getDiffFilter() {
 		final DiffFilter contentFilter = createContentFilter();
-		final DiffFilter regexFilter = createRegexFilter();
+		final RegexDiffFilter regexFilter = createRegexFilter();
 		if (contentFilter != null && regexFilter != null) {
-			return new DiffFilter() {
-				@Override
-				public boolean select(IDiff diff, IProgressMonitor monitor) {
-					return !contentFilter.select(diff, monitor)
-							&& !regexFilter.select(diff, monitor);
-				}
-			};
+			return new ContentAndRegexDiffFilter(contentFilter, regexFilter);
 		} else if (contentFilter != null) {
 			return new DiffFilter() {
 				@Override
@@ -75,11 +70,15 @@ public class CompareSubscriberContext extends CVSSubscriberMergeContext implemen
 				}
 			};
 		} else if (regexFilter != null) {
-			return new DiffFilter() {
+			return new BatchDiffFilter() {
 				@Override
 				public boolean select(IDiff diff, IProgressMonitor monitor) {
 					return !regexFilter.select(diff, monitor);
 				}
+				@Override
+				public void prepare(IDiff[] diffs, IProgressMonitor monitor) {
+					regexFilter.prepare(diffs, monitor);
+				}
 			};
 		}
 		return null;
@@ -97,7 +96,7 @@ public class CompareSubscriberContext extends CVSSubscriberMergeContext implemen
 		return null;
 	}
 
-	private DiffFilter createRegexFilter() {
+	private RegexDiffFilter createRegexFilter() {
 		if (isConsiderContents()) {
 			String pattern = CVSUIPlugin.getPlugin().getPreferenceStore().getString(
 					ICVSUIConstants.PREF_SYNCVIEW_REGEX_FILTER_PATTERN);
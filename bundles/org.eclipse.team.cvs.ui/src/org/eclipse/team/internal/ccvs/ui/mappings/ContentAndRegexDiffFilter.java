@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.ui.mappings;
+
+import java.util.*;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.core.diff.DiffFilter;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.internal.core.subscribers.BatchDiffFilter;
+import org.eclipse.team.internal.ui.synchronize.RegexDiffFilter;
+
+/**
+ * Selects the diffs that are rejected by both the content filter and the
+ * regex filter. The regex filter is only evaluated for the diffs rejected by
+ * the content filter, so when a batch is prepared, the content filter is applied
+ * first and only the remaining diffs are compared in parallel with the pattern.
+ * The content results of a prepared batch are remembered until the diffs are
+ * selected.
+ */
+/* package */ class ContentAndRegexDiffFilter extends BatchDiffFilter {
+
+	private final DiffFilter contentFilter;
+	private final RegexDiffFilter regexFilter;
+	private final Map<IDiff, Boolean> contentResults = Collections.synchronizedMap(new IdentityHashMap<>());
+
+	ContentAndRegexDiffFilter(DiffFilter contentFilter, RegexDiffFilter regexFilter) {
+		this.contentFilter = contentFilter;
+		this.regexFilter = regexFilter;
+	}
+
+	@Override
+	public boolean select(IDiff diff, IProgressMonitor monitor) {
+		Boolean content = contentResults.remove(diff);
+		boolean selected = content != null ? content.booleanValue() : contentFilter.select(diff, monitor);
+		return !selected && !regexFilter.select(diff, monitor);
+	}
+
+	@Override
+	public void prepare(IDiff[] diffs, IProgressMonitor monitor) {
+		// Forget the results of a previous batch that was not selected
+		contentResults.clear();
+		List<IDiff> remaining = new ArrayList<>();
+		for (IDiff diff : diffs) {
+			if (monitor.isCanceled())
+				return;
+			boolean selected = contentFilter.select(diff, monitor);
+			contentResults.put(diff, Boolean.valueOf(selected));
+			if (!selected)
+				remaining.add(diff);
+		}
+		regexFilter.prepare(remaining.toArray(new IDiff[remaining.size()]), monitor);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -46,6 +46,7 @@ import org.eclipse.team.internal.ccvs.ui.Policy;
 import org.eclipse.team.internal.ccvs.ui.operations.CacheBaseContentsOperation;
 import org.eclipse.team.internal.ccvs.ui.operations.CacheRemoteContentsOperation;
 import org.eclipse.team.internal.core.mapping.GroupProgressMonitor;
+import org.eclipse.team.internal.core.subscribers.BatchDiffFilter;
 import org.eclipse.team.internal.core.subscribers.ContentComparisonDiffFilter;
 import org.eclipse.team.internal.core.subscribers.SubscriberDiffTreeEventHandler;
 import org.eclipse.team.internal.ui.synchronize.RegexDiffFilter;
@@ -92,15 +93,9 @@ public class WorkspaceSubscriberContext extends CVSSubscriberMergeContext implem
 	@Override
 	protected DiffFilter getDiffFilter() {
 		final DiffFilter contentFilter = createContentFilter();
-		final DiffFilter regexFilter = createRegexFilter();
+		final RegexDiffFilter regexFilter = createRegexFilter();
 		if (contentFilter != null && regexFilter != null) {
-			return new DiffFilter() {
-				@Override
-				public boolean select(IDiff diff, IProgressMonitor monitor) {
-					return !contentFilter.select(diff, monitor)
-							&& !regexFilter.select(diff, monitor);
-				}
-			};
+			return new ContentAndRegexDiffFilter(contentFilter, regexFilter);
 		} else if (contentFilter != null) {
 			return new DiffFilter() {
 				@Override
@@ -109,11 +104,15 @@ public class WorkspaceSubscriberContext extends CVSSubscriberMergeContext implem
 				}
 			};
 		} else if (regexFilter != null) {
-			return new DiffFilter() {
+			return new BatchDiffFilter() {
 				@Override
 				public boolean select(IDiff diff, IProgressMonitor monitor) {
 					return !regexFilter.select(diff, monitor);
 				}
+				@Override
+				public void prepare(IDiff[] diffs, IProgressMonitor monitor) {
+					regexFilter.prepare(diffs, monitor);
+				}
 			};
 		}
 		return null;
@@ -143,7 +142,7 @@ public class WorkspaceSubscriberContext extends CVSSubscriberMergeContext implem
 		return null;
 	}
 
-	private DiffFilter createRegexFilter() {
+	private RegexDiffFilter createRegexFilter() {
 		if (isConsiderContents()) {
 			String pattern = CVSUIPlugin.getPlugin().getPreferenceStore().getString(
 					ICVSUIConstants.PREF_SYNCVIEW_REGEX_FILTER_PATTERN);
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.ui.operations;
+
+import java.io.*;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import org.eclipse.compare.rangedifferencer.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
+import org.eclipse.team.internal.ccvs.core.util.Util;
+import org.eclipse.team.internal.ccvs.ui.Policy;
+
+/**
+ * A bounded cache of the output of the annotate command keyed by file and revision.
+ * <p>
+ * When the annotation of a revision is not cached but the annotation of an earlier
+ * revision on the same branch is, the annotation is derived by comparing the contents
+ * of each of the intermediate revisions with its predecessor. Lines that did not
+ * change keep their annotation and the other lines are attributed to the revision
+ * that changed them. Keywords are ignored when comparing lines since their expansion
+ * differs between revisions.</p>
+ */
+public class AnnotationCache {
+
+	private static final int MAX_ANNOTATIONS = 16;
+	// Deriving an annotation requires fetching the contents of each intermediate revision
+	// so the server is asked for the annotation when there are too many of them
+	private static final int MAX_DERIVED_REVISIONS = 4;
+
+	private static final Pattern EXPANDED_KEYWORD = Pattern.compile("\\$(Author|Date|Header|Id|Locker|Log|Name|RCSfile|Revision|Source|State):[^$]*\\$"); //$NON-NLS-1$
+	private static final DateTimeFormatter ANNOTATE_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MMM-yy", Locale.US).withZone(ZoneOffset.UTC); //$NON-NLS-1$
+
+	private static AnnotationCache instance;
+
+	private final Map<String, String[]> annotations = new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+			return size() > MAX_ANNOTATIONS;
+		}
+	};
+
+	private static class LineComparator implements IRangeComparator {
+		private final String[] lines;
+		LineComparator(String[] lines) {
+			this.lines = new String[lines.length];
+			for (int i = 0; i < lines.length; i++) {
+				this.lines[i] = EXPANDED_KEYWORD.matcher(lines[i]).replaceAll("\\$$1\\$"); //$NON-NLS-1$
+			}
+		}
+		@Override
+		public int getRangeCount() {
+			return lines.length;
+		}
+		@Override
+		public boolean rangesEqual(int thisIndex, IRangeComparator other, int otherIndex) {
+			return lines[thisIndex].equals(((LineComparator) other).lines[otherIndex]);
+		}
+		@Override
+		public boolean skipRangeComparison(int length, int maxLength, IRangeComparator other) {
+			return false;
+		}
+	}
+
+	public static synchronized AnnotationCache getDefault() {
+		if (instance == null) {
+			instance = new AnnotationCache();
+		}
+		return instance;
+	}
+
+	/**
+	 * Return the annotate output of the given revision of the file. The annotation is
+	 * derived from the cached annotation of an earlier revision if there is one.
+	 * <code>null</code> is returned if the annotation is neither cached nor derivable.
+	 * @param location the repository location
+	 * @param path the repository relative path of the file
+	 * @param revision the revision to be annotated
+	 * @param logEntries the log entries of the file by revision
+	 * @param monitor a progress monitor
+	 * @return the lines of the annotate output or <code>null</code>
+	 * @throws CVSException
+	 */
+	public String[] getAnnotation(ICVSRepositoryLocation location, String path, String revision, Map<String, ILogEntry> logEntries, IProgressMonitor monitor) throws CVSException {
+		String filePath = Util.appendPath(location.getLocation(false), path);
+		String branch = getBranch(revision);
+		int number = getNumber(revision);
+		String[] base = null;
+		int baseNumber = -1;
+		synchronized (this) {
+			String[] cached = annotations.get(getKey(filePath, revision));
+			if (cached != null) {
+				return cached;
+			}
+			// Find the closest earlier revision on the same branch
+			String prefix = getKey(filePath, branch + '.');
+			for (Map.Entry<String, String[]> entry : annotations.entrySet()) {
+				String key = entry.getKey();
+				if (key.startsWith(prefix) && key.indexOf('.', prefix.length()) == -1) {
+					int candidate = Integer.parseInt(key.substring(prefix.length()));
+					if (candidate < number && candidate > baseNumber) {
+						baseNumber = candidate;
+						base = entry.getValue();
+					}
+				}
+			}
+		}
+		if (base == null || number - baseNumber > MAX_DERIVED_REVISIONS) {
+			return null;
+		}
+		monitor = Policy.monitorFor(monitor);
+		monitor.beginTask(null, 10 * (number - baseNumber));
+		try {
+			String[] lines = base;
+			for (int i = baseNumber + 1; i <= number; i++) {
+				String intermediate = branch + '.' + i;
+				ILogEntry entry = logEntries.get(intermediate);
+				if (entry == null) {
+					return null;
+				}
+				RemoteFile file = RemoteFile.create(path, location, null, intermediate);
+				String[] contents = readLines(file.getContents(Policy.subMonitorFor(monitor, 10)), location.getEncoding());
+				lines = deriveAnnotation(lines, contents, entry);
+			}
+			putAnnotation(location, path, revision, lines);
+			return lines;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Cache the output of the annotate command for the given revision of a file.
+	 * @param location the repository location
+	 * @param path the repository relative path of the file
+	 * @param revision the annotated revision
+	 * @param lines the lines of the annotate output
+	 */
+	public synchronized void putAnnotation(ICVSRepositoryLocation location, String path, String revision, String[] lines) {
+		for (String line : lines) {
+			if (!new CVSAnnotateBlock(line, 0).isValid()) {
+				return;
+			}
+		}
+		annotations.put(getKey(Util.appendPath(location.getLocation(false), path), revision), lines);
+	}
+
+	/**
+	 * Annotate the contents of a revision using the annotation of its predecessor.
+	 * @param previous the lines of the annotate output of the predecessor
+	 * @param contents the lines of the revision
+	 * @param entry the log entry of the revision
+	 * @return the lines of the annotate output of the revision
+	 */
+	public String[] deriveAnnotation(String[] previous, String[] contents, ILogEntry entry) {
+		String[] previousContents = new String[previous.length];
+		for (int i = 0; i < previous.length; i++) {
+			previousContents[i] = previous[i].substring(new CVSAnnotateBlock(previous[i], i).getSourceOffset());
+		}
+		RangeDifference[] differences = RangeDifferencer.findDifferences(new LineComparator(contents), new LineComparator(previousContents));
+		String[] lines = new String[contents.length];
+		String prefix = getAnnotationPrefix(entry);
+		int line = 0;
+		int previousLine = 0;
+		for (RangeDifference difference : differences) {
+			while (line < difference.leftStart()) {
+				lines[line] = reannotate(previous[previousLine++], previousContents[previousLine - 1], contents[line]);
+				line++;
+			}
+			for (; line < difference.leftEnd(); line++) {
+				lines[line] = prefix + contents[line];
+			}
+			previousLine = difference.rightEnd();
+		}
+		while (line < contents.length) {
+			lines[line] = reannotate(previous[previousLine++], previousContents[previousLine - 1], contents[line]);
+			line++;
+		}
+		return lines;
+	}
+
+	/*
+	 * Keep the annotation of an unchanged line but use the contents of the new
+	 * revision since keywords may have been expanded differently
+	 */
+	private String reannotate(String annotatedLine, String previousContents, String contents) {
+		return annotatedLine.substring(0, annotatedLine.length() - previousContents.length()) + contents;
+	}
+
+	/*
+	 * Same format as the server (e.g. "1.2          (author   21-Feb-02): ")
+	 */
+	private String getAnnotationPrefix(ILogEntry entry) {
+		String author = entry.getAuthor();
+		if (author.length() > 8) {
+			author = author.substring(0, 8);
+		}
+		String date = entry.getDate() == null ? "" : ANNOTATE_DATE_FORMAT.format(entry.getDate().toInstant()); //$NON-NLS-1$
+		return String.format("%-12s (%-8s %s): ", entry.getRevision(), author, date); //$NON-NLS-1$
+	}
+
+	private static String[] readLines(InputStream in, String encoding) throws CVSException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, encoding))) {
+			List<String> lines = new ArrayList<>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+			return lines.toArray(new String[lines.size()]);
+		} catch (IOException e) {
+			throw CVSException.wrapException(e);
+		}
+	}
+
+	private static String getKey(String filePath, String revision) {
+		return filePath + ' ' + revision;
+	}
+
+	private static String getBranch(String revision) {
+		return revision.substring(0, revision.lastIndexOf('.'));
+	}
+
+	private static int getNumber(String revision) {
+		return Integer.parseInt(revision.substring(revision.lastIndexOf('.') + 1));
+	}
+}
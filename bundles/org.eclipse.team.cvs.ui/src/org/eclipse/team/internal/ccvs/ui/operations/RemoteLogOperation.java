@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,7 @@ import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.*;
 import org.eclipse.team.internal.ccvs.core.client.listeners.ILogEntryListener;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
+import org.eclipse.team.internal.ccvs.core.filehistory.LogEntryStore;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 import org.eclipse.team.internal.ccvs.ui.CVSUIMessages;
@@ -248,10 +249,10 @@ public class RemoteLogOperation extends RepositoryLocationOperation {
 		Command.LocalOption[] localOptions = getLocalOptions(tag1, tag2);
 		if(tag1 == null || tag2 == null) {
 			// Optimize the cases were we are only fetching the history for a single revision. If it is
-			// already cached, don't fetch it again.
+			// already cached or in the stored history, don't fetch it again.
 			ArrayList<ICVSRemoteResource> unCachedRemotes = new ArrayList<>();
 			for (ICVSRemoteResource r : remoteResources) {
-				if(entryCache.getLogEntry(r) == null) {
+				if(entryCache.getLogEntry(r) == null && !addStoredEntry(r, localOptions)) {
 					unCachedRemotes.add(r);
 				}
 			}
@@ -268,6 +269,37 @@ public class RemoteLogOperation extends RepositoryLocationOperation {
 		}
 	}
 
+	/*
+	 * Add the stored log entry of the given remote file to the cache if the log
+	 * is fetched for exactly the revision of the file (i.e. the only tag is a version
+	 * tag naming that revision) and the revision is in the stored history. The entry
+	 * of a revision never changes so there is no need to ask the server for it. The
+	 * stored entries have no tags so they are only used when the log is fetched without
+	 * tags. In all other cases the server may return revisions the stored history does
+	 * not have (or the stored history has revisions outside of the requested range)
+	 * so the log is always fetched.
+	 */
+	private boolean addStoredEntry(ICVSRemoteResource resource, Command.LocalOption[] localOptions) {
+		if (!(resource instanceof ICVSRemoteFile) || !RLog.NO_TAGS.isElementOf(localOptions)
+				|| tag1 == null || tag2 != null || tag1.getType() != CVSTag.VERSION) {
+			return false;
+		}
+		ICVSRemoteFile file = (ICVSRemoteFile)resource;
+		try {
+			if (!tag1.getName().equals(file.getRevision())) {
+				return false;
+			}
+		} catch (TeamException e) {
+			return false;
+		}
+		ILogEntry entry = LogEntryStore.getInstance().getStoredLogEntry(file);
+		if (entry == null) {
+			return false;
+		}
+		entryCache.handleLogEntryReceived(entry);
+		return true;
+	}
+
 	@Override
 	protected String getTaskName() {
 		return CVSUIMessages.RemoteLogOperation_1; 
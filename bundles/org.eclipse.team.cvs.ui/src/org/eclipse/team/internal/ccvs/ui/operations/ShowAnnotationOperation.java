@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -42,6 +42,7 @@ import org.eclipse.team.internal.ccvs.core.client.listeners.AnnotateListener;
 import org.eclipse.team.internal.ccvs.core.connection.CVSServerException;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
+import org.eclipse.team.internal.ccvs.core.util.Util;
 import org.eclipse.team.internal.ccvs.ui.*;
 import org.eclipse.team.internal.ccvs.ui.Policy;
 import org.eclipse.team.internal.core.TeamPlugin;
@@ -73,12 +74,15 @@ public class ShowAnnotationOperation extends CVSOperation {
 		
 		monitor.beginTask(null, 100);
 
-		// Get the annotations from the repository.
+		// The log entries are needed to derive the annotations from cached ones
+		final Map<String, ILogEntry> logEntriesByRevision = getLogEntriesByRevision(Policy.subMonitorFor(monitor, 20));
+
+		// Get the annotations from the cache or the repository.
 		final AnnotateListener listener= new AnnotateListener();
-		fetchAnnotation(listener, fCVSResource, fRevision, Policy.subMonitorFor(monitor, 80));
+		fetchAnnotation(listener, fCVSResource, fRevision, logEntriesByRevision, Policy.subMonitorFor(monitor, 80));
 
 		// this is not needed if there is no live annotate
-		final RevisionInformation information = createRevisionInformation(listener, Policy.subMonitorFor(monitor, 20));
+		final RevisionInformation information = createRevisionInformation(listener, logEntriesByRevision);
 
 		// Open the view and display it from the UI thread.
 		final Display display= getPart().getSite().getShell().getDisplay();
@@ -150,7 +154,7 @@ public class ShowAnnotationOperation extends CVSOperation {
 		return null;
 	}
 
-	private void fetchAnnotation(AnnotateListener listener, ICVSResource cvsResource, String revision, IProgressMonitor monitor) throws CVSException {
+	private void fetchAnnotation(AnnotateListener listener, ICVSResource cvsResource, String revision, Map<String, ILogEntry> logEntriesByRevision, IProgressMonitor monitor) throws CVSException {
 	
 		monitor = Policy.monitorFor(monitor);
 		monitor.beginTask(null, 100);
@@ -158,6 +162,22 @@ public class ShowAnnotationOperation extends CVSOperation {
 		final ICVSFolder folder = cvsResource.getParent();
 		final FolderSyncInfo info = folder.getFolderSyncInfo();
 		final ICVSRepositoryLocation location = KnownRepositories.getInstance().getRepository(info.getRoot());
+		final String path = Util.appendPath(info.getRepository(), cvsResource.getName());
+		
+		// Binary annotations are not cached since they are rarely requested
+		final boolean useCache = revision != null && !fBinary;
+		if (useCache) {
+			String[] lines = AnnotationCache.getDefault().getAnnotation(location, path, revision, logEntriesByRevision, Policy.subMonitorFor(monitor, 20));
+			if (lines != null) {
+				for (String line : lines) {
+					listener.messageLine(line, location, folder, monitor);
+				}
+				monitor.done();
+				return;
+			}
+		} else {
+			monitor.worked(20);
+		}
 		
 		final Session session = new Session(location, folder, true /*output to console*/);
 		session.open(Policy.subMonitorFor(monitor, 10), false /* read-only */);
@@ -172,10 +192,13 @@ public class ShowAnnotationOperation extends CVSOperation {
 				if (fBinary) {
 					localOptions.add(Annotate.FORCE_BINARY_ANNOTATE);
 				}
-				final IStatus status = Command.ANNOTATE.execute(session, Command.NO_GLOBAL_OPTIONS, localOptions.toArray(new LocalOption[localOptions.size()]), new ICVSResource[]{cvsResource}, listener, Policy.subMonitorFor(monitor, 90));
+				final IStatus status = Command.ANNOTATE.execute(session, Command.NO_GLOBAL_OPTIONS, localOptions.toArray(new LocalOption[localOptions.size()]), new ICVSResource[]{cvsResource}, listener, Policy.subMonitorFor(monitor, 70));
 				if (status.getCode() == CVSStatus.SERVER_ERROR) {
 					throw new CVSServerException(status);
 				}
+				if (useCache) {
+					AnnotationCache.getDefault().putAnnotation(location, path, revision, listener.getLines());
+				}
 			} finally {
 				CVSProviderPlugin.getPlugin().setQuietness(quietness);
 				monitor.done();
@@ -185,7 +208,7 @@ public class ShowAnnotationOperation extends CVSOperation {
 		}
 	}
 
-	private RevisionInformation createRevisionInformation(final AnnotateListener listener, IProgressMonitor monitor) throws CVSException {
+	private Map<String, ILogEntry> getLogEntriesByRevision(IProgressMonitor monitor) throws CVSException {
 		Map<String, ILogEntry> logEntriesByRevision = new HashMap<>();
 		if (fCVSResource instanceof ICVSFile) {
 			try {
@@ -200,7 +223,10 @@ public class ShowAnnotationOperation extends CVSOperation {
 				throw CVSException.wrapException(e);
 			}
 		}
+		return logEntriesByRevision;
+	}
 
+	private RevisionInformation createRevisionInformation(final AnnotateListener listener, Map<String, ILogEntry> logEntriesByRevision) {
 		final CommitterColors colors= CommitterColors.getDefault();
 		RevisionInformation info= new RevisionInformation();
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2018 IBM Corporation and others.
+ * Copyright (c) 2006, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,16 +13,21 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ui.history;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
 
 import org.eclipse.compare.CompareConfiguration;
 import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.internal.DiffSummary;
+import org.eclipse.compare.internal.DiffSummaryCache;
+import org.eclipse.compare.internal.Utilities;
 import org.eclipse.compare.structuremergeviewer.DiffNode;
 import org.eclipse.compare.structuremergeviewer.ICompareInput;
 import org.eclipse.core.resources.IFile;
@@ -100,6 +105,8 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 	public static final int OFF = 2;
 	public static final int ALWAYS = 4;
 
+	private static final int MAX_DIFF_SUMMARIES = 500;
+
 	/* private */ IFile file;
 	/* private */ IFileRevision currentFileRevision;
 
@@ -131,6 +138,9 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 
 	private IFileRevision currentSelection;
 
+	// the summaries of the revisions against the current contents, only accessed in the UI thread
+	private DiffSummaryCache<IFileRevision> diffSummaries;
+
 	private final class LocalHistoryContentProvider implements ITreeContentProvider {
 		@Override
 		public Object[] getElements(Object inputElement) {
@@ -226,6 +236,13 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 			IFileRevision entry = adaptToFileRevision(element);
 			return (!entry.exists());
 		}
+
+		@Override
+		protected DiffSummary getDiffSummary(Object element) {
+			if (diffSummaries == null || !(element instanceof IFileRevision) || isCurrentEdition(element))
+				return null;
+			return diffSummaries.getSummary((IFileRevision) element);
+		}
 	}
 
 	private class RefreshFileHistory extends Job {
@@ -647,6 +664,11 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 				refreshFileHistoryJob.cancel();
 			}
 		}
+
+		if (diffSummaries != null) {
+			diffSummaries.dispose();
+			diffSummaries = null;
+		}
 	}
 
 	public IFileRevision getCurrentFileRevision() {
@@ -806,6 +828,8 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 				String time = new SimpleDateFormat("m:ss.SSS").format(new Date(System.currentTimeMillis())); //$NON-NLS-1$
 				System.out.println(time + ": LocalHistoryPage#update, the tree is being updated in the UI thread"); //$NON-NLS-1$
 			}
+			// The summaries are recomputed since the current contents may have changed
+			startDiffSummaries(revisions);
 			if (categories != null) {
 				Object[] elementsToExpand = mapExpandedElements(categories, treeViewer.getExpandedElements());
 				treeViewer.getTree().setRedraw(false);
@@ -833,6 +857,31 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 		}, treeViewer);
 	}
 
+	private void startDiffSummaries(IFileRevision[] revisions) {
+		if (diffSummaries != null)
+			diffSummaries.dispose();
+		final IFile currentFile = file;
+		if (currentFile == null || shutdown) {
+			diffSummaries = null;
+			return;
+		}
+		diffSummaries = new DiffSummaryCache<>(
+				revision -> readContents(revision == null ? currentFile : revision.getStorage(null)),
+				revision -> Utils.asyncExec((Runnable) () -> treeViewer.update(revision, null), treeViewer),
+				MAX_DIFF_SUMMARIES);
+		diffSummaries.summarize(Arrays.asList(revisions));
+	}
+
+	private static String readContents(IStorage storage) throws CoreException {
+		if (storage == null)
+			return null;
+		try {
+			return Utilities.readString(storage.getContents(), Utilities.getCharset(storage));
+		} catch (IOException e) {
+			throw new TeamException(e.getMessage(), e);
+		}
+	}
+
 	private AbstractHistoryCategory[] groupRevisions(IFileRevision[] revisions, IProgressMonitor monitor) {
 		if (groupingOn)
 			return sortRevisions(revisions, monitor);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2017 IBM Corporation and others.
+ * Copyright (c) 2006, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,7 @@ import java.text.DateFormat;
 import java.util.Date;
 
 import org.eclipse.compare.IModificationDate;
+import org.eclipse.compare.internal.DiffSummary;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFileState;
 import org.eclipse.core.runtime.Adapters;
@@ -122,7 +123,11 @@ public class LocalHistoryTableProvider {
 				long date = getModificationDate(element);
 				if (date != -1) {
 					Date dateFromLong = new Date(date);
-					return getDateFormat().format(dateFromLong);
+					String label = getDateFormat().format(dateFromLong);
+					DiffSummary summary = getDiffSummary(element);
+					if (summary != null)
+						return summary.format(label);
+					return label;
 				}
 			}
 			return ""; //$NON-NLS-1$
@@ -352,6 +357,16 @@ public class LocalHistoryTableProvider {
 		return false;
 	}
 
+	/**
+	 * Returns the summary of the changes of the given element with respect to
+	 * the current contents or <code>null</code> if none is available.
+	 * @param element an element of the viewer
+	 * @return the diff summary or <code>null</code>
+	 */
+	protected DiffSummary getDiffSummary(Object element) {
+		return null;
+	}
+
 	public Image getRevisionImage() {
 		if (localRevImage == null) {
 			ImageDescriptor localRevDesc = TeamUIPlugin.getImageDescriptor(ITeamUIImages.IMG_LOCALREVISION_TABLE);
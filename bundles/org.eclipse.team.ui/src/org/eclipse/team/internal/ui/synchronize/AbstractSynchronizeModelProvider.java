@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -21,13 +21,10 @@ import java.util.Set;
 
 import org.eclipse.compare.structuremergeviewer.IDiffElement;
 import org.eclipse.core.resources.IContainer;
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Assert;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -53,7 +50,6 @@ import org.eclipse.team.core.synchronize.ISyncInfoSetChangeListener;
 import org.eclipse.team.core.synchronize.ISyncInfoTreeChangeEvent;
 import org.eclipse.team.core.synchronize.SyncInfo;
 import org.eclipse.team.core.synchronize.SyncInfoSet;
-import org.eclipse.team.internal.core.TeamPlugin;
 import org.eclipse.team.internal.ui.Policy;
 import org.eclipse.team.internal.ui.TeamUIPlugin;
 import org.eclipse.team.internal.ui.Utils;
@@ -259,44 +255,10 @@ public abstract class AbstractSynchronizeModelProvider implements ISynchronizeMo
 	public String calculateProblemMarker(ISynchronizeModelElement element) {
 		IResource resource = element.getResource();
 		String property = null;
-		if (resource != null && resource.exists()) {
-			try {
-				IMarker[] markers = resource.findMarkers(IMarker.PROBLEM, true, getLogicalModelDepth(resource));
-				for (IMarker marker : markers) {
-					try {
-						Integer severity = (Integer) marker.getAttribute(IMarker.SEVERITY);
-						if (severity != null) {
-							if (severity.intValue() == IMarker.SEVERITY_ERROR) {
-								property = ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY;
-								break;
-							} else if (severity.intValue() == IMarker.SEVERITY_WARNING) {
-								property = ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY;
-								// Keep going because there may be errors on other resources
-							}
-						}
-					} catch (CoreException e) {
-						if (!resource.exists()) {
-							// The resource was deleted concurrently. Forget any previously found property
-							property = null;
-							break;
-						}
-						// If the marker exists, log the exception and continue.
-						// Otherwise, just ignore the exception and keep going
-						if (marker.exists()) {
-							TeamPlugin.log(e);
-						}
-					}
-				}
-			} catch (CoreException e) {
-				// If the resource exists (is accessible), log the exception and continue.
-				// Otherwise, just ignore the exception
-				if (resource.isAccessible()
-						&& e.getStatus().getCode() != IResourceStatus.RESOURCE_NOT_FOUND
-						&& e.getStatus().getCode() != IResourceStatus.PROJECT_NOT_OPEN) {
-					TeamPlugin.log(e);
-				}
-			}
-		} else if (resource == null) {
+		if (resource != null) {
+			// Markers are looked up in the index maintained from the marker changes
+			property = updateHandler.getProblemMarkerIndex().getProblemProperty(resource, getLogicalModelDepth(resource));
+		} else {
 			// For non-resource elements, show the same propogaqted marker as the children
 			IDiffElement[] children = element.getChildren();
 			for (IDiffElement child : children) {
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.synchronize;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.internal.core.TeamPlugin;
+import org.eclipse.team.ui.synchronize.ISynchronizeModelElement;
+
+/**
+ * Index of the resources that have problem markers. For each container, the
+ * index counts the resources with errors and with warnings among the container
+ * and its members, and among the container and all its descendants. Marker
+ * changes update the counts of the changed resource and of its ancestors so
+ * the problem state of a resource can be looked up at any depth without
+ * searching for markers.
+ */
+public class ProblemMarkerIndex {
+
+	private static final int NONE = -1;
+	private static final int ERRORS = 0;
+	private static final int WARNINGS = 1;
+
+	// The severity of the resources that have errors or warnings
+	private final Map<IResource, Integer> severities = new HashMap<>();
+	// The counts of the resource and its members
+	private final Map<IResource, int[]> memberCounts = new HashMap<>();
+	// The counts of the resource and all its descendants
+	private final Map<IResource, int[]> deepCounts = new HashMap<>();
+	private boolean initialized;
+
+	/**
+	 * Return the problem marker property of the given resource: the error
+	 * property if the resource has errors within the given depth, the warning
+	 * property if it only has warnings and <code>null</code> otherwise.
+	 * @param resource the resource
+	 * @param depth the depth of the resources whose markers are considered
+	 * @return the problem marker property or <code>null</code>
+	 */
+	public synchronized String getProblemProperty(IResource resource, int depth) {
+		if (!resource.exists())
+			return null;
+		initialize();
+		int[] counts;
+		switch (depth) {
+		case IResource.DEPTH_ZERO:
+			counts = getCounts(severities.getOrDefault(resource, NONE));
+			break;
+		case IResource.DEPTH_ONE:
+			counts = memberCounts.get(resource);
+			break;
+		default:
+			counts = deepCounts.get(resource);
+			break;
+		}
+		if (counts == null)
+			return null;
+		if (counts[ERRORS] > 0)
+			return ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY;
+		if (counts[WARNINGS] > 0)
+			return ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY;
+		return null;
+	}
+
+	/**
+	 * Update the index for resources whose problem markers have changed.
+	 * Changes are ignored until the index is first used since the
+	 * index then reads the markers of the whole workspace.
+	 * @param resources the resources whose markers have changed
+	 */
+	public synchronized void update(Collection<IResource> resources) {
+		if (!initialized)
+			return;
+		for (IResource resource : resources) {
+			IMarker[] markers = findMarkers(resource, IResource.DEPTH_ZERO);
+			setSeverity(resource, getSeverity(markers));
+		}
+	}
+
+	/**
+	 * Discard the index. It is rebuilt when it is next used.
+	 */
+	public synchronized void reset() {
+		severities.clear();
+		memberCounts.clear();
+		deepCounts.clear();
+		initialized = false;
+	}
+
+	private void initialize() {
+		if (initialized)
+			return;
+		initialized = true;
+		Map<IResource, Integer> markerSeverities = new HashMap<>();
+		for (IMarker marker : findMarkers(ResourcesPlugin.getWorkspace().getRoot(), IResource.DEPTH_INFINITE)) {
+			int severity = getSeverity(new IMarker[] { marker });
+			if (severity != NONE)
+				markerSeverities.merge(marker.getResource(), severity, Math::min);
+		}
+		markerSeverities.forEach(this::setSeverity);
+	}
+
+	private IMarker[] findMarkers(IResource resource, int depth) {
+		try {
+			if (resource.exists())
+				return resource.findMarkers(IMarker.PROBLEM, true, depth);
+		} catch (CoreException e) {
+			// If the resource exists (is accessible), log the exception and continue.
+			// Otherwise, just ignore the exception
+			if (resource.isAccessible()
+					&& e.getStatus().getCode() != IResourceStatus.RESOURCE_NOT_FOUND
+					&& e.getStatus().getCode() != IResourceStatus.PROJECT_NOT_OPEN) {
+				TeamPlugin.log(e);
+			}
+		}
+		return new IMarker[0];
+	}
+
+	/*
+	 * Return ERRORS, WARNINGS or NONE for the given markers.
+	 */
+	private int getSeverity(IMarker[] markers) {
+		int result = NONE;
+		for (IMarker marker : markers) {
+			int severity = marker.getAttribute(IMarker.SEVERITY, -1);
+			if (severity == IMarker.SEVERITY_ERROR)
+				return ERRORS;
+			if (severity == IMarker.SEVERITY_WARNING)
+				result = WARNINGS;
+		}
+		return result;
+	}
+
+	private void setSeverity(IResource resource, int severity) {
+		int oldSeverity = severities.getOrDefault(resource, NONE);
+		if (oldSeverity == severity)
+			return;
+		if (severity == NONE)
+			severities.remove(resource);
+		else
+			severities.put(resource, severity);
+		// The member counts of the resource and its parent change
+		adjust(memberCounts, resource, oldSeverity, severity);
+		IResource parent = resource.getParent();
+		if (parent != null)
+			adjust(memberCounts, parent, oldSeverity, severity);
+		// The deep counts change up to the workspace root
+		for (IResource current = resource; current != null; current = current.getParent())
+			adjust(deepCounts, current, oldSeverity, severity);
+	}
+
+	private void adjust(Map<IResource, int[]> counts, IResource resource, int oldSeverity, int severity) {
+		int[] resourceCounts = counts.computeIfAbsent(resource, r -> new int[2]);
+		if (oldSeverity != NONE)
+			resourceCounts[oldSeverity]--;
+		if (severity != NONE)
+			resourceCounts[severity]++;
+		if (resourceCounts[ERRORS] == 0 && resourceCounts[WARNINGS] == 0)
+			counts.remove(resource);
+	}
+
+	private int[] getCounts(int severity) {
+		int[] counts = new int[2];
+		if (severity != NONE)
+			counts[severity] = 1;
+		return counts;
+	}
+}
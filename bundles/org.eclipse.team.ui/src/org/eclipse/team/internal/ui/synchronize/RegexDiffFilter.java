@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011 IBM Corporation and others.
+ * Copyright (c) 2011, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,23 +13,97 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ui.synchronize;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.team.core.diff.DiffFilter;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.team.core.diff.IDiff;
 import org.eclipse.team.core.history.IFileRevision;
 import org.eclipse.team.core.mapping.provider.ResourceDiffTree;
 import org.eclipse.team.internal.core.mapping.SyncInfoToDiffConverter;
 import org.eclipse.team.internal.core.subscribers.AbstractContentComparator;
+import org.eclipse.team.internal.core.subscribers.BatchDiffFilter;
+import org.eclipse.team.internal.ui.TeamUIPlugin;
 
-public class RegexDiffFilter extends DiffFilter {
+public class RegexDiffFilter extends BatchDiffFilter {
+
+	private static final int MAX_THREADS = 4;
+
+	private static final int MAX_RESULTS = 50000;
+
+	// How often cancellation is checked while waiting for a comparison
+	private static final long CANCEL_POLL_MILLIS = 100;
+
+	/*
+	 * The results of the comparisons shared by all filters. The key identifies
+	 * the local contents, the remote contents and the pattern.
+	 */
+	private static final Map<ResultKey, Boolean> results = new LinkedHashMap<ResultKey, Boolean>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ResultKey, Boolean> eldest) {
+			return size() > MAX_RESULTS;
+		}
+	};
+
+	private static ExecutorService executor;
 
 	AbstractContentComparator criteria;
 
 	boolean ignoreWhiteSpace;
 
+	private final String pattern;
+
+	private static final class ResultKey {
+		private final IPath path;
+		private final long modificationStamp;
+		private final String contentIdentifier;
+		private final String pattern;
+		private final boolean ignoreWhitespace;
+
+		ResultKey(IPath path, long modificationStamp, String contentIdentifier, String pattern, boolean ignoreWhitespace) {
+			this.path = path;
+			this.modificationStamp = modificationStamp;
+			this.contentIdentifier = contentIdentifier;
+			this.pattern = pattern;
+			this.ignoreWhitespace = ignoreWhitespace;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof ResultKey))
+				return false;
+			ResultKey other = (ResultKey) obj;
+			return modificationStamp == other.modificationStamp
+					&& ignoreWhitespace == other.ignoreWhitespace
+					&& path.equals(other.path)
+					&& contentIdentifier.equals(other.contentIdentifier)
+					&& pattern.equals(other.pattern);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, Long.valueOf(modificationStamp), contentIdentifier, pattern, Boolean.valueOf(ignoreWhitespace));
+		}
+	}
+
 	/**
 	 * Create a filter that does not ignore whitespace.
 	 *
@@ -51,6 +125,23 @@ public class RegexDiffFilter extends DiffFilter {
 	public RegexDiffFilter(boolean ignoreWhitespace, String pattern) {
 		criteria = new RegexDiffComparator(Pattern.compile(pattern,
 				Pattern.DOTALL), ignoreWhitespace);
+		this.ignoreWhiteSpace = ignoreWhitespace;
+		this.pattern = pattern;
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread = new Thread(runnable, "Regex Diff Filter"); //$NON-NLS-1$
+						thread.setDaemon(true);
+						return thread;
+					});
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+		return executor;
 	}
 
 	@Override
@@ -63,6 +154,86 @@ public class RegexDiffFilter extends DiffFilter {
 			return !local.exists();
 		if (!local.exists())
 			return false;
-		return criteria.compare(local, remote, monitor);
+		return compare(local, remote, monitor);
+	}
+
+	/**
+	 * Compare the diffs whose results are not cached on several threads so
+	 * that selecting them afterwards only looks up the results.
+	 */
+	@Override
+	public void prepare(IDiff[] diffs, IProgressMonitor monitor) {
+		List<Future<?>> comparisons = new ArrayList<>();
+		for (IDiff diff : diffs) {
+			IFileRevision remote = SyncInfoToDiffConverter.getRemote(diff);
+			IResource local = ResourceDiffTree.getResourceFor(diff);
+			if (local == null || local.getType() != IResource.FILE || remote == null || !local.exists())
+				continue;
+			ResultKey key = getKey(local, remote);
+			if (key != null && getResult(key) == null)
+				comparisons.add(getExecutor().submit(() -> compare(local, remote, new NullProgressMonitor())));
+		}
+		try {
+			for (Future<?> comparison : comparisons) {
+				if (!await(comparison, monitor))
+					break;
+			}
+		} catch (ExecutionException e) {
+			TeamUIPlugin.log(IStatus.ERROR, e.getMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// Diffs that were not compared are compared again when they are selected
+			for (Future<?> comparison : comparisons) {
+				comparison.cancel(false);
+			}
+		}
+	}
+
+	/*
+	 * Wait for the comparison to finish, returning false if the monitor is canceled first
+	 */
+	private static boolean await(Future<?> comparison, IProgressMonitor monitor) throws ExecutionException, InterruptedException {
+		while (!monitor.isCanceled()) {
+			try {
+				comparison.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+				return true;
+			} catch (TimeoutException e) {
+				// check the monitor again
+			}
+		}
+		return false;
+	}
+
+	private boolean compare(IResource local, IFileRevision remote, IProgressMonitor monitor) {
+		ResultKey key = getKey(local, remote);
+		if (key != null) {
+			Boolean result = getResult(key);
+			if (result != null)
+				return result.booleanValue();
+		}
+		boolean result = criteria.compare(local, remote, monitor);
+		if (key != null) {
+			synchronized (results) {
+				results.put(key, Boolean.valueOf(result));
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Return the key of the comparison or null if the remote contents cannot be identified
+	 */
+	private ResultKey getKey(IResource local, IFileRevision remote) {
+		String contentIdentifier = remote.getContentIdentifier();
+		if (contentIdentifier == null)
+			return null;
+		return new ResultKey(local.getFullPath(), local.getModificationStamp(), contentIdentifier, pattern, ignoreWhiteSpace);
+	}
+
+	private Boolean getResult(ResultKey key) {
+		synchronized (results) {
+			return results.get(key);
+		}
 	}
-}
\ No newline at end of file
+}
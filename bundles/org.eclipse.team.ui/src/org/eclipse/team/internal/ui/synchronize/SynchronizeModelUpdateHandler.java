@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,10 +15,13 @@ package org.eclipse.team.internal.ui.synchronize;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,6 +30,7 @@ import org.eclipse.core.resources.IMarkerDelta;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -69,6 +73,11 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	private Set<ISynchronizeModelElement> pendingLabelUpdates = Collections.synchronizedSet(new HashSet<>());
 
+	// Elements whose problem markers have changed, accumulated until the next dispatch
+	private Set<ISynchronizeModelElement> pendingMarkerUpdates = new HashSet<>();
+
+	private final ProblemMarkerIndex markerIndex = new ProblemMarkerIndex();
+
 	// Flag to indicate the need for an early dispath in order to show
 	// busy for elements involved in an operation
 	private boolean dispatchEarly = false;
@@ -187,11 +196,38 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 			}
 		}
 
+			if (isProjectOpenedOrClosed(event)) {
+				// The markers of the project are not reported as changed
+				markerIndex.reset();
+			} else {
+				markerIndex.update(handledResources);
+			}
+
 			if (!changes.isEmpty()) {
 				updateMarkersFor(changes.toArray(new ISynchronizeModelElement[changes.size()]));
 		}
 	}
 
+	private boolean isProjectOpenedOrClosed(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return false;
+		for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+			if ((projectDelta.getFlags() & IResourceDelta.OPEN) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the index of the problem markers used to calculate the
+	 * problem marker property of the elements.
+	 * @return the problem marker index
+	 */
+	public ProblemMarkerIndex getProblemMarkerIndex() {
+		return markerIndex;
+	}
+
 	private void updateMarkersFor(ISynchronizeModelElement[] elements) {
 		queueEvent(new MarkerChangeEvent(elements), false /* not on front of queue */);
 	}
@@ -207,19 +243,9 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 			executeRunnable(event, monitor);
 			break;
 		case MARKERS_CHANGED:
-			// Changes contains all elements that need their labels updated
-			long start = System.currentTimeMillis();
-			ISynchronizeModelElement[] elements = getChangedElements(event);
-			for (ISynchronizeModelElement element : elements) {
-				propagateProblemMarkers(element);
-				updateParentLabels(element);
-			}
-			if (Policy.DEBUG_SYNC_MODELS) {
-				long time = System.currentTimeMillis() - start;
-				DateFormat TIME_FORMAT = new SimpleDateFormat("m:ss.SSS"); //$NON-NLS-1$
-				String took = TIME_FORMAT.format(new Date(time));
-				System.out.println(took + " for " + elements.length + " files"); //$NON-NLS-1$//$NON-NLS-2$
-			}
+			// Changes contains all elements that need their labels updated.
+			// They are propagated in one batch when the events are dispatched
+			Collections.addAll(pendingMarkerUpdates, getChangedElements(event));
 			break;
 		case BUSY_STATE_CHANGED:
 			BusyStateChangeEvent e = (BusyStateChangeEvent)event;
@@ -232,6 +258,7 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 		case RESET:
 			// Perform the reset immediately
 			pendingLabelUpdates.clear();
+			pendingMarkerUpdates.clear();
 			provider.reset();
 			break;
 		case SYNC_INFO_SET_CHANGED:
@@ -251,6 +278,10 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	@Override
 	protected boolean doDispatchEvents(IProgressMonitor monitor) throws TeamException {
+		if (!pendingMarkerUpdates.isEmpty()) {
+			propagateProblemMarkers(pendingMarkerUpdates);
+			pendingMarkerUpdates = new HashSet<>();
+		}
 		// Fire label changed
 		dispatchEarly = false;
 		if (pendingLabelUpdates.isEmpty()) {
@@ -308,75 +339,44 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 	}
 
 	/**
-	 * Calculate and propagate problem markers in the element model
-	 * @param element the ssynchronize element
+	 * Calculate and propagate problem markers in the element model. The
+	 * property of the changed elements and of their ancestors is looked up
+	 * once per element, children before their parents, since the properties
+	 * of elements without resources depend on the properties of their children.
+	 * @param changedElements the elements whose markers have changed
 	 */
-	private void propagateProblemMarkers(ISynchronizeModelElement element) {
-		IResource resource = element.getResource();
-		if (resource != null) {
-			String property = provider.calculateProblemMarker(element);
-			// If it doesn't have a direct change, a parent might
-			boolean recalculateParentDecorations = hadProblemProperty(element, property);
-			if (recalculateParentDecorations) {
-				ISynchronizeModelElement parent = (ISynchronizeModelElement) element.getParent();
-				if (parent != null) {
-					propagateProblemMarkers(parent);
-				}
+	private void propagateProblemMarkers(Set<ISynchronizeModelElement> changedElements) {
+		long start = System.currentTimeMillis();
+		Map<ISynchronizeModelElement, Integer> depths = new HashMap<>();
+		for (ISynchronizeModelElement element : changedElements) {
+			// Ancestors shared with other changed elements are only visited once
+			List<ISynchronizeModelElement> path = new ArrayList<>();
+			ISynchronizeModelElement current = element;
+			while (current != null && !depths.containsKey(current)) {
+				path.add(current);
+				current = (ISynchronizeModelElement) current.getParent();
+			}
+			int depth = current == null ? 0 : depths.get(current) + 1;
+			for (int i = path.size() - 1; i >= 0; i--) {
+				depths.put(path.get(i), depth++);
 			}
 		}
-	}
-
-	// none -> error
-	// error -> none
-	// none -> warning
-	// warning -> none
-	// warning -> error
-	// error -> warning
-	private boolean hadProblemProperty(ISynchronizeModelElement element, String property) {
-		boolean hadError = element.getProperty(ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY);
-		boolean hadWarning = element.getProperty(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY);
-
-		// Force recalculation of parents of phantom resources
-		IResource resource = element.getResource();
-		if(resource != null && resource.isPhantom()) {
-			return true;
+		List<ISynchronizeModelElement> elements = new ArrayList<>(depths.keySet());
+		elements.sort(Comparator.comparing(depths::get, Comparator.reverseOrder()));
+		for (ISynchronizeModelElement element : elements) {
+			String property = provider.calculateProblemMarker(element);
+			// Only changed properties are set and notified
+			element.setProperty(ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY,
+					property == ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY);
+			element.setProperty(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY,
+					property == ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY);
+			queueForLabelUpdate(element);
 		}
-
-		if(hadError) {
-			if(! (property == ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY)) {
-				element.setPropertyToRoot(ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY, false);
-				if(property != null) {
-					// error -> warning
-					element.setPropertyToRoot(property, true);
-				}
-				// error -> none
-				// recalculate parents
-				return true;
-			}
-			return false;
-		} else if(hadWarning) {
-			if(! (property == ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY)) {
-				element.setPropertyToRoot(ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY, false);
-				if(property != null) {
-					// warning -> error
-					element.setPropertyToRoot(property, true);
-					return false;
-				}
-				// warning ->  none
-				return true;
-			}
-			return false;
-		} else {
-			if(property == ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY) {
-				// none -> error
-				element.setPropertyToRoot(property, true);
-				return false;
-			} else if(property == ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY) {
-				// none -> warning
-				element.setPropertyToRoot(property, true);
-				return true;
-			}
-			return false;
+		if (Policy.DEBUG_SYNC_MODELS) {
+			long time = System.currentTimeMillis() - start;
+			DateFormat TIME_FORMAT = new SimpleDateFormat("m:ss.SSS"); //$NON-NLS-1$
+			String took = TIME_FORMAT.format(new Date(time));
+			System.out.println(took + " for " + changedElements.size() + " files"); //$NON-NLS-1$//$NON-NLS-2$
 		}
 	}
 
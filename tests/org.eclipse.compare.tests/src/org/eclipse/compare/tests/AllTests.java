@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -39,7 +39,10 @@ import org.junit.runners.Suite.SuiteClasses;
 	RangeDifferencerThreeWayDiffTest.class,
 	CompareUIPluginTest.class,
 	StructureCreatorTest.class,
-	CompareFileRevisionEditorInputTest.class})
+	CompareFileRevisionEditorInputTest.class,
+	BinaryComparisonTest.class,
+	DiffSummaryTest.class,
+	DiffSummaryCacheTest.class})
 public class AllTests {
 	// test suite
 }
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.eclipse.compare.internal.BinaryComparison;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Test;
+
+public class BinaryComparisonTest {
+
+	@Test
+	public void testEqual() throws IOException {
+		byte[] bytes= createBytes(200000);
+		BinaryComparison comparison= BinaryComparison.compare(getStream(bytes), getStream(bytes.clone()), null);
+		assertTrue(comparison.isEqual());
+		assertEquals(-1, comparison.getFirstDifference());
+		assertEquals(0, comparison.getDifferenceCount());
+		assertEquals(200000, comparison.getLeftLength());
+		assertEquals(200000, comparison.getRightLength());
+		assertTrue(BinaryComparison.contentsEqual(getStream(bytes), getStream(bytes.clone())));
+	}
+
+	@Test
+	public void testDifferingRegions() throws IOException {
+		byte[] left= createBytes(200000);
+		byte[] right= left.clone();
+		// one region of three bytes, one across the first block boundary and a single byte
+		for (int i : new int[] { 10, 11, 12, 65535, 65536, 65537, 150000 })
+			right[i]^= 0xFF;
+		BinaryComparison comparison= BinaryComparison.compare(getStream(left), getStream(right), null);
+		assertFalse(comparison.isEqual());
+		assertEquals(10, comparison.getFirstDifference());
+		assertEquals(3, comparison.getDifferenceCount());
+		assertEquals(comparison.getLeftLength(), comparison.getRightLength());
+		assertFalse(BinaryComparison.contentsEqual(getStream(left), getStream(right)));
+	}
+
+	@Test
+	public void testDifferentSizes() throws IOException {
+		byte[] right= createBytes(300000);
+		byte[] left= Arrays.copyOf(right, 70000);
+		BinaryComparison comparison= BinaryComparison.compare(getStream(left), getStream(right), null);
+		assertFalse(comparison.isEqual());
+		assertEquals(70000, comparison.getFirstDifference());
+		assertEquals(0, comparison.getDifferenceCount());
+		assertEquals(70000, comparison.getLeftLength());
+		assertEquals(300000, comparison.getRightLength());
+		assertFalse(BinaryComparison.contentsEqual(getStream(right), getStream(left)));
+
+		comparison= BinaryComparison.compare(getStream(new byte[0]), getStream(right), null);
+		assertEquals(0, comparison.getFirstDifference());
+		assertEquals(0, comparison.getLeftLength());
+		assertEquals(300000, comparison.getRightLength());
+	}
+
+	@Test(expected= OperationCanceledException.class)
+	public void testCancel() throws IOException {
+		byte[] bytes= createBytes(1000);
+		NullProgressMonitor monitor= new NullProgressMonitor();
+		monitor.setCanceled(true);
+		BinaryComparison.compare(getStream(bytes), getStream(bytes), monitor);
+	}
+
+	private byte[] createBytes(int length) {
+		byte[] bytes= new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+	/*
+	 * Returns a stream that returns fewer bytes than requested.
+	 */
+	private InputStream getStream(byte[] bytes) {
+		return new ByteArrayInputStream(bytes) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1000));
+			}
+		};
+	}
+}
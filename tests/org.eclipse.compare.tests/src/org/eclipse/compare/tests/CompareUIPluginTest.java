@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011 IBM Corporation and others.
+ * Copyright (c) 2011, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.compare.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -130,4 +131,17 @@ public class CompareUIPluginTest {
 		assertNotNull(result);
 		assertEquals(1, result.length);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testFindContentViewerDescriptor_Reused() {
+		CompareConfiguration cc = new CompareConfiguration();
+		DiffNode in = new DiffNode(new TextTypedElementStreamAccessor(), new TextTypedElementStreamAccessor());
+		ViewerDescriptor[] result = CompareUIPlugin.getDefault().findContentViewerDescriptor(null, in, cc);
+		ViewerDescriptor[] expected = result.clone();
+		result[0] = null;
+
+		// The resolved descriptors are reused but callers cannot change them
+		DiffNode other = new DiffNode(new TextTypedElementStreamAccessor(), new TextTypedElementStreamAccessor());
+		assertArrayEquals(expected, CompareUIPlugin.getDefault().findContentViewerDescriptor(null, other, cc));
+	}
+}
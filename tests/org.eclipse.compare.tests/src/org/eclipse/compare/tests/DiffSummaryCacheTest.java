@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.eclipse.compare.internal.CompareUIPlugin;
+import org.eclipse.compare.internal.DiffSummary;
+import org.eclipse.compare.internal.DiffSummaryCache;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.junit.After;
+import org.junit.Test;
+
+public class DiffSummaryCacheTest {
+
+	private static final long TIMEOUT= 10;
+
+	private static final String BASE= "a\nb\nc\n"; //$NON-NLS-1$
+
+	/*
+	 * Loads the contents of the editions from a map and counts the loads
+	 */
+	private static class Loader implements DiffSummaryCache.ContentLoader<String> {
+		final Map<String, AtomicInteger> loads= new ConcurrentHashMap<>();
+		volatile CountDownLatch blocker;
+
+		@Override
+		public String getContents(String edition) throws CoreException {
+			loads.computeIfAbsent(String.valueOf(edition), e -> new AtomicInteger()).incrementAndGet();
+			CountDownLatch latch= blocker;
+			if (latch != null && edition != null) {
+				try {
+					latch.await(TIMEOUT, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (edition == null)
+				return BASE;
+			if (edition.startsWith("unreadable")) //$NON-NLS-1$
+				throw new CoreException(new Status(IStatus.ERROR, CompareUIPlugin.PLUGIN_ID, edition));
+			if (edition.startsWith("empty")) //$NON-NLS-1$
+				return null;
+			// The edition is its own contents
+			return edition;
+		}
+
+		int getLoads(String edition) {
+			AtomicInteger count= loads.get(String.valueOf(edition));
+			return count == null ? 0 : count.get();
+		}
+	}
+
+	/*
+	 * Records the editions whose summaries are available
+	 */
+	private static class Listener implements Consumer<String> {
+		final List<String> notified= Collections.synchronizedList(new ArrayList<>());
+		volatile CountDownLatch latch= new CountDownLatch(0);
+
+		@Override
+		public void accept(String edition) {
+			notified.add(edition);
+			latch.countDown();
+		}
+
+		void expect(int count) {
+			latch= new CountDownLatch(count);
+		}
+
+		void await() throws InterruptedException {
+			assertTrue("The summaries were not computed", latch.await(TIMEOUT, TimeUnit.SECONDS)); //$NON-NLS-1$
+		}
+	}
+
+	private final Loader loader= new Loader();
+	private final Listener listener= new Listener();
+	private DiffSummaryCache<String> cache;
+
+	private DiffSummaryCache<String> createCache(int maxEntries) {
+		cache= new DiffSummaryCache<>(loader, listener, maxEntries);
+		return cache;
+	}
+
+	@After
+	public void tearDown() {
+		if (cache != null)
+			cache.dispose();
+	}
+
+	private static void assertSummary(int added, int removed, int changed, DiffSummary summary) {
+		assertNotNull(summary);
+		assertEquals(added, summary.getAdded());
+		assertEquals(removed, summary.getRemoved());
+		assertEquals(changed, summary.getChanged());
+	}
+
+	@Test
+	public void testSummarize() throws InterruptedException {
+		DiffSummaryCache<String> summaries= createCache(10);
+		String changed= "a\nB\nc\nd\n"; //$NON-NLS-1$
+		String removed= "a\nc\n"; //$NON-NLS-1$
+		assertNull(summaries.getSummary(changed));
+		listener.expect(2);
+		summaries.summarize(Arrays.asList(changed, removed));
+		listener.await();
+		assertSummary(1, 0, 1, summaries.getSummary(changed));
+		assertSummary(0, 1, 0, summaries.getSummary(removed));
+		// The base is only loaded once
+		assertEquals(1, loader.getLoads(null));
+	}
+
+	@Test
+	public void testSummarizedOnce() throws InterruptedException {
+		DiffSummaryCache<String> summaries= createCache(10);
+		String edition= "a\nb\n"; //$NON-NLS-1$
+		loader.blocker= new CountDownLatch(1);
+		listener.expect(1);
+		summaries.summarize(Collections.singleton(edition));
+		// The edition is being summarized
+		summaries.summarize(Collections.singleton(edition));
+		loader.blocker.countDown();
+		listener.await();
+		// The summary is known
+		summaries.summarize(Collections.singleton(edition));
+		assertEquals(1, loader.getLoads(edition));
+		assertEquals(Collections.singletonList(edition), listener.notified);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() throws InterruptedException {
+		DiffSummaryCache<String> summaries= createCache(2);
+		String first= "a\n"; //$NON-NLS-1$
+		String second= "b\n"; //$NON-NLS-1$
+		String third= "c\n"; //$NON-NLS-1$
+		listener.expect(2);
+		summaries.summarize(Arrays.asList(first, second));
+		listener.await();
+		// Using the first summary keeps it
+		assertNotNull(summaries.getSummary(first));
+		listener.expect(1);
+		summaries.summarize(Collections.singleton(third));
+		listener.await();
+		assertNotNull(summaries.getSummary(first));
+		assertNull(summaries.getSummary(second));
+		assertNotNull(summaries.getSummary(third));
+		// An evicted summary is computed again
+		listener.expect(1);
+		summaries.summarize(Collections.singleton(second));
+		listener.await();
+		assertEquals(2, loader.getLoads(second));
+	}
+
+	@Test
+	public void testEditionsWithoutSummary() throws InterruptedException {
+		DiffSummaryCache<String> summaries= createCache(10);
+		String edition= "a\n"; //$NON-NLS-1$
+		listener.expect(1);
+		summaries.summarize(Arrays.asList("unreadable", "empty", edition)); //$NON-NLS-1$ //$NON-NLS-2$
+		listener.await();
+		// Wait for the other editions, which are not reported
+		long deadline= System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+		while ((loader.getLoads("unreadable") == 0 || loader.getLoads("empty") == 0) && System.currentTimeMillis() < deadline) //$NON-NLS-1$ //$NON-NLS-2$
+			Thread.sleep(10);
+		assertNull(summaries.getSummary("unreadable")); //$NON-NLS-1$
+		assertNull(summaries.getSummary("empty")); //$NON-NLS-1$
+		assertEquals(Collections.singletonList(edition), listener.notified);
+		// Editions without a summary are remembered and not loaded again
+		String other= "b\n"; //$NON-NLS-1$
+		listener.expect(1);
+		summaries.summarize(Arrays.asList("unreadable", "empty", other)); //$NON-NLS-1$ //$NON-NLS-2$
+		listener.await();
+		assertEquals(1, loader.getLoads("unreadable")); //$NON-NLS-1$
+		assertEquals(1, loader.getLoads("empty")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testDispose() throws InterruptedException {
+		DiffSummaryCache<String> summaries= createCache(10);
+		String edition= "a\n"; //$NON-NLS-1$
+		loader.blocker= new CountDownLatch(1);
+		summaries.summarize(Collections.singleton(edition));
+		long deadline= System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+		while (loader.getLoads(edition) == 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		summaries.dispose();
+		loader.blocker.countDown();
+		summaries.summarize(Collections.singleton("b\n")); //$NON-NLS-1$
+		Thread.sleep(100);
+		assertNull(summaries.getSummary(edition));
+		assertEquals(0, loader.getLoads("b\n")); //$NON-NLS-1$
+		assertTrue(listener.notified.isEmpty());
+	}
+
+	@Test
+	public void testLoaderMonitorNotUsed() throws InterruptedException {
+		DiffSummaryCache<String> summaries= createCache(10);
+		String edition= "a\n"; //$NON-NLS-1$
+		listener.expect(1);
+		// The owner of the loader may hold its monitor while waiting for the summaries
+		synchronized (loader) {
+			summaries.summarize(Collections.singleton(edition));
+			listener.await();
+		}
+		assertFalse(listener.notified.isEmpty());
+	}
+}
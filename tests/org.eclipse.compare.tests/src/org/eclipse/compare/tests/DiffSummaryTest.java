@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.compare.internal.DiffSummary;
+import org.junit.Test;
+
+public class DiffSummaryTest {
+
+	private static final String BASE= "a\nb\nc\n"; //$NON-NLS-1$
+
+	@Test
+	public void testIdentical() {
+		DiffSummary summary= DiffSummary.compute(BASE, BASE, null);
+		assertTrue(summary.isEmpty());
+	}
+
+	@Test
+	public void testAddedAndChanged() {
+		DiffSummary summary= DiffSummary.compute(BASE, "a\nB\nc\nd\n", null); //$NON-NLS-1$
+		assertEquals(1, summary.getAdded());
+		assertEquals(0, summary.getRemoved());
+		assertEquals(1, summary.getChanged());
+	}
+
+	@Test
+	public void testRemoved() {
+		DiffSummary summary= DiffSummary.compute(BASE, "a\nc\n", null); //$NON-NLS-1$
+		assertEquals(0, summary.getAdded());
+		assertEquals(1, summary.getRemoved());
+		assertEquals(0, summary.getChanged());
+	}
+}
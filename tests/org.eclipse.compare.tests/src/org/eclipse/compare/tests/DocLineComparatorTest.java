@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -334,4 +334,62 @@ public class DocLineComparatorTest {
 		Assert.assertEquals(comp1.getRangeCount(), comp2.getRangeCount());
 	}
 
+	@Test
+	public void testCachedCompareFilters() throws BadLocationException {
+		// Enough lines for filtering all of them at once to matter
+		StringBuilder left = new StringBuilder();
+		StringBuilder right = new StringBuilder();
+		for (int i = 0; i < 12000; i++) {
+			left.append("// ").append(i % 7).append(" line ").append(i % 5).append('\n');
+			right.append("#  ").append(i % 3).append(" line ").append(i % 5).append(i % 11 == 0 ? "\r\n" : " \n");
+		}
+		IDocument doc1 = new Document(left.toString());
+		IDocument doc2 = new Document(right.toString());
+
+		ICompareFilter cached = createPrefixFilter(true);
+		ICompareFilter uncached = createPrefixFilter(false);
+		for (boolean ignoreWhiteSpace : new boolean[] { false, true }) {
+			IRangeComparator l1 = new DocLineComparator(doc1, null, ignoreWhiteSpace, new ICompareFilter[] { cached }, 'L');
+			IRangeComparator r1 = new DocLineComparator(doc2, null, ignoreWhiteSpace, new ICompareFilter[] { cached }, 'R');
+			IRangeComparator l2 = new DocLineComparator(doc1, null, ignoreWhiteSpace, new ICompareFilter[] { uncached }, 'L');
+			IRangeComparator r2 = new DocLineComparator(doc2, null, ignoreWhiteSpace, new ICompareFilter[] { uncached }, 'R');
+			for (int i = 0; i < 200; i++) {
+				for (int j = 0; j < 30; j++) {
+					Assert.assertEquals(l2.rangesEqual(i, r2, j), l1.rangesEqual(i, r1, j));
+				}
+			}
+		}
+
+		// Filtered lines of a region are taken from the region
+		IRangeComparator l = new DocLineComparator(doc1, doc1.getLineInformation(2), false, new ICompareFilter[] { cached }, 'L');
+		IRangeComparator r = new DocLineComparator(doc1, doc1.getLineInformation(37), false, new ICompareFilter[] { cached }, 'R');
+		Assert.assertTrue(l.rangesEqual(0, r, 0));
+	}
+
+	private ICompareFilter createPrefixFilter(boolean canCache) {
+		return new ICompareFilter() {
+
+			@Override
+			public void setInput(Object input, Object ancestor, Object left, Object right) {
+				// EMPTY
+			}
+
+			@Override
+			public IRegion[] getFilteredRegions(HashMap lineComparison) {
+				String line = (String) lineComparison.get(THIS_LINE);
+				return new IRegion[] { new Region(0, Math.min(3, line.length())) };
+			}
+
+			@Override
+			public boolean isEnabledInitially() {
+				return false;
+			}
+
+			@Override
+			public boolean canCacheFilteredRegions() {
+				return canCache;
+			}
+		};
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2018 IBM Corporation and others.
+ * Copyright (c) 2006, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,17 +14,32 @@
 package org.eclipse.compare.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.eclipse.compare.*;
+import org.eclipse.compare.contentmergeviewer.ITokenComparator;
 import org.eclipse.compare.contentmergeviewer.TextMergeViewer;
+import org.eclipse.compare.contentmergeviewer.TokenComparator;
 import org.eclipse.compare.internal.*;
+import org.eclipse.compare.internal.merge.DocumentMerger;
+import org.eclipse.compare.internal.merge.DocumentMerger.Diff;
+import org.eclipse.compare.internal.merge.DocumentMerger.IDocumentMergerInput;
+import org.eclipse.compare.rangedifferencer.IRangeComparator;
 import org.eclipse.compare.structuremergeviewer.DiffNode;
 import org.eclipse.compare.structuremergeviewer.Differencer;
 import org.eclipse.core.runtime.CoreException;
@@ -481,6 +496,219 @@ public class TextMergeViewerTest  {
 		assertNotNull(rightDoc.getDocumentPartitioner());
 	}
 
+	@Test
+	public void testIncrementalDiffAfterEdits() throws Exception {
+		final IDocument left = new Document("a\nb\nc\nd\ne\nf\ng\nh\n");
+		final IDocument right = new Document("a\nb\nC\nd\ne\nf\ng\nh\n");
+		final CompareConfiguration cc = new CompareConfiguration();
+		final DocumentMerger merger = new DocumentMerger(createMergerInput(left, right, cc));
+		IDocumentListener listener = new IDocumentListener() {
+			@Override
+			public void documentAboutToBeChanged(DocumentEvent event) {
+				// nothing to do
+			}
+			@Override
+			public void documentChanged(DocumentEvent event) {
+				merger.documentChanged(event);
+			}
+		};
+		left.addDocumentListener(listener);
+		right.addDocumentListener(listener);
+		merger.doDiff();
+		assertEquals(1, merger.changesCount());
+
+		// A new change after the existing one
+		left.replace(left.getLineOffset(5), 1, "F");
+		merger.doDiff();
+		assertEquals(2, merger.changesCount());
+		assertSameChanges(left, right, cc, merger);
+
+		// Lines inserted at the start and removed at the end
+		left.replace(0, 0, "x\ny\n");
+		right.replace(right.getLineOffset(6), 4, "");
+		merger.doDiff();
+		assertSameChanges(left, right, cc, merger);
+
+		// Undo the change of the second diff
+		left.replace(left.getLineOffset(7), 1, "f");
+		merger.doDiff();
+		assertSameChanges(left, right, cc, merger);
+	}
+
+	@Test
+	public void testTokenDiffsComputedWhenNavigating() throws Exception {
+		final IDocument left = new Document("a\nb c d\ne\n");
+		final IDocument right = new Document("a\nb x d\ne\n");
+		DocumentMerger merger = new DocumentMerger(createMergerInput(left, right, new CompareConfiguration()));
+		Semaphore computed = new Semaphore(0);
+		merger.setTokenDiffListener(computed::release);
+		merger.doDiff();
+		assertEquals(1, merger.changesCount());
+		Diff diff = merger.changesIterator().next();
+
+		// Nothing is compared in the background until the change is painted
+		// and accessing the token diffs compares the texts right away
+		assertTrue(diff.hasChildren());
+		assertEquals(Collections.singletonList("c:x"), getTokens(left, right, diff));
+		assertFalse(computed.tryAcquire());
+	}
+
+	@Test
+	public void testTokenDiffsComputedInBackgroundWhenPainting() throws Exception {
+		final IDocument left = new Document("a\nb c d\ne\n");
+		final IDocument right = new Document("a\nb x d\ne\n");
+		DocumentMerger merger = new DocumentMerger(createMergerInput(left, right, new CompareConfiguration()));
+		Semaphore computed = new Semaphore(0);
+		merger.setTokenDiffListener(computed::release);
+		merger.doDiff();
+		Region region = new Region(0, left.getLength());
+
+		// Painting starts the comparison and the listener is notified when it is done
+		merger.getChangeDiffs(MergeViewerContentProvider.LEFT_CONTRIBUTOR, region);
+		assertTrue(computed.tryAcquire(10, TimeUnit.SECONDS));
+		assertEquals(1, merger.getChangeDiffs(MergeViewerContentProvider.LEFT_CONTRIBUTOR, region).length);
+		assertEquals(Collections.singletonList("c:x"), getTokens(left, right, merger.changesIterator().next()));
+	}
+
+	@Test
+	public void testClientTokenComparatorsUsedByCallingThread() throws Exception {
+		final IDocument left = new Document("a\nb c d\ne\n");
+		final IDocument right = new Document("a\nb x d\ne\n");
+		final List<Thread> users = Collections.synchronizedList(new ArrayList<>());
+		DocumentMerger merger = new DocumentMerger(createMergerInput(left, right, new CompareConfiguration(), s -> {
+			users.add(Thread.currentThread());
+			return new TokenComparator(s) {
+				@Override
+				public boolean rangesEqual(int thisIndex, IRangeComparator other, int otherIndex) {
+					users.add(Thread.currentThread());
+					return super.rangesEqual(thisIndex, other, otherIndex);
+				}
+			};
+		}));
+		Semaphore computed = new Semaphore(0);
+		merger.setTokenDiffListener(computed::release);
+		merger.doDiff();
+
+		// Token comparators provided by clients are not used in the background,
+		// so painting compares the texts right away
+		Region region = new Region(0, left.getLength());
+		assertEquals(1, merger.getChangeDiffs(MergeViewerContentProvider.LEFT_CONTRIBUTOR, region).length);
+		assertFalse(computed.tryAcquire());
+		assertFalse(users.isEmpty());
+		for (Thread user : users)
+			assertSame(Thread.currentThread(), user);
+	}
+
+	@Test
+	public void testTokenDiffsRecomputedAfterEdit() throws Exception {
+		final IDocument left = new Document("a\nb c d\ne\n");
+		final IDocument right = new Document("a\nb x d\ne\n");
+		DocumentMerger merger = new DocumentMerger(createMergerInput(left, right, new CompareConfiguration()));
+		Region region = new Region(0, left.getLength());
+		Semaphore computed = new Semaphore(0);
+		merger.setTokenDiffListener(computed::release);
+		merger.doDiff();
+		merger.getChangeDiffs(MergeViewerContentProvider.LEFT_CONTRIBUTOR, region);
+		assertTrue(computed.tryAcquire(10, TimeUnit.SECONDS));
+
+		// The texts changed after the comparison so they are compared again
+		left.replace(left.get().indexOf('c'), 1, "y");
+		Diff diff = merger.changesIterator().next();
+		assertTrue(diff.hasChildren());
+		assertEquals(Collections.singletonList("y:x"), getTokens(left, right, diff));
+	}
+
+	private List<String> getTokens(IDocument left, IDocument right, Diff diff) throws BadLocationException {
+		List<String> tokens = new ArrayList<>();
+		for (Iterator<Diff> iterator = diff.childIterator(); iterator.hasNext();) {
+			Diff token = iterator.next();
+			Position l = token.getPosition(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+			Position r = token.getPosition(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+			tokens.add(left.get(l.getOffset(), l.getLength()) + ":" + right.get(r.getOffset(), r.getLength()));
+		}
+		return tokens;
+	}
+
+	private IDocumentMergerInput createMergerInput(final IDocument left, final IDocument right, final CompareConfiguration cc) {
+		return createMergerInput(left, right, cc, TokenComparator::new);
+	}
+
+	private IDocumentMergerInput createMergerInput(final IDocument left, final IDocument right, final CompareConfiguration cc,
+			final Function<String, ITokenComparator> tokenComparators) {
+		return new IDocumentMergerInput() {
+			@Override
+			public IDocument getDocument(char contributor) {
+				switch (contributor) {
+				case MergeViewerContentProvider.LEFT_CONTRIBUTOR:
+					return left;
+				case MergeViewerContentProvider.RIGHT_CONTRIBUTOR:
+					return right;
+				default:
+					return null;
+				}
+			}
+			@Override
+			public Position getRegion(char contributor) {
+				return null;
+			}
+			@Override
+			public boolean isIgnoreAncestor() {
+				return false;
+			}
+			@Override
+			public boolean isThreeWay() {
+				return false;
+			}
+			@Override
+			public CompareConfiguration getCompareConfiguration() {
+				return cc;
+			}
+			@Override
+			public ITokenComparator createTokenComparator(String s) {
+				return tokenComparators.apply(s);
+			}
+			@Override
+			public boolean isHunkOnLeft() {
+				return false;
+			}
+			@Override
+			public int getHunkStart() {
+				return 0;
+			}
+			@Override
+			public boolean isPatchHunk() {
+				return false;
+			}
+			@Override
+			public boolean isShowPseudoConflicts() {
+				return false;
+			}
+			@Override
+			public boolean isPatchHunkOk() {
+				return false;
+			}
+		};
+	}
+
+	private void assertSameChanges(IDocument left, IDocument right, CompareConfiguration cc, DocumentMerger merger) throws CoreException {
+		// Copies are compared since a full diff resets the positions of the documents
+		DocumentMerger expected = new DocumentMerger(createMergerInput(new Document(left.get()), new Document(right.get()), cc));
+		expected.doDiff();
+		assertEquals(getRanges(expected.rangesIterator()), getRanges(merger.rangesIterator()));
+		assertEquals(getRanges(expected.changesIterator()), getRanges(merger.changesIterator()));
+	}
+
+	private List<String> getRanges(Iterator<Diff> diffs) {
+		List<String> ranges = new ArrayList<>();
+		while (diffs.hasNext()) {
+			Diff diff = diffs.next();
+			Position l = diff.getPosition(MergeViewerContentProvider.LEFT_CONTRIBUTOR);
+			Position r = diff.getPosition(MergeViewerContentProvider.RIGHT_CONTRIBUTOR);
+			ranges.add(diff.getKind() + ":" + l.getOffset() + "," + l.getLength() + ":" + r.getOffset() + "," + r.getLength());
+		}
+		return ranges;
+	}
+
 
 	private void runInDialogWithPartioner(Object input, Runnable runnable, final CompareConfiguration cc) throws Exception {
 		Shell shell = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell();
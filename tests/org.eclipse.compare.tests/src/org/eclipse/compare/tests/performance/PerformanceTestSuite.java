@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,6 +25,7 @@ public class PerformanceTestSuite extends TestSuite {
 		TestSuite suite= new TestSuite("Compare performance tests"); //$NON-NLS-1$
 		//$JUnit-BEGIN$
 		suite.addTestSuite(RangeDifferencerTest.class);
+		suite.addTestSuite(ViewerDescriptorTest.class);
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.compare.tests.performance;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.eclipse.compare.CompareConfiguration;
+import org.eclipse.compare.IStreamContentAccessor;
+import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.internal.CompareUIPlugin;
+import org.eclipse.compare.structuremergeviewer.DiffNode;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+/**
+ * Measures the lookup of the viewers for many compare inputs, as done when
+ * stepping through the elements of a synchronization. The inputs either all
+ * have the same type, so that the resolved viewers are reused, or all have a
+ * different type, so that the viewers are resolved for every input.
+ */
+public class ViewerDescriptorTest extends PerformanceTestCase {
+
+	private static final int INPUT_COUNT= 2000;
+
+	private static class TypedElement implements ITypedElement, IStreamContentAccessor {
+		private final String fName;
+		private final String fType;
+
+		TypedElement(String name, String type) {
+			fName= name;
+			fType= type;
+		}
+
+		@Override
+		public Image getImage() {
+			return null;
+		}
+
+		@Override
+		public String getName() {
+			return fName;
+		}
+
+		@Override
+		public String getType() {
+			return fType;
+		}
+
+		@Override
+		public InputStream getContents() {
+			return new ByteArrayInputStream("line 1\nline 2\n".getBytes()); //$NON-NLS-1$
+		}
+	}
+
+	public ViewerDescriptorTest(String name) {
+		super(name);
+	}
+
+	public void testFindViewersSameType() {
+		tagAsSummary("Find viewers, same type", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+		measure(false);
+	}
+
+	public void testFindViewersDistinctTypes() {
+		tagAsSummary("Find viewers, distinct types", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+		measure(true);
+	}
+
+	/*
+	 * Creates the inputs of a run. Distinct types are not used by any other run.
+	 */
+	private DiffNode[] createInputs(boolean distinctTypes, int run) {
+		DiffNode[] inputs= new DiffNode[INPUT_COUNT];
+		for (int i= 0; i < INPUT_COUNT; i++) {
+			String type= distinctTypes ? "type" + run + "_" + i : "txt"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			String name= "file" + i + "." + type; //$NON-NLS-1$ //$NON-NLS-2$
+			inputs[i]= new DiffNode(new TypedElement(name, type), new TypedElement(name, type));
+		}
+		return inputs;
+	}
+
+	private void measure(boolean distinctTypes) {
+		CompareUIPlugin plugin= CompareUIPlugin.getDefault();
+		CompareConfiguration cc= new CompareConfiguration();
+
+		// a warm up run
+		for (DiffNode input : createInputs(distinctTypes, 0)) {
+			assertNotNull(plugin.findContentViewerDescriptor(null, input, cc));
+		}
+
+		// now do 3 performance runs
+		for (int count= 1; count <= 3; count++) {
+			DiffNode[] inputs= createInputs(distinctTypes, count);
+			startMeasuring();
+			for (DiffNode input : inputs) {
+				plugin.findContentViewerDescriptor(null, input, cc);
+				plugin.findStructureViewerDescriptor(null, input, cc);
+			}
+			stopMeasuring();
+		}
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
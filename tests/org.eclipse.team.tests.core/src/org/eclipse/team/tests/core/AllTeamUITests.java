@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,8 @@ import junit.framework.TestSuite;
 import org.eclipse.core.tests.resources.ResourceTest;
 import org.eclipse.team.tests.core.mapping.ScopeTests;
 import org.eclipse.team.tests.ui.SaveableCompareEditorInputTest;
+import org.eclipse.team.tests.ui.synchronize.ProblemMarkerIndexTest;
+import org.eclipse.team.tests.ui.synchronize.RegexDiffFilterTest;
 
 public class AllTeamUITests extends ResourceTest {
 
@@ -34,6 +36,8 @@ public class AllTeamUITests extends ResourceTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(ScopeTests.suite());
 		suite.addTest(SaveableCompareEditorInputTest.suite());
+		suite.addTest(ProblemMarkerIndexTest.suite());
+		suite.addTest(RegexDiffFilterTest.suite());
 		return suite;
 	}
 }
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.internal.ui.synchronize.ProblemMarkerIndex;
+import org.eclipse.team.tests.core.TeamTest;
+import org.eclipse.team.ui.synchronize.ISynchronizeModelElement;
+
+public class ProblemMarkerIndexTest extends TeamTest {
+
+	private static final String ERROR = ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY;
+	private static final String WARNING = ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY;
+
+	private ProblemMarkerIndex index;
+
+	// Passes the resources of the marker deltas to the index like the synchronize model update handler
+	private final IResourceChangeListener listener = event -> {
+		Set<IResource> resources = new HashSet<>();
+		for (IMarkerDelta delta : event.findMarkerDeltas(IMarker.PROBLEM, true)) {
+			resources.add(delta.getResource());
+		}
+		index.update(resources);
+	};
+
+	private IProject project;
+	private IFolder folder1;
+	private IFile file1;
+	private IFile file3;
+
+	public static Test suite() {
+		return suite(ProblemMarkerIndexTest.class);
+	}
+
+	public ProblemMarkerIndexTest() {
+		super();
+	}
+
+	public ProblemMarkerIndexTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		index = new ProblemMarkerIndex();
+		project = createProject(new String[] { "file1.txt", "folder1/file2.txt", "folder1/folder2/file3.txt" });
+		file1 = project.getFile("file1.txt");
+		folder1 = project.getFolder("folder1");
+		file3 = project.getFile("folder1/folder2/file3.txt");
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+		super.tearDown();
+	}
+
+	private IMarker createMarker(IResource resource, int severity) throws CoreException {
+		IMarker marker = resource.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		return marker;
+	}
+
+	private void assertProperty(String expected, IResource resource, int depth) {
+		assertEquals(resource.getFullPath() + " at depth " + depth, expected, index.getProblemProperty(resource, depth));
+	}
+
+	public void testNoMarkers() {
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+		assertProperty(null, file1, IResource.DEPTH_ZERO);
+	}
+
+	public void testMarkersBeforeFirstUse() throws CoreException {
+		createMarker(file3, IMarker.SEVERITY_ERROR);
+		assertProperty(ERROR, file3, IResource.DEPTH_ZERO);
+		assertProperty(ERROR, project, IResource.DEPTH_INFINITE);
+	}
+
+	public void testMarkerAdded() throws CoreException {
+		// The index reads the workspace markers when it is first used
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+
+		createMarker(file3, IMarker.SEVERITY_WARNING);
+		assertProperty(WARNING, file3, IResource.DEPTH_ZERO);
+		assertProperty(WARNING, file3.getParent(), IResource.DEPTH_ONE);
+		assertProperty(null, folder1, IResource.DEPTH_ONE);
+		assertProperty(WARNING, folder1, IResource.DEPTH_INFINITE);
+		assertProperty(WARNING, project, IResource.DEPTH_INFINITE);
+
+		createMarker(file1, IMarker.SEVERITY_ERROR);
+		assertProperty(ERROR, file1, IResource.DEPTH_ZERO);
+		assertProperty(ERROR, project, IResource.DEPTH_ONE);
+		assertProperty(ERROR, project, IResource.DEPTH_INFINITE);
+		assertProperty(WARNING, folder1, IResource.DEPTH_INFINITE);
+
+		// Info markers are not problems that are shown
+		createMarker(folder1, IMarker.SEVERITY_INFO);
+		assertProperty(null, folder1, IResource.DEPTH_ZERO);
+	}
+
+	public void testMarkerChanged() throws CoreException {
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+		IMarker marker = createMarker(file3, IMarker.SEVERITY_WARNING);
+		assertProperty(WARNING, project, IResource.DEPTH_INFINITE);
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		assertProperty(ERROR, file3, IResource.DEPTH_ZERO);
+		assertProperty(ERROR, folder1, IResource.DEPTH_INFINITE);
+		assertProperty(ERROR, project, IResource.DEPTH_INFINITE);
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+		assertProperty(null, file3, IResource.DEPTH_ZERO);
+		assertProperty(null, folder1, IResource.DEPTH_INFINITE);
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+	}
+
+	public void testMarkerDeleted() throws CoreException {
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+		IMarker error = createMarker(file3, IMarker.SEVERITY_ERROR);
+		createMarker(file3, IMarker.SEVERITY_WARNING);
+		IMarker otherError = createMarker(file1, IMarker.SEVERITY_ERROR);
+		assertProperty(ERROR, folder1, IResource.DEPTH_INFINITE);
+
+		// The remaining warning is propagated
+		error.delete();
+		assertProperty(WARNING, file3, IResource.DEPTH_ZERO);
+		assertProperty(WARNING, folder1, IResource.DEPTH_INFINITE);
+		assertProperty(ERROR, project, IResource.DEPTH_INFINITE);
+
+		otherError.delete();
+		assertProperty(null, file1, IResource.DEPTH_ZERO);
+		assertProperty(null, project, IResource.DEPTH_ONE);
+		assertProperty(WARNING, project, IResource.DEPTH_INFINITE);
+
+		// Deleting the resource deletes its markers
+		file3.delete(true, null);
+		assertProperty(null, folder1, IResource.DEPTH_INFINITE);
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+	}
+
+	public void testReset() throws CoreException {
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+		// The change is missed and only seen once the index is rebuilt
+		createMarker(file1, IMarker.SEVERITY_ERROR);
+		assertProperty(null, project, IResource.DEPTH_INFINITE);
+		index.reset();
+		assertProperty(ERROR, project, IResource.DEPTH_INFINITE);
+	}
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.history.provider.FileRevision;
+import org.eclipse.team.core.mapping.provider.ResourceDiff;
+import org.eclipse.team.internal.ui.synchronize.RegexDiffFilter;
+import org.eclipse.team.tests.core.TeamTest;
+
+public class RegexDiffFilterTest extends TeamTest {
+
+	private static final String LOCAL = "a\nfoo 1\nb\n";
+	private static final String REMOTE = "a\nfoo 2\nb\n";
+	// Differs from the remote contents in a line that does not match
+	private static final String CHANGED = "x\nfoo 2\nb\n";
+	// The differing lines match this pattern
+	private static final String MATCHING = "foo.*";
+	private static final String NOT_MATCHING = "bar.*";
+
+	/*
+	 * A remote revision that records the threads reading its contents
+	 */
+	private static class RemoteRevision extends FileRevision {
+		private final String name;
+		private final String contents;
+		private final String contentIdentifier;
+		final AtomicInteger reads = new AtomicInteger();
+		final Set<String> readers = ConcurrentHashMap.newKeySet();
+		volatile CountDownLatch readBarrier;
+
+		RemoteRevision(String name, String contents, String contentIdentifier) {
+			this.name = name;
+			this.contents = contents;
+			this.contentIdentifier = contentIdentifier;
+		}
+
+		@Override
+		public IStorage getStorage(IProgressMonitor monitor) {
+			reads.incrementAndGet();
+			readers.add(Thread.currentThread().getName());
+			CountDownLatch barrier = readBarrier;
+			if (barrier != null) {
+				barrier.countDown();
+				try {
+					barrier.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return new IStorage() {
+				@Override
+				public InputStream getContents() {
+					return new ByteArrayInputStream(contents.getBytes());
+				}
+				@Override
+				public IPath getFullPath() {
+					return null;
+				}
+				@Override
+				public String getName() {
+					return name;
+				}
+				@Override
+				public boolean isReadOnly() {
+					return true;
+				}
+				@Override
+				public <T> T getAdapter(Class<T> adapter) {
+					return null;
+				}
+			};
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String getContentIdentifier() {
+			return contentIdentifier;
+		}
+
+		@Override
+		public boolean isPropertyMissing() {
+			return false;
+		}
+
+		@Override
+		public IFileRevision withAllProperties(IProgressMonitor monitor) {
+			return this;
+		}
+	}
+
+	private IProject project;
+
+	public static Test suite() {
+		return suite(RegexDiffFilterTest.class);
+	}
+
+	public RegexDiffFilterTest() {
+		super();
+	}
+
+	public RegexDiffFilterTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = createProject(new String[0]);
+	}
+
+	private IFile createFile(String name, String contents) throws CoreException {
+		IFile file = project.getFile(name);
+		file.create(new ByteArrayInputStream(contents.getBytes()), true, null);
+		return file;
+	}
+
+	private IDiff createDiff(IFile file, IFileRevision remote) {
+		return new ResourceDiff(file, IDiff.CHANGE, 0, null, remote);
+	}
+
+	public void testSelect() throws CoreException {
+		IFile file = createFile("file.txt", LOCAL);
+		IDiff diff = createDiff(file, new RemoteRevision(file.getName(), REMOTE, "1.2"));
+		assertTrue(new RegexDiffFilter(MATCHING).select(diff, new NullProgressMonitor()));
+		assertFalse(new RegexDiffFilter(NOT_MATCHING).select(diff, new NullProgressMonitor()));
+	}
+
+	public void testResultCached() throws CoreException {
+		IFile file = createFile("file.txt", LOCAL);
+		RemoteRevision remote = new RemoteRevision(file.getName(), REMOTE, "1.2");
+		IDiff diff = createDiff(file, remote);
+		assertTrue(new RegexDiffFilter(MATCHING).select(diff, new NullProgressMonitor()));
+		assertEquals(1, remote.reads.get());
+		// The results are shared by the filters with the same pattern
+		assertTrue(new RegexDiffFilter(MATCHING).select(diff, new NullProgressMonitor()));
+		assertEquals(1, remote.reads.get());
+	}
+
+	public void testCacheInvalidatedByPattern() throws CoreException {
+		IFile file = createFile("file.txt", LOCAL);
+		RemoteRevision remote = new RemoteRevision(file.getName(), REMOTE, "1.2");
+		IDiff diff = createDiff(file, remote);
+		assertTrue(new RegexDiffFilter(MATCHING).select(diff, new NullProgressMonitor()));
+		assertFalse(new RegexDiffFilter(NOT_MATCHING).select(diff, new NullProgressMonitor()));
+		assertEquals(2, remote.reads.get());
+		// Whether whitespace is ignored is part of the key
+		assertTrue(new RegexDiffFilter(true, MATCHING).select(diff, new NullProgressMonitor()));
+		assertEquals(3, remote.reads.get());
+	}
+
+	public void testCacheInvalidatedByLocalChange() throws CoreException {
+		IFile file = createFile("file.txt", LOCAL);
+		RemoteRevision remote = new RemoteRevision(file.getName(), REMOTE, "1.2");
+		IDiff diff = createDiff(file, remote);
+		RegexDiffFilter filter = new RegexDiffFilter(MATCHING);
+		assertTrue(filter.select(diff, new NullProgressMonitor()));
+		file.setContents(new ByteArrayInputStream(CHANGED.getBytes()), true, false, null);
+		assertFalse(filter.select(diff, new NullProgressMonitor()));
+		assertEquals(2, remote.reads.get());
+	}
+
+	public void testCacheInvalidatedByRemoteChange() throws CoreException {
+		IFile file = createFile("file.txt", LOCAL);
+		RegexDiffFilter filter = new RegexDiffFilter(MATCHING);
+		assertTrue(filter.select(createDiff(file, new RemoteRevision(file.getName(), REMOTE, "1.2")), new NullProgressMonitor()));
+		RemoteRevision changed = new RemoteRevision(file.getName(), "x\nfoo 1\nb\n", "1.3");
+		assertFalse(filter.select(createDiff(file, changed), new NullProgressMonitor()));
+		assertEquals(1, changed.reads.get());
+	}
+
+	public void testUnidentifiedContentsNotCached() throws CoreException {
+		IFile file = createFile("file.txt", LOCAL);
+		RemoteRevision remote = new RemoteRevision(file.getName(), REMOTE, null);
+		IDiff diff = createDiff(file, remote);
+		RegexDiffFilter filter = new RegexDiffFilter(MATCHING);
+		filter.prepare(new IDiff[] { diff }, new NullProgressMonitor());
+		assertEquals(0, remote.reads.get());
+		assertTrue(filter.select(diff, new NullProgressMonitor()));
+		assertTrue(filter.select(diff, new NullProgressMonitor()));
+		assertEquals(2, remote.reads.get());
+	}
+
+	public void testPrepare() throws CoreException {
+		List<IDiff> diffs = new ArrayList<>();
+		List<RemoteRevision> remotes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			IFile file = createFile("file" + i + ".txt", i % 2 == 0 ? LOCAL : CHANGED);
+			RemoteRevision remote = new RemoteRevision(file.getName(), REMOTE, "1.2");
+			remotes.add(remote);
+			diffs.add(createDiff(file, remote));
+		}
+		RegexDiffFilter filter = new RegexDiffFilter(MATCHING);
+		filter.prepare(diffs.toArray(new IDiff[diffs.size()]), new NullProgressMonitor());
+		String caller = Thread.currentThread().getName();
+		for (RemoteRevision remote : remotes) {
+			assertEquals(1, remote.reads.get());
+			assertFalse(remote.readers.contains(caller));
+		}
+		// Selecting only looks up the results
+		for (int i = 0; i < diffs.size(); i++) {
+			assertEquals(i % 2 == 0, filter.select(diffs.get(i), new NullProgressMonitor()));
+			assertEquals(1, remotes.get(i).reads.get());
+		}
+		// The results are not computed again
+		filter.prepare(diffs.toArray(new IDiff[diffs.size()]), new NullProgressMonitor());
+		for (RemoteRevision remote : remotes) {
+			assertEquals(1, remote.reads.get());
+		}
+	}
+
+	public void testPrepareComparesConcurrently() throws CoreException {
+		// The comparisons run on up to one thread less than the available processors
+		if (Runtime.getRuntime().availableProcessors() < 3)
+			return;
+		CountDownLatch barrier = new CountDownLatch(2);
+		Set<String> readers = new HashSet<>();
+		List<RemoteRevision> remotes = new ArrayList<>();
+		IDiff[] diffs = new IDiff[2];
+		for (int i = 0; i < diffs.length; i++) {
+			IFile file = createFile("file" + i + ".txt", LOCAL);
+			RemoteRevision remote = new RemoteRevision(file.getName(), REMOTE, "1.2");
+			// Each comparison only continues once both are running
+			remote.readBarrier = barrier;
+			remotes.add(remote);
+			diffs[i] = createDiff(file, remote);
+		}
+		new RegexDiffFilter(MATCHING).prepare(diffs, new NullProgressMonitor());
+		assertEquals(0, barrier.getCount());
+		for (RemoteRevision remote : remotes) {
+			readers.addAll(remote.readers);
+		}
+		assertEquals(2, readers.size());
+	}
+
+	public void testPrepareCanceled() throws CoreException {
+		IFile file = createFile("file.txt", LOCAL);
+		IDiff diff = createDiff(file, new RemoteRevision(file.getName(), REMOTE, "1.2"));
+		RegexDiffFilter filter = new RegexDiffFilter(MATCHING);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		filter.prepare(new IDiff[] { diff }, monitor);
+		// Diffs that were not compared are compared when they are selected
+		assertTrue(filter.select(diff, new NullProgressMonitor()));
+	}
+}
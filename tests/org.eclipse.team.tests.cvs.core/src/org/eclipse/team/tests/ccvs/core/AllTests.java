@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.team.tests.ccvs.core;
 import org.eclipse.team.tests.ccvs.core.mappings.ResourceMapperTests;
 import org.eclipse.team.tests.ccvs.core.provider.AllTestsProvider;
+import org.eclipse.team.tests.ccvs.core.server.FakeCVSServerTest;
 import org.eclipse.team.tests.ccvs.core.subscriber.AllTestsTeamSubscriber;
 import org.eclipse.team.tests.ccvs.ui.AllUITests;
 
@@ -43,6 +44,7 @@ public class AllTests extends EclipseTest {
 		suite.addTest(AllTestsTeamSubscriber.suite());
 		suite.addTest(AllUITests.suite());
 		suite.addTest(ResourceMapperTests.suite());
+		suite.addTest(FakeCVSServerTest.suite());
 		return new CVSUITestSetup(suite);
 	}
 }
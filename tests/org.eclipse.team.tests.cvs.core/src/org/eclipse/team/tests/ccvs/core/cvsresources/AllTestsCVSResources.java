@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,8 @@ public class AllTestsCVSResources extends EclipseTest {
 		suite.addTest(EclipseFolderTest.suite());
 		suite.addTest(ResourceSyncBytesTest.suite());
 		suite.addTest(CVSURITest.suite());
+		suite.addTest(CVSDateFormatterTest.suite());
+		suite.addTest(GzipPayloadInflaterTest.suite());
 		return suite; 	
 	}	
 	
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.text.ParseException;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+import org.eclipse.test.performance.Dimension;
+import org.eclipse.test.performance.PerformanceTestCase;
+
+/**
+ * Measures the cost of converting Entries line timestamps, which is
+ * done for every managed file when sync info is loaded.
+ */
+public class CVSDateFormatterPerformanceTest extends PerformanceTestCase {
+
+	private static final int ENTRY_COUNT = 100000;
+	private static final int THREAD_COUNT = 4;
+
+	public CVSDateFormatterPerformanceTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(CVSDateFormatterPerformanceTest.class);
+	}
+
+	private static String[] createEntryLineStamps() {
+		String[] stamps = new String[ENTRY_COUNT];
+		long time = 1000000000000L;
+		for (int i = 0; i < stamps.length; i++) {
+			stamps[i] = CVSDateFormatter.dateToEntryLine(time + i * 61000L);
+		}
+		return stamps;
+	}
+
+	private static void roundTrip(String[] stamps) throws ParseException {
+		for (String stamp : stamps) {
+			CVSDateFormatter.dateToEntryLine(CVSDateFormatter.entryLineToMillis(stamp));
+		}
+	}
+
+	public void testEntryLineRoundTrip() throws ParseException {
+		tagAsSummary("Entry line timestamps, 100000 round trips", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+		String[] stamps = createEntryLineStamps();
+
+		// a warm up run
+		roundTrip(stamps);
+
+		for (int count = 0; count < 5; count++) {
+			startMeasuring();
+			roundTrip(stamps);
+			stopMeasuring();
+		}
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	public void testConcurrentEntryLineRoundTrip() throws Exception {
+		tagAsSummary("Entry line timestamps, 100000 round trips on 4 threads", Dimension.ELAPSED_PROCESS); //$NON-NLS-1$
+		final String[] stamps = createEntryLineStamps();
+
+		// a warm up run
+		roundTrip(stamps);
+
+		for (int count = 0; count < 5; count++) {
+			Thread[] threads = new Thread[THREAD_COUNT];
+			final Exception[] failure = new Exception[1];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread(() -> {
+					try {
+						roundTrip(stamps);
+					} catch (ParseException e) {
+						failure[0] = e;
+					}
+				});
+			}
+			startMeasuring();
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			stopMeasuring();
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+		}
+
+		commitMeasurements();
+		assertPerformance();
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class CVSDateFormatterTest extends EclipseTest {
+
+	public CVSDateFormatterTest() {
+		super();
+	}
+
+	public CVSDateFormatterTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(CVSDateFormatterTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	private static SimpleDateFormat createFormat(String pattern) {
+		SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
+	}
+
+	private static long[] randomTimes(int count) {
+		Random random = new Random(0);
+		long[] times = new long[count];
+		for (int i = 0; i < times.length; i++) {
+			// Random second between 1970 and 2100
+			times[i] = (long)(random.nextDouble() * 4102444800L) * 1000;
+		}
+		return times;
+	}
+
+	public void testEntryLineFormat() throws ParseException {
+		assertEquals("Sun Apr  7 01:29:26 1996", CVSDateFormatter.dateToEntryLine(new Date(828840566000L)));
+		assertEquals("Mon Feb 25 21:44:02 2002", CVSDateFormatter.dateToEntryLine(CVSDateFormatter.entryLineToDate("Mon Feb 25 21:44:02 2002")));
+		assertEquals("", CVSDateFormatter.dateToEntryLine(null));
+	}
+
+	public void testEntryLineMatchesSimpleDateFormat() throws ParseException {
+		SimpleDateFormat reference = createFormat("E MMM dd HH:mm:ss yyyy");
+		for (long time : randomTimes(10000)) {
+			StringBuilder expected = new StringBuilder(reference.format(new Date(time)));
+			if (expected.charAt(8) == '0') {
+				expected.setCharAt(8, ' ');
+			}
+			String entryLine = CVSDateFormatter.dateToEntryLine(new Date(time));
+			assertEquals(expected.toString(), entryLine);
+			assertEquals(time, CVSDateFormatter.entryLineToDate(entryLine).getTime());
+			assertEquals(time, CVSDateFormatter.entryLineToMillis(entryLine));
+		}
+	}
+
+	public void testEntryLineParsing() throws ParseException {
+		long expected = 828840566000L;
+		assertEquals(expected, CVSDateFormatter.entryLineToMillis("Sun Apr  7 01:29:26 1996"));
+		assertEquals(expected, CVSDateFormatter.entryLineToMillis("Sun Apr 07 01:29:26 1996"));
+		assertEquals(expected, CVSDateFormatter.entryLineToMillis("Sun Apr 7 01:29:26 1996"));
+		assertEquals(expected, CVSDateFormatter.entryLineToMillis("sun apr  7 01:29:26 1996"));
+		String[] malformed = new String[] { "", "Sun Apr", "dummy timestamp", "Sun Foo  7 01:29:26 1996", "Sun Apr  7 01-29-26 1996", "Sun Apr  7 01:29:26" };
+		for (String text : malformed) {
+			try {
+				CVSDateFormatter.entryLineToDate(text);
+				fail("Expected a parse failure for " + text);
+			} catch (ParseException e) {
+				// Expected
+			}
+		}
+	}
+
+	public void testServerStamp() throws ParseException {
+		SimpleDateFormat reference = new SimpleDateFormat("dd MMM yyyy HH:mm:ss Z", Locale.US);
+		String[] stamps = new String[] { "18 Oct 2001 20:21:13 -0330", "18 Oct 2001 20:21:13 +0200", "18 Oct 2001 20:21:13 -0000", "1 Jan 2004 00:00:00 +0000" };
+		for (String stamp : stamps) {
+			assertEquals(stamp, reference.parse(stamp), CVSDateFormatter.serverStampToDate(stamp));
+		}
+		assertEquals(reference.parse("18 Oct 2001 20:21:13 +0000"), CVSDateFormatter.serverStampToDate("18 Oct 2001 20:21:13 GMT"));
+	}
+
+	public void testNamedTimeZone() throws ParseException {
+		SimpleDateFormat reference = new SimpleDateFormat("dd MMM yyyy HH:mm:ss Z", Locale.US);
+		assertEquals(reference.parse("18 Oct 2001 20:21:13 +0000"), CVSDateFormatter.serverStampToDate("18 Oct 2001 20:21:13 UTC"));
+		assertEquals(reference.parse("18 Oct 2001 20:21:13 -0500"), CVSDateFormatter.serverStampToDate("18 Oct 2001 20:21:13 EST"));
+		// The offset of a region depends on daylight saving time
+		assertEquals(reference.parse("18 Oct 2001 20:21:13 +0200"), CVSDateFormatter.serverStampToDate("18 Oct 2001 20:21:13 Europe/Paris"));
+		assertEquals(reference.parse("18 Jan 2001 20:21:13 +0100"), CVSDateFormatter.serverStampToDate("18 Jan 2001 20:21:13 Europe/Paris"));
+		assertEquals(reference.parse("18 Jan 2001 20:21:13 -0800"), CVSDateFormatter.serverStampToDate("18 Jan 2001 20:21:13 PST"));
+		Date expected = createFormat("yyyy/MM/dd HH:mm:ss").parse("2000/06/19 04:56:21");
+		assertEquals(expected, CVSDateFormatter.logStampToDate("2000/06/19 04:56:21 GMT"));
+		assertEquals(expected, CVSDateFormatter.logStampToDate("2000-06-19 00:56:21 America/New_York"));
+	}
+
+	public void testUnknownTimeZone() throws ParseException {
+		// Unknown and malformed zones are treated as GMT
+		SimpleDateFormat reference = new SimpleDateFormat("dd MMM yyyy HH:mm:ss Z", Locale.US);
+		Date expected = reference.parse("18 Oct 2001 20:21:13 +0000");
+		String[] stamps = new String[] { "18 Oct 2001 20:21:13 CEST", "18 Oct 2001 20:21:13 XYZ", "18 Oct 2001 20:21:13 +02", "18 Oct 2001 20:21:13 Mars/Olympus" };
+		for (String stamp : stamps) {
+			assertEquals(stamp, expected, CVSDateFormatter.serverStampToDate(stamp));
+		}
+		assertEquals(createFormat("yyyy/MM/dd HH:mm:ss").parse("2000/06/19 04:56:21"), CVSDateFormatter.logStampToDate("2000-06-19 04:56:21 XYZ"));
+	}
+
+	public void testNotifyServer() {
+		SimpleDateFormat reference = createFormat("dd MMM yyyy HH:mm:ss");
+		for (long time : randomTimes(1000)) {
+			Date date = new Date(time);
+			assertEquals(reference.format(date) + " GMT", CVSDateFormatter.dateToNotifyServer(date));
+		}
+	}
+
+	public void testLogStamp() throws ParseException {
+		Date expected = createFormat("yyyy/MM/dd HH:mm:ss").parse("2000/06/19 04:56:21");
+		assertEquals(expected, CVSDateFormatter.logStampToDate("2000/06/19 04:56:21"));
+		assertEquals(expected, CVSDateFormatter.logStampToDate("2000-06-19 04:56:21 +0000"));
+		assertEquals(expected, CVSDateFormatter.logStampToDate("2000-06-19 06:56:21 +0200"));
+		try {
+			CVSDateFormatter.logStampToDate("2000.06.19 04:56:21");
+			fail();
+		} catch (ParseException e) {
+			// Expected
+		}
+	}
+
+	public void testConcurrentUse() throws InterruptedException {
+		final long[] times = randomTimes(10000);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				try {
+					for (long time : times) {
+						assertEquals(time, CVSDateFormatter.entryLineToMillis(CVSDateFormatter.dateToEntryLine(time)));
+					}
+				} catch (Throwable e) {
+					failures.add(e);
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(failures.toString(), failures.isEmpty());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,8 @@ import java.net.URISyntaxException;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.provider.FileInfo;
 import org.eclipse.team.core.ScmUrlImportDescription;
 import org.eclipse.team.internal.ccvs.core.CVSException;
 import org.eclipse.team.internal.ccvs.core.CVSProjectSetCapability;
@@ -26,6 +28,7 @@ import org.eclipse.team.internal.ccvs.core.CVSTag;
 import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.filesystem.CVSURI;
+import org.eclipse.team.internal.ccvs.core.filesystem.RemoteInfoCache;
 import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
 import org.eclipse.team.tests.ccvs.core.EclipseTest;
 
@@ -290,4 +293,25 @@ public class CVSURITest extends EclipseTest {
 		String refString = new CVSProjectSetCapability().asReference(uri, null);
 		assertEquals("1.0,:pserver:host.com:/cvsroot/path,path/to/module,module,tag", refString);
 	}
+
+	public void testCachedInfosDiscardedOnChange() throws URISyntaxException {
+		CVSURI folderUri = CVSURI.fromUri(new URI("cvs://_pserver_user~host.here_!root!path/project/path"));
+		CVSURI otherUri = CVSURI.fromUri(new URI("cvs://_pserver_user~host.here_!root!path/project2"));
+		FileInfo child = new FileInfo("file.txt");
+		child.setExists(true);
+		RemoteInfoCache cache = new RemoteInfoCache();
+		cache.putChildInfos(folderUri, new IFileInfo[] { child });
+		cache.putChildInfos(otherUri, new IFileInfo[0]);
+		assertSame(child, cache.getFileInfo(folderUri.append("file.txt")));
+
+		// A change in another project does not affect the folder
+		cache.repositoryChanged(folderUri.getRepository(), "project2/sub");
+		assertNotNull(cache.getChildInfos(folderUri));
+		assertNull(cache.getChildInfos(otherUri));
+
+		// A change below the folder discards its listing
+		cache.repositoryChanged(folderUri.getRepository(), "project/path/sub");
+		assertNull(cache.getChildInfos(folderUri));
+		assertNull(cache.getFileInfo(folderUri.append("file.txt")));
+	}
 }
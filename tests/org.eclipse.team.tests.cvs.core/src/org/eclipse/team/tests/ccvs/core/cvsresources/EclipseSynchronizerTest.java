@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -909,4 +909,66 @@ public class EclipseSynchronizerTest extends EclipseTest {
 		assertTrue(!sync.getResourceSync(file21).getRevision().equals(revision));
 		
 	}
+	
+	public void testEntriesLog() throws CoreException, CVSException {
+		IProject project = getUniqueTestProject(getName());
+		IFolder folder = project.getFolder("folder1");
+		folder.create(false /*force*/, true /*local*/, null);
+		IFile entries = folder.getFile(new Path("CVS/" + SyncFileWriter.ENTRIES));
+		IFile entriesLog = folder.getFile(new Path("CVS/" + SyncFileWriter.ENTRIES_LOG));
+		
+		// The first write creates the Entries file
+		byte[][] infos = new byte[3][];
+		for (int i = 0; i < infos.length; i++) {
+			infos[i] = entryLine("file" + i, "1.1");
+		}
+		SyncFileWriter.writeAllResourceSync(folder, infos);
+		assertTrue(entries.exists());
+		assertTrue(!entriesLog.exists());
+		long stamp = entries.getModificationStamp();
+		
+		// Changes are appended to Entries.log
+		infos[1] = entryLine("file1", "1.2");
+		SyncFileWriter.writeAllResourceSync(folder, infos);
+		assertEquals(stamp, entries.getModificationStamp());
+		assertTrue(entriesLog.exists());
+		assertEntries(folder, new String[] { "file0", "file1", "file2" }, new String[] { "1.1", "1.2", "1.1" });
+		
+		// Writing the same entries does not touch the files
+		long logStamp = entriesLog.getModificationStamp();
+		SyncFileWriter.writeAllResourceSync(folder, infos);
+		assertEquals(stamp, entries.getModificationStamp());
+		assertEquals(logStamp, entriesLog.getModificationStamp());
+		
+		// Removing an entry rewrites Entries
+		SyncFileWriter.writeAllResourceSync(folder, new byte[][] { infos[0], infos[1] });
+		assertTrue(stamp != entries.getModificationStamp());
+		assertTrue(!entriesLog.exists());
+		assertEntries(folder, new String[] { "file0", "file1" }, new String[] { "1.1", "1.2" });
+		stamp = entries.getModificationStamp();
+		
+		// A large number of changes compacts the log into Entries
+		infos = new byte[100][];
+		for (int i = 0; i < infos.length; i++) {
+			infos[i] = entryLine("file" + i, "1.3");
+		}
+		SyncFileWriter.writeAllResourceSync(folder, infos);
+		assertTrue(stamp != entries.getModificationStamp());
+		assertTrue(!entriesLog.exists());
+		assertEquals(100, SyncFileWriter.readAllResourceSync(folder).length);
+	}
+	
+	private byte[] entryLine(String name, String revision) {
+		return ("/" + name + "/" + revision + "/Thu Jan 01 00:00:00 2004//").getBytes();
+	}
+	
+	private void assertEntries(IContainer folder, String[] names, String[] revisions) throws CVSException {
+		byte[][] infos = SyncFileWriter.readAllResourceSync(folder);
+		assertEquals(names.length, infos.length);
+		for (int i = 0; i < infos.length; i++) {
+			ResourceSyncInfo info = new ResourceSyncInfo(infos[i]);
+			assertEquals(names[i], info.getName());
+			assertEquals(revisions[i], info.getRevision());
+		}
+	}
 }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.client.GzipPayloadInflater;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class GzipPayloadInflaterTest extends EclipseTest {
+
+	private static final int LIMIT = 1024 * 1024;
+
+	private GzipPayloadInflater inflater;
+
+	public GzipPayloadInflaterTest() {
+		super();
+	}
+
+	public GzipPayloadInflaterTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(GzipPayloadInflaterTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		inflater = new GzipPayloadInflater();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		inflater.dispose();
+		super.tearDown();
+	}
+
+	private static byte[] gzip(byte[] contents) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream zout = new GZIPOutputStream(out)) {
+			zout.write(contents);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		new Random(0).nextBytes(bytes);
+		return bytes;
+	}
+
+	/*
+	 * Replace the inflated size recorded in the trailer of the given gzip member
+	 */
+	private static void forgeSize(byte[] payload, int size) {
+		int offset = payload.length - 4;
+		for (int i = 0; i < 4; i++) {
+			payload[offset + i] = (byte) (size >>> (8 * i));
+		}
+	}
+
+	public void testInflate() throws IOException {
+		byte[] contents = randomBytes(100000);
+		byte[] payload = gzip(contents);
+		assertTrue(Arrays.equals(contents, inflater.inflate(payload, payload.length, LIMIT)));
+		// the inflater is reused for the next payload
+		contents = "Hello World\n".getBytes();
+		payload = gzip(contents);
+		assertTrue(Arrays.equals(contents, inflater.inflate(payload, payload.length, LIMIT)));
+	}
+
+	public void testInflateEmpty() throws IOException {
+		byte[] payload = gzip(new byte[0]);
+		assertEquals(0, inflater.inflate(payload, payload.length, LIMIT).length);
+	}
+
+	public void testInflatePartOfBuffer() throws IOException {
+		byte[] contents = randomBytes(5000);
+		byte[] payload = gzip(contents);
+		// the payload is followed by unrelated bytes in a reused buffer
+		byte[] buffer = Arrays.copyOf(payload, payload.length + 100);
+		assertTrue(Arrays.equals(contents, inflater.inflate(buffer, payload.length, LIMIT)));
+	}
+
+	public void testCompressiblePayloadOverLimit() throws IOException {
+		// zeros compress to a small fraction of the limit but inflate beyond it
+		byte[] contents = new byte[4 * LIMIT];
+		byte[] payload = gzip(contents);
+		assertTrue(payload.length < LIMIT / 100);
+		assertNull(inflater.inflate(payload, payload.length, LIMIT));
+		// the same payload is inflated when it fits
+		assertTrue(Arrays.equals(contents, inflater.inflate(payload, payload.length, 4 * LIMIT)));
+	}
+
+	public void testCompressiblePayloadAtLimit() throws IOException {
+		byte[] contents = new byte[LIMIT];
+		byte[] payload = gzip(contents);
+		byte[] inflated = inflater.inflate(payload, payload.length, LIMIT);
+		// the contents may only be inflated in memory if they fit
+		if (inflated != null)
+			assertTrue(Arrays.equals(contents, inflated));
+	}
+
+	public void testForgedLargeSize() throws IOException {
+		byte[] payload = gzip(randomBytes(1000));
+		forgeSize(payload, Integer.MAX_VALUE);
+		try {
+			inflater.inflate(payload, payload.length, LIMIT);
+			fail("The forged size should be detected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testForgedNegativeSize() throws IOException {
+		byte[] payload = gzip(randomBytes(1000));
+		forgeSize(payload, -1);
+		try {
+			inflater.inflate(payload, payload.length, LIMIT);
+			fail("The forged size should be detected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testForgedSmallSize() throws IOException {
+		byte[] payload = gzip(randomBytes(1000));
+		forgeSize(payload, 10);
+		try {
+			inflater.inflate(payload, payload.length, LIMIT);
+			fail("The forged size should be detected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testForgedSizeOfCompressiblePayload() throws IOException {
+		// a size within the limit does not allow contents over the limit to be inflated
+		byte[] payload = gzip(new byte[4 * LIMIT]);
+		forgeSize(payload, 100);
+		assertNull(inflater.inflate(payload, payload.length, LIMIT));
+	}
+
+	public void testNotGzip() {
+		byte[] payload = randomBytes(100);
+		try {
+			inflater.inflate(payload, payload.length, LIMIT);
+			fail("The payload is not a gzip member");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,8 @@
 package org.eclipse.team.tests.ccvs.core.cvsresources;
 
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -24,6 +26,7 @@ import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
 import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.client.Session;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncBytes;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.*;
 import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
@@ -103,28 +106,143 @@ public class ResourceSyncBytesTest extends EclipseTest {
 		// test a normal entry line
 		byte[] entryLine = "/plugin.xml/1.27/Tue Mar  4 19:47:36 2003/-ko/".getBytes();
 		session.sendEntry(entryLine, ResourceSyncInfo.getTimestampToServer(entryLine, CVSDateFormatter.entryLineToDate("Tue Mar  4 19:47:36 2003")));
-		assertEquals("Entry /plugin.xml/1.27//-ko/", TestConnection.getLastLine());
+		assertEntrySent(session, "Entry /plugin.xml/1.27//-ko/");
 		
 		// test a server merged with conflict entry line
 		entryLine = "/newfile.txt/1.10/Result of merge+Thu Mar 20 16:36:56 2003//".getBytes();
 		session.sendEntry(entryLine, ResourceSyncInfo.getTimestampToServer(entryLine, CVSDateFormatter.entryLineToDate("Thu Mar 20 16:36:56 2003")));
-		assertEquals("Entry /newfile.txt/1.10/+=//", TestConnection.getLastLine());
+		assertEntrySent(session, "Entry /newfile.txt/1.10/+=//");
 		
 		// test a server merged entry line
 		entryLine = "/newfile.txt/1.10/Result of merge+Thu Mar 20 16:36:56 2003//".getBytes();
 		session.sendEntry(entryLine, ResourceSyncInfo.getTimestampToServer(entryLine, CVSDateFormatter.entryLineToDate("Thu Mar 20 16:37:56 2003")));
-		assertEquals("Entry /newfile.txt/1.10/+modified//", TestConnection.getLastLine());
+		assertEntrySent(session, "Entry /newfile.txt/1.10/+modified//");
 		
 		// test added entry line
 		entryLine = "/plugin.xml/0/dummy timestamp/-ko/".getBytes();
 		session.sendEntry(entryLine, ResourceSyncInfo.getTimestampToServer(entryLine, CVSDateFormatter.entryLineToDate("Tue Mar  4 19:47:36 2003")));
-		assertEquals("Entry /plugin.xml/0//-ko/", TestConnection.getLastLine());
+		assertEntrySent(session, "Entry /plugin.xml/0//-ko/");
 		
 		// test empty timestamp entry line
 		entryLine = "/plugin.xml/1.1//-ko/".getBytes();
 		session.sendEntry(entryLine, ResourceSyncInfo.getTimestampToServer(entryLine, CVSDateFormatter.entryLineToDate("Tue Mar  4 19:47:36 2003")));
-		assertEquals("Entry /plugin.xml/1.1//-ko/", TestConnection.getLastLine());
+		assertEntrySent(session, "Entry /plugin.xml/1.1//-ko/");
 		
 	}
+	
+	public void testRequestsBufferedUntilCommand() throws CVSException, ParseException {
+		Session session = openTestSession();
+		int sent = TestConnection.previousLines.size();
+		
+		// requests that do not require a response are held back
+		session.sendArgument("one");
+		byte[] entryLine = "/plugin.xml/1.27/Tue Mar  4 19:47:36 2003/-ko/".getBytes();
+		session.sendEntry(entryLine, ResourceSyncInfo.getTimestampToServer(entryLine, CVSDateFormatter.entryLineToDate("Tue Mar  4 19:47:36 2003")));
+		session.sendArgument("two");
+		assertEquals(sent, TestConnection.previousLines.size());
+		
+		// the command request sends them in the order they were written
+		session.sendRequest("noop");
+		List<String> expected = new ArrayList<>();
+		expected.add("Argument one");
+		expected.add("Entry /plugin.xml/1.27//-ko/");
+		expected.add("Argument two");
+		expected.add("noop");
+		assertEquals(expected, TestConnection.previousLines.subList(sent, TestConnection.previousLines.size()));
+	}
+	
+	public void testRequestsSentWhenBufferFull() throws CVSException {
+		Session session = openTestSession();
+		int sent = TestConnection.previousLines.size();
+		
+		// write more requests than fit in the request buffer
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			String argument = "argument-" + i + "-with-some-padding-to-fill-the-buffer";
+			session.sendArgument(argument);
+			expected.add("Argument " + argument);
+		}
+		int sentBeforeCommand = TestConnection.previousLines.size() - sent;
+		assertTrue(sentBeforeCommand > 0);
+		assertTrue(sentBeforeCommand < expected.size());
+		
+		session.sendRequest("noop");
+		expected.add("noop");
+		assertEquals(expected, TestConnection.previousLines.subList(sent, TestConnection.previousLines.size()));
+	}
+	
+	private Session openTestSession() throws CVSException {
+		ICVSRepositoryLocation location = KnownRepositories.getInstance().getRepository(":test:user:password@host:/path");
+		// disable version determination to reduce traffic
+		CVSProviderPlugin.getPlugin().setDetermineVersionEnabled(false);
+		Session session = new Session(location, CVSWorkspaceRoot.getCVSFolderFor(ResourcesPlugin.getWorkspace().getRoot()));
+		session.open(DEFAULT_MONITOR, false /* read-only */);
+		// send the requests that were buffered while opening the session
+		session.sendRequest("noop");
+		return session;
+	}
+	
+	/*
+	 * Entry requests are buffered until a command request is sent
+	 * so send one and check the line that precedes it.
+	 */
+	private void assertEntrySent(Session session, String expected) throws CVSException {
+		session.sendRequest("noop");
+		List<String> lines = TestConnection.previousLines;
+		assertEquals("noop", lines.get(lines.size() - 1));
+		assertEquals(expected, lines.get(lines.size() - 2));
+	}
+
+	private void assertViewMatchesSyncInfo(String entryLine) throws CVSException {
+		byte[] syncBytes = entryLine.getBytes();
+		ResourceSyncInfo info = new ResourceSyncInfo(syncBytes);
+		ResourceSyncBytes view = new ResourceSyncBytes(syncBytes);
+		assertEquals(entryLine, info.getName(), view.getName());
+		assertEquals(entryLine, info.getRevision(), view.getRevision());
+		assertEquals(entryLine, info.isAdded(), view.isAddition());
+		assertEquals(entryLine, info.isDeleted(), view.isDeletion());
+		assertEquals(entryLine, info.getKeywordMode(), view.getKeywordMode());
+		assertEquals(entryLine, info.isMerged(), view.isMerge());
+		assertEquals(entryLine, info.isMergedWithConflicts(), view.isMergedWithConflicts());
+		assertEquals(entryLine, ResourceSyncInfo.wasDeleted(syncBytes), view.wasDeleted());
+		assertEquals(entryLine, ResourceSyncInfo.isBinary(syncBytes), view.isBinary());
+		long timestamp = info.getTimeStamp() == null ? ResourceSyncBytes.NO_TIMESTAMP : info.getTimeStamp().getTime();
+		assertEquals(entryLine, timestamp, view.getTimestamp());
+		assertEquals(entryLine, info.getTag() == null ? "" : new String(ResourceSyncInfo.getTagBytes(syncBytes)), view.getTagEntry());
+	}
+	
+	public void testSyncBytesView() throws CVSException {
+		assertViewMatchesSyncInfo("/plugin.xml/1.1/Tue Mar  4 19:47:36 2003/-ko/");
+		assertViewMatchesSyncInfo("/file.java/-1.1/Mon Feb 25 21:44:02 2002/-k/");
+		assertViewMatchesSyncInfo("/file.java/0/dummy timestamp//");
+		assertViewMatchesSyncInfo("/file.java/1.0/Mon Feb 25 21:44:02 2002/-kb/Tv1");
+		assertViewMatchesSyncInfo("/file.java/1.0/Result of merge//Nbranch");
+		assertViewMatchesSyncInfo("/file.java/1.0/Result of merge+Mon Feb 25 21:44:02 2002//Nbranch");
+		assertViewMatchesSyncInfo("/file.java/1.0/restored+Mon Feb 25 21:44:02 2002//");
+		assertViewMatchesSyncInfo("/file.java/1.0/+=//");
+		assertViewMatchesSyncInfo("/file.java/1.0/+modified//");
+		assertViewMatchesSyncInfo("/file.java/1.2 locked by: user;/Mon Feb 25 21:44:02 2002///");
+		assertViewMatchesSyncInfo("/file.java/1.2.2.3\tlocked by: user;/Mon Feb 25 21:44:02 2002///");
+		
+		// The Entries file separates the "locked by" suffix with a tab
+		byte[] locked = "/file.java/1.2.2.3\tlocked by: user;/Mon Feb 25 21:44:02 2002///".getBytes();
+		assertEquals("1.2.2.3", new ResourceSyncBytes(locked).getRevision());
+		assertEquals("1.2.2.3", ResourceSyncInfo.getRevision(locked));
+		locked = "/file.java/-1.2 locked by: user;/Mon Feb 25 21:44:02 2002///".getBytes();
+		assertEquals("1.2", ResourceSyncInfo.getRevision(locked));
+		assertViewMatchesSyncInfo("/file.java/1.0/Mon Feb 25 21:44:02 2002//Ta/tag/with/slashes");
+		
+		// The revision strings are shared
+		ResourceSyncBytes view1 = new ResourceSyncBytes("/a.txt/1.5/Mon Feb 25 21:44:02 2002//".getBytes());
+		ResourceSyncBytes view2 = new ResourceSyncBytes("/b.txt/1.5/Tue Mar  4 19:47:36 2003//".getBytes());
+		assertSame(view1.getRevision(), view2.getRevision());
+		
+		try {
+			new ResourceSyncBytes("/file.java/1.1/".getBytes());
+			fail();
+		} catch (CVSException e) {
+			// Error expected
+		}
+	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -38,6 +38,7 @@ import org.eclipse.team.internal.ccvs.core.ICVSResource;
 import org.eclipse.team.internal.ccvs.core.ICVSResourceVisitor;
 import org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.EclipseSynchronizer;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
 import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
 import org.eclipse.team.tests.ccvs.core.EclipseTest;
@@ -607,5 +608,26 @@ public class IsModifiedTests extends EclipseTest {
 		// there should be an outgoing change for the first file
 		assertModificationState(project, new String[] { ".", "file1.txt" },	true);
 	}
-}
 
+	public void testDirtyStateIndex() throws TeamException, CoreException {
+		IProject project = createProject("testDirtyStateIndex", new String[] { "file1.txt", "folder1/", "folder1/a.txt", "folder2/", "folder2/b.txt" });
+		setContentsAndEnsureModified(project.getFile("folder1/a.txt"));
+		setContentsAndEnsureModified(project.getFile("folder2/b.txt"));
+		assertModificationState(project, new String[] {".", "folder1/", "folder1/a.txt", "folder2/", "folder2/b.txt"}, true);
+		// committing one of the files should not require the dirty state of the project to be recomputed
+		commitResources(project, new String[] {"folder1/a.txt"});
+		EclipseSynchronizer synchronizer = EclipseSynchronizer.getInstance();
+		assertEquals(ICVSFile.DIRTY, synchronizer.getModificationState(project));
+		assertEquals(ICVSFile.DIRTY, synchronizer.getModificationState(project.getFolder("folder2")));
+		assertModificationState(project, new String[] {".", "folder2/", "folder2/b.txt"}, true);
+		// once the last dirty file is reverted, the project is clean
+		replace(new IResource[] {project.getFile("folder2/b.txt")}, null, true);
+		assertModificationState(project, null, true);
+		// deleting a folder discards the dirty files it contained
+		setContentsAndEnsureModified(project.getFile("folder2/b.txt"));
+		assertModificationState(project, new String[] {".", "folder2/", "folder2/b.txt"}, true);
+		project.getFolder("folder2").delete(false, DEFAULT_MONITOR);
+		commitProject(project);
+		assertModificationState(project, null, true);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -40,11 +40,13 @@ import org.eclipse.team.internal.ccvs.core.ICVSResource;
 import org.eclipse.team.internal.ccvs.core.ILogEntry;
 import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
+import org.eclipse.team.internal.ccvs.core.filehistory.LogEntryStore;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFolder;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTree;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTreeBuilder;
 import org.eclipse.team.internal.ccvs.ui.operations.CheckoutToRemoteFolderOperation;
+import org.eclipse.team.internal.ccvs.ui.operations.RemoteLogOperation;
 import org.eclipse.team.internal.ccvs.ui.operations.TagInRepositoryOperation;
 import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
 import org.eclipse.team.tests.ccvs.core.EclipseTest;
@@ -377,6 +379,92 @@ public class RemoteResourceTest extends EclipseTest {
 		assertEquals(0, logEntry.getBranchRevisions().length);
 	}
 
+	public void testStoredLogEntries() throws TeamException, CoreException {
+		IProject project = createProject("testStoredLogEntries", new String[] { "file.txt"}); // 1.1
+		setContentsAndEnsureModified(project.getFile("file.txt"), "hello");
+		commitResources(project, new String[] {"file.txt"}); // 1.2
+
+		ICVSRemoteFile remote = (ICVSRemoteFile) CVSWorkspaceRoot.getRemoteResourceFor(project.getFile("file.txt"));
+		ILogEntry[] entries = remote.getLogEntries(DEFAULT_MONITOR);
+		assertEquals(2, entries.length);
+		assertNotNull(LogEntryStore.getInstance().getStoredLogEntries(remote));
+
+		// New revisions are added to the stored history
+		setContentsAndEnsureModified(project.getFile("file.txt"), "hello again");
+		commitResources(project, new String[] {"file.txt"}); // 1.3
+		remote = (ICVSRemoteFile) CVSWorkspaceRoot.getRemoteResourceFor(project.getFile("file.txt"));
+		assertNull(LogEntryStore.getInstance().getStoredLogEntries(remote));
+		entries = remote.getLogEntries(DEFAULT_MONITOR);
+		assertEquals(3, entries.length);
+		assertNotNull(getLogEntryByRevision(entries, "1.3"));
+		assertEquals(3, LogEntryStore.getInstance().getStoredLogEntries(remote).length);
+
+		// Tagging an existing revision refreshes the tags of the stored history
+		CVSTag tag = new CVSTag("v1", CVSTag.VERSION);
+		tagProject(project, tag, false);
+		entries = remote.getLogEntries(DEFAULT_MONITOR);
+		assertEquals(3, entries.length);
+		LogEntry logEntry = getLogEntryByRevision(entries, "1.3");
+		assertNotNull(getTagByName(logEntry.getTags(), "v1"));
+		assertEquals(0, getLogEntryByRevision(entries, "1.2").getTags().length);
+
+		// Moving the tag with a new revision moves it in the stored history too
+		setContentsAndEnsureModified(project.getFile("file.txt"), "hello once more");
+		commitResources(project, new String[] {"file.txt"}); // 1.4
+		tagProject(project, tag, true);
+		remote = (ICVSRemoteFile) CVSWorkspaceRoot.getRemoteResourceFor(project.getFile("file.txt"));
+		entries = remote.getLogEntries(DEFAULT_MONITOR);
+		assertEquals(4, entries.length);
+		assertNotNull(getTagByName(getLogEntryByRevision(entries, "1.4").getTags(), "v1"));
+		assertEquals(0, getLogEntryByRevision(entries, "1.3").getTags().length);
+
+		// Entries read without contacting the server have no tags since they may be out of date
+		entries = LogEntryStore.getInstance().getStoredLogEntries(remote);
+		assertEquals(4, entries.length);
+		assertEquals(0, getLogEntryByRevision(entries, "1.4").getTags().length);
+	}
+
+	public void testStoredLogEntriesForTags() throws TeamException, CoreException, InvocationTargetException, InterruptedException {
+		IProject project = createProject("testStoredLogEntriesForTags", new String[] { "file.txt"}); // 1.1
+		setContentsAndEnsureModified(project.getFile("file.txt"), "hello");
+		commitResources(project, new String[] {"file.txt"}); // 1.2
+		CVSTag tag1 = new CVSTag("v1", CVSTag.VERSION);
+		tagProject(project, tag1, false);
+		setContentsAndEnsureModified(project.getFile("file.txt"), "hello again");
+		commitResources(project, new String[] {"file.txt"}); // 1.3
+		CVSTag tag2 = new CVSTag("v2", CVSTag.VERSION);
+		tagProject(project, tag2, false);
+		setContentsAndEnsureModified(project.getFile("file.txt"), "hello once more");
+		commitResources(project, new String[] {"file.txt"}); // 1.4
+
+		// Store the whole history of the file
+		ICVSRemoteFile remote = (ICVSRemoteFile) CVSWorkspaceRoot.getRemoteResourceFor(project.getFile("file.txt"));
+		assertEquals(4, remote.getLogEntries(DEFAULT_MONITOR).length);
+		assertNotNull(LogEntryStore.getInstance().getStoredLogEntries(remote));
+
+		// Only the revisions of a tag range are returned, not the stored history
+		RemoteLogOperation.LogEntryCache cache = new RemoteLogOperation.LogEntryCache();
+		new RemoteLogOperation(null, new ICVSRemoteResource[] { remote }, tag1, tag2, cache).run(DEFAULT_MONITOR);
+		ILogEntry[] entries = cache.getLogEntries(remote);
+		assertNull(getLogEntryByRevision(entries, "1.1"));
+		assertNull(getLogEntryByRevision(entries, "1.4"));
+		assertNotNull(getLogEntryByRevision(entries, "1.3"));
+
+		// Only the revision of a single tag is returned
+		cache = new RemoteLogOperation.LogEntryCache();
+		new RemoteLogOperation(null, new ICVSRemoteResource[] { remote }, tag1, null, cache).run(DEFAULT_MONITOR);
+		entries = cache.getLogEntries(remote);
+		assertEquals(1, entries.length);
+		assertEquals("1.2", entries[0].getRevision());
+
+		// A revision that is in the stored history is taken from there
+		cache = new RemoteLogOperation.LogEntryCache();
+		new RemoteLogOperation(null, new ICVSRemoteResource[] { remote }, new CVSTag("1.4", CVSTag.VERSION), null, cache).run(DEFAULT_MONITOR);
+		entries = cache.getLogEntries(remote);
+		assertEquals(1, entries.length);
+		assertEquals("1.4", entries[0].getRevision());
+	}
+
 	private LogEntry getLogEntryByRevision(ILogEntry[] entries, String revision) {
 		for (ILogEntry entry : entries) {
 			if (entry.getRevision().equals(revision) && entry instanceof LogEntry) {
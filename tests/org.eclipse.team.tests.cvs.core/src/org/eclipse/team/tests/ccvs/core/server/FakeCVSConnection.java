@@ -0,0 +1,864 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.server;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.team.tests.ccvs.core.server.RepositoryStore.Revision;
+
+/**
+ * Serves a single client connection of the {@link FakeCVSServer}.
+ * <p>
+ * The requests that do not expect a response are accumulated until a command
+ * is received. The command is then answered from the repository store and the
+ * accumulated state is discarded. The responses of a command are buffered so
+ * that the simulated latency and bandwidth apply to the response as a whole.</p>
+ * <p>
+ * Only the trunk is served: sticky tags and dates are ignored, locally modified
+ * files with incoming changes are reported as conflicts and left untouched
+ * (no merge is performed) and the file contents are never compressed since
+ * gzip-file-contents is not a valid request.</p>
+ */
+/* package */ class FakeCVSConnection {
+
+	private static final String VALID_REQUESTS = "Root Valid-responses valid-requests Directory Entry Modified Unchanged "
+			+ "UseUnchanged Is-modified Questionable Sticky Static-directory Case Kopt Checkin-time Argument Argumentx "
+			+ "Global_option Set Notify Max-dotdot expand-modules co update ci status log rlog add remove noop version";
+	private static final String SERVER_PREFIX = "cvs server: ";
+	private static final String PERMISSIONS = "u=rw,g=rw,o=r";
+	private static final int CHUNK_SIZE = 8192;
+
+	private final FakeCVSServer server;
+	private final RepositoryStore store;
+	private final Socket socket;
+	private InputStream in;
+	private OutputStream out;
+	private String user;
+	private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+	private final SimpleDateFormat modTimeFormat = createFormat("d MMM yyyy HH:mm:ss Z");
+	private final SimpleDateFormat logDateFormat = createFormat("yyyy/MM/dd HH:mm:ss");
+
+	// State sent by the client for the next command
+	private final Map<String, String> directories = new HashMap<>();
+	private final Map<String, Set<String>> childDirectories = new HashMap<>();
+	private final Map<String, String> entries = new HashMap<>();
+	private final Map<String, Set<String>> entryNames = new HashMap<>();
+	private final Map<String, byte[]> modified = new HashMap<>();
+	private final Map<String, String> keywordModes = new HashMap<>();
+	private final List<String> arguments = new ArrayList<>();
+	private final Set<String> globalOptions = new HashSet<>();
+	private String currentDirectory = "";
+	private String pendingKeywordMode;
+	private boolean failed;
+
+	FakeCVSConnection(FakeCVSServer server, Socket socket) {
+		this.server = server;
+		this.store = server.getStore();
+		this.socket = socket;
+	}
+
+	private static SimpleDateFormat createFormat(String pattern) {
+		SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
+	}
+
+	public void run() {
+		try {
+			in = new BufferedInputStream(socket.getInputStream());
+			out = new BufferedOutputStream(socket.getOutputStream());
+			if (!authenticate()) {
+				return;
+			}
+			String line;
+			while ((line = readLine()) != null) {
+				int space = line.indexOf(' ');
+				handleRequest(space == -1 ? line : line.substring(0, space), space == -1 ? "" : line.substring(space + 1));
+			}
+		} catch (IOException e) {
+			// The connection was closed by the client or the server was stopped
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	/*
+	 * Accept any user and password for the repository root
+	 */
+	private boolean authenticate() throws IOException {
+		String begin = readLine();
+		String root = readLine();
+		user = readLine();
+		readLine(); // scrambled password
+		readLine(); // END AUTH REQUEST
+		if (begin == null || !begin.startsWith("BEGIN ") || !FakeCVSServer.REPOSITORY_ROOT.equals(root)) {
+			line("I HATE YOU");
+			send();
+			return false;
+		}
+		line("I LOVE YOU");
+		send();
+		// A verification request only checks the password
+		return begin.startsWith("BEGIN AUTH");
+	}
+
+	private void handleRequest(String request, String argument) throws IOException {
+		switch (request) {
+			case "Root":
+			case "Valid-responses":
+			case "UseUnchanged":
+			case "Unchanged":
+			case "Questionable":
+			case "Sticky":
+			case "Static-directory":
+			case "Case":
+			case "Checkin-time":
+			case "Set":
+			case "Max-dotdot":
+				break;
+			case "Global_option":
+				globalOptions.add(argument);
+				break;
+			case "Argument":
+				arguments.add(argument);
+				break;
+			case "Argumentx":
+				arguments.set(arguments.size() - 1, arguments.get(arguments.size() - 1) + '\n' + argument);
+				break;
+			case "Directory":
+				directory(argument, readLine());
+				break;
+			case "Entry":
+				entry(argument);
+				break;
+			case "Kopt":
+				pendingKeywordMode = argument;
+				break;
+			case "Is-modified":
+				modified(argument, null);
+				break;
+			case "Modified":
+				readLine(); // mode
+				modified(argument, readContents(readLine()));
+				break;
+			case "Notify":
+				readLine(); // notification details
+				break;
+			case "valid-requests":
+				line("Valid-requests " + VALID_REQUESTS);
+				respond();
+				break;
+			case "expand-modules":
+				for (String module : arguments) {
+					line("Module-expansion " + module);
+				}
+				respond();
+				break;
+			case "noop":
+				respond();
+				break;
+			case "version":
+				message("Concurrent Versions System (CVS) 1.11.23 (client/server)");
+				respond();
+				break;
+			case "co":
+				checkout(new Options(arguments, "-d", "-r", "-D", "-j"));
+				respond();
+				break;
+			case "update":
+				update(new Options(arguments, "-r", "-D", "-j", "-I", "-W"));
+				respond();
+				break;
+			case "ci":
+				commit(new Options(arguments, "-m", "-r", "-F"));
+				respond();
+				break;
+			case "status":
+				status(new Options(arguments));
+				respond();
+				break;
+			case "log":
+				log(new Options(arguments), false);
+				respond();
+				break;
+			case "rlog":
+				log(new Options(arguments), true);
+				respond();
+				break;
+			case "add":
+				add(new Options(arguments, "-m"));
+				respond();
+				break;
+			case "remove":
+				remove(new Options(arguments));
+				respond();
+				break;
+			default:
+				line("E cvs [server aborted]: unrecognized request `" + request + "'");
+				failed = true;
+				respond();
+				break;
+		}
+	}
+
+	/*
+	 * Options that precede the arguments of a command
+	 */
+	private static class Options {
+		private final Map<String, String> values = new HashMap<>();
+		private final List<String> arguments = new ArrayList<>();
+
+		Options(List<String> args, String... valueOptions) {
+			List<String> withValue = Arrays.asList(valueOptions);
+			int i = 0;
+			for (; i < args.size() && args.get(i).startsWith("-"); i++) {
+				String option = args.get(i);
+				if (option.equals("--")) {
+					i++;
+					break;
+				}
+				values.put(option, withValue.contains(option) && i + 1 < args.size() ? args.get(++i) : "");
+			}
+			for (; i < args.size(); i++) {
+				arguments.add(normalize(args.get(i)));
+			}
+		}
+
+		boolean has(String option) {
+			return values.containsKey(option);
+		}
+
+		String get(String option) {
+			return values.get(option);
+		}
+
+		String getKeywordMode() {
+			for (String option : values.keySet()) {
+				if (option.startsWith("-k")) return option;
+			}
+			return null;
+		}
+
+		List<String> getTargets() {
+			return arguments.isEmpty() ? Collections.singletonList("") : arguments;
+		}
+	}
+
+	/* ------------------------------------------------------------------
+	 * Requests
+	 * ------------------------------------------------------------------ */
+
+	private void directory(String localDirectory, String repositoryDirectory) {
+		String local = normalize(localDirectory);
+		directories.put(local, toRepositoryPath(repositoryDirectory));
+		if (!local.isEmpty()) {
+			childDirectories.computeIfAbsent(RepositoryStore.getParent(local), parent -> new TreeSet<>()).add(RepositoryStore.getName(local));
+		}
+		currentDirectory = local;
+	}
+
+	private void entry(String entryLine) {
+		if (entryLine.startsWith("D")) {
+			return;
+		}
+		String name = entryLine.split("/", -1)[1];
+		entries.put(RepositoryStore.append(currentDirectory, name), entryLine);
+		entryNames.computeIfAbsent(currentDirectory, directory -> new TreeSet<>()).add(name);
+	}
+
+	private void modified(String name, byte[] contents) {
+		String local = RepositoryStore.append(currentDirectory, name);
+		modified.put(local, contents);
+		if (pendingKeywordMode != null) {
+			keywordModes.put(local, pendingKeywordMode);
+			pendingKeywordMode = null;
+		}
+	}
+
+	private byte[] readContents(String sizeLine) throws IOException {
+		boolean compressed = sizeLine.startsWith("z");
+		byte[] bytes = new byte[Integer.parseInt(compressed ? sizeLine.substring(1) : sizeLine)];
+		new DataInputStream(in).readFully(bytes);
+		if (!compressed) {
+			return bytes;
+		}
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			byte[] buffer = new byte[CHUNK_SIZE];
+			for (int count; (count = gzip.read(buffer)) != -1;) {
+				result.write(buffer, 0, count);
+			}
+		}
+		return result.toByteArray();
+	}
+
+	/* ------------------------------------------------------------------
+	 * Commands
+	 * ------------------------------------------------------------------ */
+
+	private void checkout(Options options) throws IOException {
+		boolean prune = options.has("-P");
+		for (String module : options.arguments) {
+			if (!store.isFolder(module)) {
+				error("cannot find module `" + module + "' - ignored");
+				failed = true;
+				continue;
+			}
+			String local = options.has("-d") ? normalize(options.get("-d")) : module;
+			checkoutFolder(local, module, !options.has("-l"), prune);
+		}
+	}
+
+	private void checkoutFolder(String local, String path, boolean recurse, boolean prune) throws IOException {
+		sendFolder(local, path);
+		updating(local);
+		for (String name : store.getFiles(path)) {
+			String localFile = RepositoryStore.append(local, name);
+			Revision head = store.getHead(RepositoryStore.append(path, name));
+			String entryRevision = getEntryRevision(localFile);
+			if (head.getRevision().equals(entryRevision) && !modified.containsKey(localFile)) {
+				continue;
+			}
+			sendFile(entryRevision == null ? "Created" : "Updated", localFile, RepositoryStore.append(path, name), head);
+			message("U " + localFile);
+		}
+		if (!recurse) {
+			return;
+		}
+		for (String name : store.getFolders(path)) {
+			String child = RepositoryStore.append(path, name);
+			if (!prune || hasFiles(child)) {
+				checkoutFolder(RepositoryStore.append(local, name), child, true, prune);
+			}
+		}
+	}
+
+	private void update(Options options) throws IOException {
+		boolean dryRun = globalOptions.contains("-n");
+		for (String target : options.getTargets()) {
+			String path = getRepositoryPath(target);
+			if (path != null && store.isFolder(path)) {
+				updateFolder(target, path, options, dryRun);
+			} else if (directories.containsKey(target)) {
+				error("skipping directory " + target);
+			} else if (path != null) {
+				updateFile(target, path, options.has("-C"), dryRun);
+			} else {
+				error("nothing known about " + target);
+			}
+		}
+	}
+
+	private void updateFolder(String local, String path, Options options, boolean dryRun) throws IOException {
+		updating(local);
+		Set<String> names = new TreeSet<>(store.getFiles(path));
+		names.addAll(entryNames.getOrDefault(local, Collections.emptySet()));
+		for (String name : names) {
+			updateFile(RepositoryStore.append(local, name), RepositoryStore.append(path, name), options.has("-C"), dryRun);
+		}
+		if (options.has("-l")) {
+			return;
+		}
+		Set<String> folders = new TreeSet<>(store.getFolders(path));
+		Set<String> knownFolders = childDirectories.getOrDefault(local, Collections.emptySet());
+		folders.addAll(knownFolders);
+		for (String name : folders) {
+			String childLocal = RepositoryStore.append(local, name);
+			String childPath = directories.getOrDefault(childLocal, RepositoryStore.append(path, name));
+			if (!store.isFolder(childPath)) {
+				error("skipping directory " + childLocal);
+			} else if (knownFolders.contains(name)) {
+				updateFolder(childLocal, childPath, options, dryRun);
+			} else if (options.has("-d")) {
+				if (options.has("-P") && !hasFiles(childPath)) {
+					continue;
+				}
+				if (!dryRun) {
+					sendFolder(childLocal, childPath);
+				}
+				updateFolder(childLocal, childPath, options, dryRun);
+			} else {
+				error("New directory `" + childLocal + "' -- ignored");
+			}
+		}
+	}
+
+	private void updateFile(String local, String path, boolean overwrite, boolean dryRun) throws IOException {
+		Revision head = store.getHead(path);
+		String entryRevision = getEntryRevision(local);
+		boolean isModified = !overwrite && modified.containsKey(local);
+		if (entryRevision == null) {
+			if (head != null) {
+				if (!dryRun) {
+					sendFile("Created", local, path, head);
+				}
+				message("U " + local);
+			}
+		} else if (entryRevision.equals("0")) {
+			if (head == null) {
+				message("A " + local);
+			} else {
+				error("conflict: " + local + " created independently by second party");
+				message("C " + local);
+			}
+		} else if (entryRevision.startsWith("-")) {
+			message("R " + local);
+		} else if (head == null) {
+			if (isModified) {
+				error("conflict: `" + local + "' is modified but no longer in the repository");
+				message("C " + local);
+			} else {
+				error("`" + local + "' is no longer in the repository");
+				if (!dryRun) {
+					line("Removed " + toResponseDirectory(RepositoryStore.getParent(local)));
+					line(toRepositoryFile(path));
+				}
+			}
+		} else if (head.getRevision().equals(entryRevision) && (overwrite || !modified.containsKey(local))) {
+			// Up-to-date
+		} else if (head.getRevision().equals(entryRevision)) {
+			message("M " + local);
+		} else if (isModified) {
+			// Merges are not supported
+			message("C " + local);
+		} else {
+			if (!dryRun) {
+				sendFile("Updated", local, path, head);
+			}
+			message("U " + local);
+		}
+	}
+
+	private void commit(Options options) throws IOException {
+		String comment = options.has("-m") ? options.get("-m") : "";
+		// Perform the up-to-date check of all the files before committing any of them
+		for (String local : options.arguments) {
+			String entryRevision = getEntryRevision(local);
+			String path = getRepositoryPath(local);
+			Revision head = path == null ? null : store.getHead(path);
+			if (entryRevision == null || path == null) {
+				error("nothing known about `" + local + "'");
+				failed = true;
+			} else if (entryRevision.equals("0")) {
+				if (head != null) {
+					error("`" + local + "' already exists");
+					failed = true;
+				}
+			} else if (!entryRevision.startsWith("-") && (head == null || !head.getRevision().equals(entryRevision))) {
+				error("Up-to-date check failed for `" + local + "'");
+				failed = true;
+			}
+		}
+		if (failed) {
+			line("E cvs [server aborted]: correct above errors first!");
+			return;
+		}
+		for (String local : options.arguments) {
+			String path = getRepositoryPath(local);
+			String name = RepositoryStore.getName(local);
+			String directory = toResponseDirectory(RepositoryStore.getParent(local));
+			String entryRevision = getEntryRevision(local);
+			if (entryRevision.startsWith("-")) {
+				store.remove(path, user, comment);
+				message(toRCSFile(path) + "  <--  " + name);
+				message("new revision: delete; previous revision: " + entryRevision.substring(1));
+				line("Remove-entry " + directory);
+				line(toRepositoryFile(path));
+			} else if (modified.get(local) != null) {
+				String keywordMode = keywordModes.getOrDefault(local, getEntryField(local, 4));
+				Revision revision = store.commit(path, modified.get(local), keywordMode, user, comment);
+				message(toRCSFile(path) + "  <--  " + name);
+				message(entryRevision.equals("0") ? "initial revision: " + revision.getRevision()
+						: "new revision: " + revision.getRevision() + "; previous revision: " + entryRevision);
+				line("Checked-in " + directory);
+				line(toRepositoryFile(path));
+				line("/" + name + "/" + revision.getRevision() + "//" + keywordMode + "/");
+			}
+		}
+	}
+
+	private void add(Options options) throws IOException {
+		String optionMode = options.getKeywordMode();
+		for (String local : options.arguments) {
+			String path = getRepositoryPath(local);
+			String name = RepositoryStore.getName(local);
+			if (path == null) {
+				error("nothing known about `" + local + "'");
+				failed = true;
+			} else if (directories.containsKey(local)) {
+				store.createFolder(path);
+				message("Directory " + FakeCVSServer.REPOSITORY_ROOT + "/" + path + " added to the repository");
+			} else if (store.getHead(path) != null) {
+				error("`" + local + "' already exists, with version number " + store.getHead(path).getRevision());
+				failed = true;
+			} else {
+				String keywordMode = optionMode != null ? optionMode : keywordModes.getOrDefault(local, "");
+				error("scheduling file `" + name + "' for addition");
+				line("Checked-in " + toResponseDirectory(RepositoryStore.getParent(local)));
+				line(toRepositoryFile(path));
+				line("/" + name + "/0//" + keywordMode + "/");
+			}
+		}
+	}
+
+	private void remove(Options options) throws IOException {
+		for (String local : options.arguments) {
+			String entryRevision = getEntryRevision(local);
+			String path = getRepositoryPath(local);
+			String name = RepositoryStore.getName(local);
+			if (entryRevision == null || path == null || entryRevision.equals("0") || entryRevision.startsWith("-")) {
+				error("nothing known about `" + local + "'");
+				continue;
+			}
+			error("scheduling `" + name + "' for removal");
+			line("Checked-in " + toResponseDirectory(RepositoryStore.getParent(local)));
+			line(toRepositoryFile(path));
+			line("/" + name + "/-" + entryRevision + "//" + getEntryField(local, 4) + "/");
+		}
+	}
+
+	private void status(Options options) throws IOException {
+		for (String target : options.getTargets()) {
+			String path = getRepositoryPath(target);
+			if (path != null && store.isFolder(path)) {
+				statusFolder(target, path, !options.has("-l"));
+			} else if (path != null) {
+				statusFile(target, path);
+			} else {
+				error("nothing known about " + target);
+			}
+		}
+	}
+
+	private void statusFolder(String local, String path, boolean recurse) throws IOException {
+		if (!isQuiet()) {
+			error("Examining " + (local.isEmpty() ? "." : local));
+		}
+		Set<String> names = new TreeSet<>(store.getFiles(path));
+		names.addAll(entryNames.getOrDefault(local, Collections.emptySet()));
+		for (String name : names) {
+			statusFile(RepositoryStore.append(local, name), RepositoryStore.append(path, name));
+		}
+		if (recurse) {
+			for (String name : childDirectories.getOrDefault(local, Collections.emptySet())) {
+				String childLocal = RepositoryStore.append(local, name);
+				statusFolder(childLocal, directories.get(childLocal), true);
+			}
+		}
+	}
+
+	private void statusFile(String local, String path) throws IOException {
+		Revision head = store.getHead(path);
+		String entryRevision = getEntryRevision(local);
+		boolean isModified = modified.containsKey(local);
+		String name = RepositoryStore.getName(local);
+		String status;
+		if (entryRevision == null) {
+			status = head == null ? "Unknown" : "Needs Checkout";
+		} else if (entryRevision.equals("0")) {
+			status = "Locally Added";
+		} else if (entryRevision.startsWith("-")) {
+			status = "Locally Removed";
+		} else if (head == null) {
+			status = "Entry Invalid";
+		} else if (head.getRevision().equals(entryRevision)) {
+			status = isModified ? "Locally Modified" : "Up-to-date";
+		} else {
+			status = isModified ? "Needs Merge" : "Needs Patch";
+		}
+		String keywordMode = head == null ? "" : head.getKeywordMode();
+		message("===================================================================");
+		message("File: " + name + "\tStatus: " + status);
+		message("");
+		message("   Working revision:\t" + (entryRevision == null ? "No entry for " + name : entryRevision));
+		message("   Repository revision:\t" + (head == null ? "No revision control file" : head.getRevision() + "\t" + toRCSFile(path)));
+		message("   Sticky Tag:\t\t(none)");
+		message("   Sticky Date:\t\t(none)");
+		message("   Sticky Options:\t" + (keywordMode.isEmpty() ? "(none)" : keywordMode));
+		message("");
+	}
+
+	private void log(Options options, boolean remote) throws IOException {
+		for (String target : options.arguments.isEmpty() && !remote ? options.getTargets() : options.arguments) {
+			String path = remote ? target : getRepositoryPath(target);
+			if (path != null && store.isFolder(path)) {
+				logFolder(remote ? null : target, path);
+			} else if (path != null && !store.getLog(path).isEmpty()) {
+				logFile(remote ? null : target, path);
+			} else {
+				error("nothing known about " + target);
+			}
+		}
+	}
+
+	private void logFolder(String local, String path) throws IOException {
+		if (!isQuiet()) {
+			error("Logging " + (local == null ? path : local.isEmpty() ? "." : local));
+		}
+		Set<String> names = new TreeSet<>(store.getFiles(path));
+		if (local != null) {
+			names.addAll(entryNames.getOrDefault(local, Collections.emptySet()));
+		}
+		for (String name : names) {
+			String child = RepositoryStore.append(path, name);
+			if (!store.getLog(child).isEmpty()) {
+				logFile(local == null ? null : RepositoryStore.append(local, name), child);
+			}
+		}
+		Collection<String> folders = local == null ? store.getFolders(path) : childDirectories.getOrDefault(local, Collections.emptySet());
+		for (String name : folders) {
+			if (local == null) {
+				logFolder(null, RepositoryStore.append(path, name));
+			} else {
+				String childLocal = RepositoryStore.append(local, name);
+				logFolder(childLocal, directories.get(childLocal));
+			}
+		}
+	}
+
+	private void logFile(String local, String path) throws IOException {
+		List<Revision> log = store.getLog(path);
+		String keywordMode = log.get(0).getKeywordMode();
+		message("");
+		message("RCS file: " + toRCSFile(path));
+		if (local != null) {
+			message("Working file: " + local);
+		}
+		message("head: " + log.get(0).getRevision());
+		message("branch:");
+		message("locks: strict");
+		message("access list:");
+		message("symbolic names:");
+		message("keyword substitution: " + (keywordMode.isEmpty() ? "kv" : keywordMode.substring(2)));
+		message("total revisions: " + log.size() + ";\tselected revisions: " + log.size());
+		message("description:");
+		for (Revision revision : log) {
+			message("----------------------------");
+			message("revision " + revision.getRevision());
+			message("date: " + logDateFormat.format(new Date(revision.getDate())) + ";  author: " + revision.getAuthor()
+					+ ";  state: " + (revision.isDead() ? "dead" : "Exp") + ";");
+			String comment = revision.getComment().isEmpty() ? "*** empty log message ***" : revision.getComment();
+			for (String line : comment.split("\n")) {
+				message(line);
+			}
+		}
+		message("=============================================================================");
+	}
+
+	/* ------------------------------------------------------------------
+	 * Responses
+	 * ------------------------------------------------------------------ */
+
+	private void sendFolder(String local, String path) throws IOException {
+		String repositoryDirectory = FakeCVSServer.REPOSITORY_ROOT + "/" + (path.isEmpty() ? "" : path + "/");
+		line("Clear-sticky " + toResponseDirectory(local));
+		line(repositoryDirectory);
+		line("Clear-static-directory " + toResponseDirectory(local));
+		line(repositoryDirectory);
+	}
+
+	private void sendFile(String responseId, String local, String path, Revision revision) throws IOException {
+		byte[] contents = store.getContents(path, revision.getRevision());
+		line("Mod-time " + modTimeFormat.format(new Date(revision.getDate())));
+		line(responseId + " " + toResponseDirectory(RepositoryStore.getParent(local)));
+		line(toRepositoryFile(path));
+		line("/" + RepositoryStore.getName(path) + "/" + revision.getRevision() + "//" + revision.getKeywordMode() + "/");
+		line(PERMISSIONS);
+		line(Integer.toString(contents.length));
+		response.write(contents);
+	}
+
+	private void updating(String local) throws IOException {
+		if (!isQuiet()) {
+			error("Updating " + (local.isEmpty() ? "." : local));
+		}
+	}
+
+	private void message(String message) throws IOException {
+		line("M " + message);
+	}
+
+	private void error(String message) throws IOException {
+		line("E " + SERVER_PREFIX + message);
+	}
+
+	private void line(String line) throws IOException {
+		response.write(line.getBytes(StandardCharsets.UTF_8));
+		response.write('\n');
+	}
+
+	/*
+	 * Complete the response to a request and forget the state sent for it
+	 */
+	private void respond() throws IOException {
+		line(failed ? "error  " : "ok");
+		long latency = server.getLatency();
+		if (latency > 0) {
+			sleep(TimeUnit.MILLISECONDS.toNanos(latency));
+		}
+		send();
+		server.responseSent();
+		directories.clear();
+		childDirectories.clear();
+		entries.clear();
+		entryNames.clear();
+		modified.clear();
+		keywordModes.clear();
+		arguments.clear();
+		globalOptions.clear();
+		currentDirectory = "";
+		pendingKeywordMode = null;
+		failed = false;
+	}
+
+	/*
+	 * Write the buffered response at the simulated bandwidth
+	 */
+	private void send() throws IOException {
+		byte[] bytes = response.toByteArray();
+		response.reset();
+		int bandwidth = server.getBandwidth();
+		if (bandwidth <= 0) {
+			out.write(bytes);
+			out.flush();
+			return;
+		}
+		long start = System.nanoTime();
+		int chunk = Math.max(1, Math.min(CHUNK_SIZE, bandwidth / 10));
+		for (int offset = 0; offset < bytes.length; offset += chunk) {
+			int length = Math.min(chunk, bytes.length - offset);
+			out.write(bytes, offset, length);
+			out.flush();
+			long elapsed = System.nanoTime() - start;
+			sleep((offset + length) * TimeUnit.SECONDS.toNanos(1) / bandwidth - elapsed);
+		}
+	}
+
+	private static void sleep(long nanos) throws IOException {
+		if (nanos <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	private String readLine() throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != -1 && b != '\n') {
+			line.write(b);
+		}
+		if (b == -1 && line.size() == 0) {
+			return null;
+		}
+		return new String(line.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/* ------------------------------------------------------------------
+	 * Paths
+	 * ------------------------------------------------------------------ */
+
+	private boolean isQuiet() {
+		return globalOptions.contains("-q") || globalOptions.contains("-Q");
+	}
+
+	private boolean hasFiles(String path) {
+		if (!store.getFiles(path).isEmpty()) {
+			return true;
+		}
+		for (String name : store.getFolders(path)) {
+			if (hasFiles(RepositoryStore.append(path, name))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String getEntryRevision(String local) {
+		return getEntryField(local, 2);
+	}
+
+	private String getEntryField(String local, int field) {
+		String entryLine = entries.get(local);
+		if (entryLine == null) {
+			return field == 2 ? null : "";
+		}
+		String[] fields = entryLine.split("/", -1);
+		return field < fields.length ? fields[field] : "";
+	}
+
+	/*
+	 * Return the repository path of the given local path using the
+	 * directories sent by the client or null if it is unknown.
+	 */
+	private String getRepositoryPath(String local) {
+		String path = directories.get(local);
+		if (path != null || local.isEmpty()) {
+			return path;
+		}
+		String parent = getRepositoryPath(RepositoryStore.getParent(local));
+		return parent == null ? null : RepositoryStore.append(parent, RepositoryStore.getName(local));
+	}
+
+	private static String normalize(String local) {
+		String result = local;
+		while (result.startsWith("./")) {
+			result = result.substring(2);
+		}
+		if (result.equals(".")) {
+			return "";
+		}
+		while (result.endsWith("/")) {
+			result = result.substring(0, result.length() - 1);
+		}
+		return result;
+	}
+
+	private static String toRepositoryPath(String repositoryDirectory) {
+		String path = repositoryDirectory;
+		if (path.startsWith(FakeCVSServer.REPOSITORY_ROOT)) {
+			path = path.substring(FakeCVSServer.REPOSITORY_ROOT.length());
+		}
+		while (path.startsWith("/")) {
+			path = path.substring(1);
+		}
+		return normalize(path);
+	}
+
+	private static String toResponseDirectory(String local) {
+		return local.isEmpty() ? "./" : local + "/";
+	}
+
+	private static String toRepositoryFile(String path) {
+		return FakeCVSServer.REPOSITORY_ROOT + "/" + path;
+	}
+
+	private static String toRCSFile(String path) {
+		return toRepositoryFile(path) + ",v";
+	}
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.server;
+
+import java.io.IOException;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process stand-in for a CVS server that is used to measure the client
+ * without the noise of a real server and network.
+ * <p>
+ * The server listens on a loopback socket and speaks the pserver protocol so the
+ * regular connection and session code of the client is exercised. Any user and
+ * password are accepted. The files are served from a {@link RepositoryStore}.
+ * The subset of the client/server protocol that is needed for checkout, update,
+ * commit, add, remove, status and log of the trunk is supported (see
+ * <code>FakeCVSConnection</code>); merges, tags and imports are not.</p>
+ * <p>
+ * The latency and bandwidth of a remote server can be simulated: the latency is added
+ * to each response (i.e. to each round trip of the client) and the responses are
+ * written at no more than the given bandwidth.</p>
+ */
+public class FakeCVSServer {
+
+	/**
+	 * The repository root of the server
+	 */
+	public static final String REPOSITORY_ROOT = "/fakeroot";
+
+	private final RepositoryStore store;
+	private volatile long latency;
+	private volatile int bandwidth;
+	private final AtomicLong roundTrips = new AtomicLong();
+	private final List<Socket> sockets = Collections.synchronizedList(new ArrayList<>());
+	private ServerSocket serverSocket;
+
+	/**
+	 * Create a server for the given store. The server must be started before it is used.
+	 * @param store the store that contains the files of the repository
+	 */
+	public FakeCVSServer(RepositoryStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Start accepting connections on a free loopback port.
+	 * @throws IOException
+	 */
+	public synchronized void start() throws IOException {
+		if (serverSocket != null) throw new IllegalStateException();
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		final ServerSocket socket = serverSocket;
+		Thread acceptor = new Thread(() -> accept(socket), "Fake CVS Server");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	private void accept(ServerSocket socket) {
+		while (!socket.isClosed()) {
+			try {
+				Socket client = socket.accept();
+				client.setTcpNoDelay(true);
+				sockets.add(client);
+				Thread thread = new Thread(() -> {
+					try {
+						new FakeCVSConnection(this, client).run();
+					} finally {
+						sockets.remove(client);
+					}
+				}, "Fake CVS Server Connection");
+				thread.setDaemon(true);
+				thread.start();
+			} catch (IOException e) {
+				// The server socket was closed
+			}
+		}
+	}
+
+	/**
+	 * Stop the server and close any open connections.
+	 */
+	public synchronized void stop() {
+		if (serverSocket == null) return;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// Ignore
+		}
+		serverSocket = null;
+		synchronized (sockets) {
+			for (Socket socket : sockets) {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// Ignore
+				}
+			}
+			sockets.clear();
+		}
+	}
+
+	/**
+	 * Return the repository location string that can be used to connect to the server.
+	 * @return the location of the running server
+	 */
+	public synchronized String getLocation() {
+		if (serverSocket == null) throw new IllegalStateException();
+		return ":pserver:bench:bench@" + serverSocket.getInetAddress().getHostAddress() + "#" + serverSocket.getLocalPort() + ":" + REPOSITORY_ROOT;
+	}
+
+	public RepositoryStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Set the delay that is added before each response is sent.
+	 * @param millis the delay in milliseconds or 0 for no delay
+	 */
+	public void setLatency(long millis) {
+		this.latency = millis;
+	}
+
+	public long getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Set the rate at which responses are written.
+	 * @param bytesPerSecond the rate in bytes per second or 0 for no limit
+	 */
+	public void setBandwidth(int bytesPerSecond) {
+		this.bandwidth = bytesPerSecond;
+	}
+
+	public int getBandwidth() {
+		return bandwidth;
+	}
+
+	/**
+	 * Return the number of responses sent by the server since it was created or the
+	 * count was last reset. Each response is a round trip of the client.
+	 * @return the number of round trips
+	 */
+	public long getRoundTrips() {
+		return roundTrips.get();
+	}
+
+	public void resetRoundTrips() {
+		roundTrips.set(0);
+	}
+
+	/* package */ void responseSent() {
+		roundTrips.incrementAndGet();
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.server;
+
+import java.io.IOException;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.TestsUserAuthenticator;
+
+import junit.framework.Test;
+
+/**
+ * Runs the tests against a {@link FakeCVSServer} instead of the repository
+ * configured for the test run. The repository used by the other tests is
+ * restored when the tests are done.
+ */
+public class FakeCVSServerSetup extends CVSTestSetup {
+
+	private static FakeCVSServer server;
+
+	private final RepositoryStore store;
+	private CVSRepositoryLocation previousRepository;
+
+	/**
+	 * Return the server the tests are running against.
+	 * @return the running server
+	 */
+	public static FakeCVSServer getServer() {
+		return server;
+	}
+
+	public FakeCVSServerSetup(Test test) {
+		this(test, new InMemoryRepositoryStore());
+	}
+
+	public FakeCVSServerSetup(Test test, RepositoryStore store) {
+		super(test);
+		this.store = store;
+	}
+
+	@Override
+	public void setUp() throws CoreException {
+		server = new FakeCVSServer(store);
+		try {
+			server.start();
+		} catch (IOException e) {
+			throw CVSException.wrapException(e);
+		}
+		CVSRepositoryLocation location = (CVSRepositoryLocation)KnownRepositories.getInstance().getRepository(server.getLocation());
+		KnownRepositories.getInstance().addRepository(location, false);
+		location.setUserAuthenticator(new TestsUserAuthenticator());
+		location.validateConnection(new NullProgressMonitor());
+		previousRepository = repository;
+		repository = location;
+		super.setUp();
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		try {
+			if (repository != null) {
+				KnownRepositories.getInstance().disposeRepository(repository);
+			}
+			repository = previousRepository;
+			server.stop();
+			server = null;
+		} finally {
+			super.tearDown();
+		}
+	}
+}
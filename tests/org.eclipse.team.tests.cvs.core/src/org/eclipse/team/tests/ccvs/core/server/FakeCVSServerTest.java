@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.server;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.Command;
+import org.eclipse.team.internal.ccvs.core.client.Session;
+import org.eclipse.team.internal.ccvs.core.client.listeners.ICommandOutputListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.StatusListener;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+import org.eclipse.team.tests.ccvs.core.server.RepositoryStore.Revision;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that the responses of the {@link FakeCVSServer} are understood by the
+ * client, i.e. that the regular session and command code produce the same
+ * local state and the same parsed output as they would against a real server.
+ */
+public class FakeCVSServerTest extends EclipseTest {
+
+	private static final String AUTHOR = "tester";
+
+	public FakeCVSServerTest() {
+		super();
+	}
+
+	public FakeCVSServerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new FakeCVSServerSetup(new TestSuite(FakeCVSServerTest.class));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		FakeCVSServer server = FakeCVSServerSetup.getServer();
+		server.setLatency(0);
+		server.setBandwidth(0);
+		super.tearDown();
+	}
+
+	private RepositoryStore getStore() {
+		return FakeCVSServerSetup.getServer().getStore();
+	}
+
+	/*
+	 * Create a module with a text file, a binary file and a nested folder
+	 */
+	private String createModule() {
+		String module = "fake" + System.currentTimeMillis() + getName();
+		getStore().commit(module + "/file1.txt", "file1\n".getBytes(), "", AUTHOR, "Add file1");
+		getStore().commit(module + "/file2.bin", new byte[] { 0, 1, 2, 3 }, "-kb", AUTHOR, "Add file2");
+		getStore().commit(module + "/folder1/file3.txt", "file3\n".getBytes(), "", AUTHOR, "Add file3");
+		return module;
+	}
+
+	private IProject checkout(String module) throws CoreException {
+		IProject project = getUniqueTestProject(getName());
+		return checkoutProject(project, module, null);
+	}
+
+	private ResourceSyncInfo getSyncInfo(IFile file) throws CVSException {
+		return CVSWorkspaceRoot.getCVSFileFor(file).getSyncInfo();
+	}
+
+	private void assertRevision(IFile file, String revision) throws CVSException {
+		ResourceSyncInfo info = getSyncInfo(file);
+		assertNotNull("No sync info for " + file.getFullPath(), info);
+		assertEquals(file.getFullPath().toString(), revision, info.getRevision());
+	}
+
+	private void execute(IProject project, Command command, ICommandOutputListener listener) throws CVSException {
+		Session session = new Session(getRepository(), CVSWorkspaceRoot.getCVSFolderFor(project), false);
+		session.open(DEFAULT_MONITOR, false /* read-only */);
+		try {
+			IStatus status = command.execute(session, Command.NO_GLOBAL_OPTIONS, Command.NO_LOCAL_OPTIONS,
+					new String[] { "." }, listener, DEFAULT_MONITOR);
+			assertTrue(status.getMessage(), status.getCode() != CVSStatus.SERVER_ERROR);
+		} finally {
+			session.close();
+		}
+	}
+
+	public void testCheckout() throws CoreException, TeamException {
+		String module = createModule();
+		IProject project = checkout(module);
+		assertEquals(module, CVSWorkspaceRoot.getCVSFolderFor(project).getFolderSyncInfo().getRepository());
+		assertContentsEqual(project.getFile("file1.txt"), "file1\n");
+		assertContentsEqual(project.getFile("folder1/file3.txt"), "file3\n");
+		assertRevision(project.getFile("file1.txt"), "1.1");
+		assertRevision(project.getFile("folder1/file3.txt"), "1.1");
+		assertEquals("-kb", getSyncInfo(project.getFile("file2.bin")).getKeywordMode().toMode());
+		assertEquals(module + "/folder1", CVSWorkspaceRoot.getCVSFolderFor(project.getFolder("folder1")).getFolderSyncInfo().getRepository());
+		assertNotModified("checkout", project);
+	}
+
+	public void testRemoteTreeMatchesCheckout() throws Exception {
+		String module = createModule();
+		IProject project = checkout(module);
+		assertLocalStateEqualsRemote(project);
+	}
+
+	public void testUpdate() throws CoreException, TeamException {
+		String module = createModule();
+		IProject project = checkout(module);
+		getStore().commit(module + "/file1.txt", "file1 changed\n".getBytes(), "", AUTHOR, "Change file1");
+		getStore().commit(module + "/folder2/file4.txt", "file4\n".getBytes(), "", AUTHOR, "Add file4");
+		getStore().remove(module + "/folder1/file3.txt", AUTHOR, "Remove file3");
+		updateProject(project, null, false);
+		assertContentsEqual(project.getFile("file1.txt"), "file1 changed\n");
+		assertRevision(project.getFile("file1.txt"), "1.2");
+		assertContentsEqual(project.getFile("folder2/file4.txt"), "file4\n");
+		assertRevision(project.getFile("folder2/file4.txt"), "1.1");
+		assertFalse(project.getFile("folder1/file3.txt").exists());
+		assertNotModified("update", project);
+	}
+
+	public void testCommit() throws Exception {
+		String module = createModule();
+		IProject project = checkout(module);
+		setContentsAndEnsureModified(project.getFile("file1.txt"), "file1 changed\n");
+		IFile newFile = project.getFile("folder1/file5.txt");
+		newFile.create(new ByteArrayInputStream("file5\n".getBytes()), false, null);
+		addResources(new IFile[] { newFile });
+		deleteResources(project, new String[] { "file2.bin" }, false);
+		commitProject(project);
+
+		Revision head = getStore().getHead(module + "/file1.txt");
+		assertEquals("1.2", head.getRevision());
+		assertTrue(Arrays.equals("file1 changed\n".getBytes(), getStore().getContents(module + "/file1.txt", "1.2")));
+		assertRevision(project.getFile("file1.txt"), "1.2");
+		assertEquals("1.1", getStore().getHead(module + "/folder1/file5.txt").getRevision());
+		assertRevision(newFile, "1.1");
+		assertNull(getStore().getHead(module + "/file2.bin"));
+		assertTrue(getStore().getLog(module + "/file2.bin").get(0).isDead());
+		assertNotModified("commit", project);
+		assertLocalStateEqualsRemote(project);
+	}
+
+	public void testStatus() throws CoreException, TeamException {
+		String module = createModule();
+		IProject project = checkout(module);
+		getStore().commit(module + "/file1.txt", "file1 changed\n".getBytes(), "", AUTHOR, "Change file1");
+		Map<String, String> revisions = new HashMap<>();
+		execute(project, Command.STATUS, new StatusListener((commandRoot, path, remoteRevision) -> revisions.put(path, remoteRevision)));
+		String root = FakeCVSServer.REPOSITORY_ROOT + "/" + module;
+		assertEquals(3, revisions.size());
+		assertEquals("1.2", revisions.get(root + "/file1.txt"));
+		assertEquals("1.1", revisions.get(root + "/file2.bin"));
+		assertEquals("1.1", revisions.get(root + "/folder1/file3.txt"));
+	}
+
+	public void testLog() throws CoreException, TeamException {
+		String module = createModule();
+		getStore().commit(module + "/file1.txt", "file1 changed\n".getBytes(), "", AUTHOR, "Change file1\non two lines");
+		getStore().remove(module + "/file2.bin", AUTHOR, "Remove file2");
+		IProject project = checkout(module);
+		List<ILogEntry> entries = new ArrayList<>();
+		execute(project, Command.LOG, new LogListener(entries::add));
+		Map<String, ILogEntry> byRevision = new HashMap<>();
+		for (ILogEntry entry : entries) {
+			byRevision.put(entry.getRemoteFile().getRepositoryRelativePath() + " " + entry.getRevision(), entry);
+		}
+		assertEquals(3, entries.size());
+		ILogEntry change = byRevision.get(module + "/file1.txt 1.2");
+		assertNotNull(change);
+		assertEquals(AUTHOR, change.getAuthor());
+		assertEquals("Change file1\non two lines", change.getComment());
+		assertFalse(change.isDeletion());
+		assertEquals(getStore().getHead(module + "/file1.txt").getDate(), change.getDate().getTime());
+		assertEquals("Add file1", byRevision.get(module + "/file1.txt 1.1").getComment());
+		assertEquals("Add file3", byRevision.get(module + "/folder1/file3.txt 1.1").getComment());
+		// The removed file is not in the project so its log is not requested
+		assertNull(byRevision.get(module + "/file2.bin 1.2"));
+	}
+
+	public void testLatency() throws CoreException {
+		String module = createModule();
+		FakeCVSServer server = FakeCVSServerSetup.getServer();
+		server.setLatency(50);
+		server.resetRoundTrips();
+		long start = System.currentTimeMillis();
+		IProject project = checkout(module);
+		long elapsed = System.currentTimeMillis() - start;
+		long roundTrips = server.getRoundTrips();
+		assertTrue(roundTrips > 0);
+		assertTrue(elapsed >= roundTrips * 50);
+		assertContentsEqual(project.getFile("file1.txt"), "file1\n");
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.server;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A repository store that keeps the revisions on disk so that large repositories
+ * can be served without holding them in memory. The layout mimics a CVS repository
+ * but does not use the RCS format: the file <code>folder/name</code> is a directory
+ * <code>folder/name,v</code> that contains one file per revision and a
+ * <code>history</code> file with one line per revision.
+ */
+public class FileSystemRepositoryStore extends RepositoryStore {
+
+	private static final String RCS_SUFFIX = ",v";
+	private static final String HISTORY = "history";
+
+	private final File root;
+
+	/**
+	 * Create a store in the given directory. The directory is created if
+	 * it does not exist and any revisions it already contains are served.
+	 * @param root the directory of the store
+	 */
+	public FileSystemRepositoryStore(File root) {
+		this.root = root;
+		root.mkdirs();
+	}
+
+	private File getFolder(String path) {
+		return path.isEmpty() ? root : new File(root, path);
+	}
+
+	private File getRCSFolder(String path) {
+		return new File(root, path + RCS_SUFFIX);
+	}
+
+	@Override
+	public synchronized boolean isFolder(String path) {
+		return !path.endsWith(RCS_SUFFIX) && getFolder(path).isDirectory();
+	}
+
+	@Override
+	public synchronized List<String> getFolders(String path) {
+		return list(path, false);
+	}
+
+	@Override
+	protected synchronized List<String> getFileNames(String path) {
+		return list(path, true);
+	}
+
+	private List<String> list(String path, boolean rcsFolders) {
+		File[] children = getFolder(path).listFiles(File::isDirectory);
+		if (children == null) {
+			return Collections.emptyList();
+		}
+		List<String> result = new ArrayList<>();
+		for (File child : children) {
+			String name = child.getName();
+			if (name.endsWith(RCS_SUFFIX) == rcsFolders) {
+				result.add(rcsFolders ? name.substring(0, name.length() - RCS_SUFFIX.length()) : name);
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	@Override
+	public synchronized List<Revision> getLog(String path) {
+		File history = new File(getRCSFolder(path), HISTORY);
+		if (!history.exists()) {
+			return Collections.emptyList();
+		}
+		LinkedList<Revision> result = new LinkedList<>();
+		try {
+			for (String line : Files.readAllLines(history.toPath(), StandardCharsets.UTF_8)) {
+				String[] fields = line.split("\t", -1);
+				result.addFirst(new Revision(fields[0], Long.parseLong(fields[1]), unescape(fields[2]), unescape(fields[5]), fields[3], Boolean.parseBoolean(fields[4])));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized byte[] getContents(String path, String revision) {
+		File file = new File(getRCSFolder(path), revision);
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			return Files.readAllBytes(file.toPath());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public synchronized void createFolder(String path) {
+		getFolder(path).mkdirs();
+	}
+
+	@Override
+	protected synchronized void addRevision(String path, Revision revision, byte[] contents) {
+		File folder = getRCSFolder(path);
+		folder.mkdirs();
+		String line = revision.getRevision() + '\t' + revision.getDate() + '\t' + escape(revision.getAuthor()) + '\t'
+				+ revision.getKeywordMode() + '\t' + revision.isDead() + '\t' + escape(revision.getComment()) + '\n';
+		try {
+			Files.write(new File(folder, revision.getRevision()).toPath(), contents);
+			Files.write(new File(folder, HISTORY).toPath(), line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+	}
+
+	private static String unescape(String value) {
+		StringBuilder result = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' && i + 1 < value.length()) {
+				c = value.charAt(++i);
+				result.append(c == 't' ? '\t' : c == 'n' ? '\n' : c);
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.server;
+
+import java.util.*;
+
+/**
+ * A repository store that keeps all the revisions in memory.
+ */
+public class InMemoryRepositoryStore extends RepositoryStore {
+
+	private final Map<String, SortedSet<String>> folders = new HashMap<>();
+	private final Map<String, SortedSet<String>> files = new HashMap<>();
+	private final Map<String, LinkedList<Revision>> logs = new HashMap<>();
+	private final Map<String, Map<String, byte[]>> contents = new HashMap<>();
+
+	public InMemoryRepositoryStore() {
+		folders.put("", new TreeSet<>());
+	}
+
+	@Override
+	public synchronized boolean isFolder(String path) {
+		return folders.containsKey(path);
+	}
+
+	@Override
+	public synchronized List<String> getFolders(String path) {
+		SortedSet<String> children = folders.get(path);
+		return children == null ? Collections.emptyList() : new ArrayList<>(children);
+	}
+
+	@Override
+	protected synchronized List<String> getFileNames(String path) {
+		SortedSet<String> children = files.get(path);
+		return children == null ? Collections.emptyList() : new ArrayList<>(children);
+	}
+
+	@Override
+	public synchronized List<Revision> getLog(String path) {
+		List<Revision> log = logs.get(path);
+		return log == null ? Collections.emptyList() : new ArrayList<>(log);
+	}
+
+	@Override
+	public synchronized byte[] getContents(String path, String revision) {
+		Map<String, byte[]> revisions = contents.get(path);
+		return revisions == null ? null : revisions.get(revision);
+	}
+
+	@Override
+	public synchronized void createFolder(String path) {
+		if (folders.containsKey(path)) {
+			return;
+		}
+		String parent = getParent(path);
+		createFolder(parent);
+		folders.get(parent).add(getName(path));
+		folders.put(path, new TreeSet<>());
+	}
+
+	@Override
+	protected synchronized void addRevision(String path, Revision revision, byte[] bytes) {
+		files.computeIfAbsent(getParent(path), folder -> new TreeSet<>()).add(getName(path));
+		logs.computeIfAbsent(path, file -> new LinkedList<>()).addFirst(revision);
+		contents.computeIfAbsent(path, file -> new HashMap<>()).put(revision.getRevision(), bytes);
+	}
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The files and revisions served by a {@link FakeCVSServer}. Paths are relative
+ * to the repository root and use '/' as the separator (e.g. <code>module/folder/file.txt</code>).
+ * The root folder is the empty path.
+ * <p>
+ * Only the trunk is supported: the revisions of a file are numbered 1.1, 1.2 and so on
+ * and a removed file is represented by a dead head revision, as in RCS. Subclasses provide
+ * the storage and must synchronize on the store since the server serves each connection
+ * in its own thread.</p>
+ */
+public abstract class RepositoryStore {
+
+	/**
+	 * A revision of a file.
+	 */
+	public static final class Revision {
+		private final String revision;
+		private final long date;
+		private final String author;
+		private final String comment;
+		private final String keywordMode;
+		private final boolean dead;
+
+		public Revision(String revision, long date, String author, String comment, String keywordMode, boolean dead) {
+			this.revision = revision;
+			this.date = date;
+			this.author = author;
+			this.comment = comment;
+			this.keywordMode = keywordMode;
+			this.dead = dead;
+		}
+
+		public String getRevision() {
+			return revision;
+		}
+
+		public long getDate() {
+			return date;
+		}
+
+		public String getAuthor() {
+			return author;
+		}
+
+		public String getComment() {
+			return comment;
+		}
+
+		/**
+		 * Return the keyword substitution mode of the revision (e.g. -kb)
+		 * or an empty string for the default mode.
+		 */
+		public String getKeywordMode() {
+			return keywordMode;
+		}
+
+		public boolean isDead() {
+			return dead;
+		}
+	}
+
+	/**
+	 * Return whether the given path is a folder of the repository.
+	 */
+	public abstract boolean isFolder(String path);
+
+	/**
+	 * Return the sorted names of the folders contained in the given folder.
+	 */
+	public abstract List<String> getFolders(String path);
+
+	/**
+	 * Return the sorted names of the files contained in the given folder,
+	 * including the files whose head revision is dead.
+	 */
+	protected abstract List<String> getFileNames(String path);
+
+	/**
+	 * Return the revisions of the given file, the most recent first, or an empty
+	 * list if the file has never been committed.
+	 */
+	public abstract List<Revision> getLog(String path);
+
+	/**
+	 * Return the contents of the given revision of a file or <code>null</code>
+	 * if there is no such revision.
+	 */
+	public abstract byte[] getContents(String path, String revision);
+
+	/**
+	 * Create the given folder and any missing ancestors.
+	 */
+	public abstract void createFolder(String path);
+
+	/**
+	 * Store a new head revision for the given file whose parent folder exists.
+	 */
+	protected abstract void addRevision(String path, Revision revision, byte[] contents);
+
+	/**
+	 * Return the sorted names of the files of the given folder whose head revision
+	 * is not dead.
+	 */
+	public synchronized List<String> getFiles(String path) {
+		List<String> result = new ArrayList<>();
+		for (String name : getFileNames(path)) {
+			if (getHead(append(path, name)) != null) {
+				result.add(name);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the head revision of the given file or <code>null</code> if the file
+	 * does not exist or has been removed.
+	 */
+	public synchronized Revision getHead(String path) {
+		List<Revision> log = getLog(path);
+		if (log.isEmpty() || log.get(0).isDead()) {
+			return null;
+		}
+		return log.get(0);
+	}
+
+	/**
+	 * Commit new contents for the given file, creating the file (and its parent folders)
+	 * if it does not exist.
+	 * @param path the path of the file
+	 * @param contents the new contents
+	 * @param keywordMode the keyword substitution mode of the file (e.g. -kb) or an empty string
+	 * @param author the committer
+	 * @param comment the commit comment
+	 * @return the new revision
+	 */
+	public synchronized Revision commit(String path, byte[] contents, String keywordMode, String author, String comment) {
+		createFolder(getParent(path));
+		List<Revision> log = getLog(path);
+		String revision = log.isEmpty() ? "1.1" : nextRevision(log.get(0).getRevision());
+		Revision result = new Revision(revision, now(), author, comment, keywordMode, false);
+		addRevision(path, result, contents);
+		return result;
+	}
+
+	/**
+	 * Remove the given file by adding a dead revision.
+	 * @param path the path of the file
+	 * @param author the committer
+	 * @param comment the commit comment
+	 * @return the dead revision or <code>null</code> if the file does not exist
+	 */
+	public synchronized Revision remove(String path, String author, String comment) {
+		Revision head = getHead(path);
+		if (head == null) {
+			return null;
+		}
+		Revision result = new Revision(nextRevision(head.getRevision()), now(), author, comment, head.getKeywordMode(), true);
+		addRevision(path, result, new byte[0]);
+		return result;
+	}
+
+	/*
+	 * CVS only keeps seconds
+	 */
+	private static long now() {
+		return System.currentTimeMillis() / 1000 * 1000;
+	}
+
+	private static String nextRevision(String revision) {
+		int dot = revision.lastIndexOf('.');
+		return revision.substring(0, dot + 1) + (Integer.parseInt(revision.substring(dot + 1)) + 1);
+	}
+
+	/**
+	 * Return the path of the given child of a folder.
+	 */
+	public static String append(String folder, String name) {
+		return folder.isEmpty() ? name : folder + '/' + name;
+	}
+
+	/**
+	 * Return the path of the parent folder of the given path.
+	 */
+	public static String getParent(String path) {
+		int slash = path.lastIndexOf('/');
+		return slash == -1 ? "" : path.substring(0, slash);
+	}
+
+	/**
+	 * Return the last segment of the given path.
+	 */
+	public static String getName(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+}
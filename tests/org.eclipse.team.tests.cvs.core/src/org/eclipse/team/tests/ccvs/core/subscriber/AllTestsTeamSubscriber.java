@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -36,6 +36,7 @@ public class AllTestsTeamSubscriber extends EclipseTest {
 		suite.addTest(CVSCompareSubscriberTest.suite());
 		suite.addTest(SyncSetTests.suite());
 		suite.addTest(CompareEditorTests.suite());
+		suite.addTest(RemoteTreePrefetchTest.suite());
 		//suite.addTest(CVSChangeSetTests.suite());
 		CVSSyncSubscriberTest.setSyncSource(new ModelParticipantSyncInfoSource());
 		return new CVSTestSetup(suite);
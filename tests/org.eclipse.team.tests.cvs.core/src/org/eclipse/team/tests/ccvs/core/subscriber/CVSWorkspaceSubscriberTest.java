@@ -983,6 +983,52 @@ public class CVSWorkspaceSubscriberTest extends CVSSyncSubscriberTest {
 				SyncInfo.IN_SYNC});
 	}
 	
+	/*
+	 * Test that refreshes following the first refresh of a project (which only
+	 * compare the changed folders with the server) find the incoming changes
+	 */
+	public void testIncomingChangesOnConsecutiveRefreshes() throws IOException, CoreException {
+		// Create a test project and refresh it
+		IProject project = createProject("testIncomingChangesOnConsecutiveRefreshes", new String[] { "file1.txt", "folder1/", "folder1/a.txt", "folder1/b.txt", "folder2/", "folder2/c.txt"});
+		assertSyncEquals("testIncomingChangesOnConsecutiveRefreshes", project,
+			new String[] { "file1.txt", "folder1/a.txt", "folder1/b.txt", "folder2/c.txt"},
+			true, new int[] {
+				SyncInfo.IN_SYNC,
+				SyncInfo.IN_SYNC,
+				SyncInfo.IN_SYNC,
+				SyncInfo.IN_SYNC});
+
+		// Commit changes to some of the folders from a copy
+		IProject copy = checkoutCopy(project, "-copy");
+		setContentsAndEnsureModified(copy.getFile("folder1/a.txt"));
+		addResources(copy, new String[] { "folder1/add.txt" }, false);
+		deleteResources(copy, new String[] {"file1.txt"}, false);
+		commitProject(copy);
+
+		assertSyncEquals("testIncomingChangesOnConsecutiveRefreshes", project,
+			new String[] { "file1.txt", "folder1/a.txt", "folder1/b.txt", "folder1/add.txt", "folder2/c.txt"},
+			true, new int[] {
+				SyncInfo.INCOMING | SyncInfo.DELETION,
+				SyncInfo.INCOMING | SyncInfo.CHANGE,
+				SyncInfo.IN_SYNC,
+				SyncInfo.INCOMING | SyncInfo.ADDITION,
+				SyncInfo.IN_SYNC});
+
+		// Catch up to some of the changes and change another folder
+		update(project, new String[] {"folder1/a.txt"});
+		setContentsAndEnsureModified(copy.getFile("folder2/c.txt"));
+		commitProject(copy);
+
+		assertSyncEquals("testIncomingChangesOnConsecutiveRefreshes", project,
+			new String[] { "file1.txt", "folder1/a.txt", "folder1/b.txt", "folder1/add.txt", "folder2/c.txt"},
+			true, new int[] {
+				SyncInfo.INCOMING | SyncInfo.DELETION,
+				SyncInfo.IN_SYNC,
+				SyncInfo.IN_SYNC,
+				SyncInfo.INCOMING | SyncInfo.ADDITION,
+				SyncInfo.INCOMING | SyncInfo.CHANGE});
+	}
+
 	public void testSyncOnBranch() throws CoreException {
 		
 		// Create a test project and a branch
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.subscriber;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.core.variants.SessionResourceVariantByteStore;
+import org.eclipse.team.internal.ccvs.core.syncinfo.CVSResourceVariantTree;
+import org.eclipse.team.internal.ccvs.core.syncinfo.RemoteTreePrefetch;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the concurrent fetching of the remote trees of a refresh.
+ */
+public class RemoteTreePrefetchTest extends EclipseTest {
+
+	private static final long TIMEOUT = 10;
+
+	private final CVSResourceVariantTree baseTree = new CVSResourceVariantTree(new SessionResourceVariantByteStore(), null, false);
+	private final CVSResourceVariantTree remoteTree = new CVSResourceVariantTree(new SessionResourceVariantByteStore(), null, false);
+	private final IResource project1 = ResourcesPlugin.getWorkspace().getRoot().getProject("prefetch1");
+	private final IResource project2 = ResourcesPlugin.getWorkspace().getRoot().getProject("prefetch2");
+
+	public RemoteTreePrefetchTest() {
+		super();
+	}
+
+	public RemoteTreePrefetchTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(RemoteTreePrefetchTest.class);
+	}
+
+	private static IResourceVariant get(Future<IResourceVariant> future) throws Exception {
+		assertNotNull(future);
+		return future.get(TIMEOUT, TimeUnit.SECONDS);
+	}
+
+	public void testFetchesRunConcurrently() throws Exception {
+		RemoteTreePrefetch prefetch = new RemoteTreePrefetch(2, new NullProgressMonitor());
+		try {
+			// Each fetch only completes once both are running
+			final CyclicBarrier barrier = new CyclicBarrier(2);
+			RemoteTreePrefetch.IFetch fetch = monitor -> {
+				try {
+					barrier.await(TIMEOUT, TimeUnit.SECONDS);
+				} catch (Exception e) {
+					throw new TeamException("The fetches did not run concurrently");
+				}
+				return null;
+			};
+			prefetch.submit(baseTree, project1, IResource.DEPTH_INFINITE, fetch);
+			prefetch.submit(remoteTree, project1, IResource.DEPTH_INFINITE, fetch);
+			assertNull(get(prefetch.remove(baseTree, project1, IResource.DEPTH_INFINITE)));
+			assertNull(get(prefetch.remove(remoteTree, project1, IResource.DEPTH_INFINITE)));
+		} finally {
+			prefetch.dispose();
+		}
+	}
+
+	public void testFetchesStartInRefreshOrder() throws Exception {
+		RemoteTreePrefetch prefetch = new RemoteTreePrefetch(1, new NullProgressMonitor());
+		try {
+			final List<String> started = Collections.synchronizedList(new ArrayList<>());
+			prefetch.submit(baseTree, project1, IResource.DEPTH_INFINITE, monitor -> { started.add("base1"); return null; });
+			prefetch.submit(remoteTree, project1, IResource.DEPTH_INFINITE, monitor -> { started.add("remote1"); return null; });
+			prefetch.submit(baseTree, project2, IResource.DEPTH_INFINITE, monitor -> { started.add("base2"); return null; });
+			prefetch.submit(remoteTree, project2, IResource.DEPTH_INFINITE, monitor -> { started.add("remote2"); return null; });
+			get(prefetch.remove(remoteTree, project2, IResource.DEPTH_INFINITE));
+			assertEquals(Arrays.asList("base1", "remote1", "base2", "remote2"), started);
+		} finally {
+			prefetch.dispose();
+		}
+	}
+
+	public void testFetchesBelongToOneRefresh() throws Exception {
+		RemoteTreePrefetch prefetch = new RemoteTreePrefetch(1, new NullProgressMonitor());
+		try {
+			prefetch.submit(remoteTree, project1, IResource.DEPTH_INFINITE, monitor -> null);
+			prefetch.activate();
+			assertSame(prefetch, RemoteTreePrefetch.getActive());
+
+			// A refresh on another thread has its own prefetch and does not see this one
+			final RemoteTreePrefetch[] seen = new RemoteTreePrefetch[2];
+			Thread other = new Thread(() -> {
+				seen[0] = RemoteTreePrefetch.getActive();
+				RemoteTreePrefetch otherPrefetch = new RemoteTreePrefetch(1, new NullProgressMonitor());
+				try {
+					otherPrefetch.submit(remoteTree, project1, IResource.DEPTH_INFINITE, monitor -> null);
+					otherPrefetch.activate();
+					seen[1] = RemoteTreePrefetch.getActive();
+				} finally {
+					otherPrefetch.dispose();
+				}
+			});
+			other.start();
+			other.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+			assertNull(seen[0]);
+			assertNotNull(seen[1]);
+			assertNotSame(prefetch, seen[1]);
+			assertSame(prefetch, RemoteTreePrefetch.getActive());
+
+			// Fetches are only used by the same tree at the same depth
+			assertNull(prefetch.remove(baseTree, project1, IResource.DEPTH_INFINITE));
+			assertNull(prefetch.remove(remoteTree, project1, IResource.DEPTH_ONE));
+			assertNull(prefetch.remove(remoteTree, project2, IResource.DEPTH_INFINITE));
+			assertNull(get(prefetch.remove(remoteTree, project1, IResource.DEPTH_INFINITE)));
+			// and only once
+			assertNull(prefetch.remove(remoteTree, project1, IResource.DEPTH_INFINITE));
+		} finally {
+			prefetch.dispose();
+		}
+		assertNull(RemoteTreePrefetch.getActive());
+	}
+
+	public void testNestedRefresh() {
+		RemoteTreePrefetch outer = new RemoteTreePrefetch(1, new NullProgressMonitor());
+		try {
+			outer.activate();
+			RemoteTreePrefetch inner = new RemoteTreePrefetch(1, new NullProgressMonitor());
+			try {
+				inner.activate();
+				assertSame(inner, RemoteTreePrefetch.getActive());
+			} finally {
+				inner.dispose();
+			}
+			assertSame(outer, RemoteTreePrefetch.getActive());
+		} finally {
+			outer.dispose();
+		}
+		assertNull(RemoteTreePrefetch.getActive());
+	}
+
+	public void testDisposeCancelsUnusedFetches() throws Exception {
+		RemoteTreePrefetch prefetch = new RemoteTreePrefetch(1, new NullProgressMonitor());
+		final CountDownLatch running = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		final boolean[] queuedFetchRan = new boolean[1];
+		try {
+			prefetch.submit(baseTree, project1, IResource.DEPTH_INFINITE, monitor -> {
+				running.countDown();
+				try {
+					Thread.sleep(TimeUnit.SECONDS.toMillis(TIMEOUT));
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return null;
+			});
+			prefetch.submit(remoteTree, project1, IResource.DEPTH_INFINITE, monitor -> {
+				queuedFetchRan[0] = true;
+				return null;
+			});
+			assertTrue(running.await(TIMEOUT, TimeUnit.SECONDS));
+		} finally {
+			prefetch.dispose();
+		}
+		assertTrue(interrupted.await(TIMEOUT, TimeUnit.SECONDS));
+		assertFalse(queuedFetchRan[0]);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -44,6 +44,9 @@ public class AllUITests extends EclipseTest {
 		suite.addTest(CVSHisoryTableProviderTest.suite());
 		suite.addTest(PatchTreeTest.suite());
 		suite.addTest(RepositoriesViewTests.suite());
+		suite.addTest(AnnotationCacheTest.suite());
+		suite.addTest(DecorationSnapshotTest.suite());
+		suite.addTest(DecorationUpdateSchedulerTest.suite());
 		return suite;
 	}
 
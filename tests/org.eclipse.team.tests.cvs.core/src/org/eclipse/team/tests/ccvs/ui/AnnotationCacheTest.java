@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.ui;
+
+import java.util.*;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.*;
+import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
+import org.eclipse.team.internal.ccvs.core.client.listeners.AnnotateListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
+import org.eclipse.team.internal.ccvs.core.util.Util;
+import org.eclipse.team.internal.ccvs.ui.operations.AnnotationCache;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class AnnotationCacheTest extends EclipseTest {
+
+	private static final String PATH = "project/file.txt";
+
+	public AnnotationCacheTest() {
+		super();
+	}
+
+	public AnnotationCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new CVSTestSetup(new TestSuite(AnnotationCacheTest.class));
+	}
+
+	private ILogEntry createLogEntry(String revision, String author) {
+		return new LogEntry(RemoteFile.create(PATH, getRepository()), revision, author, new Date(0), "", "Exp", new CVSTag[0], new CVSTag[0]);
+	}
+
+	private Map<String, ILogEntry> createLogEntries(String... revisions) {
+		Map<String, ILogEntry> entries = new HashMap<>();
+		for (String revision : revisions) {
+			entries.put(revision, createLogEntry(revision, "bob"));
+		}
+		return entries;
+	}
+
+	public void testCacheHit() throws CVSException {
+		AnnotationCache cache = new AnnotationCache();
+		String[] lines = new String[] { "1.1          (alice    21-Feb-02): a" };
+		cache.putAnnotation(getRepository(), PATH, "1.1", lines);
+		assertSame(lines, cache.getAnnotation(getRepository(), PATH, "1.1", createLogEntries(), DEFAULT_MONITOR));
+	}
+
+	public void testCacheMiss() throws CVSException {
+		AnnotationCache cache = new AnnotationCache();
+		String[] lines = new String[] { "1.1          (alice    21-Feb-02): a" };
+		assertNull(cache.getAnnotation(getRepository(), PATH, "1.1", createLogEntries(), DEFAULT_MONITOR));
+		cache.putAnnotation(getRepository(), PATH, "1.1", lines);
+		// Another file
+		assertNull(cache.getAnnotation(getRepository(), "project/other.txt", "1.1", createLogEntries(), DEFAULT_MONITOR));
+		// A revision on another branch
+		assertNull(cache.getAnnotation(getRepository(), PATH, "1.1.2.1", createLogEntries("1.1.2.1"), DEFAULT_MONITOR));
+		// An earlier revision cannot be derived
+		cache.putAnnotation(getRepository(), "project/later.txt", "1.3", lines);
+		assertNull(cache.getAnnotation(getRepository(), "project/later.txt", "1.2", createLogEntries("1.2"), DEFAULT_MONITOR));
+		cache.putAnnotation(getRepository(), PATH, "1.3", lines);
+		// Too many intermediate revisions
+		assertNull(cache.getAnnotation(getRepository(), PATH, "1.8", createLogEntries("1.4", "1.5", "1.6", "1.7", "1.8"), DEFAULT_MONITOR));
+		// The log entry of an intermediate revision is missing
+		assertNull(cache.getAnnotation(getRepository(), PATH, "1.5", createLogEntries("1.5"), DEFAULT_MONITOR));
+	}
+
+	public void testInvalidAnnotationNotCached() throws CVSException {
+		AnnotationCache cache = new AnnotationCache();
+		cache.putAnnotation(getRepository(), PATH, "1.1", new String[] { "not annotated" });
+		assertNull(cache.getAnnotation(getRepository(), PATH, "1.1", createLogEntries(), DEFAULT_MONITOR));
+	}
+
+	public void testDeriveInsertedAndChangedLines() {
+		String[] previous = new String[] {
+				"1.1          (alice    21-Feb-02): a",
+				"1.1          (alice    21-Feb-02): b",
+				"1.1          (alice    21-Feb-02): c" };
+		String[] lines = new AnnotationCache().deriveAnnotation(previous, new String[] { "a", "x", "b", "C", "d" }, createLogEntry("1.2", "bob"));
+		assertEquals(Arrays.asList(
+				"1.1          (alice    21-Feb-02): a",
+				"1.2          (bob      01-Jan-70): x",
+				"1.1          (alice    21-Feb-02): b",
+				"1.2          (bob      01-Jan-70): C",
+				"1.2          (bob      01-Jan-70): d"), Arrays.asList(lines));
+	}
+
+	public void testDeriveDeletedLines() {
+		String[] previous = new String[] {
+				"1.1          (alice    21-Feb-02): a",
+				"1.2          (bob      22-Feb-02): b",
+				"1.1          (alice    21-Feb-02): c",
+				"1.1          (alice    21-Feb-02): d" };
+		String[] lines = new AnnotationCache().deriveAnnotation(previous, new String[] { "a", "d" }, createLogEntry("1.3", "carol"));
+		assertEquals(Arrays.asList(
+				"1.1          (alice    21-Feb-02): a",
+				"1.1          (alice    21-Feb-02): d"), Arrays.asList(lines));
+	}
+
+	public void testDeriveIgnoresKeywords() {
+		String[] previous = new String[] {
+				"1.1          (alice    21-Feb-02): $Revision: 1.1 $",
+				"1.1          (alice    21-Feb-02): a" };
+		String[] lines = new AnnotationCache().deriveAnnotation(previous, new String[] { "$Revision: 1.2 $", "a" }, createLogEntry("1.2", "bob"));
+		assertEquals(Arrays.asList(
+				"1.1          (alice    21-Feb-02): $Revision: 1.2 $",
+				"1.1          (alice    21-Feb-02): a"), Arrays.asList(lines));
+	}
+
+	public void testDerivedAnnotationMatchesServer() throws CoreException, TeamException {
+		IProject project = createProject(new String[] { "file.txt" });
+		IFile file = project.getFile("file.txt");
+		setContentsAndEnsureModified(file, "a\nb\nc\nd\n");
+		commitResources(project, new String[] { "file.txt" });
+		ICVSFile cvsFile = CVSWorkspaceRoot.getCVSFileFor(file);
+		String first = cvsFile.getSyncInfo().getRevision();
+		String[] firstAnnotation = annotate(cvsFile, first);
+
+		// Lines are inserted, changed and deleted in the following revisions
+		setContentsAndEnsureModified(file, "a\nx\nb\nc\nd\n");
+		commitResources(project, new String[] { "file.txt" });
+		setContentsAndEnsureModified(file, "a\nx\nB\nd\ne\n");
+		commitResources(project, new String[] { "file.txt" });
+		String last = cvsFile.getSyncInfo().getRevision();
+
+		Map<String, ILogEntry> entries = new HashMap<>();
+		for (ILogEntry entry : cvsFile.getLogEntries(DEFAULT_MONITOR)) {
+			entries.put(entry.getRevision(), entry);
+		}
+		String path = Util.appendPath(cvsFile.getParent().getFolderSyncInfo().getRepository(), file.getName());
+		AnnotationCache cache = new AnnotationCache();
+		cache.putAnnotation(getRepository(), path, first, firstAnnotation);
+		String[] derived = cache.getAnnotation(getRepository(), path, last, entries, DEFAULT_MONITOR);
+		assertNotNull(derived);
+		assertEquals(getRevisionsAndSource(annotate(cvsFile, last)), getRevisionsAndSource(derived));
+		// The derived annotation is cached
+		assertSame(derived, cache.getAnnotation(getRepository(), path, last, entries, DEFAULT_MONITOR));
+	}
+
+	private String[] annotate(ICVSFile file, String revision) throws CVSException {
+		AnnotateListener listener = new AnnotateListener();
+		Session session = new Session(getRepository(), file.getParent(), false);
+		session.open(DEFAULT_MONITOR, false /* read-only */);
+		try {
+			IStatus status = Command.ANNOTATE.execute(session, Command.NO_GLOBAL_OPTIONS,
+					new LocalOption[] { Annotate.makeRevisionOption(revision) }, new ICVSResource[] { file }, listener, DEFAULT_MONITOR);
+			assertTrue(status.getMessage(), status.getCode() != CVSStatus.SERVER_ERROR);
+		} finally {
+			session.close();
+		}
+		return listener.getLines();
+	}
+
+	/*
+	 * The dates are left out since the server may format them in another time zone
+	 */
+	private List<String> getRevisionsAndSource(String[] lines) {
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < lines.length; i++) {
+			CVSAnnotateBlock block = new CVSAnnotateBlock(lines[i], i);
+			result.add(block.getRevision() + " " + lines[i].substring(block.getSourceOffset()));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.ui;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.ui.*;
+import org.eclipse.team.tests.ccvs.core.CVSUITestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the snapshots of the CVS state of resources that are cached by the decorator.
+ */
+public class DecorationSnapshotTest extends EclipseTest {
+
+	private final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+	private final IFile file1 = root.getFile(new Path("snapshot1/file1.txt"));
+	private final IFile file2 = root.getFile(new Path("snapshot1/file2.txt"));
+	private final IFile file3 = root.getFile(new Path("snapshot2/file3.txt"));
+
+	public DecorationSnapshotTest() {
+		super();
+	}
+
+	public DecorationSnapshotTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		// The setup enables the decorator, which owns the cache of snapshots
+		return new CVSUITestSetup(new TestSuite(DecorationSnapshotTest.class));
+	}
+
+	/*
+	 * Creates snapshots holding the revision 1.1 and counts them
+	 */
+	private static class CountingFactory implements DecorationSnapshotCache.ISnapshotFactory {
+		final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public DecorationSnapshot createSnapshot(IResource resource) throws CVSException {
+			count.incrementAndGet();
+			CVSDecoration state = new CVSDecoration();
+			state.setRevision("1.1");
+			return new DecorationSnapshot(state, false, null);
+		}
+	}
+
+	public void testApplyKeepsDirtyState() {
+		CVSDecoration decoration = new CVSDecoration();
+		decoration.setDirty(true);
+		new DecorationSnapshot(new CVSDecoration(), false, null).apply(decoration);
+		assertTrue(decoration.isDirty());
+
+		CVSDecoration state = new CVSDecoration();
+		state.setDirty(false);
+		new DecorationSnapshot(state, true, null).apply(decoration);
+		assertFalse(decoration.isDirty());
+	}
+
+	public void testApplyIgnored() {
+		CVSDecoration state = new CVSDecoration();
+		state.setIgnored(true);
+		state.setRevision("1.1");
+		DecorationSnapshot snapshot = new DecorationSnapshot(state, false, "tag");
+		CVSDecoration decoration = new CVSDecoration();
+		snapshot.apply(decoration);
+		assertTrue(decoration.isIgnored());
+		assertNull(decoration.getRevision());
+		assertEquals("tag", snapshot.getTag());
+	}
+
+	public void testCacheHit() throws CVSException {
+		DecorationSnapshotCache cache = new DecorationSnapshotCache();
+		CountingFactory factory = new CountingFactory();
+		DecorationSnapshot snapshot = cache.get(file1, factory);
+		assertSame(snapshot, cache.get(file1, factory));
+		assertEquals(1, factory.count.get());
+		assertNotSame(snapshot, cache.get(file2, factory));
+		assertEquals(2, factory.count.get());
+	}
+
+	public void testInvalidate() throws CVSException {
+		DecorationSnapshotCache cache = new DecorationSnapshotCache();
+		CountingFactory factory = new CountingFactory();
+		cache.get(file1, factory);
+		cache.get(file2, factory);
+		cache.get(file3, factory);
+
+		cache.invalidate(Collections.singleton(file1));
+		assertEquals(2, cache.size());
+		cache.get(file1, factory);
+		assertEquals(4, factory.count.get());
+
+		cache.invalidate(file1.getProject());
+		assertEquals(1, cache.size());
+		cache.get(file3, factory);
+		assertEquals(4, factory.count.get());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	public void testInvalidatedWhileComputed() throws CVSException {
+		final DecorationSnapshotCache cache = new DecorationSnapshotCache();
+		final CountingFactory factory = new CountingFactory();
+		// The resource changes while its snapshot is computed
+		DecorationSnapshot snapshot = cache.get(file1, resource -> {
+			DecorationSnapshot result = factory.createSnapshot(resource);
+			cache.invalidate(Collections.singleton(resource));
+			return result;
+		});
+		assertNotNull(snapshot);
+		assertEquals(0, cache.size());
+		assertNotSame(snapshot, cache.get(file1, factory));
+		assertEquals(2, factory.count.get());
+	}
+
+	public void testCacheIsBounded() throws CVSException {
+		DecorationSnapshotCache cache = new DecorationSnapshotCache(2);
+		CountingFactory factory = new CountingFactory();
+		cache.get(file1, factory);
+		cache.get(file2, factory);
+		cache.get(file3, factory);
+		assertTrue(cache.size() <= 2);
+	}
+
+	public void testSnapshotInvalidatedOnCommit() throws CoreException, TeamException {
+		IProject project = createProject(new String[] { "file.txt" });
+		IFile file = project.getFile("file.txt");
+		assertEquals("1.1", CVSLightweightDecorator.decorate(file, false).getRevision());
+		// A cached snapshot is used for the same state
+		assertEquals("1.1", CVSLightweightDecorator.decorate(file, false).getRevision());
+
+		setContentsAndEnsureModified(file);
+		commitResources(project, new String[] { "file.txt" });
+		assertEquals("1.2", CVSLightweightDecorator.decorate(file, false).getRevision());
+	}
+
+	public void testSnapshotInvalidatedOnAdd() throws CoreException, TeamException {
+		IProject project = createProject(new String[] { "file.txt" });
+		IFile file = project.getFile("added.txt");
+		file.create(getRandomContents(), false, null);
+		assertFalse(CVSLightweightDecorator.decorate(file, false).isAdded());
+
+		addResources(new IResource[] { file });
+		assertTrue(CVSLightweightDecorator.decorate(file, false).isAdded());
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.ui;
+
+import java.util.*;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.team.internal.ccvs.ui.DecorationUpdateScheduler;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the batching of the decoration updates that are sent to the UI thread.
+ */
+public class DecorationUpdateSchedulerTest extends EclipseTest {
+
+	// The batch size and the pending limit of the scheduler
+	private static final int BATCH_SIZE = 250;
+	private static final int MAX_PENDING = 5000;
+
+	private final List<Object[]> batches = new ArrayList<>();
+	private DecorationUpdateScheduler scheduler;
+
+	public DecorationUpdateSchedulerTest() {
+		super();
+	}
+
+	public DecorationUpdateSchedulerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(DecorationUpdateSchedulerTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		scheduler = new DecorationUpdateScheduler(batches::add);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		scheduler.dispose();
+		super.tearDown();
+	}
+
+	private static List<Object> createElements(int count) {
+		List<Object> elements = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			elements.add("element" + i);
+		}
+		return elements;
+	}
+
+	/*
+	 * Run the updates posted to the UI thread and return the updated elements
+	 */
+	private List<Object> dispatch() {
+		while (Display.getCurrent().readAndDispatch()) {}
+		List<Object> updated = new ArrayList<>();
+		for (Object[] batch : batches) {
+			assertNotNull(batch);
+			updated.addAll(Arrays.asList(batch));
+		}
+		return updated;
+	}
+
+	public void testRepeatedUpdatesCollapse() {
+		scheduler.schedule(Collections.singleton("a"));
+		scheduler.schedule(Collections.singleton("a"));
+		scheduler.schedule(Arrays.asList("b", "a"));
+		scheduler.schedule(Collections.singleton("b"));
+		assertTrue(batches.isEmpty());
+		assertEquals(Arrays.asList("a", "b"), dispatch());
+		assertEquals(1, batches.size());
+	}
+
+	public void testElementUpdatedAgainAfterDispatch() {
+		scheduler.schedule(Collections.singleton("a"));
+		assertEquals(Collections.singletonList("a"), dispatch());
+		scheduler.schedule(Collections.singleton("a"));
+		assertEquals(Arrays.asList("a", "a"), dispatch());
+	}
+
+	public void testBatchesAreFlushed() {
+		List<Object> elements = createElements(MAX_PENDING);
+		scheduler.schedule(elements.subList(0, MAX_PENDING / 2));
+		scheduler.schedule(elements.subList(MAX_PENDING / 2, MAX_PENDING));
+		// Every element is updated once and in order
+		assertEquals(elements, dispatch());
+		assertTrue(batches.size() >= MAX_PENDING / BATCH_SIZE);
+		for (Object[] batch : batches) {
+			assertTrue(batch.length <= BATCH_SIZE);
+		}
+	}
+
+	public void testTooManyElementsUpdateAll() {
+		scheduler.schedule(createElements(MAX_PENDING + 1));
+		scheduler.schedule(Collections.singleton("a"));
+		while (Display.getCurrent().readAndDispatch()) {}
+		assertEquals(1, batches.size());
+		assertNull(batches.get(0));
+	}
+
+	public void testScheduleAll() {
+		scheduler.schedule(createElements(10));
+		scheduler.scheduleAll();
+		while (Display.getCurrent().readAndDispatch()) {}
+		assertEquals(1, batches.size());
+		assertNull(batches.get(0));
+	}
+
+	public void testDispose() {
+		scheduler.schedule(createElements(10));
+		scheduler.dispose();
+		scheduler.schedule(createElements(10));
+		scheduler.scheduleAll();
+		while (Display.getCurrent().readAndDispatch()) {}
+		assertTrue(batches.isEmpty());
+	}
+}
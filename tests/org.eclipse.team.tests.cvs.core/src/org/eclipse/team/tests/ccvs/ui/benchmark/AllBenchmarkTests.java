@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2021 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,7 @@ import junit.framework.TestSuite;
 
 import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
 import org.eclipse.team.tests.ccvs.core.EclipseTest;
+import org.eclipse.team.tests.ccvs.core.cvsresources.CVSDateFormatterPerformanceTest;
 
 public class AllBenchmarkTests extends EclipseTest {
 
@@ -33,7 +34,12 @@ public class AllBenchmarkTests extends EclipseTest {
 		suite.addTest(WorkflowTests.suite());
 		suite.addTest(SyncTests.suite());
 		// TODO: Enable decorators?
-		return new CVSTestSetup(suite);
+		TestSuite all = new TestSuite();
+		all.addTest(new CVSTestSetup(suite));
+		// Runs against its own server so it does not need the test repository
+		all.addTest(FakeServerBenchmarkTest.suite());
+		all.addTest(CVSDateFormatterPerformanceTest.suite());
+		return all;
 	}
 }
 
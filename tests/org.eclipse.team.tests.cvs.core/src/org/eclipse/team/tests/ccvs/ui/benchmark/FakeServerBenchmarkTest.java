@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2021 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.ui.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSStatus;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
+import org.eclipse.team.internal.ccvs.core.client.Command;
+import org.eclipse.team.internal.ccvs.core.client.Session;
+import org.eclipse.team.internal.ccvs.core.client.listeners.ICommandOutputListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.StatusListener;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTreeBuilder;
+import org.eclipse.team.tests.ccvs.core.server.FakeCVSServer;
+import org.eclipse.team.tests.ccvs.core.server.FakeCVSServerSetup;
+import org.eclipse.team.tests.ccvs.core.server.RepositoryStore;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Measures the throughput of the client operations against a {@link FakeCVSServer}
+ * so that the timings do not depend on the load of a shared server or network.
+ * The modules are created directly in the repository store of the server.
+ */
+public class FakeServerBenchmarkTest extends BenchmarkTest {
+	private static final int FOLDER_COUNT = 20;
+	private static final int FILES_PER_FOLDER = 25;
+	private static final int FILE_SIZE = 4096;
+	private static final int CHANGE_COUNT = 50;
+
+	private static final String CHECKOUT = "Checkout";
+	private static final String BUILD_TREE = "BuildTree";
+	private static final String STATUS = "Status";
+	private static final String UPDATE = "Update";
+	private static final String COMMIT = "Commit";
+	private static final String LOG = "Log";
+	private static final String[] PERFORMANCE_GROUPS = new String[] { CHECKOUT, BUILD_TREE, STATUS, UPDATE, COMMIT, LOG };
+
+	public FakeServerBenchmarkTest() {
+		super();
+	}
+
+	public FakeServerBenchmarkTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new FakeCVSServerSetup(new TestSuite(FakeServerBenchmarkTest.class));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		FakeCVSServer server = FakeCVSServerSetup.getServer();
+		server.setLatency(0);
+		server.setBandwidth(0);
+		super.tearDown();
+	}
+
+	public void testWorkflowLocal() throws Exception {
+		runWorkflow(0, 0);
+	}
+
+	public void testWorkflowRemote() throws Exception {
+		// 20ms round trips over a 1MB/s link
+		runWorkflow(20, 1024 * 1024);
+	}
+
+	private void runWorkflow(long latency, int bandwidth) throws Exception {
+		FakeCVSServer server = FakeCVSServerSetup.getServer();
+		server.setLatency(latency);
+		server.setBandwidth(bandwidth);
+		setupGroups(PERFORMANCE_GROUPS);
+		for (int i = 0; i < BenchmarkTestSetup.LOOP_COUNT; i++) {
+			SequenceGenerator gen = new SequenceGenerator();
+			String module = createModule(server.getStore(), gen);
+			IProject project = BenchmarkUtils.getProject(module);
+
+			startGroup(CHECKOUT);
+			checkoutProject(project, module, null);
+			endGroup();
+
+			commitIncomingChanges(server.getStore(), module, gen);
+			startGroup(BUILD_TREE);
+			RemoteFolderTreeBuilder.buildRemoteTree(getRepository(), project, CVSTag.DEFAULT, DEFAULT_MONITOR);
+			endGroup();
+
+			startGroup(STATUS);
+			execute(project, Command.STATUS, new StatusListener((commandRoot, path, remoteRevision) -> {
+				// Only the parsing is measured
+			}));
+			endGroup();
+
+			startGroup(UPDATE);
+			updateProject(project, null, false);
+			endGroup();
+
+			BenchmarkUtils.modifyRandomDeepFiles(gen, project, CHANGE_COUNT);
+			startGroup(COMMIT);
+			commitProject(project);
+			endGroup();
+
+			startGroup(LOG);
+			execute(project, Command.LOG, new LogListener(entry -> {
+				// Only the parsing is measured
+			}));
+			endGroup();
+		}
+		commitGroups(false);
+	}
+
+	private String createModule(RepositoryStore store, SequenceGenerator gen) throws IOException {
+		String module = "benchmark" + SequenceGenerator.nextGloballyUniqueLong();
+		for (int i = 0; i < FOLDER_COUNT; i++) {
+			for (int j = 0; j < FILES_PER_FOLDER; j++) {
+				store.commit(getFilePath(module, i, j), createContents(gen), "", "benchmark", "Initial revision");
+			}
+		}
+		return module;
+	}
+
+	private void commitIncomingChanges(RepositoryStore store, String module, SequenceGenerator gen) throws IOException {
+		for (int i = 0; i < CHANGE_COUNT; i++) {
+			store.commit(getFilePath(module, gen.nextInt(FOLDER_COUNT), gen.nextInt(FILES_PER_FOLDER)), createContents(gen), "", "benchmark", "Incoming change");
+		}
+	}
+
+	private String getFilePath(String module, int folder, int file) {
+		return module + "/folder" + folder + "/file" + file + ".txt";
+	}
+
+	private byte[] createContents(SequenceGenerator gen) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(FILE_SIZE);
+		BenchmarkUtils.writeRandomText(gen, out, FILE_SIZE);
+		return out.toByteArray();
+	}
+
+	private void execute(IProject project, Command command, ICommandOutputListener listener) throws CVSException {
+		Session session = new Session(getRepository(), CVSWorkspaceRoot.getCVSFolderFor(project), false);
+		session.open(DEFAULT_MONITOR, false /* read-only */);
+		try {
+			IStatus status = command.execute(session, Command.NO_GLOBAL_OPTIONS, Command.NO_LOCAL_OPTIONS,
+					new String[] { "." }, listener, DEFAULT_MONITOR);
+			assertTrue(status.getMessage(), status.getCode() != CVSStatus.SERVER_ERROR);
+		} finally {
+			session.close();
+		}
+	}
+}